@@ -0,0 +1,46 @@
+package com.zipwhip.api;
+
+import java.util.Map;
+
+/**
+ * One API call (method + params) to be sent as part of a batch.
+ *
+ * @see ZipwhipNetworkSupport#executeBatch(java.util.List)
+ */
+public class ApiCall {
+
+    private final String method;
+    private final Map<String, Object> params;
+    private final boolean requiresAuthentication;
+
+    public ApiCall(String method, Map<String, Object> params) {
+        this(method, params, true);
+    }
+
+    public ApiCall(String method, Map<String, Object> params, boolean requiresAuthentication) {
+        if (method == null) {
+            throw new NullPointerException("method");
+        }
+
+        this.method = method;
+        this.params = params;
+        this.requiresAuthentication = requiresAuthentication;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public Map<String, Object> getParams() {
+        return params;
+    }
+
+    public boolean isRequiresAuthentication() {
+        return requiresAuthentication;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[ApiCall: %s %s]", method, params);
+    }
+}
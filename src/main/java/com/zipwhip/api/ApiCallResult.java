@@ -0,0 +1,46 @@
+package com.zipwhip.api;
+
+import com.zipwhip.api.response.ServerResponse;
+
+/**
+ * The outcome of one ApiCall in a batch. Each call succeeds or fails on its own.
+ */
+public class ApiCallResult {
+
+    private final ApiCall call;
+    private final ServerResponse response;
+    private final Throwable cause;
+
+    public ApiCallResult(ApiCall call, ServerResponse response, Throwable cause) {
+        this.call = call;
+        this.response = response;
+        this.cause = cause;
+    }
+
+    public ApiCall getCall() {
+        return call;
+    }
+
+    /**
+     * @return the parsed response from the server, or null if this call failed.
+     */
+    public ServerResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * @return why this call failed, or null if it succeeded.
+     */
+    public Throwable getCause() {
+        return cause;
+    }
+
+    public boolean isSuccess() {
+        return cause == null;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[ApiCallResult: %s success=%s]", call, isSuccess());
+    }
+}
@@ -0,0 +1,629 @@
+package com.zipwhip.api;
+
+import com.zipwhip.api.dto.*;
+import com.zipwhip.concurrent.ObservableFuture;
+import com.zipwhip.lifecycle.Destroyable;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The asynchronous twin of {@link ZipwhipClient}. Every call returns right away with an {@code ObservableFuture}
+ * instead of blocking the caller until the network answers.
+ * <p/>
+ * Failures (network, server or parsing) are reported through the future, never thrown.
+ */
+public interface AsyncZipwhipClient extends Destroyable {
+
+    /**
+     * Send a message via Zipwhip.
+     *
+     * @param message A {@code Message} object from which to send the message.
+     * @return A {@code ObservableFuture} that will asynchronously report a {@code List} of {@code MessageToken}s, indicating the status of the message.
+     */
+    ObservableFuture<List<MessageToken>> sendMessage(Message message);
+
+    /**
+     * Send a message via Zipwhip.
+     *
+     * @param address Zipwhip {@link Address} scheme.
+     * @param body    The body of the message to be sent.
+     * @return A {@code ObservableFuture} that will asynchronously report a {@code List} of {@code MessageToken}s, indicating the status of the message.
+     */
+    ObservableFuture<List<MessageToken>> sendMessage(Address address, String body);
+
+    /**
+     * Send a message via Zipwhip.
+     *
+     * @param address  Zipwhip {@link Address} scheme.
+     * @param body     The body of the message to be sent.
+     * @param fromName The name of the sender of the message.
+     * @return A {@code ObservableFuture} that will asynchronously report a {@code List} of {@code MessageToken}s, indicating the status of the message.
+     */
+    ObservableFuture<List<MessageToken>> sendMessage(Address address, String body, String fromName);
+
+    /**
+     * Send a message via Zipwhip.
+     *
+     * @param address The address, generally the mobile number, of the message recipient.
+     * @param body    The body of the message to be sent.
+     * @return A {@code ObservableFuture} that will asynchronously report a {@code List} of {@code MessageToken}s, indicating the status of the message.
+     */
+    ObservableFuture<List<MessageToken>> sendMessage(String address, String body);
+
+    /**
+     * Send a message via Zipwhip.
+     *
+     * @param address The address, generally the mobile number, of the message recipient.
+     * @param body    The body of the message to be sent.
+     * @return A {@code ObservableFuture} that will asynchronously report a {@code List} of {@code MessageToken}s, indicating the status of the message.
+     */
+    ObservableFuture<List<MessageToken>> sendMessage(Collection<String> address, String body);
+
+    /**
+     * Send a message via Zipwhip.
+     *
+     * @param address  The address, generally the mobile number, of the message recipient.
+     * @param body     The body of the message to be sent.
+     * @param fromName The name of the sender of the message.
+     * @return A {@code ObservableFuture} that will asynchronously report a {@code List} of {@code MessageToken}s, indicating the status of the message.
+     */
+    ObservableFuture<List<MessageToken>> sendMessage(Collection<String> address, String body, String fromName);
+
+    /**
+     * Send a message via Zipwhip.
+     *
+     * @param address       The address, generally the mobile number, of the message recipient.
+     * @param body          The body of the message to be sent.
+     * @param fromName      The name of the sender of the message.
+     * @param advertisement A code indicating to Zipwhip what should be appended to the message.
+     * @return A {@code ObservableFuture} that will asynchronously report a {@code List} of {@code MessageToken}s, indicating the status of the message.
+     */
+    ObservableFuture<List<MessageToken>> sendMessage(Collection<String> address, String body, String fromName, String advertisement);
+
+    /**
+     * Send a message via Zipwhip.
+     *
+     * @param address       The address, generally the mobile number, of the message recipient.
+     * @param body          The body of the message to be sent.
+     * @param fromName      The name of the sender of the message.
+     * @param advertisement A code indicating to Zipwhip what should be appended to the message.
+     * @return A {@code ObservableFuture} that will asynchronously report a {@code List} of {@code MessageToken}s, indicating the status of the message.
+     */
+    ObservableFuture<List<MessageToken>> sendMessage(String address, String body, String fromName, String advertisement);
+
+    /**
+     * Send a message via Zipwhip.
+     *
+     * @param address     The address, generally the mobile number, of the message recipient.
+     * @param body        The body of the message to be sent.
+     * @param fromAddress The send strategy.
+     * @return A {@code ObservableFuture} that will asynchronously report a {@code List} of {@code MessageToken}s, indicating the status of the message.
+     */
+    ObservableFuture<List<MessageToken>> sendMessage(String address, String body, int fromAddress);
+
+    /**
+     * Send an MMS message via Zipwhip.
+     * <p/>
+     * This method will send an MMS with attachments that have been pre-uploaded to Zipwhip via
+     * {@code saveHostedContent}. The argument {@code storageKeys} are the result of that method.
+     *
+     * @param addresses The address, generally the mobile number, of the message recipient.
+     * @param body      The body of the message to be sent.
+     * @param urls      A list of public URLs to attach to the message.
+     * @return A {@code ObservableFuture} that will asynchronously report a {@code List} of {@code MessageToken}s, indicating the status of the message.
+     */
+    ObservableFuture<List<MessageToken>> sendMessage(Collection<String> addresses, String body, List<String> urls);
+
+    /**
+     * Create a new group.
+     *
+     * @param type          The type of group, eg. reply-all.
+     * @param advertisement A code indicating to Zipwhip what should be appended to the message.
+     * @return A {@code ObservableFuture} that will asynchronously report a {@link Contact} representing the new group.
+     */
+    ObservableFuture<Contact> saveGroup(String type, String advertisement);
+
+    /**
+     * Returns the Group for the provided device address
+     *
+     * @param address - the group address
+     * @return
+     * @return A {@code ObservableFuture} that will asynchronously report the result of the call.
+     */
+    ObservableFuture<Group> getGroup(String address);
+
+    /**
+     * Create a new group.
+     *
+     * @return A {@code ObservableFuture} that will asynchronously report a {@link Contact} representing the new group.
+     */
+    ObservableFuture<Contact> saveGroup();
+
+    /**
+     * Save or update the user's information.
+     *
+     * @param contact A {@link Contact} object representing the user to be saved.
+     * @return A {@code ObservableFuture} that will asynchronously report the {@link Contact} object representing the user that has been saved.
+     */
+    ObservableFuture<Contact> saveUser(Contact contact);
+
+    /**
+     * Saves or updates the user information.  For all values for which null is passed in, that value will remain unchanged,
+     * relative to the website.
+     *
+     * @param firstName The first name of the user.
+     * @param lastName  The last name of the user.
+     * @param email     The email of the user.
+     * @param phoneKey  Indicates the user's phone type.
+     * @param location  The user's location.
+     * @param notes     Free text.
+     * @return A {@code ObservableFuture} that will asynchronously report the result of the call.
+     */
+    ObservableFuture<Void> saveUser(String firstName, String lastName, String email, String phoneKey, String location, String notes);
+
+    /**
+     * Get the user associated with the currently authenticated sessionKey for this client.
+     *
+     * @return A {@code ObservableFuture} that will asynchronously report the the user associated with the currently authenticated sessionKey for this client.
+     */
+    ObservableFuture<User> getUser();
+
+    /**
+     * Returns a Message object
+     *
+     * @param uuid - message uuid
+     * @return A {@code ObservableFuture} that will asynchronously report a Message DTO matching the uuid.
+     * @deprecated Use {@code getMessage(Long id)}
+     */
+    ObservableFuture<Message> getMessage(String uuid);
+
+    /**
+     * Returns a Message object
+     *
+     * @param id - message id
+     * @return A {@code ObservableFuture} that will asynchronously report a Message DTO matching the id.
+     */
+    ObservableFuture<Message> getMessage(Long id);
+
+    /**
+     * @return A {@code ObservableFuture} that will asynchronously report a list of all {@link Device}s associated with the user.
+     */
+    ObservableFuture<List<Device>> listDevices();
+
+    /**
+     * @return A {@code ObservableFuture} that will asynchronously report a list of the most recent {@link Conversation}s associated with the user, up to the server's predefined limit.
+     */
+    ObservableFuture<List<Conversation>> listConversations();
+
+    /**
+     * @param limit The maximum limit of how many conversations to return.
+     * @return A {@code ObservableFuture} that will asynchronously report a list of the most recent {@link Conversation}s associated with the user, up to the specified limit.
+     */
+    ObservableFuture<List<Conversation>> listConversations(int limit);
+
+    /**
+     * @param start Where to start list conversations.  (Zero indexed)
+     * @param limit The maximum limit of how many conversations to return.
+     * @return A {@code ObservableFuture} that will asynchronously report a list of the most recent {@link Conversation}s associated with the user, up to the specified limit.
+     */
+    ObservableFuture<List<Conversation>> listConversations(int start, int limit);
+
+    /**
+     * Walk all the {@link Conversation}s associated with the user, a page at a time. The next prefetchDepth pages load in
+     * the background while you consume the current one, and only those pages are held in memory.
+     *
+     * @param pageSize      How many conversations to ask for at a time.
+     * @param prefetchDepth How many pages to load ahead of the one being consumed. Zero loads each page on demand.
+     * @return A {@link PagedIterator} over all the conversations. Destroy it if you stop early.
+     */
+    PagedIterator<Conversation> iterateConversations(int pageSize, int prefetchDepth);
+
+    /**
+     * @return A {@code ObservableFuture} that will asynchronously report a list of all {@link Contact}s associated with the supplied user.
+     */
+    ObservableFuture<List<Contact>> listContacts();
+
+    /**
+     * @param start Where to start list contacts.  (Zero indexed)
+     * @param limit The maximum limit of how many contacts to return.
+     * @return A {@code ObservableFuture} that will asynchronously report a list of all {@link Contact}s associated with the supplied user.
+     */
+    ObservableFuture<List<Contact>> listContacts(int start, int limit);
+
+    /**
+     * Walk all the {@link Contact}s associated with the user, a page at a time. The next prefetchDepth pages load in
+     * the background while you consume the current one, and only those pages are held in memory.
+     *
+     * @param pageSize      How many contacts to ask for at a time.
+     * @param prefetchDepth How many pages to load ahead of the one being consumed. Zero loads each page on demand.
+     * @return A {@link PagedIterator} over all the contacts. Destroy it if you stop early.
+     */
+    PagedIterator<Contact> iterateContacts(int pageSize, int prefetchDepth);
+
+    /**
+     * @param fingerprint The fingerprint of the conversation that you wish to mark as read.
+     * @return A {@code ObservableFuture} that will asynchronously report a boolean which represents whether or not the operation completed successfully.
+     */
+    ObservableFuture<Boolean> readConversation(String fingerprint);
+
+    /**
+     * @param fingerprint The fingerprint of the conversation that you wish to mark as read.
+     * @return A {@code ObservableFuture} that will asynchronously report a boolean which represents whether or not the operation completed successfully.
+     */
+    ObservableFuture<Boolean> deleteConversation(String fingerprint);
+
+    /**
+     * Returns the contact for the provided contact id.
+     *
+     * @param contactId The id of the contact to be deleted.
+     * @return A {@code ObservableFuture} that will asynchronously report a boolean which represents whether or not the operation completed successfully.
+     */
+    ObservableFuture<Boolean> deleteContact(long contactId);
+
+    /**
+     * Returns the most recent messages for the user, up to a limit maintained by the zipwhip server.
+     *
+     * @param fingerprint The fingerprint for which you wish to load messages.
+     * @return A {@code ObservableFuture} that will asynchronously report a list consisting of the most recent messages associated with the supplied fingerprint.
+     */
+    ObservableFuture<List<Message>> listMessagesByFingerprint(String fingerprint);
+
+    /**
+     * Returns the most recent messages for the supplied conversation, up to a the supplied limit.
+     *
+     * @param fingerprint The fingerprint for which you wish to load messages.
+     * @param limit       The maximum number of messages that this call will return.
+     * @return A {@code ObservableFuture} that will asynchronously report a list consisting of the most recent messages associated with the supplied fingerprint.
+     */
+    ObservableFuture<List<Message>> listMessagesByFingerprint(String fingerprint, int limit);
+
+    /**
+     * Returns the most recent messages for the supplied conversation, up to a the supplied limit.
+     *
+     * @param fingerprint The fingerprint for which you wish to load messages.
+     * @param start       Where in the list to start. (Zero indexed)
+     * @param limit       The maximum number of messages that this call will return.
+     * @return A {@code ObservableFuture} that will asynchronously report a list consisting of the most recent messages associated with the supplied fingerprint.
+     */
+    ObservableFuture<List<Message>> listMessagesByFingerprint(String fingerprint, int start, int limit);
+
+    /**
+     * @return A {@code ObservableFuture} that will asynchronously report a list consisting of the most recent messages associated with the user.
+     */
+    ObservableFuture<List<Message>> listMessages();
+
+    /**
+     * Returns the most recent messages for the user, up to the supplied limit.
+     *
+     * @param limit The maximum number of messages that this call will return.
+     * @return A {@code ObservableFuture} that will asynchronously report a list consisting of the most recent messages associated with this user.
+     */
+    ObservableFuture<List<Message>> listMessages(int limit);
+
+    /**
+     * Returns the most recent messages for the user, up to the supplied limit.
+     *
+     * @param start Where in the list to start. (Zero indexed)
+     * @param limit The maximum number of messages that this call will return.
+     * @return A {@code ObservableFuture} that will asynchronously report a list consisting of the most recent messages associated with this user.
+     */
+    ObservableFuture<List<Message>> listMessages(int start, int limit);
+
+    /**
+     * Walk all the {@link Message}s associated with the user, a page at a time. The next prefetchDepth pages load in
+     * the background while you consume the current one, and only those pages are held in memory.
+     * The walk stops at the total that message/list reports.
+     *
+     * @param pageSize      How many messages to ask for at a time.
+     * @param prefetchDepth How many pages to load ahead of the one being consumed. Zero loads each page on demand.
+     * @return A {@link PagedIterator} over all the messages. Destroy it if you stop early.
+     */
+    PagedIterator<Message> iterateMessages(int pageSize, int prefetchDepth);
+
+    /**
+     * Delete messages by their corresponding UUIDs.
+     *
+     * @param uuids A list of message uuids to delete.
+     * @return A {@code ObservableFuture} that will asynchronously report true for a successful delete otherwise false.
+     * @deprecated use {@code readMessage(List id)}
+     */
+    ObservableFuture<Boolean> messageRead(List<String> uuids);
+
+    /**
+     * Read messages by their corresponding IDs.
+     *
+     * @param ids A list of message ids to read.
+     * @return A {@code ObservableFuture} that will asynchronously report true for a successful read otherwise false.
+     */
+    ObservableFuture<Boolean> readMessage(List<Long> ids);
+
+    /**
+     * Read messages by their corresponding UUIDs.
+     *
+     * @param uuids A list of message uuids to mark as read.
+     * @return A {@code ObservableFuture} that will asynchronously report true for a successful read otherwise false.
+     * @deprecated use {@code deleteMessage(List ids)}
+     */
+    ObservableFuture<Boolean> messageDelete(List<String> uuids);
+
+    /**
+     * Delete messages by their corresponding IDs.
+     *
+     * @param ids A list of message ids to delete.
+     * @return A {@code ObservableFuture} that will asynchronously report true for a successful delete otherwise false.
+     */
+    ObservableFuture<Boolean> deleteMessage(List<Long> ids);
+
+    /**
+     * Returns the contact for the provided contact id.
+     *
+     * @param id The id of the contact.
+     * @return A {@code ObservableFuture} that will asynchronously report a Connect DTO matching the id.
+     */
+    ObservableFuture<Contact> getContact(long id);
+
+    /**
+     * Returns the contact for the provided mobile number.
+     *
+     * @param mobileNumber The mobile number of the contact to get.
+     * @return A {@code ObservableFuture} that will asynchronously report contact The contact corresponding to the mobile number.
+     */
+    ObservableFuture<Contact> getContact(String mobileNumber);
+
+    /**
+     * Send a signal via Zipwhip SignalServer.
+     * Generally this is for debug since the SignalServer protocol is proprietary.
+     *
+     * @param scope   The scope of the signal, ie device.
+     * @param channel The channel the signal is on.
+     * @param event   The event of the signal.
+     * @param payload The content of the signal.
+     * @return A {@code ObservableFuture} that will asynchronously report the result of the call.
+     */
+    ObservableFuture<Void> sendSignal(String scope, String channel, String event, String payload);
+
+    /**
+     * A debug call to generate a SIGNAL_VERIFICATION command back to the client
+     * associated with the {@param clientId}.
+     *
+     * @param clientId The client ID to send the SIGNAL_VERIFICATION to.
+     * @return A {@code ObservableFuture} that will asynchronously report the result of the call.
+     */
+    ObservableFuture<Void> sendSignalsVerification(String clientId);
+
+    /**
+     * Save a new contact for the user or update an existing contact.
+     *
+     * @param address   The address of the contact, generally mobile number.
+     * @param firstName Contact's first name.
+     * @param lastName  Contact's last name.
+     * @param phoneKey  Contact's phone type.
+     * @return A {@code ObservableFuture} that will asynchronously report the result of the call.
+     */
+    ObservableFuture<Void> saveContact(String address, String firstName, String lastName, String phoneKey);
+
+    /**
+     * Save a new contact for the user or update an existing contact.
+     *
+     * @param address   The address of the contact, generally mobile number.
+     * @param firstName Contact's first name.
+     * @param lastName  Contact's last name.
+     * @param phoneKey  Contact's phone type.
+     * @param notes     Free text.
+     * @return A {@code ObservableFuture} that will asynchronously report the result of the call.
+     */
+    ObservableFuture<Void> saveContact(String address, String firstName, String lastName, String phoneKey, String notes);
+
+    /**
+     * Save a new contact for the user or update an existing contact.
+     *
+     * @param address   The address of the contact, generally mobile number.
+     * @param firstName Contact's first name.
+     * @param lastName  Contact's last name.
+     * @param phoneKey  Contact's phone type.
+     * @param notes     Free text.
+     * @param location  Contact's location
+     * @param email     Contact's e-mail address.
+     * @return A {@code ObservableFuture} that will asynchronously report the result of the call.
+     */
+    ObservableFuture<Void> saveContact(String address, String firstName, String lastName, String phoneKey, String notes, String location, String email);
+
+    /**
+     * Add a member to an existing group.
+     *
+     * @param groupAddress   The address of the group to add a new member to.
+     * @param contactAddress The address, mobile number, of the new contact.
+     * @return A {@code ObservableFuture} that will asynchronously report a {@link Contact} representing the new group member.
+     */
+    ObservableFuture<Contact> addMember(String groupAddress, String contactAddress);
+
+    /**
+     * Add a member to an existing group.
+     *
+     * @param groupAddress   The address of the group to add a new member to.
+     * @param contactAddress The address, mobile number, of the new contact.
+     * @param firstName      Contact's first name.
+     * @param lastName       Contact's last name.
+     * @param phoneKey       Contact's phone type.
+     * @param notes          Free text.
+     * @return A {@code ObservableFuture} that will asynchronously report a {@link Contact} representing the new group member.
+     */
+    ObservableFuture<Contact> addMember(String groupAddress, String contactAddress, String firstName, String lastName, String phoneKey, String notes);
+
+    /**
+     * Toggles the on/off value of Device Carbon in the cloud. The cloud holds the master value that Device Carbon uses
+     * to override any other value it has.
+     *
+     * @param enabled:     turn Device Carbon on/off in the cloud
+     * @param versionCode: What version of Device Carbon is being used?
+     * @return A {@code ObservableFuture} that will asynchronously report the result of the call.
+     */
+    ObservableFuture<Void> carbonEnable(boolean enabled, Integer versionCode);
+
+    /**
+     * Returns the on/off state Device Carbon should be in according to the cloud.
+     *
+     * @param enabled: The on/off state Device Carbon is currently in
+     * @return A {@code ObservableFuture} that will asynchronously report what state the cloud thinks device carbon is in
+     */
+    ObservableFuture<Boolean> carbonEnabled(boolean enabled, Integer versionCode);
+
+    /**
+     * Register Device Carbon for Push Notifications from Google
+     *
+     * @param registrationId - Google provided registrationId to send push notifications too
+     * @return A {@code ObservableFuture} that will asynchronously report the result of the call.
+     */
+    ObservableFuture<Void> carbonRegister(String registrationId);
+
+    /**
+     * Informs Zipwhip of Device Carbon usage statistics
+     *
+     * @param totalPhoneMessages - total messages sent/receive on the device
+     * @return A {@code ObservableFuture} that will asynchronously report the result of the call.
+     */
+    ObservableFuture<Void> carbonStats(int totalPhoneMessages);
+
+    /**
+     * @return A {@code ObservableFuture} that will asynchronously report whether the user has accepted the terms and conditions.
+     */
+    ObservableFuture<Boolean> acceptedTCs();
+
+    /**
+     * Initiates the sign up process to:
+     * 1) Enroll a new account if one doesn't exist
+     * 2) Create necessary subscriptions
+     * 3) Eventually return a valid session key for this device
+     *
+     * @param mobileNumber: mobile number of the account
+     * @param portal:       product that is retrieving a session
+     * @return A {@code ObservableFuture} that will asynchronously report clientId that is used to finish the challenge process
+     */
+    ObservableFuture<String> sessionChallenge(String mobileNumber, String portal);
+
+    /**
+     * Finishes the challenge process and returns a session key
+     *
+     * @param clientId:      clientId returned by the original sessionChallenge call
+     * @param securityToken: The random string that is sent in an ".signup verify" sms to the phone
+     * @param portal:        product line to customize the user account for
+     * @param arguments:     any extra arguments for the cloud to react to (previously this was ".signup devicecarbonall")
+     * @param userAgent:     Device's user agent
+     * @return A {@code ObservableFuture} that will asynchronously report a session key
+     */
+    ObservableFuture<String> sessionChallengeConfirm(String clientId, String securityToken, String portal, String arguments, String userAgent);
+
+    /**
+     * @param packageName The name of the subscription package to unenroll.
+     * @return A {@code ObservableFuture} that will asynchronously report true if the unenrollment was successful otherwise false.
+     */
+    ObservableFuture<Boolean> userUnenroll(String packageName);
+
+    /**
+     * Query Zipwhip Face Ecosystem for a user's preferred profile name.
+     *
+     * @param mobileNumber The mobile number of the user you wish to query.
+     * @return A {@code ObservableFuture} that will asynchronously report the user's full name if it exists or empty string.
+     */
+    ObservableFuture<String> getFaceName(String mobileNumber);
+
+    /**
+     * Bulk Query Zipwhip Face Ecosystem for a users' preferred profile names.
+     *
+     * @param phoneNumbers Collection of phone numbers you wish to query.
+     * @return A {@code ObservableFuture} that will asynchronously report map of phone number/full name
+     */
+    ObservableFuture<Map<String, String>> getFaceName(Collection<String> phoneNumbers);
+
+    /**
+     * Query Zipwhip Face Ecosystem for a user's preferred profile image.
+     *
+     * @param mobileNumber The mobile number of the user you wish to query.
+     * @param thumbnail    true if you want a thumbnail, false for the full image
+     * @return A {@code ObservableFuture} that will asynchronously report a byte[] of the user's image.
+     */
+    ObservableFuture<byte[]> getFaceImage(String mobileNumber, boolean thumbnail);
+
+    /**
+     * Query Zipwhip Face Ecosystem for a user's preferred profile image.
+     *
+     * @param mobileNumber The mobile number of the user you wish to query.
+     * @param size         the size of thumbnail in pixels
+     * @return A {@code ObservableFuture} that will asynchronously report a byte[] of the user's image.
+     */
+    ObservableFuture<byte[]> getFaceImage(String mobileNumber, int size);
+
+    /**
+     * Check if the phone number has a face eco image
+     *
+     * @param phoneNumbers Collection of phone numbers you wish to query.
+     * @return A {@code ObservableFuture} that will asynchronously report map of phone number/boolean (exists or not)
+     */
+    ObservableFuture<Map<String, Boolean>> hasFaceImage(Collection<String> phoneNumbers);
+
+    /**
+     * Query for a message's MMS attachment descriptors.
+     *
+     * @param messageId The id of the message to query for attachments.
+     * @return A {@code ObservableFuture} that will asynchronously report a list of attachment descriptors or an empty list if no attachments are found,
+     */
+    ObservableFuture<List<MessageAttachment>> listAttachments(Long messageId);
+
+    /**
+     * Get a single piece of hosted using its storage key. The key is retrieved by calling {@code listAttachments}.
+     *
+     * @param storageKey The storage key of the content to query. Retrieved by calling {@code listAttachments}
+     * @return A {@code ObservableFuture} that will asynchronously report a byte[] containing the requested content.
+     */
+    ObservableFuture<byte[]> getHostedContent(String storageKey);
+
+    /**
+     * Upload one or more files into Zipwhip hosted content servers.
+     *
+     * @param files A list of files to upload to Zipwhip HostedContent.
+     * @return A {@code ObservableFuture} that will asynchronously report a map from file name to the HostedContent storage key.
+     */
+    ObservableFuture<Map<String, String>> saveHostedContent(List<File> files);
+
+    /**
+     * Reserve a tiny url in the Zipwhip TinyUrl system. The resulting TinyUrl
+     * can be used to upload content to via {@code saveTinyUrl}.
+     *
+     * @return A {@code ObservableFuture} that will asynchronously report the tinyUrl.
+     */
+    ObservableFuture<TinyUrl> reserveTinyUrl();
+
+    /**
+     * Save content into a tinyUrl with the Zipwhip TinyUrl system.
+     *
+     * @param key      The storage key returned by the call to {@code reserveTinyUrl}.
+     * @param mimeType An optional mime-type for the file. If not provided it will default to multipart/mixed.
+     * @param file     A file to be uploaded into the tinyUrl.
+     * @return A {@code ObservableFuture} that will asynchronously report the result of the call.
+     */
+    ObservableFuture<Boolean> saveTinyUrl(String key, String mimeType, File file);
+
+    /**
+     * A connection to Zipwhip over a medium.
+     *
+     * @return the current connection
+     */
+    ApiConnection getConnection();
+
+    /**
+     * @param connection the connection to use
+     */
+    void setConnection(ApiConnection connection);
+
+    /**
+     * Query Group image by address.
+     *
+     * @param address group address.
+     * @param size    thumbnail size.
+     * @return A {@code ObservableFuture} that will asynchronously report a byte[] of the group's image.
+     */
+    ObservableFuture<byte[]> getGroupImage(String address, int size);
+}
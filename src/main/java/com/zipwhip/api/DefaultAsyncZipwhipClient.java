@@ -0,0 +1,944 @@
+package com.zipwhip.api;
+
+import com.zipwhip.api.dto.*;
+import com.zipwhip.api.response.BooleanServerResponse;
+import com.zipwhip.api.response.ServerResponse;
+import com.zipwhip.api.response.StringServerResponse;
+import com.zipwhip.concurrent.DefaultObservableFuture;
+import com.zipwhip.concurrent.FakeObservableFuture;
+import com.zipwhip.concurrent.MutableObservableFuture;
+import com.zipwhip.concurrent.ObservableFuture;
+import com.zipwhip.util.CollectionUtil;
+import com.zipwhip.util.InputRunnable;
+import com.zipwhip.util.StringUtil;
+import com.zipwhip.util.UrlUtil;
+
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.Executor;
+
+/**
+ * The non-blocking version of {@link DefaultZipwhipClient}. It sends the same calls with the same parameters, but
+ * hands back an {@code ObservableFuture} right away instead of parking the caller until the network answers.
+ * <p/>
+ * Responses are parsed in the callbackExecutor, so the connection's IO threads only ever move bytes.
+ */
+public class DefaultAsyncZipwhipClient extends ZipwhipNetworkSupport implements AsyncZipwhipClient {
+
+    /**
+     * Create a new {@code DefaultAsyncZipwhipClient} with a default configuration.
+     */
+    public DefaultAsyncZipwhipClient() {
+        super();
+        parseOnCallbackExecutor = true;
+    }
+
+    /**
+     * Create a new {@code DefaultAsyncZipwhipClient} with the desired connection.
+     *
+     * @param connection The connection to Zipwhip.
+     */
+    public DefaultAsyncZipwhipClient(ApiConnection connection) {
+        super(connection);
+        parseOnCallbackExecutor = true;
+    }
+
+    /**
+     * Create a new {@code DefaultAsyncZipwhipClient} with the desired connection.
+     *
+     * @param callbackExecutor The executor that parses the responses and notifies the observers of the futures.
+     * @param connection The connection to Zipwhip.
+     */
+    public DefaultAsyncZipwhipClient(Executor callbackExecutor, ApiConnection connection) {
+        super(callbackExecutor, connection);
+        parseOnCallbackExecutor = true;
+    }
+
+    @Override
+    public ObservableFuture<List<MessageToken>> sendMessage(Address address, String body) {
+        return sendMessage(Arrays.asList(address.toString()), body, null, null);
+    }
+
+    @Override
+    public ObservableFuture<List<MessageToken>> sendMessage(Address address, String body, String fromName) {
+        return sendMessage(Arrays.asList(address.toString()), body, fromName, null);
+    }
+
+    @Override
+    public ObservableFuture<List<MessageToken>> sendMessage(String address, String body) {
+        return sendMessage(Arrays.asList(address), body);
+    }
+
+    @Override
+    public ObservableFuture<List<MessageToken>> sendMessage(Message message) {
+        return sendMessage(Arrays.asList(message.getAddress()), message.getBody(), message.getFromName(), message.getAdvertisement());
+    }
+
+    @Override
+    public ObservableFuture<List<MessageToken>> sendMessage(Collection<String> address, String body) {
+        return sendMessage(address, body, null, null);
+    }
+
+    @Override
+    public ObservableFuture<List<MessageToken>> sendMessage(Collection<String> address, String body, String fromName) {
+        return sendMessage(address, body, fromName, null);
+    }
+
+    @Override
+    public ObservableFuture<List<MessageToken>> sendMessage(Collection<String> addresses, String body, String fromName, String advertisement) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+
+        params.put("contacts", addresses);
+        params.put("body", body);
+        params.put("fromName", fromName);
+        params.put("fromAddress", "0");
+        params.put("advertisement", advertisement);
+
+        return execute(MESSAGE_SEND, params, messageTokensParser);
+    }
+
+    @Override
+    public ObservableFuture<List<MessageToken>> sendMessage(String address, String body, String fromName, String advertisement) {
+        return sendMessage(Arrays.asList(address), body, fromName, advertisement);
+    }
+
+    @Override
+    public ObservableFuture<List<MessageToken>> sendMessage(String address, String body, int fromAddress) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+
+        params.put("contacts", address);
+        params.put("body", body);
+        params.put("fromAddress", fromAddress);
+
+        return execute(MESSAGE_SEND, params, messageTokensParser);
+    }
+
+    @Override
+    public ObservableFuture<List<MessageToken>> sendMessage(Collection<String> addresses, String body, List<String> urls) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+
+        params.put("contacts", addresses);
+        params.put("body", body);
+        params.put("fromAddress", "0");
+        params.put("attachment", urls);
+
+        return execute(MESSAGE_SEND, params, messageTokensParser);
+    }
+
+    @Deprecated
+    @Override
+    public ObservableFuture<Message> getMessage(String uuid) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("uuid", uuid);
+
+        return execute(MESSAGE_GET, params, messageParser);
+    }
+
+    @Override
+    public ObservableFuture<Message> getMessage(Long id) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("id", id);
+
+        return execute(MESSAGE_GET, params, messageParser);
+    }
+
+    @Override
+    public ObservableFuture<List<Device>> listDevices() {
+        return execute(DEVICE_LIST, new HashMap<String, Object>(), devicesParser);
+    }
+
+    @Override
+    public ObservableFuture<List<Conversation>> listConversations() {
+        return execute(CONVERSATION_LIST, new HashMap<String, Object>(), conversationsParser);
+    }
+
+    @Override
+    public ObservableFuture<List<Conversation>> listConversations(int limit) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("limit", Integer.toString(limit));
+
+        return execute(CONVERSATION_LIST, params, conversationsParser);
+    }
+
+    @Override
+    public ObservableFuture<List<Conversation>> listConversations(int start, int limit) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("start", Integer.toString(start));
+        params.put("limit", Integer.toString(limit));
+
+        return execute(CONVERSATION_LIST, params, conversationsParser);
+    }
+
+    @Override
+    public PagedIterator<Conversation> iterateConversations(int pageSize, int prefetchDepth) {
+        return iterate(CONVERSATION_LIST, pageSize, prefetchDepth, conversationPageParser);
+    }
+
+    @Override
+    public ObservableFuture<List<Contact>> listContacts() {
+        return execute(CONTACT_LIST, new HashMap<String, Object>(), contactsParser);
+    }
+
+    @Override
+    public ObservableFuture<List<Contact>> listContacts(int start, int limit) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("start", Integer.toString(start));
+        params.put("limit", Integer.toString(limit));
+
+        return execute(CONTACT_LIST, params, contactsParser);
+    }
+
+    @Override
+    public PagedIterator<Contact> iterateContacts(int pageSize, int prefetchDepth) {
+        return iterate(CONTACT_LIST, pageSize, prefetchDepth, contactPageParser);
+    }
+
+    @Override
+    public ObservableFuture<Boolean> readConversation(String fingerprint) {
+        if (StringUtil.isNullOrEmpty(fingerprint)) {
+            return successFuture(Boolean.FALSE);
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("fingerprint", fingerprint);
+
+        return execute(CONVERSATION_READ, params, successParser);
+    }
+
+    @Override
+    public ObservableFuture<Boolean> deleteConversation(String fingerprint) {
+        if (StringUtil.isNullOrEmpty(fingerprint)) {
+            return successFuture(Boolean.FALSE);
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("fingerprint", fingerprint);
+
+        return execute(CONVERSATION_DELETE, params, successParser);
+    }
+
+    @Override
+    public ObservableFuture<Boolean> deleteContact(long contactId) {
+        if (contactId <= 0) {
+            return successFuture(Boolean.FALSE);
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("contact", Long.toString(contactId));
+
+        return execute(CONTACT_DELETE, params, successParser);
+    }
+
+    @Override
+    public ObservableFuture<List<Message>> listMessagesByFingerprint(String fingerprint) {
+        if (StringUtil.isNullOrEmpty(fingerprint)) {
+            return failureFuture(new Exception("Attempting to call listMessagesByFingerprint with a null or empty fingerprint."));
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("fingerprint", fingerprint);
+
+        return execute(CONVERSATION_GET, params, conversationMessagesParser);
+    }
+
+    @Override
+    public ObservableFuture<List<Message>> listMessagesByFingerprint(String fingerprint, int limit) {
+        if (StringUtil.isNullOrEmpty(fingerprint)) {
+            return failureFuture(new Exception("Attempting to call listMessagesByFingerprint with a null or empty fingerprint."));
+        } else if (limit <= 0) {
+            return failureFuture(new Exception("Attempting to call listMessagesByFingerprint with a zero or negative limit value."));
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("fingerprint", fingerprint);
+        params.put("limit", Integer.toString(limit));
+
+        return execute(CONVERSATION_GET, params, conversationMessagesParser);
+    }
+
+    @Override
+    public ObservableFuture<List<Message>> listMessagesByFingerprint(String fingerprint, int start, int limit) {
+        if (StringUtil.isNullOrEmpty(fingerprint)) {
+            return failureFuture(new Exception("Attempting to call listMessagesByFingerprint with a null or empty fingerprint."));
+        } else if (start < 0) {
+            return failureFuture(new Exception("Attempting to call listMessagesByFingerprint with a negative start value."));
+        } else if (limit <= 0) {
+            return failureFuture(new Exception("Attempting to call listMessagesByFingerprint with a zero or negative limit value."));
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("fingerprint", fingerprint);
+        params.put("start", Integer.toString(start));
+        params.put("limit", Integer.toString(limit));
+
+        return execute(CONVERSATION_GET, params, conversationMessagesParser);
+    }
+
+    @Override
+    public ObservableFuture<List<Message>> listMessages() {
+        return execute(MESSAGE_LIST, new HashMap<String, Object>(), messagesParser);
+    }
+
+    @Override
+    public ObservableFuture<List<Message>> listMessages(int limit) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("limit", Integer.toString(limit));
+
+        return execute(MESSAGE_LIST, params, messagesParser);
+    }
+
+    @Override
+    public ObservableFuture<List<Message>> listMessages(int start, int limit) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("limit", Integer.toString(limit));
+        params.put("start", Integer.toString(start));
+
+        return execute(MESSAGE_LIST, params, messagesParser);
+    }
+
+    @Override
+    public PagedIterator<Message> iterateMessages(int pageSize, int prefetchDepth) {
+        return iterate(MESSAGE_LIST, pageSize, prefetchDepth, messagePageParser);
+    }
+
+    @Deprecated
+    @Override
+    public ObservableFuture<Boolean> messageRead(List<String> uuids) {
+        if (CollectionUtil.isNullOrEmpty(uuids)) {
+            return successFuture(Boolean.FALSE);
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("uuid", uuids);
+
+        return execute(MESSAGE_READ, params, successParser);
+    }
+
+    @Override
+    public ObservableFuture<Boolean> readMessage(List<Long> ids) {
+        if (CollectionUtil.isNullOrEmpty(ids)) {
+            return successFuture(Boolean.FALSE);
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("message", ids);
+
+        return execute(MESSAGE_READ, params, successParser);
+    }
+
+    @Deprecated
+    @Override
+    public ObservableFuture<Boolean> messageDelete(List<String> uuids) {
+        if (CollectionUtil.isNullOrEmpty(uuids)) {
+            return successFuture(Boolean.FALSE);
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("uuids", uuids);
+
+        return execute(MESSAGE_DELETE, params, successParser);
+    }
+
+    @Override
+    public ObservableFuture<Boolean> deleteMessage(List<Long> ids) {
+        if (CollectionUtil.isNullOrEmpty(ids)) {
+            return successFuture(Boolean.FALSE);
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("message", ids);
+
+        return execute(MESSAGE_DELETE, params, successParser);
+    }
+
+    @Override
+    public ObservableFuture<Contact> getContact(long id) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("id", Long.toString(id));
+
+        return execute(CONTACT_GET, params, contactParser);
+    }
+
+    @Override
+    public ObservableFuture<Contact> getContact(String mobileNumber) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("mobileNumber", mobileNumber);
+
+        return execute(CONTACT_GET, params, contactParser);
+    }
+
+    @Override
+    public ObservableFuture<Void> sendSignal(String scope, String channel, String event, String payload) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+
+        params.put("scope", scope);
+        params.put("event", event);
+        params.put("payload", payload);
+        params.put("channel", channel);
+
+        return execute(SIGNAL_SEND, params, voidParser);
+    }
+
+    @Override
+    public ObservableFuture<Void> sendSignalsVerification(String clientId) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("clientId", clientId);
+
+        return execute(SIGNALS_VERIFY, params, voidParser);
+    }
+
+    @Override
+    public ObservableFuture<Void> saveContact(String address, String firstName, String lastName, String phoneKey) {
+        return saveContact(address, firstName, lastName, phoneKey, null);
+    }
+
+    @Override
+    public ObservableFuture<Void> saveContact(String address, String firstName, String lastName, String phoneKey, String notes) {
+        return saveContact(address, firstName, lastName, phoneKey, notes, null, null);
+    }
+
+    @Override
+    public ObservableFuture<Void> saveContact(String address, String firstName, String lastName, String phoneKey, String notes, String location, String email) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+
+        params.put("address", address);
+        params.put("firstName", firstName);
+        params.put("lastName", lastName);
+        params.put("phoneKey", phoneKey);
+
+        if (notes != null) {
+            params.put("notes", notes);
+        }
+
+        if (location != null) {
+            params.put("loc", location);
+        }
+
+        if (email != null) {
+            params.put("email", email);
+        }
+
+        return execute(CONTACT_SAVE, params, voidParser);
+    }
+
+    @Override
+    public ObservableFuture<Contact> addMember(String groupAddress, String contactAddress) {
+        return addMember(groupAddress, contactAddress, null, null, null, null);
+    }
+
+    @Override
+    public ObservableFuture<Contact> addMember(String groupAddress, String contactAddress, String firstName, String lastName, String phoneKey, String notes) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+
+        params.put("firstName", firstName);
+        params.put("lastName", lastName);
+        params.put("phoneKey", phoneKey);
+        params.put("notes", notes);
+        params.put("group", groupAddress);
+
+        try {
+            params.put("mobileNumber", new Address(contactAddress).getAuthority());
+        } catch (Exception e) {
+            return failureFuture(e);
+        }
+
+        return execute(GROUP_ADD_MEMBER, params, contactParser);
+    }
+
+    @Override
+    public ObservableFuture<Void> carbonEnable(boolean enabled, Integer versionCode) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("enabled", enabled);
+
+        if (versionCode != null) {
+            params.put("version", versionCode.toString());
+        }
+
+        return execute(CARBON_ENABLE, params, voidParser);
+    }
+
+    @Override
+    public ObservableFuture<Boolean> carbonEnabled(boolean enabled, Integer versionCode) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("enabled", enabled);
+
+        if (versionCode != null) {
+            params.put("version", versionCode.toString());
+        }
+
+        return execute(CARBON_ENABLED, params, new BooleanResponseParser("carbon enabled"));
+    }
+
+    @Override
+    public ObservableFuture<Void> carbonRegister(String registrationId) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+
+        if (!StringUtil.isNullOrEmpty(registrationId)) {
+            params.put("registrationId", registrationId);
+        }
+
+        // errors in the response are already turned into a failure before the parser runs.
+        return execute(CARBON_REGISTER, params, voidParser);
+    }
+
+    @Override
+    public ObservableFuture<Void> carbonStats(int totalPhoneMessages) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("messageCount", totalPhoneMessages);
+
+        return execute(CARBON_STATS, params, voidParser);
+    }
+
+    @Override
+    public ObservableFuture<Boolean> acceptedTCs() {
+        return execute(CARBON_ACCEPTED_TCS, null, new BooleanResponseParser("carbon enabled"));
+    }
+
+    @Override
+    public ObservableFuture<String> sessionChallenge(String mobileNumber, String portal) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+
+        params.put("mobileNumber", mobileNumber);
+        params.put("portal", portal);
+
+        return execute(CHALLENGE_REQUEST, params, null, false, new StringResponseParser("challenge request"));
+    }
+
+    @Override
+    public ObservableFuture<String> sessionChallengeConfirm(String clientId, String securityToken, String portal, String arguments, String userAgent) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+
+        params.put("clientId", clientId);
+        params.put("securityToken", securityToken);
+        params.put("portal", portal);
+        params.put("arguments", arguments);
+        params.put("userAgent", userAgent);
+
+        return execute(CHALLENGE_CONFIRM, params, null, false, new StringResponseParser("challenge confirm"));
+    }
+
+    @Override
+    public ObservableFuture<Boolean> userUnenroll(String packageName) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("package", packageName);
+
+        return execute(USER_UNENROLL, params, successParser);
+    }
+
+    @Override
+    public ObservableFuture<Contact> saveGroup() {
+        return saveGroup(null, null);
+    }
+
+    @Override
+    public ObservableFuture<Contact> saveGroup(String type, String advertisement) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+
+        if (type == null || !type.startsWith("Group")) {
+            type = "Group";
+        }
+
+        params.put("type", type);
+
+        if (advertisement != null) {
+            params.put("advertisement", advertisement);
+        }
+
+        return execute(GROUP_SAVE, params, contactParser);
+    }
+
+    @Override
+    public ObservableFuture<Group> getGroup(String address) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("address", address);
+
+        return execute(GROUP_GET, params, groupParser);
+    }
+
+    @Override
+    public ObservableFuture<Contact> saveUser(Contact contact) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+
+        params.put("email", contact.getEmail());
+        params.put("firstName", contact.getFirstName());
+        params.put("lastName", contact.getLastName());
+        params.put("phoneKey", contact.getPhone());
+
+        return execute(USER_SAVE, params, contactParser);
+    }
+
+    @Override
+    public ObservableFuture<Void> saveUser(String firstName, String lastName, String email, String phoneKey, String location, String notes) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+
+        params.put("email", email);
+        params.put("firstName", firstName);
+        params.put("lastName", lastName);
+        params.put("phoneKey", phoneKey);
+        params.put("notes", notes);
+        params.put("loc", location);
+
+        return execute(USER_SAVE, params, voidParser);
+    }
+
+    @Override
+    public ObservableFuture<User> getUser() {
+        return execute(USER_GET, new HashMap<String, Object>(), userParser);
+    }
+
+    @Override
+    public ObservableFuture<String> getFaceName(String mobileNumber) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("mobileNumber", mobileNumber);
+
+        return execute(FACE_NAME, params, null, false, faceNameParser);
+    }
+
+    @Override
+    public ObservableFuture<Map<String, String>> getFaceName(Collection<String> phoneNumbers) {
+        if (CollectionUtil.isNullOrEmpty(phoneNumbers)) {
+            return successFuture(null);
+        }
+
+        if (phoneNumbers.size() > 100) {
+            return failureFuture(new IllegalArgumentException("phoneNumbers size should be <= 100"));
+        }
+
+        final String phoneNumbersParam = UrlUtil.collectionToString(phoneNumbers, ',');
+        if (StringUtil.isNullOrEmpty(phoneNumbersParam)) {
+            return successFuture(null);
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("mobileNumbers", phoneNumbersParam);
+
+        return execute(FACE_NAMES, params, null, false, faceNamesParser);
+    }
+
+    @Override
+    public ObservableFuture<byte[]> getGroupImage(String address, int size) {
+        if (StringUtil.isNullOrEmpty(address)) {
+            return successFuture(null);
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("address", address);
+        if (size > 0) {
+            params.put("size", size);
+        }
+        params.put("time", System.currentTimeMillis()); // Do not cache
+
+        return executeBinary(GROUP_IMAGE, params, true);
+    }
+
+    @Override
+    public ObservableFuture<byte[]> getFaceImage(String mobileNumber, boolean thumbnail) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("mobileNumber", mobileNumber);
+        params.put("thumbnail", thumbnail);
+
+        return executeBinary(FACE_IMAGE, params, false);
+    }
+
+    @Override
+    public ObservableFuture<byte[]> getFaceImage(String mobileNumber, int size) {
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("mobileNumber", mobileNumber);
+        params.put("size", size);
+        params.put("thumbnail", true);
+
+        return executeBinary(FACE_IMAGE, params, false);
+    }
+
+    @Override
+    public ObservableFuture<Map<String, Boolean>> hasFaceImage(Collection<String> phoneNumbers) {
+        if (CollectionUtil.isNullOrEmpty(phoneNumbers)) {
+            return successFuture(null);
+        }
+
+        if (phoneNumbers.size() > 100) {
+            return failureFuture(new IllegalArgumentException("phoneNumbers size should be <= 100"));
+        }
+
+        final String phoneNumbersParam = UrlUtil.collectionToString(phoneNumbers, ',');
+        if (StringUtil.isNullOrEmpty(phoneNumbersParam)) {
+            return successFuture(null);
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("mobileNumbers", phoneNumbersParam);
+
+        return execute(FACE_IMAGES, params, faceImagesParser);
+    }
+
+    @Override
+    public ObservableFuture<List<MessageAttachment>> listAttachments(Long messageId) {
+        if (messageId == null || messageId <= 0) {
+            return failureFuture(new Exception("Missing required parameter: messageId."));
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("messageId", messageId);
+
+        return execute(ATTACHMENT_LIST, params, attachmentsParser);
+    }
+
+    @Override
+    public ObservableFuture<byte[]> getHostedContent(String storageKey) {
+        if (StringUtil.isNullOrEmpty(storageKey)) {
+            return failureFuture(new Exception("Missing required parameter: storageKey"));
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("storageKey", storageKey);
+
+        return executeBinary(HOSTED_CONTENT_GET, params, false);
+    }
+
+    @Override
+    public ObservableFuture<Map<String, String>> saveHostedContent(List<File> files) {
+        if (CollectionUtil.isNullOrEmpty(files)) {
+            return failureFuture(new Exception("At least one file required."));
+        }
+
+        return execute(HOSTED_CONTENT_SAVE, null, files, true, hostedContentSaveParser);
+    }
+
+    @Override
+    public ObservableFuture<TinyUrl> reserveTinyUrl() {
+        return execute(TINY_URL_RESERVE, null, tinyUrlParser);
+    }
+
+    @Override
+    public ObservableFuture<Boolean> saveTinyUrl(String key, String mimeType, File file) {
+        if (StringUtil.isNullOrEmpty(key)) {
+            return failureFuture(new IllegalArgumentException("A storage key is required to save."));
+        }
+
+        if (file == null) {
+            return failureFuture(new IllegalArgumentException("A File is required to save."));
+        }
+
+        final Map<String, Object> params = new HashMap<String, Object>();
+        params.put("key", key);
+
+        if (StringUtil.exists(mimeType)) {
+            params.put("mimeType", mimeType);
+        }
+
+        return execute(TINY_URL_SAVE, params, Collections.singletonList(file), true, successParser);
+    }
+
+    @Override
+    protected void onDestroy() {
+
+    }
+
+    private <T> ObservableFuture<T> execute(String method, Map<String, Object> params, Parser<T> parser) {
+        return execute(method, params, null, true, parser);
+    }
+
+    private <T> ObservableFuture<T> execute(String method, Map<String, Object> params, List<File> files, boolean requiresAuthentication, final Parser<T> parser) {
+        try {
+            return executeAsync(method, params, files, requiresAuthentication, new InputRunnable<ParsableServerResponse<T>>() {
+                @Override
+                public void run(ParsableServerResponse<T> parsableServerResponse) {
+                    try {
+                        parsableServerResponse.getFuture().setSuccess(parser.parse(parsableServerResponse.getServerResponse()));
+                    } catch (Exception e) {
+                        parsableServerResponse.getFuture().setFailure(e);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            return failureFuture(e);
+        }
+    }
+
+    private ObservableFuture<byte[]> executeBinary(String method, Map<String, Object> params, boolean requiresAuthentication) {
+        try {
+            return executeAsyncBinaryResponse(method, params, requiresAuthentication);
+        } catch (Exception e) {
+            return failureFuture(e);
+        }
+    }
+
+    private <T> ObservableFuture<T> successFuture(T result) {
+        return new FakeObservableFuture<T>(this, result);
+    }
+
+    private <T> ObservableFuture<T> failureFuture(Exception e) {
+        MutableObservableFuture<T> future = new DefaultObservableFuture<T>(this);
+        future.setFailure(e);
+        return future;
+    }
+
+    /**
+     * Converts a checked server response into the result of the call. Runs in the callbackExecutor.
+     */
+    private interface Parser<T> {
+        T parse(ServerResponse serverResponse) throws Exception;
+    }
+
+    private final Parser<List<MessageToken>> messageTokensParser = new Parser<List<MessageToken>>() {
+        @Override
+        public List<MessageToken> parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseMessageTokens(serverResponse);
+        }
+    };
+
+    private final Parser<Message> messageParser = new Parser<Message>() {
+        @Override
+        public Message parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseMessage(serverResponse);
+        }
+    };
+
+    private final Parser<List<Message>> messagesParser = new Parser<List<Message>>() {
+        @Override
+        public List<Message> parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseMessages(serverResponse);
+        }
+    };
+
+    private final Parser<List<Message>> conversationMessagesParser = new Parser<List<Message>>() {
+        @Override
+        public List<Message> parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseMessagesFromConversation(serverResponse);
+        }
+    };
+
+    private final Parser<List<Device>> devicesParser = new Parser<List<Device>>() {
+        @Override
+        public List<Device> parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseDevices(serverResponse);
+        }
+    };
+
+    private final Parser<List<Conversation>> conversationsParser = new Parser<List<Conversation>>() {
+        @Override
+        public List<Conversation> parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseConversations(serverResponse);
+        }
+    };
+
+    private final Parser<Contact> contactParser = new Parser<Contact>() {
+        @Override
+        public Contact parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseContact(serverResponse);
+        }
+    };
+
+    private final Parser<List<Contact>> contactsParser = new Parser<List<Contact>>() {
+        @Override
+        public List<Contact> parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseContacts(serverResponse);
+        }
+    };
+
+    private final Parser<Group> groupParser = new Parser<Group>() {
+        @Override
+        public Group parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseGroup(serverResponse);
+        }
+    };
+
+    private final Parser<User> userParser = new Parser<User>() {
+        @Override
+        public User parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseUser(serverResponse);
+        }
+    };
+
+    private final Parser<String> faceNameParser = new Parser<String>() {
+        @Override
+        public String parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseFaceName(serverResponse);
+        }
+    };
+
+    private final Parser<Map<String, String>> faceNamesParser = new Parser<Map<String, String>>() {
+        @Override
+        public Map<String, String> parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseFaceNames(serverResponse);
+        }
+    };
+
+    private final Parser<Map<String, Boolean>> faceImagesParser = new Parser<Map<String, Boolean>>() {
+        @Override
+        public Map<String, Boolean> parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseFaceImages(serverResponse);
+        }
+    };
+
+    private final Parser<List<MessageAttachment>> attachmentsParser = new Parser<List<MessageAttachment>>() {
+        @Override
+        public List<MessageAttachment> parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseAttachments(serverResponse);
+        }
+    };
+
+    private final Parser<Map<String, String>> hostedContentSaveParser = new Parser<Map<String, String>>() {
+        @Override
+        public Map<String, String> parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseHostedContentSave(serverResponse);
+        }
+    };
+
+    private final Parser<TinyUrl> tinyUrlParser = new Parser<TinyUrl>() {
+        @Override
+        public TinyUrl parse(ServerResponse serverResponse) throws Exception {
+            return responseParser.parseTinyUrl(serverResponse);
+        }
+    };
+
+    private final Parser<Boolean> successParser = new Parser<Boolean>() {
+        @Override
+        public Boolean parse(ServerResponse serverResponse) throws Exception {
+            return success(serverResponse);
+        }
+    };
+
+    private final Parser<Void> voidParser = new Parser<Void>() {
+        @Override
+        public Void parse(ServerResponse serverResponse) throws Exception {
+            return null;
+        }
+    };
+
+    private static class BooleanResponseParser implements Parser<Boolean> {
+
+        private final String name;
+
+        private BooleanResponseParser(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Boolean parse(ServerResponse serverResponse) throws Exception {
+            if (serverResponse instanceof BooleanServerResponse) {
+                return ((BooleanServerResponse) serverResponse).getResponse();
+            }
+
+            throw new Exception("Unrecognized server response for " + name);
+        }
+    }
+
+    private static class StringResponseParser implements Parser<String> {
+
+        private final String name;
+
+        private StringResponseParser(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String parse(ServerResponse serverResponse) throws Exception {
+            if (serverResponse instanceof StringServerResponse) {
+                return ((StringServerResponse) serverResponse).response;
+            }
+
+            throw new Exception("Unrecognized server response for " + name);
+        }
+    }
+}
@@ -169,6 +169,11 @@ public class DefaultZipwhipClient extends ClientZipwhipNetworkSupport implements
         return responseParser.parseConversations(executeSync(CONVERSATION_LIST, params));
     }
 
+    @Override
+    public PagedIterator<Conversation> iterateConversations(int pageSize, int prefetchDepth) {
+        return iterate(CONVERSATION_LIST, pageSize, prefetchDepth, conversationPageParser);
+    }
+
     @Override
     public List<Contact> listContacts() throws Exception {
         return responseParser.parseContacts(executeSync(CONTACT_LIST, new HashMap<String, Object>()));
@@ -182,6 +187,11 @@ public class DefaultZipwhipClient extends ClientZipwhipNetworkSupport implements
         return responseParser.parseContacts(executeSync(CONTACT_LIST, params));
     }
 
+    @Override
+    public PagedIterator<Contact> iterateContacts(int pageSize, int prefetchDepth) {
+        return iterate(CONTACT_LIST, pageSize, prefetchDepth, contactPageParser);
+    }
+
     @Override
     public boolean readConversation(String fingerprint) throws Exception {
         if (StringUtil.isNullOrEmpty(fingerprint)) {
@@ -287,6 +297,11 @@ public class DefaultZipwhipClient extends ClientZipwhipNetworkSupport implements
         return responseParser.parseMessages(executeSync(MESSAGE_LIST, params));
     }
 
+    @Override
+    public PagedIterator<Message> iterateMessages(int pageSize, int prefetchDepth) {
+        return iterate(MESSAGE_LIST, pageSize, prefetchDepth, messagePageParser);
+    }
+
     @Deprecated
     @Override
     public boolean messageRead(List<String> uuids) throws Exception {
@@ -8,20 +8,24 @@ import com.zipwhip.concurrent.ObservableFuture;
 import com.zipwhip.executors.NamedThreadFactory;
 import com.zipwhip.lifecycle.CascadingDestroyableBase;
 import com.zipwhip.lifecycle.DestroyableBase;
-import com.zipwhip.util.DownloadURL;
+import com.zipwhip.util.CollectionUtil;
+import com.zipwhip.util.HttpUtil;
 import com.zipwhip.util.SignTool;
 import com.zipwhip.util.StringUtil;
 import com.zipwhip.util.UrlUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.InputStream;
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Provides a persistent connection to a User on Zipwhip.
@@ -30,12 +34,36 @@ import java.util.concurrent.Executors;
  * on behalf of the user. If you want a more Object oriented way to interact
  * with Zipwhip, use Consumer instead of Connection.
  * <p/>
+ * Requests go out over {@link HttpURLConnection} with keep-alive. Every response is read to the end (errors too),
+ * so the JDK can hand the socket back to its keep-alive cache and the next request skips the TCP/TLS handshake.
+ * The number of requests in flight is bounded by the bossExecutor.
+ * <p/>
  * This class is thread safe.
  */
 public class HttpConnection extends CascadingDestroyableBase implements ApiConnection {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpConnection.class);
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String CRLF = "\r\n";
+    private static final byte[] CRLF_BYTES = CRLF.getBytes(UTF_8);
+    private static final int BUFFER_SIZE = 8192;
+
+    // The boss threads are few and long lived, give each one its own buffers rather than allocating per request.
+    private static final ThreadLocal<char[]> CHAR_BUFFERS = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[BUFFER_SIZE];
+        }
+    };
+
+    private static final ThreadLocal<byte[]> BYTE_BUFFERS = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+
     private String apiVersion = "/";
     private String host = ApiConnectionConfiguration.API_HOST;
 
@@ -44,6 +72,9 @@ public class HttpConnection extends CascadingDestroyableBase implements ApiConne
     private final Executor bossExecutor;
     private final Executor workerExecutor;
 
+    private int connectTimeoutInMs = 10000;
+    private int readTimeoutInMs = 60000;
+
     public HttpConnection() {
         this((ExecutorService)null, null);
     }
@@ -138,18 +169,48 @@ public class HttpConnection extends CascadingDestroyableBase implements ApiConne
         return isAuthenticated();
     }
 
+    /**
+     * @return How long to wait for the TCP connection to be established.
+     */
+    public int getConnectTimeoutInMs() {
+        return connectTimeoutInMs;
+    }
+
+    public void setConnectTimeoutInMs(int connectTimeoutInMs) {
+        this.connectTimeoutInMs = connectTimeoutInMs;
+    }
+
+    /**
+     * @return How long a read may block before the request fails.
+     */
+    public int getReadTimeoutInMs() {
+        return readTimeoutInMs;
+    }
+
+    public void setReadTimeoutInMs(int readTimeoutInMs) {
+        this.readTimeoutInMs = readTimeoutInMs;
+    }
+
     @Override
     public ObservableFuture<String> send(String method, Map<String, Object> params) {
+        return send(method, params, (List<File>) null);
+    }
+
+    /**
+     * @param method Each method has a name, example: user/get. See {@link ZipwhipNetworkSupport} for fields.
+     * @param params Map of query params to append to the method
+     * @param files  A list of Files to be streamed as parts of a multipart POST. If empty, this is a plain GET.
+     * @return NetworkFuture<String>  where the String result is the raw server response.
+     */
+    @Override
+    public ObservableFuture<String> send(final String method, Map<String, Object> params, final List<File> files) {
 
         RequestBuilder rb = new RequestBuilder();
 
         // convert the map into a key/value HTTP params string
         rb.params(params, true);
 
-        return send(method, rb.build());
-    }
-
-    private ObservableFuture<String> send(final String method, final String params) {
+        final String query = rb.build();
 
         // NOTE: if this is a SimpleExecutor (single threaded) then this will be a deadlock.
         final MutableObservableFuture<String> future = new DefaultObservableFuture<String>(this, workerExecutor);
@@ -161,10 +222,16 @@ public class HttpConnection extends CascadingDestroyableBase implements ApiConne
                 String result;
 
                 try {
-                    result = DownloadURL.get(UrlUtil.getSignedUrl(host, apiVersion, method, params, sessionKey, authenticator));
+                    HttpURLConnection connection = open(UrlUtil.getSignedUrl(host, apiVersion, method, query, sessionKey, authenticator));
+
+                    if (CollectionUtil.exists(files)) {
+                        writeMultipart(connection, files);
+                    }
+
+                    result = readString(connection);
                 } catch (Exception e) {
 
-                    LOGGER.error("problem with DownloadUrl", e);
+                    LOGGER.error("Exception while hitting the web", e);
 
                     // NOTE: if this is a SimpleExecutor (single threaded) then this will be a deadlock. (workerExecutor)
                     future.setFailure(e);
@@ -179,14 +246,203 @@ public class HttpConnection extends CascadingDestroyableBase implements ApiConne
         return future;
     }
 
+    /**
+     * The future completes as soon as the headers are in. The body is not buffered, read it off the stream
+     * (it closes itself at the end, which hands the socket back to the keep-alive pool).
+     */
     @Override
-    public ObservableFuture<String> send(String method, Map<String, Object> params, List<File> files) throws Exception {
-        throw new RuntimeException("Not implemented");
+    public ObservableFuture<InputStream> sendBinaryResponse(final String method, Map<String, Object> params) {
+
+        RequestBuilder rb = new RequestBuilder();
+
+        // convert the map into a key/value HTTP params string
+        rb.params(params, true);
+
+        final String query = rb.build();
+
+        final MutableObservableFuture<InputStream> future = new DefaultObservableFuture<InputStream>(this, workerExecutor);
+
+        bossExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                InputStream result;
+
+                try {
+                    HttpURLConnection connection = open(UrlUtil.getSignedUrl(host, apiVersion, method, query, sessionKey, authenticator));
+
+                    HttpUtil.checkBinaryStatus(connection);
+
+                    result = new SelfClosingInputStream(decoded(connection, connection.getInputStream()));
+                } catch (Exception e) {
+
+                    LOGGER.error("Exception while hitting the web", e);
+
+                    future.setFailure(e);
+                    return;
+                }
+
+                future.setSuccess(result);
+            }
+        });
+
+        return future;
     }
 
-    @Override
-    public ObservableFuture<InputStream> sendBinaryResponse(String method, Map<String, Object> params) throws Exception {
-        throw new RuntimeException("Not implemented");
+    private HttpURLConnection open(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+
+        connection.setConnectTimeout(connectTimeoutInMs);
+        connection.setReadTimeout(readTimeoutInMs);
+        connection.setUseCaches(false);
+        connection.setRequestProperty("Connection", "keep-alive");
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+
+        return connection;
+    }
+
+    /**
+     * Streams the files straight from disk. Nothing is buffered, so the size of the upload doesn't matter.
+     */
+    private static void writeMultipart(HttpURLConnection connection, List<File> files) throws IOException {
+        String boundary = "----ZipwhipBoundary" + Long.toHexString(System.nanoTime());
+
+        byte[][] headers = new byte[files.size()][];
+        long length = 0;
+
+        for (int i = 0; i < files.size(); i++) {
+            File file = files.get(i);
+
+            /**
+             * The part name "data" and the part content type match what NingHttpConnection sends.
+             * The TinyUrlController depends on the name.
+             */
+            headers[i] = ("--" + boundary + CRLF +
+                    "Content-Disposition: form-data; name=\"data\"; filename=\"" + file.getName() + "\"" + CRLF +
+                    "Content-Type: multipart/form-data" + CRLF +
+                    "Content-Transfer-Encoding: binary" + CRLF + CRLF).getBytes(UTF_8);
+
+            length += headers[i].length + file.length() + CRLF.length();
+        }
+
+        byte[] footer = ("--" + boundary + "--" + CRLF).getBytes(UTF_8);
+        length += footer.length;
+
+        connection.setDoOutput(true);
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
+
+        if (length <= Integer.MAX_VALUE) {
+            connection.setFixedLengthStreamingMode((int) length);
+        } else {
+            connection.setChunkedStreamingMode(BUFFER_SIZE);
+        }
+
+        byte[] buffer = BYTE_BUFFERS.get();
+        OutputStream output = connection.getOutputStream();
+
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                output.write(headers[i]);
+
+                InputStream input = new FileInputStream(files.get(i));
+                try {
+                    int read;
+                    while ((read = input.read(buffer)) != -1) {
+                        output.write(buffer, 0, read);
+                    }
+                } finally {
+                    input.close();
+                }
+
+                output.write(CRLF_BYTES);
+            }
+
+            output.write(footer);
+        } finally {
+            output.close();
+        }
+    }
+
+    /**
+     * Reads the whole body in the charset the server declared. Appending to a presized StringBuilder keeps this
+     * linear in the size of the response, and the char buffer is reused across requests on the same thread.
+     */
+    private static String readString(HttpURLConnection connection) throws IOException {
+        HttpUtil.checkStatus(connection);
+
+        int contentLength = connection.getContentLength();
+        StringBuilder result = new StringBuilder(contentLength > 0 ? contentLength : BUFFER_SIZE);
+
+        Reader reader = new InputStreamReader(decoded(connection, connection.getInputStream()), HttpUtil.getCharset(connection.getContentType()));
+
+        try {
+            char[] buffer = CHAR_BUFFERS.get();
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                result.append(buffer, 0, read);
+            }
+        } finally {
+            reader.close();
+        }
+
+        return result.toString();
+    }
+
+    private static InputStream decoded(HttpURLConnection connection, InputStream input) throws IOException {
+        if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+            return new GZIPInputStream(input, BUFFER_SIZE);
+        }
+
+        return input;
+    }
+
+    /**
+     * Closes the underlying stream (and so releases the connection) as soon as the end is reached.
+     */
+    private static class SelfClosingInputStream extends FilterInputStream {
+
+        private boolean closed;
+
+        private SelfClosingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (closed) {
+                return -1;
+            }
+
+            int read = super.read();
+            if (read == -1) {
+                close();
+            }
+
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                return -1;
+            }
+
+            int read = super.read(b, off, len);
+            if (read == -1) {
+                close();
+            }
+
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                super.close();
+            }
+        }
     }
 
     @Override
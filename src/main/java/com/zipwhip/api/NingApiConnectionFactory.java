@@ -21,6 +21,7 @@ import java.util.concurrent.Executors;
 public class NingApiConnectionFactory extends ApiConnectionFactory {
 
     private ConfiguredFactory<String, ExecutorService> workerExecutorFactory;
+    private NingHttpConnectionConfiguration configuration = new NingHttpConnectionConfiguration();
     private Proxy proxy;
 
     /**
@@ -54,7 +55,7 @@ public class NingApiConnectionFactory extends ApiConnectionFactory {
         if (workerExecutor == null) workerExecutor = Executors.newFixedThreadPool(10);
 
         // Create the connection
-        final ApiConnection connection = new NingHttpConnection(workerExecutor, getProxyServer());
+        final ApiConnection connection = new NingHttpConnection(workerExecutor, getProxyServer(), null, configuration);
 
         // Make sure we cleanup the executor
         final Executor finalWorkerExecutor = workerExecutor;
@@ -75,6 +76,21 @@ public class NingApiConnectionFactory extends ApiConnectionFactory {
         return this;
     }
 
+    /**
+     * @param configuration Pooling, keep-alive, gzip and timeout settings for the connections this factory creates.
+     * @return this factory
+     * @throws NullPointerException if configuration is null
+     */
+    public NingApiConnectionFactory configuration(NingHttpConnectionConfiguration configuration) {
+        if (configuration == null) throw new NullPointerException("Configuration cannot be null");
+        this.configuration = configuration;
+        return this;
+    }
+
+    public NingHttpConnectionConfiguration getConfiguration() {
+        return configuration;
+    }
+
     /**
      * Call this method before creating and instance of the factory if you want to use a proxy
      *
@@ -20,6 +20,9 @@ import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Provides a persistent connection to a User on Zipwhip.
@@ -43,6 +46,14 @@ public class NingHttpConnection extends CascadingDestroyableBase implements ApiC
     private AsyncHttpClient asyncHttpClient = null;
     private Executor workerExecutor = null;
     private ProxyServer proxyServer = null;
+    private final NingHttpConnectionConfiguration configuration;
+
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicInteger peakActiveRequests = new AtomicInteger();
+    private final AtomicLong completedRequests = new AtomicLong();
+    private final AtomicLong failedRequests = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
 
     /**
      * Create a new {@code NingHttpConnection}
@@ -98,20 +109,46 @@ public class NingHttpConnection extends CascadingDestroyableBase implements ApiC
      * @throws IllegalArgumentException if workerExecutor is null
      */
     public NingHttpConnection(final Executor workerExecutor, final ProxyServer proxyServer, final SignTool authenticator) {
+        this(workerExecutor, proxyServer, authenticator, new NingHttpConnectionConfiguration());
+    }
+
+    /**
+     * Create a new {@code NingHttpConnection}
+     *
+     * @param workerExecutor This importantTaskExecutor is what your code will execute in. Our recommendation is that it's large
+     *                       because we have no idea how slow your code will be.
+     * @param authenticator  A {@code SignTool} to use for signing request URLs.
+     * @param configuration  Pooling, keep-alive, gzip and timeout settings for the underlying http client.
+     * @throws IllegalArgumentException if workerExecutor or configuration is null
+     */
+    public NingHttpConnection(final Executor workerExecutor, final ProxyServer proxyServer, final SignTool authenticator, final NingHttpConnectionConfiguration configuration) {
         if (workerExecutor == null) throw new IllegalArgumentException("workerExecutor cannot be null");
+        if (configuration == null) throw new IllegalArgumentException("configuration cannot be null");
 
         this.workerExecutor = workerExecutor;
         this.proxyServer = proxyServer;
         this.authenticator = authenticator;
+        this.configuration = configuration;
 
         // init the http client
         init();
     }
 
     private void init() {
-        final AsyncHttpClientConfig.Builder builder = new AsyncHttpClientConfig.Builder();
-        builder.setConnectionTimeoutInMs(10000);
-        asyncHttpClient = new AsyncHttpClient(builder.build());
+        LOGGER.debug("Creating http client with " + configuration);
+        asyncHttpClient = new AsyncHttpClient(configuration.toAsyncHttpClientConfig());
+    }
+
+    public NingHttpConnectionConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * @return A snapshot of the traffic through this connection, for sizing the pool under load.
+     */
+    public NingHttpConnectionStats getStats() {
+        return new NingHttpConnectionStats(activeRequests.get(), peakActiveRequests.get(), completedRequests.get(),
+                failedRequests.get(), totalWaitNanos.get(), maxWaitNanos.get());
     }
 
     @Override
@@ -192,19 +229,21 @@ public class NingHttpConnection extends CascadingDestroyableBase implements ApiC
 
         final MutableObservableFuture<String> responseFuture = new DefaultObservableFuture<String>(this, workerExecutor);
 
+        TrackedCompletionHandler handler = null;
+
         try {
             com.ning.http.client.RequestBuilder builder = new com.ning.http.client.RequestBuilder();
 
             /**
-             * The next 4 lines are needed because of a bug in Ning in NettyAsyncHttpProvider.java.
-             * Ning has not implemented multipart upload over SSH. If we are using HTTPS some files
-             * will result in a loop which can crash the JVM with an out of memory exception.
+             * Old versions of Ning have a bug in NettyAsyncHttpProvider.java. They have not implemented
+             * multipart upload over SSL. If we are using HTTPS some files will result in a loop which can
+             * crash the JVM with an out of memory exception. Only uploads are affected, and only if asked.
              *
              * https://issues.sonatype.org/browse/AHC-78
              */
             String toUseHost = host;
 
-            if (toUseHost.startsWith("https")) {
+            if (configuration.isMultipartOverHttp() && CollectionUtil.exists(files) && toUseHost.startsWith("https")) {
                 toUseHost = toUseHost.replaceFirst("https", "http");
             }
 
@@ -233,10 +272,11 @@ public class NingHttpConnection extends CascadingDestroyableBase implements ApiC
                 requestBuilder.setProxyServer(proxyServer);
             }
 
-            requestBuilder.execute(new AsyncCompletionHandler<Object>() {
+            handler = new TrackedCompletionHandler() {
 
                 @Override
                 public Object onCompleted(Response response) throws Exception {
+                    completed();
 
                     try {
                         // this will call the callbacks in the "workerExecutor" because of the constructor arg above.
@@ -250,15 +290,22 @@ public class NingHttpConnection extends CascadingDestroyableBase implements ApiC
 
                 @Override
                 public void onThrowable(Throwable t) {
+                    failed();
                     responseFuture.setFailure(t);
                 }
 
-            });
+            };
+
+            requestBuilder.execute(handler);
 
         } catch (Exception e) {
 
             LOGGER.error("Exception while hitting the web", e);
 
+            if (handler != null) {
+                handler.failed();
+            }
+
             // this will call the callbacks in the "workerExecutor" because of the constructor arg above.
             responseFuture.setFailure(e);
             return responseFuture;
@@ -277,15 +324,18 @@ public class NingHttpConnection extends CascadingDestroyableBase implements ApiC
 
         final MutableObservableFuture<InputStream> responseFuture = new DefaultObservableFuture<InputStream>(this, workerExecutor);
 
+        TrackedCompletionHandler handler = null;
+
         try {
             final AsyncHttpClient.BoundRequestBuilder requestBuilder = asyncHttpClient.prepareGet(UrlUtil.getSignedUrl(host, apiVersion, method, rb.build(), sessionKey, authenticator));
             if (proxyServer != null) {
                 requestBuilder.setProxyServer(proxyServer);
             }
-            requestBuilder.execute(new AsyncCompletionHandler<Object>() {
+            handler = new TrackedCompletionHandler() {
 
                 @Override
                 public Object onCompleted(Response response) throws Exception {
+                    completed();
 
                     // TODO Remove this once zipwhip uses real HTTP codes
                     if (response.getContentType() != null && response.getContentType().contains("json")) {
@@ -310,15 +360,22 @@ public class NingHttpConnection extends CascadingDestroyableBase implements ApiC
 
                 @Override
                 public void onThrowable(Throwable t) {
+                    failed();
                     responseFuture.setFailure(t);
                 }
 
-            });
+            };
+
+            requestBuilder.execute(handler);
 
         } catch (Exception e) {
 
             LOGGER.error("Exception while hitting the web", e);
 
+            if (handler != null) {
+                handler.failed();
+            }
+
             // this will call the callbacks in the "workerExecutor" because of the constructor arg above.
             responseFuture.setFailure(e);
             return responseFuture;
@@ -332,6 +389,56 @@ public class NingHttpConnection extends CascadingDestroyableBase implements ApiC
         asyncHttpClient.close();
     }
 
+    /**
+     * Counts the request as active from construction until it completes or fails, whichever happens first.
+     */
+    private abstract class TrackedCompletionHandler extends AsyncCompletionHandler<Object> {
+
+        private final long startTime = System.nanoTime();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile long waitNanos;
+
+        private TrackedCompletionHandler() {
+            int active = activeRequests.incrementAndGet();
+
+            int peak = peakActiveRequests.get();
+            while (active > peak && !peakActiveRequests.compareAndSet(peak, active)) {
+                peak = peakActiveRequests.get();
+            }
+        }
+
+        @Override
+        public STATE onStatusReceived(HttpResponseStatus status) throws Exception {
+            // the server started answering. Anything before this was waiting for a connection or for the server.
+            waitNanos = System.nanoTime() - startTime;
+            return super.onStatusReceived(status);
+        }
+
+        protected void completed() {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+
+            activeRequests.decrementAndGet();
+            completedRequests.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+
+            long max = maxWaitNanos.get();
+            while (waitNanos > max && !maxWaitNanos.compareAndSet(max, waitNanos)) {
+                max = maxWaitNanos.get();
+            }
+        }
+
+        protected void failed() {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+
+            activeRequests.decrementAndGet();
+            failedRequests.incrementAndGet();
+        }
+    }
+
     public ProxyServer getProxyServer() {
         return proxyServer;
     }
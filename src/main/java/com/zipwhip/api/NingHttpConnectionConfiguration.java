@@ -0,0 +1,151 @@
+package com.zipwhip.api;
+
+import com.ning.http.client.AsyncHttpClientConfig;
+
+/**
+ * Tuning knobs for the HTTP client inside a {@link NingHttpConnection}: connection pooling, keep-alive, gzip,
+ * timeouts and the number of IO threads.
+ * <p/>
+ * The defaults are sized for one client talking to one Zipwhip host. If you push a lot of calls through one
+ * connection (see {@link ZipwhipNetworkSupport#executeBatch}), raise maxConnectionsPerHost to at least your
+ * in-flight window and watch {@link NingHttpConnection#getStats()} while under load.
+ * <p/>
+ * A value of -1 means unlimited.
+ */
+public class NingHttpConnectionConfiguration {
+
+    private int connectionTimeoutInMs = 10000;
+    private int requestTimeoutInMs = 60000;
+    private int maxConnectionsPerHost = -1;
+    private int maxConnectionsTotal = -1;
+    private boolean keepAlive = true;
+    private int idleConnectionInPoolTimeoutInMs = 60000;
+    private boolean compressionEnabled = true;
+    private int ioThreadMultiplier = 2;
+    private boolean multipartOverHttp = false;
+
+    /**
+     * @return How long to wait for the TCP connection to be established.
+     */
+    public int getConnectionTimeoutInMs() {
+        return connectionTimeoutInMs;
+    }
+
+    public void setConnectionTimeoutInMs(int connectionTimeoutInMs) {
+        this.connectionTimeoutInMs = connectionTimeoutInMs;
+    }
+
+    /**
+     * @return How long a single request may take, start to finish, before it fails with a timeout.
+     */
+    public int getRequestTimeoutInMs() {
+        return requestTimeoutInMs;
+    }
+
+    public void setRequestTimeoutInMs(int requestTimeoutInMs) {
+        this.requestTimeoutInMs = requestTimeoutInMs;
+    }
+
+    /**
+     * @return The most connections open to one host at a time. Requests over the limit fail fast rather than wait.
+     */
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * @return The most connections open at a time, across all hosts.
+     */
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+    }
+
+    /**
+     * @return If true, finished connections are kept open and reused for the next request to the same host.
+     */
+    public boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * @return How long a kept-alive connection may sit unused in the pool before it is closed.
+     */
+    public int getIdleConnectionInPoolTimeoutInMs() {
+        return idleConnectionInPoolTimeoutInMs;
+    }
+
+    public void setIdleConnectionInPoolTimeoutInMs(int idleConnectionInPoolTimeoutInMs) {
+        this.idleConnectionInPoolTimeoutInMs = idleConnectionInPoolTimeoutInMs;
+    }
+
+    /**
+     * @return If true, ask for gzip responses. Large list responses shrink by an order of magnitude.
+     */
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    public void setCompressionEnabled(boolean compressionEnabled) {
+        this.compressionEnabled = compressionEnabled;
+    }
+
+    /**
+     * @return The number of IO threads per available processor.
+     */
+    public int getIoThreadMultiplier() {
+        return ioThreadMultiplier;
+    }
+
+    public void setIoThreadMultiplier(int ioThreadMultiplier) {
+        this.ioThreadMultiplier = ioThreadMultiplier;
+    }
+
+    /**
+     * Old versions of Ning could not do multipart uploads over SSL (https://issues.sonatype.org/browse/AHC-78),
+     * so file uploads used to be sent over plain http. This is off by default, turn it on only if you are stuck
+     * with one of those versions.
+     *
+     * @return If true, requests with files are sent over http even if the host is https.
+     */
+    public boolean isMultipartOverHttp() {
+        return multipartOverHttp;
+    }
+
+    public void setMultipartOverHttp(boolean multipartOverHttp) {
+        this.multipartOverHttp = multipartOverHttp;
+    }
+
+    AsyncHttpClientConfig toAsyncHttpClientConfig() {
+        final AsyncHttpClientConfig.Builder builder = new AsyncHttpClientConfig.Builder();
+
+        builder.setConnectionTimeoutInMs(connectionTimeoutInMs);
+        builder.setRequestTimeoutInMs(requestTimeoutInMs);
+        builder.setMaximumConnectionsPerHost(maxConnectionsPerHost);
+        builder.setMaximumConnectionsTotal(maxConnectionsTotal);
+        builder.setAllowPoolingConnection(keepAlive);
+        builder.setIdleConnectionInPoolTimeoutInMs(idleConnectionInPoolTimeoutInMs);
+        builder.setCompressionEnabled(compressionEnabled);
+        builder.setIOThreadMultiplier(ioThreadMultiplier);
+
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[NingHttpConnectionConfiguration: connectTimeout=%dms, requestTimeout=%dms, maxPerHost=%d, maxTotal=%d, keepAlive=%b, idleTimeout=%dms, gzip=%b, ioThreadMultiplier=%d]",
+                connectionTimeoutInMs, requestTimeoutInMs, maxConnectionsPerHost, maxConnectionsTotal, keepAlive,
+                idleConnectionInPoolTimeoutInMs, compressionEnabled, ioThreadMultiplier);
+    }
+}
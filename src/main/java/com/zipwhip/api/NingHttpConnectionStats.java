@@ -0,0 +1,75 @@
+package com.zipwhip.api;
+
+/**
+ * A point in time snapshot of the traffic through a {@link NingHttpConnection}.
+ * <p/>
+ * HTTP/1.1 runs one request per connection at a time, so the number of active requests is also the number of
+ * connections that are busy. Wait time is measured from the moment a request is handed to the client until the
+ * status line of the response arrives, so it includes any time spent connecting.
+ */
+public class NingHttpConnectionStats {
+
+    private final int activeRequests;
+    private final int peakActiveRequests;
+    private final long completedRequests;
+    private final long failedRequests;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+
+    public NingHttpConnectionStats(int activeRequests, int peakActiveRequests, long completedRequests, long failedRequests, long totalWaitNanos, long maxWaitNanos) {
+        this.activeRequests = activeRequests;
+        this.peakActiveRequests = peakActiveRequests;
+        this.completedRequests = completedRequests;
+        this.failedRequests = failedRequests;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    /**
+     * @return The number of requests (and so busy connections) in flight right now.
+     */
+    public int getActiveRequests() {
+        return activeRequests;
+    }
+
+    /**
+     * @return The most requests that were ever in flight at once.
+     */
+    public int getPeakActiveRequests() {
+        return peakActiveRequests;
+    }
+
+    /**
+     * @return The number of requests that got a response, whatever the status code.
+     */
+    public long getCompletedRequests() {
+        return completedRequests;
+    }
+
+    /**
+     * @return The number of requests that never got a response (timeouts, refused connections, pool exhausted).
+     */
+    public long getFailedRequests() {
+        return failedRequests;
+    }
+
+    /**
+     * @return The average time until the response started, over the completed requests.
+     */
+    public double getAverageWaitMillis() {
+        return completedRequests == 0 ? 0 : totalWaitNanos / 1000000.0 / completedRequests;
+    }
+
+    /**
+     * @return The longest time any request waited until the response started.
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos / 1000000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[NingHttpConnectionStats: active=%d, peak=%d, completed=%d, failed=%d, avgWait=%.2fms, maxWait=%.2fms]",
+                activeRequests, peakActiveRequests, completedRequests, failedRequests, getAverageWaitMillis(), getMaxWaitMillis());
+    }
+}
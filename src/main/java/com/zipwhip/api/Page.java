@@ -0,0 +1,44 @@
+package com.zipwhip.api;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a list call (message/list, contact/list, conversation/list), with the total size of the list if the server told us.
+ */
+public class Page<T> {
+
+    /**
+     * The total is not known. The list ends at the first short page.
+     */
+    public static final int UNKNOWN_TOTAL = -1;
+
+    private final List<T> items;
+    private final int total;
+
+    public Page(List<T> items) {
+        this(items, UNKNOWN_TOTAL);
+    }
+
+    /**
+     * @param items The items on this page, null is the same as empty.
+     * @param total The number of items in the whole list, or zero or less if it is not known.
+     */
+    public Page(List<T> items, int total) {
+        this.items = items == null ? Collections.<T>emptyList() : items;
+        this.total = total > 0 ? total : UNKNOWN_TOTAL;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public boolean isTotalKnown() {
+        return total != UNKNOWN_TOTAL;
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.zipwhip.api;
+
+import com.zipwhip.concurrent.ObservableFuture;
+
+/**
+ * Loads one page of a list call in the background. Used by the {@link PagedIterator}.
+ */
+public interface PageLoader<T> {
+
+    /**
+     * Start loading a page. This must not block waiting for the page.
+     *
+     * @param start The index of the first item on the page.
+     * @param limit The most items to return.
+     * @return A future that completes with the page.
+     * @throws Exception If the request could not be sent.
+     */
+    ObservableFuture<Page<T>> load(int start, int limit) throws Exception;
+
+}
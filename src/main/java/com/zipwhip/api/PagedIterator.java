@@ -0,0 +1,228 @@
+package com.zipwhip.api;
+
+import com.zipwhip.concurrent.DefaultObservableFuture;
+import com.zipwhip.concurrent.MutableObservableFuture;
+import com.zipwhip.concurrent.ObservableFuture;
+import com.zipwhip.lifecycle.DestroyableBase;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Walks a list call (message/list, contact/list, conversation/list) one item at a time, loading it a page at a
+ * time.
+ * <p/>
+ * While you consume a page, the next prefetchDepth pages are already loading in the background, so a consumer
+ * that is slower than the network never waits after the first page. No more than 1 + prefetchDepth pages are
+ * held at once, so memory stays flat however big the account is. A prefetchDepth of 0 loads each page only when
+ * the previous one is used up.
+ * <p/>
+ * The walk ends at the first short page, or once the total the server reported has been reached.
+ * <p/>
+ * Iterator can't throw checked exceptions, so if a page fails or times out, hasNext() and next() throw an
+ * IllegalStateException with the real failure as the cause. The iterator is finished after that.
+ * <p/>
+ * This class is not thread safe. Use one iterator per consumer. If you stop early, destroy it to drop the pages
+ * that are still loading.
+ */
+public class PagedIterator<T> extends DestroyableBase implements Iterator<T> {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int DEFAULT_PREFETCH_DEPTH = 1;
+
+    private final PageLoader<T> loader;
+    private final int pageSize;
+    private final int prefetchDepth;
+
+    private final LinkedList<ObservableFuture<Page<T>>> pending = new LinkedList<ObservableFuture<Page<T>>>();
+
+    private long timeoutSeconds = ZipwhipNetworkSupport.DEFAULT_TIMEOUT_SECONDS;
+
+    private Iterator<T> current = Collections.<T>emptyList().iterator();
+    private int nextStart;
+    private int total = Page.UNKNOWN_TOTAL;
+    private boolean exhausted;
+
+    public PagedIterator(PageLoader<T> loader) {
+        this(loader, DEFAULT_PAGE_SIZE, DEFAULT_PREFETCH_DEPTH);
+    }
+
+    public PagedIterator(PageLoader<T> loader, int pageSize, int prefetchDepth) {
+        this(loader, 0, pageSize, prefetchDepth);
+    }
+
+    /**
+     * @param loader        Loads the pages.
+     * @param start         The index to start walking from.
+     * @param pageSize      How many items to ask for at a time.
+     * @param prefetchDepth How many pages to load ahead of the one being consumed.
+     */
+    public PagedIterator(PageLoader<T> loader, int start, int pageSize, int prefetchDepth) {
+        if (loader == null) {
+            throw new IllegalArgumentException("The loader cannot be null");
+        } else if (start < 0) {
+            throw new IllegalArgumentException("The start cannot be negative");
+        } else if (pageSize <= 0) {
+            throw new IllegalArgumentException("The pageSize must be positive");
+        } else if (prefetchDepth < 0) {
+            throw new IllegalArgumentException("The prefetchDepth cannot be negative");
+        }
+
+        this.loader = loader;
+        this.nextStart = start;
+        this.pageSize = pageSize;
+        this.prefetchDepth = prefetchDepth;
+
+        // Get the first pages moving while the caller is still setting up.
+        fill();
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (pending.isEmpty() && !request()) {
+                return false;
+            }
+
+            take(pending.removeFirst());
+            fill();
+        }
+
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        return current.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("The server list is read only");
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
+    /**
+     * @return The total the server reported, or {@link Page#UNKNOWN_TOTAL} if it didn't (or no page has arrived yet).
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return The number of pages that are loading right now.
+     */
+    public int getPendingPages() {
+        return pending.size();
+    }
+
+    public long getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    /**
+     * @param timeoutSeconds How long hasNext() waits for a page before giving up.
+     */
+    public void setTimeoutSeconds(long timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Top the pipeline back up to prefetchDepth pages.
+     */
+    private void fill() {
+        while (pending.size() < prefetchDepth && request()) {
+            // keep asking
+        }
+    }
+
+    /**
+     * Ask for the next page, unless we know we're past the end.
+     *
+     * @return false if there is nothing left to ask for.
+     */
+    private boolean request() {
+        if (exhausted) {
+            return false;
+        } else if (total != Page.UNKNOWN_TOTAL && nextStart >= total) {
+            exhausted = true;
+            return false;
+        }
+
+        ObservableFuture<Page<T>> future;
+        try {
+            future = loader.load(nextStart, pageSize);
+        } catch (Exception e) {
+            MutableObservableFuture<Page<T>> failed = new DefaultObservableFuture<Page<T>>(this);
+            failed.setFailure(e);
+            future = failed;
+        }
+
+        pending.addLast(future);
+        nextStart += pageSize;
+
+        return true;
+    }
+
+    private void take(ObservableFuture<Page<T>> future) {
+        Page<T> page = await(future);
+
+        if (page.isTotalKnown()) {
+            total = page.getTotal();
+        }
+
+        current = page.getItems().iterator();
+
+        if (page.getItems().size() < pageSize) {
+            // This was the last page. Anything after it that is still loading is past the end.
+            exhausted = true;
+            pending.clear();
+        }
+    }
+
+    private Page<T> await(ObservableFuture<Page<T>> future) {
+        try {
+            if (!future.await(timeoutSeconds, TimeUnit.SECONDS)) {
+                fail();
+                throw new IllegalStateException("Timed out after " + timeoutSeconds + " seconds waiting for a page");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail();
+            throw new IllegalStateException("Interrupted while waiting for a page", e);
+        }
+
+        if (!future.isSuccess()) {
+            fail();
+            throw new IllegalStateException("Could not load a page", future.getCause());
+        }
+
+        return future.getResult();
+    }
+
+    private void fail() {
+        exhausted = true;
+        pending.clear();
+        current = Collections.<T>emptyList().iterator();
+    }
+
+    @Override
+    protected void onDestroy() {
+        // The pages in flight can't be recalled, they'll just be dropped when they arrive.
+        fail();
+    }
+}
@@ -233,6 +233,16 @@ public interface ZipwhipClient extends Destroyable {
      */
     List<Conversation> listConversations(int start, int limit) throws Exception;
 
+    /**
+     * Walk all the {@link Conversation}s associated with the user, a page at a time. The next prefetchDepth pages load in
+     * the background while you consume the current one, and only those pages are held in memory.
+     *
+     * @param pageSize      How many conversations to ask for at a time.
+     * @param prefetchDepth How many pages to load ahead of the one being consumed. Zero loads each page on demand.
+     * @return A {@link PagedIterator} over all the conversations. Destroy it if you stop early.
+     */
+    PagedIterator<Conversation> iterateConversations(int pageSize, int prefetchDepth);
+
     /**
      * @return A list of all {@link Contact}s associated with the supplied user.
      * @throws Exception if an error occurs communicating with Zipwhip or parsing the response, or the server returns a failure message.
@@ -247,6 +257,16 @@ public interface ZipwhipClient extends Destroyable {
      */
     List<Contact> listContacts(int start, int limit) throws Exception;
 
+    /**
+     * Walk all the {@link Contact}s associated with the user, a page at a time. The next prefetchDepth pages load in
+     * the background while you consume the current one, and only those pages are held in memory.
+     *
+     * @param pageSize      How many contacts to ask for at a time.
+     * @param prefetchDepth How many pages to load ahead of the one being consumed. Zero loads each page on demand.
+     * @return A {@link PagedIterator} over all the contacts. Destroy it if you stop early.
+     */
+    PagedIterator<Contact> iterateContacts(int pageSize, int prefetchDepth);
+
     /**
      * @param fingerprint The fingerprint of the conversation that you wish to mark as read.
      * @return A boolean which represents whether or not the operation completed successfully.
@@ -325,6 +345,17 @@ public interface ZipwhipClient extends Destroyable {
      */
     List<Message> listMessages(int start, int limit) throws Exception;
 
+    /**
+     * Walk all the {@link Message}s associated with the user, a page at a time. The next prefetchDepth pages load in
+     * the background while you consume the current one, and only those pages are held in memory.
+     * The walk stops at the total that message/list reports.
+     *
+     * @param pageSize      How many messages to ask for at a time.
+     * @param prefetchDepth How many pages to load ahead of the one being consumed. Zero loads each page on demand.
+     * @return A {@link PagedIterator} over all the messages. Destroy it if you stop early.
+     */
+    PagedIterator<Message> iterateMessages(int pageSize, int prefetchDepth);
+
     /**
      * Delete messages by their corresponding UUIDs.
      *
@@ -1,6 +1,10 @@
 package com.zipwhip.api;
 
+import com.zipwhip.api.dto.Contact;
+import com.zipwhip.api.dto.Conversation;
+import com.zipwhip.api.dto.Message;
 import com.zipwhip.api.response.JsonResponseParser;
+import com.zipwhip.api.response.MessageListResult;
 import com.zipwhip.api.response.ResponseParser;
 import com.zipwhip.api.response.ServerResponse;
 import com.zipwhip.api.response.StringServerResponse;
@@ -20,11 +24,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A base class for future implementation to extend.
@@ -46,6 +54,11 @@ public abstract class ZipwhipNetworkSupport extends CascadingDestroyableBase {
      */
     public static final long DEFAULT_TIMEOUT_SECONDS = 45;
 
+    /**
+     * The default number of batched calls that may be on the wire at the same time.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 16;
+
     public static final String SESSION_GET = "session/get";
     public static final String PRESENCE_GET = "presence/get";
 
@@ -136,6 +149,14 @@ public abstract class ZipwhipNetworkSupport extends CascadingDestroyableBase {
     protected ApiConnection connection;
     protected ResponseParser responseParser;
 
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+
+    /**
+     * If true, responses are parsed in the callbackExecutor instead of the connection's worker threads.
+     * Don't turn this on if you block in executeSync() from inside a callback, the callbackExecutor might be single threaded.
+     */
+    protected boolean parseOnCallbackExecutor = false;
+
     /**
      * Create a new default {@code ZipwhipNetworkSupport}
      */
@@ -190,6 +211,49 @@ public abstract class ZipwhipNetworkSupport extends CascadingDestroyableBase {
         this.responseParser = responseParser;
     }
 
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * @param maxInFlight The most calls from one batch that will be sent before any of them have come back.
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Send many calls concurrently, keeping at most {@code maxInFlight} of them on the wire at once.
+     *
+     * @param calls The calls to make.
+     * @return A future that finishes when every call has finished. The results are in the same order as the calls.
+     * A failed call shows up as a failed ApiCallResult, it never fails the whole batch.
+     */
+    public ObservableFuture<List<ApiCallResult>> executeBatch(List<ApiCall> calls) {
+        return executeBatch(calls, maxInFlight);
+    }
+
+    public ObservableFuture<List<ApiCallResult>> executeBatch(List<ApiCall> calls, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+
+        final MutableObservableFuture<List<ApiCallResult>> result = new DefaultObservableFuture<List<ApiCallResult>>(this, callbackExecutor);
+
+        if (CollectionUtil.isNullOrEmpty(calls)) {
+            result.setSuccess(Collections.<ApiCallResult>emptyList());
+            return result;
+        }
+
+        new BatchPipeline(calls, result).start(Math.min(maxInFlight, calls.size()));
+
+        return result;
+    }
+
     protected ServerResponse executeSync(final String method, final Map<String, Object> params) throws Exception {
         return get(executeAsync(method, params, true, FORWARD_RUNNABLE));
     }
@@ -240,53 +304,27 @@ public abstract class ZipwhipNetworkSupport extends CascadingDestroyableBase {
              * @param item Rich object representing the notification.
              */
             @Override
-            public void notify(Object sender, ObservableFuture<String> item) {
+            public void notify(Object sender, final ObservableFuture<String> item) {
 
                 // The network is done! let's check for our cake!
                 if (!item.isDone()) {
                     return;
                 }
 
-                if (item.isCancelled()) {
-                    // this will execute in the "callbackExecutor"
-                    result.cancel();
-                    return;
-                }
-                if (!item.isSuccess()) {
-                    // this will execute in the "callbackExecutor"
-                    result.setFailure(item.getCause());
-                    return;
-                }
-
-                String responseString = item.getResult();
-
-                ServerResponse serverResponse;
-                try {
-                    serverResponse = responseParser.parse(responseString);
-                } catch (Exception e) {
-                    LOGGER.error("Problem parsing json response", e);
-                    // this will execute in the "callbackExecutor"
-                    result.setFailure(e);
+                if (!parseOnCallbackExecutor) {
+                    processResponse(item, result, businessLogic);
                     return;
                 }
 
                 try {
-                    checkAndThrowError(serverResponse);
+                    callbackExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            processResponse(item, result, businessLogic);
+                        }
+                    });
                 } catch (Exception e) {
-                    // this will execute in the "callbackExecutor"
-                    result.setFailure(e);
-                    return;
-                }
-
-                try {
-                    if (businessLogic != null) {
-                        businessLogic.run(new ParsableServerResponse<T>(result, serverResponse));
-                    } else {
-                        result.setSuccess(null);
-                    }
-                } catch (Exception e) {
-                    LOGGER.error("Problem with running the business logic conversion", e);
-                    // this will execute in the "callbackExecutor"
+                    LOGGER.error("Could not hand the response to the callbackExecutor", e);
                     result.setFailure(e);
                 }
             }
@@ -295,6 +333,51 @@ public abstract class ZipwhipNetworkSupport extends CascadingDestroyableBase {
         return result;
     }
 
+    private <T> void processResponse(ObservableFuture<String> item, MutableObservableFuture<T> result, InputRunnable<ParsableServerResponse<T>> businessLogic) {
+        if (item.isCancelled()) {
+            // this will execute in the "callbackExecutor"
+            result.cancel();
+            return;
+        }
+        if (!item.isSuccess()) {
+            // this will execute in the "callbackExecutor"
+            result.setFailure(item.getCause());
+            return;
+        }
+
+        String responseString = item.getResult();
+
+        ServerResponse serverResponse;
+        try {
+            serverResponse = responseParser.parse(responseString);
+        } catch (Exception e) {
+            LOGGER.error("Problem parsing json response", e);
+            // this will execute in the "callbackExecutor"
+            result.setFailure(e);
+            return;
+        }
+
+        try {
+            checkAndThrowError(serverResponse);
+        } catch (Exception e) {
+            // this will execute in the "callbackExecutor"
+            result.setFailure(e);
+            return;
+        }
+
+        try {
+            if (businessLogic != null) {
+                businessLogic.run(new ParsableServerResponse<T>(result, serverResponse));
+            } else {
+                result.setSuccess(null);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Problem with running the business logic conversion", e);
+            // this will execute in the "callbackExecutor"
+            result.setFailure(e);
+        }
+    }
+
     protected ObservableFuture<byte[]> executeAsyncBinaryResponse(String method, Map<String, Object> params, boolean requiresAuthentication) throws Exception {
 
         if (requiresAuthentication && !connection.isAuthenticated()) {
@@ -396,6 +479,145 @@ public abstract class ZipwhipNetworkSupport extends CascadingDestroyableBase {
         return (serverResponse != null) && serverResponse.isSuccess();
     }
 
+    /**
+     * Keeps a window of calls in flight. Each completion opens a slot for the next call.
+     *
+     * Sending happens in a drain loop so that calls that finish synchronously (ie: fail fast) don't recurse.
+     */
+    private class BatchPipeline {
+
+        private final List<ApiCall> calls;
+        private final ApiCallResult[] results;
+        private final MutableObservableFuture<List<ApiCallResult>> future;
+
+        private final AtomicInteger remaining;
+        private final AtomicInteger slots = new AtomicInteger();
+        private final AtomicInteger wip = new AtomicInteger();
+        private int next; // guarded by wip
+
+        private BatchPipeline(List<ApiCall> calls, MutableObservableFuture<List<ApiCallResult>> future) {
+            this.calls = calls;
+            this.results = new ApiCallResult[calls.size()];
+            this.remaining = new AtomicInteger(calls.size());
+            this.future = future;
+        }
+
+        public void start(int window) {
+            slots.addAndGet(window);
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                // someone else is sending, they will see our slot.
+                return;
+            }
+
+            do {
+                while (next < calls.size() && slots.get() > 0) {
+                    slots.decrementAndGet();
+                    send(next++);
+                }
+            } while (wip.decrementAndGet() != 0);
+        }
+
+        private void send(final int index) {
+            final ApiCall call = calls.get(index);
+            final ObservableFuture<ServerResponse> callFuture;
+
+            try {
+                callFuture = executeAsync(call.getMethod(), call.getParams(), call.isRequiresAuthentication(), FORWARD_RUNNABLE);
+            } catch (Exception e) {
+                complete(index, new ApiCallResult(call, null, e));
+                return;
+            }
+
+            callFuture.addObserver(new Observer<ObservableFuture<ServerResponse>>() {
+                @Override
+                public void notify(Object sender, ObservableFuture<ServerResponse> item) {
+                    if (item.isSuccess()) {
+                        complete(index, new ApiCallResult(call, item.getResult(), null));
+                    } else if (item.isCancelled()) {
+                        complete(index, new ApiCallResult(call, null, new IllegalStateException("Cancelled")));
+                    } else {
+                        complete(index, new ApiCallResult(call, null, item.getCause()));
+                    }
+                }
+            });
+        }
+
+        private void complete(int index, ApiCallResult result) {
+            results[index] = result;
+
+            if (remaining.decrementAndGet() == 0) {
+                future.setSuccess(Arrays.asList(results));
+                return;
+            }
+
+            slots.incrementAndGet();
+            drain();
+        }
+    }
+
+    /**
+     * Walk one of the list calls with a {@link PagedIterator}, prefetching pages in the background.
+     *
+     * @param method        The list call, it must take start and limit.
+     * @param pageSize      How many items to ask for at a time.
+     * @param prefetchDepth How many pages to load ahead of the one being consumed.
+     * @param parser        Turns a response into a page.
+     * @return An iterator over the whole list.
+     */
+    protected <T> PagedIterator<T> iterate(final String method, int pageSize, int prefetchDepth, final PageParser<T> parser) {
+        return new PagedIterator<T>(new PageLoader<T>() {
+            @Override
+            public ObservableFuture<Page<T>> load(int start, int limit) throws Exception {
+                final Map<String, Object> params = new HashMap<String, Object>();
+                params.put("start", Integer.toString(start));
+                params.put("limit", Integer.toString(limit));
+
+                return executeAsync(method, params, true, new InputRunnable<ParsableServerResponse<Page<T>>>() {
+                    @Override
+                    public void run(ParsableServerResponse<Page<T>> object) {
+                        try {
+                            object.getFuture().setSuccess(parser.parse(object.getServerResponse()));
+                        } catch (Exception e) {
+                            object.getFuture().setFailure(e);
+                        }
+                    }
+                });
+            }
+        }, pageSize, prefetchDepth);
+    }
+
+    protected final PageParser<Message> messagePageParser = new PageParser<Message>() {
+        @Override
+        public Page<Message> parse(ServerResponse serverResponse) throws Exception {
+            MessageListResult result = responseParser.parseMessagesListResult(serverResponse);
+            return new Page<Message>(result.getMessages(), result.getTotal());
+        }
+    };
+
+    protected final PageParser<Contact> contactPageParser = new PageParser<Contact>() {
+        @Override
+        public Page<Contact> parse(ServerResponse serverResponse) throws Exception {
+            return new Page<Contact>(responseParser.parseContacts(serverResponse));
+        }
+    };
+
+    protected final PageParser<Conversation> conversationPageParser = new PageParser<Conversation>() {
+        @Override
+        public Page<Conversation> parse(ServerResponse serverResponse) throws Exception {
+            return new Page<Conversation>(responseParser.parseConversations(serverResponse));
+        }
+    };
+
+    protected interface PageParser<T> {
+
+        Page<T> parse(ServerResponse serverResponse) throws Exception;
+
+    }
+
     protected static class ParsableServerResponse<T> {
 
         private MutableObservableFuture<T> future;
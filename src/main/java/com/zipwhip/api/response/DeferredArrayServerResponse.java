@@ -0,0 +1,16 @@
+package com.zipwhip.api.response;
+
+/**
+ * An array response from the {@link StreamingResponseParser} whose elements have not been decoded yet.
+ * <p/>
+ * The envelope has been checked, but the array is kept as the raw JSON until somebody asks for it as a list of
+ * Messages, Contacts, Conversations (or whatever it really is). At that point it is decoded straight off the raw
+ * string into the DTOs, without building a JSON tree first.
+ */
+public class DeferredArrayServerResponse extends ServerResponse {
+
+    public DeferredArrayServerResponse(String raw, boolean success) {
+        super(raw, success);
+    }
+
+}
@@ -0,0 +1,915 @@
+package com.zipwhip.api.response;
+
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.zipwhip.api.dto.*;
+import com.zipwhip.util.JsonDateUtil;
+import com.zipwhip.util.StringUtil;
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.*;
+
+/**
+ * A ResponseParser that decodes the big list calls (message/list, contact/list and conversation/list) straight
+ * into DTOs with a {@link JsonReader}, instead of building an org.json tree and then walking it.
+ * <p/>
+ * There are two ways in:
+ * <ul>
+ * <li>{@link #parseMessagesListResult(Reader)}, {@link #parseContacts(Reader)} and friends read the whole body in
+ * a single pass. The raw string never has to exist, so you can hand them the response stream directly.</li>
+ * <li>As a drop in replacement for the {@link JsonResponseParser} (see
+ * {@link com.zipwhip.api.ZipwhipNetworkSupport#setResponseParser}). The ResponseParser contract parses the
+ * envelope before the caller says which DTO it wants, so {@link #parse(String)} only checks the envelope and
+ * hands back a {@link DeferredArrayServerResponse}. The array is then decoded once, into the requested type.</li>
+ * </ul>
+ * Anything that is not an array response goes through the {@link JsonResponseParser} unchanged. The field mapping
+ * and defaults are the same as the {@link JsonDtoParser}, so both parsers return equal DTOs for the same JSON.
+ */
+public class StreamingResponseParser extends JsonResponseParser {
+
+    private static final JsonParser PARSER = new JsonParser();
+
+    private static final long DEFAULT_LONG = 0l;
+    private static final int DEFAULT_INT = 0;
+
+    private final ElementReader<Message> messageReader = new ElementReader<Message>() {
+        @Override
+        public Message read(JsonReader reader) throws IOException {
+            return readMessage(reader);
+        }
+    };
+
+    private final ElementReader<Contact> contactReader = new ElementReader<Contact>() {
+        @Override
+        public Contact read(JsonReader reader) throws IOException {
+            return readContact(reader);
+        }
+    };
+
+    private final ElementReader<Conversation> conversationReader = new ElementReader<Conversation>() {
+        @Override
+        public Conversation read(JsonReader reader) throws IOException {
+            return readConversation(reader);
+        }
+    };
+
+    @Override
+    public ServerResponse parse(String response) throws JSONException {
+
+        if (StringUtil.isNullOrEmpty(response)) {
+            return null;
+        } else if (StringUtil.equalsIgnoreCase("null", response)) {
+            return null;
+        }
+
+        Boolean success = scanArrayEnvelope(response);
+
+        if (success == null) {
+            // Not an array (or not even JSON). Let the tree parser deal with it, errors and all.
+            return super.parse(response);
+        }
+
+        return new DeferredArrayServerResponse(response, success);
+    }
+
+    /**
+     * Decode a message/list response in a single pass.
+     *
+     * @param input The response body.
+     * @return The messages, with the total and size from the envelope.
+     * @throws Exception If the response is not successful or is not a list.
+     */
+    public MessageListResult parseMessagesListResult(Reader input) throws Exception {
+        return toMessageListResult(checkSuccess(readList(input, messageReader)));
+    }
+
+    /**
+     * Decode a message/list response in a single pass.
+     *
+     * @param input The response body.
+     * @return The messages.
+     * @throws Exception If the response is not successful or is not a list.
+     */
+    public List<Message> parseMessages(Reader input) throws Exception {
+        return items(checkSuccess(readList(input, messageReader)));
+    }
+
+    /**
+     * Decode a contact/list response in a single pass.
+     *
+     * @param input The response body.
+     * @return The contacts.
+     * @throws Exception If the response is not successful or is not a list.
+     */
+    public List<Contact> parseContacts(Reader input) throws Exception {
+        return items(checkSuccess(readList(input, contactReader)));
+    }
+
+    /**
+     * Decode a conversation/list response in a single pass.
+     *
+     * @param input The response body.
+     * @return The conversations.
+     * @throws Exception If the response is not successful or is not a list.
+     */
+    public List<Conversation> parseConversations(Reader input) throws Exception {
+        return items(checkSuccess(readList(input, conversationReader)));
+    }
+
+    @Override
+    public MessageListResult parseMessagesListResult(ServerResponse serverResponse) throws Exception {
+        if (serverResponse instanceof DeferredArrayServerResponse) {
+            return toMessageListResult(readList(new StringReader(serverResponse.getRaw()), messageReader));
+        }
+
+        return super.parseMessagesListResult(serverResponse);
+    }
+
+    @Override
+    public List<Message> parseMessages(ServerResponse serverResponse) throws Exception {
+        if (serverResponse instanceof DeferredArrayServerResponse) {
+            return items(readList(new StringReader(serverResponse.getRaw()), messageReader));
+        }
+
+        return super.parseMessages(serverResponse);
+    }
+
+    @Override
+    public List<Contact> parseContacts(ServerResponse serverResponse) throws Exception {
+        if (serverResponse instanceof DeferredArrayServerResponse) {
+            return items(readList(new StringReader(serverResponse.getRaw()), contactReader));
+        }
+
+        return super.parseContacts(serverResponse);
+    }
+
+    @Override
+    public List<Conversation> parseConversations(ServerResponse serverResponse) throws Exception {
+        if (serverResponse instanceof DeferredArrayServerResponse) {
+            return items(readList(new StringReader(serverResponse.getRaw()), conversationReader));
+        }
+
+        return super.parseConversations(serverResponse);
+    }
+
+    @Override
+    public List<Device> parseDevices(ServerResponse serverResponse) throws Exception {
+        return super.parseDevices(toTree(serverResponse));
+    }
+
+    @Override
+    public List<MessageAttachment> parseAttachments(ServerResponse serverResponse) throws Exception {
+        return super.parseAttachments(toTree(serverResponse));
+    }
+
+    /**
+     * The short lists (devices, attachments) are not worth a streaming decoder. Hand them to the tree parser.
+     */
+    private ServerResponse toTree(ServerResponse serverResponse) throws Exception {
+        if (serverResponse instanceof DeferredArrayServerResponse) {
+            return super.parse(serverResponse.getRaw());
+        }
+
+        return serverResponse;
+    }
+
+    /**
+     * Walk the envelope just far enough to know if this is a successful array response.
+     *
+     * @return The success flag, or null if this is not an array response.
+     */
+    private static Boolean scanArrayEnvelope(String response) {
+        JsonReader reader = new JsonReader(new StringReader(response));
+        reader.setLenient(true);
+
+        try {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                return null;
+            }
+
+            Boolean success = null;
+            boolean array = false;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+
+                if ("success".equals(name)) {
+                    success = readBoolean(reader);
+                } else if ("response".equals(name)) {
+                    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                        return null;
+                    } else if (success != null) {
+                        // Nothing after the array can change the answer.
+                        return success;
+                    }
+
+                    reader.skipValue();
+                    array = true;
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (!array) {
+                return null;
+            }
+
+            return success == null ? Boolean.FALSE : success;
+        } catch (IOException e) {
+            return null;
+        } catch (IllegalStateException e) {
+            return null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static <T> ListEnvelope<T> readList(Reader input, ElementReader<T> elementReader) throws Exception {
+        JsonReader reader = new JsonReader(input);
+        reader.setLenient(true);
+
+        ListEnvelope<T> envelope = new ListEnvelope<T>();
+
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+
+                if ("response".equals(name)) {
+                    if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        envelope.items = new ArrayList<T>();
+
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                                throw new JSONException("Expected an object in the response array but found " + reader.peek());
+                            }
+
+                            envelope.items.add(elementReader.read(reader));
+                        }
+                        reader.endArray();
+                    } else {
+                        envelope.error = readString(reader);
+                    }
+                } else if ("success".equals(name)) {
+                    envelope.success = readBoolean(reader);
+                } else if ("total".equals(name)) {
+                    envelope.total = readInt(reader);
+                } else if ("size".equals(name)) {
+                    envelope.size = readInt(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IllegalStateException e) {
+            throw new JSONException(e.getMessage());
+        } finally {
+            reader.close();
+        }
+
+        return envelope;
+    }
+
+    private static <T> ListEnvelope<T> checkSuccess(ListEnvelope<T> envelope) throws Exception {
+        if (!envelope.success) {
+            throw new Exception(envelope.error);
+        }
+
+        return envelope;
+    }
+
+    private static <T> List<T> items(ListEnvelope<T> envelope) throws Exception {
+        if (envelope.items == null) {
+            throw new Exception("ServerResponse must be an ArrayServerResponse");
+        }
+
+        return envelope.items;
+    }
+
+    private static MessageListResult toMessageListResult(ListEnvelope<Message> envelope) throws Exception {
+        MessageListResult result = new MessageListResult();
+
+        result.setMessages(items(envelope));
+        result.setTotal(envelope.total);
+        result.setSize(envelope.size);
+
+        return result;
+    }
+
+    private static Message readMessage(JsonReader reader) throws IOException {
+        Message message = new Message();
+
+        message.setUuid(StringUtil.EMPTY_STRING);
+        message.setAddress(StringUtil.EMPTY_STRING);
+        message.setFingerprint(StringUtil.EMPTY_STRING);
+        message.setCc(StringUtil.EMPTY_STRING);
+        message.setBcc(StringUtil.EMPTY_STRING);
+        message.setBody(StringUtil.EMPTY_STRING);
+        message.setSourceAddress(StringUtil.EMPTY_STRING);
+        message.setDestinationAddress(StringUtil.EMPTY_STRING);
+        message.setStatusDesc(StringUtil.EMPTY_STRING);
+        message.setThread(StringUtil.EMPTY_STRING);
+        message.setChannel(StringUtil.EMPTY_STRING);
+        message.setFwd(StringUtil.EMPTY_STRING);
+        message.setCarrier(StringUtil.EMPTY_STRING);
+        message.setSubject(StringUtil.EMPTY_STRING);
+        message.setTo(StringUtil.EMPTY_STRING);
+        message.setMobileNumber(StringUtil.EMPTY_STRING);
+        message.setFirstName(StringUtil.EMPTY_STRING);
+        message.setLastName(StringUtil.EMPTY_STRING);
+        message.setMessageType(StringUtil.EMPTY_STRING);
+        message.setAdvertisement(StringUtil.EMPTY_STRING);
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            MessageField field = MessageField.get(reader.nextName());
+
+            if (field == null) {
+                reader.skipValue();
+                continue;
+            }
+
+            switch (field) {
+                case TRANSMISSION_STATE:
+                    if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        message.setTransmissionState(TransmissionState.parse(readName(reader)));
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                case ID:
+                    message.setId(readLong(reader));
+                    break;
+                case UUID:
+                    message.setUuid(readString(reader));
+                    break;
+                case DEVICE_ID:
+                    message.setDeviceId(readLong(reader));
+                    break;
+                case CONTACT_ID:
+                    message.setContactId(readLong(reader));
+                    break;
+                case CONTACT_DEVICE_ID:
+                    message.setContactDeviceId(readLong(reader));
+                    break;
+                case ADDRESS:
+                    message.setAddress(readString(reader));
+                    break;
+                case IS_READ:
+                    message.setRead(readBoolean(reader));
+                    break;
+                case DELETED:
+                    message.setDeleted(readBoolean(reader));
+                    break;
+                case FINGERPRINT:
+                    message.setFingerprint(readString(reader));
+                    break;
+                case CC:
+                    message.setCc(readString(reader));
+                    break;
+                case BCC:
+                    message.setBcc(readString(reader));
+                    break;
+                case ERROR_STATE:
+                    message.setErrorState(readBoolean(reader));
+                    break;
+                case BODY:
+                    message.setBody(readString(reader));
+                    break;
+                case DATE_CREATED:
+                    message.setDateCreated(readDate(reader));
+                    break;
+                case LAST_UPDATED:
+                    message.setLastUpdated(readDate(reader));
+                    break;
+                case SOURCE_ADDRESS:
+                    message.setSourceAddress(readString(reader));
+                    break;
+                case DEST_ADDRESS:
+                    message.setDestinationAddress(readString(reader));
+                    break;
+                case STATUS_CODE:
+                    message.setStatusCode(readInt(reader));
+                    break;
+                case STATUS_DESC:
+                    message.setStatusDesc(readString(reader));
+                    break;
+                case THREAD:
+                    message.setThread(readString(reader));
+                    break;
+                case CHANNEL:
+                    message.setChannel(readString(reader));
+                    break;
+                case FWD:
+                    message.setFwd(readString(reader));
+                    break;
+                case CARRIER:
+                    message.setCarrier(readString(reader));
+                    break;
+                case SUBJECT:
+                    message.setSubject(readString(reader));
+                    break;
+                case TO:
+                    message.setTo(readString(reader));
+                    break;
+                case MOBILE_NUMBER:
+                    message.setMobileNumber(readString(reader));
+                    break;
+                case FIRST_NAME:
+                    message.setFirstName(readString(reader));
+                    break;
+                case LAST_NAME:
+                    message.setLastName(readString(reader));
+                    break;
+                case VERSION:
+                    message.setVersion(readLong(reader));
+                    break;
+                case TYPE:
+                    message.setMessageType(readString(reader));
+                    break;
+                case ADVERTISEMENT:
+                    message.setAdvertisement(readString(reader));
+                    break;
+                case HAS_ATTACHMENT:
+                    message.setHasAttachment(readBoolean(reader));
+                    break;
+            }
+        }
+        reader.endObject();
+
+        return message;
+    }
+
+    private static Contact readContact(JsonReader reader) throws IOException {
+        Contact contact = new Contact();
+
+        contact.setAddress(StringUtil.EMPTY_STRING);
+        contact.setMobileNumber(StringUtil.EMPTY_STRING);
+        contact.setState(StringUtil.EMPTY_STRING);
+        contact.setCity(StringUtil.EMPTY_STRING);
+        contact.setPhoneKey(StringUtil.EMPTY_STRING);
+        contact.setThread(StringUtil.EMPTY_STRING);
+        contact.setFwd(StringUtil.EMPTY_STRING);
+        contact.setCarrier(StringUtil.EMPTY_STRING);
+        contact.setFirstName(StringUtil.EMPTY_STRING);
+        contact.setLastName(StringUtil.EMPTY_STRING);
+        contact.setZipcode(StringUtil.EMPTY_STRING);
+        contact.setLatlong(StringUtil.EMPTY_STRING);
+        contact.setEmail(StringUtil.EMPTY_STRING);
+        contact.setNotes(StringUtil.EMPTY_STRING);
+        contact.setChannel(StringUtil.EMPTY_STRING);
+        contact.setLoc(StringUtil.EMPTY_STRING);
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            ContactField field = ContactField.get(reader.nextName());
+
+            if (field == null) {
+                reader.skipValue();
+                continue;
+            }
+
+            switch (field) {
+                case LAST_UPDATED:
+                    contact.setLastUpdated(readDate(reader));
+                    break;
+                case DATE_CREATED:
+                    contact.setDateCreated(readDate(reader));
+                    break;
+                case VERSION:
+                    contact.setVersion(readLong(reader));
+                    break;
+                case DEVICE_ID:
+                    contact.setDeviceId(readLong(reader));
+                    break;
+                case ADDRESS:
+                    contact.setAddress(readString(reader));
+                    break;
+                case MOBILE_NUMBER:
+                    contact.setMobileNumber(readString(reader));
+                    break;
+                case STATE:
+                    contact.setState(readString(reader));
+                    break;
+                case CITY:
+                    contact.setCity(readString(reader));
+                    break;
+                case ID:
+                    contact.setId(readLong(reader));
+                    break;
+                case PHONE_KEY:
+                    contact.setPhoneKey(readString(reader));
+                    break;
+                case THREAD:
+                    contact.setThread(readString(reader));
+                    break;
+                case FWD:
+                    contact.setFwd(readString(reader));
+                    break;
+                case CARRIER:
+                    contact.setCarrier(readString(reader));
+                    break;
+                case FIRST_NAME:
+                    contact.setFirstName(readString(reader));
+                    break;
+                case LAST_NAME:
+                    contact.setLastName(readString(reader));
+                    break;
+                case MO_COUNT:
+                    contact.setMoCount(readInt(reader));
+                    break;
+                case ZO_COUNT:
+                    contact.setZoCount(readInt(reader));
+                    break;
+                case ZIPCODE:
+                    contact.setZipcode(readString(reader));
+                    break;
+                case LATLONG:
+                    contact.setLatlong(readString(reader));
+                    break;
+                case EMAIL:
+                    contact.setEmail(readString(reader));
+                    break;
+                case NOTES:
+                    contact.setNotes(readString(reader));
+                    break;
+                case CHANNEL:
+                    contact.setChannel(readString(reader));
+                    break;
+                case LOC:
+                    contact.setLoc(readString(reader));
+                    break;
+                case DELETED:
+                    contact.setDeleted(readBoolean(reader));
+                    break;
+            }
+        }
+        reader.endObject();
+
+        return contact;
+    }
+
+    private static Conversation readConversation(JsonReader reader) throws IOException {
+        Conversation conversation = new Conversation();
+
+        conversation.setDeviceAddress(StringUtil.EMPTY_STRING);
+        conversation.setFingerprint(StringUtil.EMPTY_STRING);
+        conversation.setAddress(StringUtil.EMPTY_STRING);
+        conversation.setCc(StringUtil.EMPTY_STRING);
+        conversation.setBcc(StringUtil.EMPTY_STRING);
+        conversation.setLastMessageBody(StringUtil.EMPTY_STRING);
+        conversation.setLastContactFirstName(StringUtil.EMPTY_STRING);
+        conversation.setLastContactLastName(StringUtil.EMPTY_STRING);
+        conversation.setLastContactMobileNumber(StringUtil.EMPTY_STRING);
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            ConversationField field = ConversationField.get(reader.nextName());
+
+            if (field == null) {
+                reader.skipValue();
+                continue;
+            }
+
+            switch (field) {
+                case ID:
+                    conversation.setId(readLong(reader));
+                    break;
+                case DEVICE_ID:
+                    conversation.setDeviceId(readLong(reader));
+                    break;
+                case DEVICE_ADDRESS:
+                    conversation.setDeviceAddress(readString(reader));
+                    break;
+                case FINGERPRINT:
+                    conversation.setFingerprint(readString(reader));
+                    break;
+                case ADDRESS:
+                    conversation.setAddress(readString(reader));
+                    break;
+                case CC:
+                    conversation.setCc(readString(reader));
+                    break;
+                case BCC:
+                    conversation.setBcc(readString(reader));
+                    break;
+                case UNREAD_COUNT:
+                    conversation.setUnreadCount(readInt(reader));
+                    break;
+                case LAST_CONTACT_ID:
+                    conversation.setLastContactId(readLong(reader));
+                    break;
+                case NEW:
+                    conversation.setNew(readBoolean(reader));
+                    break;
+                case DELETED:
+                    conversation.setDeleted(readBoolean(reader));
+                    break;
+                case VERSION:
+                    conversation.setVersion(readInt(reader));
+                    break;
+                case LAST_CONTACT_DEVICE_ID:
+                    conversation.setLastContactDeviceId(readLong(reader));
+                    break;
+                case LAST_MESSAGE_BODY:
+                    conversation.setLastMessageBody(readString(reader));
+                    break;
+                case LAST_CONTACT_FIRST_NAME:
+                    conversation.setLastContactFirstName(readString(reader));
+                    break;
+                case LAST_CONTACT_LAST_NAME:
+                    conversation.setLastContactLastName(readString(reader));
+                    break;
+                case LAST_CONTACT_MOBILE_NUMBER:
+                    conversation.setLastContactMobileNumber(readString(reader));
+                    break;
+                case LAST_MESSAGE_DATE:
+                    conversation.setLastMessageDate(readDate(reader));
+                    break;
+                case LAST_NON_DELETED_MESSAGE_DATE:
+                    conversation.setLastNonDeletedMessageDate(readDate(reader));
+                    break;
+                case DATE_CREATED:
+                    conversation.setDateCreated(readDate(reader));
+                    break;
+                case LAST_UPDATED:
+                    conversation.setLastUpdated(readDate(reader));
+                    break;
+            }
+        }
+        reader.endObject();
+
+        return conversation;
+    }
+
+    /**
+     * Reads the "name" out of an enum object like {"enumType":"...","name":"DELIVERED"}.
+     */
+    private static String readName(JsonReader reader) throws IOException {
+        String name = StringUtil.EMPTY_STRING;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("name".equals(reader.nextName())) {
+                name = readString(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return name;
+    }
+
+    /**
+     * Same as JSONObject.optString, except null comes back as an empty string (like the JsonDtoParser).
+     */
+    private static String readString(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case NULL:
+                reader.nextNull();
+                return StringUtil.EMPTY_STRING;
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            case BEGIN_OBJECT:
+            case BEGIN_ARRAY:
+                return PARSER.parse(reader).toString();
+            default:
+                return reader.nextString();
+        }
+    }
+
+    /**
+     * Same as JSONObject.optLong: numbers are truncated, anything else is the default.
+     */
+    private static long readLong(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            reader.skipValue();
+            return DEFAULT_LONG;
+        }
+
+        String value = reader.nextString();
+
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            if (token == JsonToken.STRING) {
+                return DEFAULT_LONG;
+            }
+
+            return (long) Double.parseDouble(value);
+        }
+    }
+
+    /**
+     * Same as JSONObject.optInt: numbers are truncated, anything else is the default.
+     */
+    private static int readInt(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+
+        if (token != JsonToken.NUMBER && token != JsonToken.STRING) {
+            reader.skipValue();
+            return DEFAULT_INT;
+        }
+
+        String value = reader.nextString();
+
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            if (token == JsonToken.STRING) {
+                return DEFAULT_INT;
+            }
+
+            return (int) Double.parseDouble(value);
+        }
+    }
+
+    /**
+     * Same as JSONObject.optBoolean: true or "true", anything else is false.
+     */
+    private static boolean readBoolean(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case STRING:
+                return "true".equalsIgnoreCase(reader.nextString());
+            default:
+                reader.skipValue();
+                return false;
+        }
+    }
+
+    private static Date readDate(JsonReader reader) throws IOException {
+        return JsonDateUtil.getDate(readString(reader));
+    }
+
+    private static class ListEnvelope<T> {
+
+        private List<T> items;
+        private boolean success;
+        private String error;
+        private int total;
+        private int size;
+
+    }
+
+    private interface ElementReader<T> {
+
+        T read(JsonReader reader) throws IOException;
+
+    }
+
+    private enum MessageField {
+
+        TRANSMISSION_STATE("transmissionState"),
+        ID("id"),
+        UUID("uuid"),
+        DEVICE_ID("deviceId"),
+        CONTACT_ID("contactId"),
+        CONTACT_DEVICE_ID("contactDeviceId"),
+        ADDRESS("address"),
+        IS_READ("isRead"),
+        DELETED("deleted"),
+        FINGERPRINT("fingerprint"),
+        CC("cc"),
+        BCC("bcc"),
+        ERROR_STATE("errorState"),
+        BODY("body"),
+        DATE_CREATED("dateCreated"),
+        LAST_UPDATED("lastUpdated"),
+        SOURCE_ADDRESS("sourceAddress"),
+        DEST_ADDRESS("destAddress"),
+        STATUS_CODE("statusCode"),
+        STATUS_DESC("statusDesc"),
+        THREAD("thread"),
+        CHANNEL("channel"),
+        FWD("fwd"),
+        CARRIER("carrier"),
+        SUBJECT("subject"),
+        TO("to"),
+        MOBILE_NUMBER("mobileNumber"),
+        FIRST_NAME("firstName"),
+        LAST_NAME("lastName"),
+        VERSION("version"),
+        TYPE("type"),
+        ADVERTISEMENT("advertisement"),
+        HAS_ATTACHMENT("hasAttachment");
+
+        private static final Map<String, MessageField> FIELDS = new HashMap<String, MessageField>();
+
+        static {
+            for (MessageField field : values()) {
+                FIELDS.put(field.key, field);
+            }
+        }
+
+        private final String key;
+
+        MessageField(String key) {
+            this.key = key;
+        }
+
+        static MessageField get(String key) {
+            return FIELDS.get(key);
+        }
+    }
+
+    private enum ContactField {
+
+        LAST_UPDATED("lastUpdated"),
+        DATE_CREATED("dateCreated"),
+        VERSION("version"),
+        DEVICE_ID("deviceId"),
+        ADDRESS("address"),
+        MOBILE_NUMBER("mobileNumber"),
+        STATE("state"),
+        CITY("city"),
+        ID("id"),
+        PHONE_KEY("phoneKey"),
+        THREAD("thread"),
+        FWD("fwd"),
+        CARRIER("carrier"),
+        FIRST_NAME("firstName"),
+        LAST_NAME("lastName"),
+        MO_COUNT("MOCount"),
+        ZO_COUNT("ZOCount"),
+        ZIPCODE("zipcode"),
+        LATLONG("latlong"),
+        EMAIL("email"),
+        NOTES("notes"),
+        CHANNEL("channel"),
+        LOC("loc"),
+        DELETED("deleted");
+
+        private static final Map<String, ContactField> FIELDS = new HashMap<String, ContactField>();
+
+        static {
+            for (ContactField field : values()) {
+                FIELDS.put(field.key, field);
+            }
+        }
+
+        private final String key;
+
+        ContactField(String key) {
+            this.key = key;
+        }
+
+        static ContactField get(String key) {
+            return FIELDS.get(key);
+        }
+    }
+
+    private enum ConversationField {
+
+        ID("id"),
+        DEVICE_ID("deviceId"),
+        DEVICE_ADDRESS("deviceAddress"),
+        FINGERPRINT("fingerprint"),
+        ADDRESS("address"),
+        CC("cc"),
+        BCC("bcc"),
+        UNREAD_COUNT("unreadCount"),
+        LAST_CONTACT_ID("lastContactId"),
+        NEW("new"),
+        DELETED("deleted"),
+        VERSION("version"),
+        LAST_CONTACT_DEVICE_ID("lastContactDeviceId"),
+        LAST_MESSAGE_BODY("lastMessageBody"),
+        LAST_CONTACT_FIRST_NAME("lastContactFirstName"),
+        LAST_CONTACT_LAST_NAME("lastContactLastName"),
+        LAST_CONTACT_MOBILE_NUMBER("lastContactMobileNumber"),
+        LAST_MESSAGE_DATE("lastMessageDate"),
+        LAST_NON_DELETED_MESSAGE_DATE("lastNonDeletedMessageDate"),
+        DATE_CREATED("dateCreated"),
+        LAST_UPDATED("lastUpdated");
+
+        private static final Map<String, ConversationField> FIELDS = new HashMap<String, ConversationField>();
+
+        static {
+            for (ConversationField field : values()) {
+                FIELDS.put(field.key, field);
+            }
+        }
+
+        private final String key;
+
+        ConversationField(String key) {
+            this.key = key;
+        }
+
+        static ConversationField get(String key) {
+            return FIELDS.get(key);
+        }
+    }
+}
@@ -19,7 +19,9 @@ public interface SettingsStore extends KeyValueStore<SettingsStore.Keys, String>
         USERNAME,
         VERSIONS,
         EXPECTS_SUBSCRIPTION_COMPLETE,
-        LAST_SUBSCRIBED_CLIENT_ID
+        LAST_SUBSCRIBED_CLIENT_ID,
+        TOKEN,
+        SUBSCRIPTIONS
     }
 
 }
@@ -0,0 +1,243 @@
+package com.zipwhip.api.signals;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The emits that are waiting on an ack from the server, by a long id that the connection hands out in order.
+ *
+ * The ids are kept in an open addressing table of primitive longs, so an ack is matched without boxing the id or
+ * allocating a map entry. Every emit gets the same timeout, so deadlines come in the order the emits were added
+ * and one sweep (see {@link #expire(long)}) only ever looks at the head of a queue instead of every pending ack.
+ *
+ * This is not thread safe. The connection guards it.
+ */
+public class AckCorrelationTable<V> {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final long EMPTY = 0;
+
+    // In order of their deadline. Acked entries are left behind (marked done) and dropped when they reach the head.
+    private final ArrayDeque<Entry<V>> deadlines = new ArrayDeque<Entry<V>>();
+
+    private long[] ids;
+    private Entry<V>[] entries;
+    private int size;
+    private long nextId;
+
+    public AckCorrelationTable() {
+        this(MIN_CAPACITY);
+    }
+
+    public AckCorrelationTable(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * @param value what to hand back when the ack (or the deadline) comes.
+     * @param deadline when to give up on it, in the same clock as {@link #expire(long)}. One earlier than the last
+     *                 one added (the clock went back, or the timeout was shortened) is pushed back to that one.
+     * @return the id to correlate the ack with. Never 0.
+     */
+    public long add(V value, long deadline) {
+        deadline = Math.max(deadline, lastDeadline());
+
+        if ((size + 1) * 4 > ids.length * 3) {
+            resize(ids.length * 2);
+        }
+
+        Entry<V> entry = new Entry<V>(++nextId, value, deadline);
+
+        insert(entry);
+        size++;
+        deadlines.add(entry);
+
+        return entry.id;
+    }
+
+    /**
+     * @return the value for this id, or null if it was already removed or expired.
+     */
+    public V remove(long id) {
+        if (id == EMPTY) {
+            return null;
+        }
+
+        int mask = ids.length - 1;
+        int index = index(id, mask);
+
+        while (ids[index] != EMPTY) {
+            if (ids[index] == id) {
+                Entry<V> entry = entries[index];
+                delete(index);
+                entry.done = true;
+
+                return entry.value;
+            }
+
+            index = (index + 1) & mask;
+        }
+
+        return null;
+    }
+
+    /**
+     * Remove everything whose deadline is at or before now.
+     *
+     * @return what was removed, oldest first.
+     */
+    public List<V> expire(long now) {
+        List<V> expired = null;
+
+        while (!deadlines.isEmpty()) {
+            Entry<V> entry = deadlines.peek();
+
+            if (entry.done) {
+                deadlines.poll();
+                continue;
+            } else if (entry.deadline > now) {
+                break;
+            }
+
+            deadlines.poll();
+            remove(entry.id);
+
+            if (expired == null) {
+                expired = new ArrayList<V>();
+            }
+            expired.add(entry.value);
+        }
+
+        if (expired == null) {
+            return Collections.emptyList();
+        }
+
+        return expired;
+    }
+
+    /**
+     * Remove everything.
+     *
+     * @return what was removed, oldest first.
+     */
+    public List<V> clear() {
+        List<V> values = new ArrayList<V>(size);
+
+        for (Entry<V> entry : deadlines) {
+            if (!entry.done) {
+                values.add(entry.value);
+            }
+        }
+
+        deadlines.clear();
+        allocate(ids.length);
+        size = 0;
+
+        return values;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private long lastDeadline() {
+        Entry<V> last = deadlines.peekLast();
+
+        return last == null ? Long.MIN_VALUE : last.deadline;
+    }
+
+    private void insert(Entry<V> entry) {
+        int mask = ids.length - 1;
+        int index = index(entry.id, mask);
+
+        while (ids[index] != EMPTY) {
+            index = (index + 1) & mask;
+        }
+
+        ids[index] = entry.id;
+        entries[index] = entry;
+    }
+
+    /**
+     * Linear probing deletion: pull back the entries after this slot that would no longer be found, so no
+     * tombstones are needed.
+     */
+    private void delete(int index) {
+        int mask = ids.length - 1;
+        int hole = index;
+        int next = (index + 1) & mask;
+
+        while (ids[next] != EMPTY) {
+            int home = index(ids[next], mask);
+
+            // Move it into the hole unless its home lies (cyclically) between the hole and where it is now.
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                ids[hole] = ids[next];
+                entries[hole] = entries[next];
+                hole = next;
+            }
+
+            next = (next + 1) & mask;
+        }
+
+        ids[hole] = EMPTY;
+        entries[hole] = null;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldIds = ids;
+        Entry<V>[] oldEntries = entries;
+
+        allocate(capacity);
+
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != EMPTY) {
+                insert(oldEntries[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        ids = new long[capacity];
+        entries = new Entry[capacity];
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+
+        while (capacity * 3 < expectedSize * 4) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+
+    private static int index(long id, int mask) {
+        // The ids are sequential. Spread them so a run of them doesn't share a cluster with whatever is near.
+        long hash = id * 0x9E3779B97F4A7C15L;
+
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static class Entry<V> {
+
+        private final long id;
+        private final V value;
+        private final long deadline;
+        private boolean done;
+
+        private Entry(long id, V value, long deadline) {
+            this.id = id;
+            this.value = value;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.concurrent.ObservableFuture;
+
+import java.util.List;
+
+/**
+ * Somewhere to fetch signals that never arrived, by version.
+ */
+public interface BackfillSource {
+
+    /**
+     * Fetch the signals with versions from start to end (inclusive) on this subscription. Versions that the server
+     * no longer has (or never had) are just left out of the result.
+     *
+     * @param subscriptionId the subscription the versions belong to
+     * @param start the first missing version
+     * @param end the last missing version
+     * @return a future with the signals found, in any order.
+     */
+    ObservableFuture<List<DeliveredMessage>> fetch(String subscriptionId, long start, long end);
+
+}
@@ -0,0 +1,162 @@
+package com.zipwhip.api.signals;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.zipwhip.api.settings.MemorySettingStore;
+import com.zipwhip.api.settings.SettingsStore;
+import com.zipwhip.util.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Remembers what the last bind handed out (the clientId and its token) and which subscriptions were active on it,
+ * so that a restarted process can bind as the same client and resubscribe without being asked again.
+ *
+ * They are kept in the {@link SettingsStore} under {@link SettingsStore.Keys#CLIENT_ID},
+ * {@link SettingsStore.Keys#TOKEN} and {@link SettingsStore.Keys#SUBSCRIPTIONS} (a json object of subscriptionId to
+ * sessionKey), and loaded back when created. Every change is written through, since they change rarely.
+ */
+public class BindCredentials {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BindCredentials.class);
+
+    private static final JsonParser PARSER = new JsonParser();
+
+    private final SettingsStore settingsStore;
+    private final Map<String, String> subscriptions = new TreeMap<String, String>();
+
+    private String clientId;
+    private String token;
+
+    public BindCredentials() {
+        this(new MemorySettingStore());
+    }
+
+    public BindCredentials(SettingsStore settingsStore) {
+        this.settingsStore = settingsStore;
+
+        load();
+    }
+
+    public synchronized String getClientId() {
+        return clientId;
+    }
+
+    public synchronized String getToken() {
+        return token;
+    }
+
+    /**
+     * Record the result of a bind. A different clientId than before has none of the old subscriptions, so they are
+     * forgotten.
+     */
+    public synchronized void setCredentials(String clientId, String token) {
+        if (!StringUtil.equals(this.clientId, clientId)) {
+            clearSubscriptions();
+        }
+
+        this.clientId = clientId;
+        this.token = token;
+
+        put(SettingsStore.Keys.CLIENT_ID, clientId);
+        put(SettingsStore.Keys.TOKEN, token);
+    }
+
+    /**
+     * @return subscriptionId to sessionKey, for every subscription that completed on this clientId.
+     */
+    public synchronized Map<String, String> getSubscriptions() {
+        return new TreeMap<String, String>(subscriptions);
+    }
+
+    public synchronized void addSubscription(String subscriptionId, String sessionKey) {
+        if (subscriptions.containsKey(subscriptionId) && StringUtil.equals(sessionKey, subscriptions.get(subscriptionId))) {
+            return;
+        }
+
+        subscriptions.put(subscriptionId, sessionKey);
+        saveSubscriptions();
+    }
+
+    public synchronized void removeSubscription(String subscriptionId) {
+        if (subscriptions.remove(subscriptionId) != null) {
+            saveSubscriptions();
+        }
+    }
+
+    /**
+     * Forget the subscriptions, but keep the clientId and token.
+     */
+    public synchronized void clearSubscriptions() {
+        subscriptions.clear();
+        settingsStore.remove(SettingsStore.Keys.SUBSCRIPTIONS);
+    }
+
+    /**
+     * Forget everything, so the next bind is a new client.
+     */
+    public synchronized void clear() {
+        clientId = null;
+        token = null;
+        subscriptions.clear();
+
+        settingsStore.remove(SettingsStore.Keys.CLIENT_ID);
+        settingsStore.remove(SettingsStore.Keys.TOKEN);
+        settingsStore.remove(SettingsStore.Keys.SUBSCRIPTIONS);
+    }
+
+    private void put(SettingsStore.Keys key, String value) {
+        if (StringUtil.isNullOrEmpty(value)) {
+            settingsStore.remove(key);
+        } else {
+            settingsStore.put(key, value);
+        }
+    }
+
+    private void saveSubscriptions() {
+        if (subscriptions.isEmpty()) {
+            settingsStore.remove(SettingsStore.Keys.SUBSCRIPTIONS);
+            return;
+        }
+
+        JsonObject object = new JsonObject();
+        for (Map.Entry<String, String> entry : subscriptions.entrySet()) {
+            object.addProperty(entry.getKey(), entry.getValue());
+        }
+
+        settingsStore.put(SettingsStore.Keys.SUBSCRIPTIONS, object.toString());
+    }
+
+    private synchronized void load() {
+        clientId = emptyToNull(settingsStore.get(SettingsStore.Keys.CLIENT_ID));
+        token = emptyToNull(settingsStore.get(SettingsStore.Keys.TOKEN));
+
+        String value = settingsStore.get(SettingsStore.Keys.SUBSCRIPTIONS);
+
+        if (clientId == null || StringUtil.isNullOrEmpty(value)) {
+            return;
+        }
+
+        try {
+            JsonObject object = PARSER.parse(value).getAsJsonObject();
+
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                JsonElement sessionKey = entry.getValue();
+                subscriptions.put(entry.getKey(), sessionKey.isJsonNull() ? null : sessionKey.getAsString());
+            }
+        } catch (RuntimeException e) {
+            // A JsonParseException, or a value that is not an object of strings.
+            LOGGER.warn("Could not read the saved subscriptions, starting over: " + value, e);
+            subscriptions.clear();
+            settingsStore.remove(SettingsStore.Keys.SUBSCRIPTIONS);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return StringUtil.isNullOrEmpty(value) ? null : value;
+    }
+}
@@ -3,6 +3,8 @@ package com.zipwhip.api.signals;
 import com.zipwhip.events.Observable;
 import com.zipwhip.signals2.timeline.TimelineEvent;
 
+import java.util.List;
+
 /**
  * Date: 9/4/13
  * Time: 4:50 PM
@@ -12,6 +14,11 @@ import com.zipwhip.signals2.timeline.TimelineEvent;
  */
 public interface BufferedOrderedQueue<T extends TimelineEvent> {
 
+    /**
+     * The default upper bound on the size of a list fired through the "batchEvent"
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
     /**
      * Append an event that has some timestamp. It will be "released" X seconds later via the "itemEvent"
      *
@@ -33,4 +40,14 @@ public interface BufferedOrderedQueue<T extends TimelineEvent> {
      */
     Observable<T> getItemEvent();
 
+    /**
+     * Fires once per release with everything that came out of that release (in order). If a release is larger than
+     * the max batch size, it is split into several consecutive batches.
+     *
+     * The itemEvent still fires for every item, before the batch that contains it.
+     *
+     * @return
+     */
+    Observable<List<T>> getBatchEvent();
+
 }
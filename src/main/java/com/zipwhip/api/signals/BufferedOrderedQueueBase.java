@@ -0,0 +1,95 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.events.Observable;
+import com.zipwhip.events.ObservableHelper;
+import com.zipwhip.lifecycle.CascadingDestroyableBase;
+import com.zipwhip.signals2.timeline.TimelineEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * Extend this rather than implementing {@link BufferedOrderedQueue} directly. It keeps the itemEvent and the
+ * batchEvent, and {@link #release(Queue)} fires both the way the interface describes, so an implementation only has
+ * to decide what to release and when. One written before the batchEvent only has to call release().
+ */
+public abstract class BufferedOrderedQueueBase<T extends TimelineEvent> extends CascadingDestroyableBase implements BufferedOrderedQueue<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BufferedOrderedQueueBase.class);
+
+    private final ObservableHelper<T> itemEvent;
+    private final ObservableHelper<List<T>> batchEvent;
+
+    private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    protected BufferedOrderedQueueBase(Executor eventExecutor) {
+        this.itemEvent = new ObservableHelper<T>("BufferedOrderedQueue/itemEvent", eventExecutor);
+        this.batchEvent = new ObservableHelper<List<T>>("BufferedOrderedQueue/batchEvent", eventExecutor);
+    }
+
+    @Override
+    public Observable<T> getItemEvent() {
+        return itemEvent;
+    }
+
+    @Override
+    public Observable<List<T>> getBatchEvent() {
+        return batchEvent;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Release everything in the queue, in the order it polls, until it is empty. Each item goes out through the
+     * itemEvent, then in a batch of up to maxBatchSize through the batchEvent. An observer that throws is logged and
+     * does not hold back the rest.
+     */
+    protected void release(Queue<T> queue) {
+        int maxBatchSize = this.maxBatchSize;
+        List<T> batch = new ArrayList<T>(Math.min(queue.size(), maxBatchSize));
+        T item = queue.poll();
+
+        while (item != null) {
+            try {
+                itemEvent.notifyObservers(this, item);
+            } catch (Exception e) {
+                LOGGER.error("Observer failed while releasing " + item, e);
+            }
+
+            batch.add(item);
+
+            if (batch.size() >= maxBatchSize) {
+                notifyBatch(batch);
+                batch = new ArrayList<T>(Math.min(queue.size(), maxBatchSize));
+            }
+
+            item = queue.poll();
+        }
+
+        if (!batch.isEmpty()) {
+            notifyBatch(batch);
+        }
+    }
+
+    private void notifyBatch(List<T> batch) {
+        try {
+            batchEvent.notifyObservers(this, batch);
+        } catch (Exception e) {
+            LOGGER.error(String.format("Observer failed while releasing a batch of %d", batch.size()), e);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.zipwhip.api.signals;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.api.signals.dto.json.SignalProviderGsonBuilder;
+import com.zipwhip.events.Observable;
+import com.zipwhip.events.ObservableHelper;
+import com.zipwhip.executors.SimpleExecutor;
+import com.zipwhip.lifecycle.CascadingDestroyableBase;
+import com.zipwhip.lifecycle.DestroyableBase;
+import com.zipwhip.timers.Timeout;
+import com.zipwhip.timers.Timer;
+import com.zipwhip.timers.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds back the signals of the (type, event)s it is told to coalesce for a short window, keeping only the latest
+ * one (by timestamp) per entity, before passing them on to another BufferedOrderedQueue. A burst of progress updates
+ * or presence changes for the same entity then costs the observers one signal instead of dozens.
+ *
+ * Nothing is coalesced unless asked for with {@link #coalesce(String, String, PartitionKey)}. The window starts with
+ * the first signal for an entity, so no signal waits longer than the window. Signals of different subscriptions are
+ * never coalesced together, and the ones the entity key has no key for (null) go straight through.
+ *
+ * A signal that was superseded is never released, so it is fired through the coalescedEvent instead. Anything that
+ * accounts for every signal (the {@link VersionCheckpoints}) should observe it. A held signal can be released after
+ * signals that were appended later than it, if those were released first.
+ */
+public class CoalescingBufferedOrderedQueue extends CascadingDestroyableBase implements BufferedOrderedQueue<DeliveredMessage> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoalescingBufferedOrderedQueue.class);
+
+    private static final JsonParser PARSER = new JsonParser();
+
+    public static final long DEFAULT_WINDOW_MILLIS = 250;
+
+    private final BufferedOrderedQueue<DeliveredMessage> queue;
+    private final Timer timer;
+    private final long window;
+    private final TimeUnit timeUnit;
+
+    private final ObservableHelper<DeliveredMessage> coalescedEvent =
+            new ObservableHelper<DeliveredMessage>("CoalescedEvent", SimpleExecutor.getInstance());
+
+    private final Map<List<String>, PartitionKey<DeliveredMessage>> entityKeys = new HashMap<List<String>, PartitionKey<DeliveredMessage>>();
+    private volatile SignalTable<PartitionKey<DeliveredMessage>> rules = new SignalTable<PartitionKey<DeliveredMessage>>();
+
+    // The latest signal of each entity, until its window is over. Guarded by itself.
+    private final Map<List<Object>, Held> held = new HashMap<List<Object>, Held>();
+
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    public CoalescingBufferedOrderedQueue(BufferedOrderedQueue<DeliveredMessage> queue, Timer timer, long window, TimeUnit timeUnit) {
+        this.queue = queue;
+        this.timer = timer;
+        this.window = window;
+        this.timeUnit = timeUnit;
+
+        if (queue instanceof DestroyableBase) {
+            link((DestroyableBase) queue);
+        }
+    }
+
+    public CoalescingBufferedOrderedQueue(BufferedOrderedQueue<DeliveredMessage> queue, Timer timer) {
+        this(queue, timer, DEFAULT_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Coalesce the signals of this (type, event).
+     *
+     * @param type the signal type. Required.
+     * @param event the event of that type, or null for every event of the type.
+     * @param entityKey tells which entity a signal is about. Only the latest signal per entity is kept.
+     */
+    public synchronized void coalesce(String type, String event, PartitionKey<DeliveredMessage> entityKey) {
+        if (type == null) {
+            throw new NullPointerException("type");
+        } else if (entityKey == null) {
+            throw new NullPointerException("entityKey");
+        }
+
+        entityKeys.put(Arrays.asList(lowerCase(type), lowerCase(event)), entityKey);
+        rebuild();
+    }
+
+    /**
+     * Stop coalescing the signals of this (type, event). What is held is still released at the end of its window.
+     */
+    public synchronized void removeCoalesce(String type, String event) {
+        if (entityKeys.remove(Arrays.asList(lowerCase(type), lowerCase(event))) != null) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Coalesce the signals that are known to come in bursts: message progress (per message), presence (per client)
+     * and conversation changes (per conversation).
+     */
+    public void coalesceDefaults() {
+        coalesce("message", "progress", contentField("id"));
+        coalesce("presence", null, contentField("address", "clientId"));
+        coalesce("conversation", "change", contentField("id"));
+    }
+
+    @Override
+    public void append(DeliveredMessage event) {
+        PartitionKey<DeliveredMessage> entityKey = rules.get(event.getType(), event.getEvent());
+        Object key = entityKey == null ? null : entityKey.getKey(event);
+
+        if (key == null) {
+            queue.append(event);
+            return;
+        }
+
+        List<Object> heldKey = Arrays.asList(lowerCase(event.getType()), lowerCase(event.getEvent()), event.getSubscriptionIds(), key);
+        DeliveredMessage superseded = null;
+
+        synchronized (held) {
+            Held current = held.get(heldKey);
+
+            if (current == null) {
+                held.put(heldKey, new Held(heldKey, event));
+            } else if (event.getTimestamp() >= current.message.getTimestamp()) {
+                superseded = current.message;
+                current.message = event;
+            } else {
+                // Older than what we have. It came in late.
+                superseded = event;
+            }
+        }
+
+        if (superseded != null) {
+            // Never released, so this is as consumed as it gets.
+            superseded.ack();
+            coalescedCount.incrementAndGet();
+            coalescedEvent.notifyObservers(this, superseded);
+        }
+    }
+
+    /**
+     * Release everything that is held now, without waiting for the end of the windows.
+     */
+    public void flush() {
+        List<Held> all;
+
+        synchronized (held) {
+            all = new ArrayList<Held>(held.values());
+        }
+
+        for (Held entry : all) {
+            entry.release();
+        }
+    }
+
+    /**
+     * Fires with every signal that was dropped because a later one for the same entity came in its window.
+     */
+    public Observable<DeliveredMessage> getCoalescedEvent() {
+        return coalescedEvent;
+    }
+
+    /**
+     * @return the number of signals that were dropped.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * @return the number of signals waiting for the end of their window.
+     */
+    public int getHeldCount() {
+        synchronized (held) {
+            return held.size();
+        }
+    }
+
+    @Override
+    public Observable<DeliveredMessage> getItemEvent() {
+        return queue.getItemEvent();
+    }
+
+    @Override
+    public Observable<List<DeliveredMessage>> getBatchEvent() {
+        return queue.getBatchEvent();
+    }
+
+    public BufferedOrderedQueue<DeliveredMessage> getQueue() {
+        return queue;
+    }
+
+    /**
+     * @return a key of the field at this path in the json of the content, or the content itself if it is a string
+     *         that is not a json object. Null (nothing to coalesce on) if there is no such field.
+     */
+    public static PartitionKey<DeliveredMessage> contentField(final String... path) {
+        return new PartitionKey<DeliveredMessage>() {
+
+            private final Gson gson = SignalProviderGsonBuilder.getInstance();
+
+            @Override
+            public Object getKey(DeliveredMessage event) {
+                Object content = event.getContent();
+
+                if (content == null) {
+                    return null;
+                }
+
+                JsonElement element;
+                try {
+                    if (content instanceof String) {
+                        String string = (String) content;
+
+                        if (!string.trim().startsWith("{")) {
+                            return string;
+                        }
+
+                        element = PARSER.parse(string);
+                    } else {
+                        element = gson.toJsonTree(content);
+                    }
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Could not read the content of " + event + ", not coalescing it", e);
+                    return null;
+                }
+
+                for (String name : path) {
+                    if (element == null || !element.isJsonObject()) {
+                        return null;
+                    }
+
+                    element = element.getAsJsonObject().get(name);
+                }
+
+                if (element == null || element.isJsonNull()) {
+                    return null;
+                }
+
+                return element.isJsonPrimitive() ? element.getAsString() : element.toString();
+            }
+        };
+    }
+
+    private void rebuild() {
+        SignalTable<PartitionKey<DeliveredMessage>> rules = new SignalTable<PartitionKey<DeliveredMessage>>();
+
+        for (Map.Entry<List<String>, PartitionKey<DeliveredMessage>> entry : entityKeys.entrySet()) {
+            rules.put(entry.getKey().get(0), entry.getKey().get(1), entry.getValue());
+        }
+
+        this.rules = rules;
+    }
+
+    private static String lowerCase(String string) {
+        return string == null ? null : string.toLowerCase(Locale.ENGLISH);
+    }
+
+    @Override
+    protected void onDestroy() {
+        List<Held> all;
+
+        synchronized (held) {
+            all = new ArrayList<Held>(held.values());
+            held.clear();
+        }
+
+        for (Held entry : all) {
+            entry.timeout.cancel();
+        }
+    }
+
+    private class Held implements TimerTask {
+
+        private final List<Object> key;
+        private final Timeout timeout;
+
+        private DeliveredMessage message;
+
+        private Held(List<Object> key, DeliveredMessage message) {
+            this.key = key;
+            this.message = message;
+            this.timeout = timer.newTimeout(this, window, timeUnit);
+        }
+
+        @Override
+        public void run(Timeout timeout) throws Exception {
+            release();
+        }
+
+        private void release() {
+            DeliveredMessage latest;
+
+            synchronized (held) {
+                if (held.get(key) != this) {
+                    return;
+                }
+
+                held.remove(key);
+                latest = message;
+            }
+
+            timeout.cancel();
+            queue.append(latest);
+        }
+    }
+}
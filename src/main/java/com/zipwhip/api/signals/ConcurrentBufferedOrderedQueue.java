@@ -0,0 +1,161 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.executors.NamedThreadFactory;
+import com.zipwhip.executors.SimpleExecutor;
+import com.zipwhip.signals2.timeline.TimelineEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A BufferedOrderedQueue that requires "complete silence on the line" (just like
+ * {@link SilenceOnTheLineBufferedOrderedQueue}) but never takes a lock.
+ *
+ * Producers (the socket threads) only offer into a lock-free inbox and stamp the time of the last append. A single
+ * dedicated drain thread owns the ordering heap. Once the line has been silent for the configured delay, the drain
+ * thread moves everything out of the inbox, sorts it, and fires the itemEvent. Observers run on the drain thread
+ * (or the eventExecutor) without any lock held, so a slow observer can no longer stall the callers of append().
+ *
+ * If you have a steady stream of signals that occur faster than your delay, then no signals will ever be released,
+ * unless a max latency is configured. With a max latency, no item waits longer than that before a forced release.
+ */
+public class ConcurrentBufferedOrderedQueue<T extends TimelineEvent> extends BufferedOrderedQueueBase<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentBufferedOrderedQueue.class);
+
+    private final ConcurrentLinkedQueue<T> inbox = new ConcurrentLinkedQueue<T>();
+    private final long delayNanos;
+    private final Thread drainThread;
+
+    private volatile long maxLatencyNanos = 0;
+
+    private volatile long lastAppendNanos;
+    private volatile boolean parked;
+    private volatile boolean running = true;
+
+    public ConcurrentBufferedOrderedQueue(Executor eventExecutor, ThreadFactory threadFactory, long delay, TimeUnit timeUnit) {
+        super(eventExecutor);
+
+        this.delayNanos = timeUnit.toNanos(delay);
+        this.drainThread = threadFactory.newThread(new DrainLoop());
+        this.drainThread.setDaemon(true);
+        this.drainThread.start();
+    }
+
+    public ConcurrentBufferedOrderedQueue(Executor eventExecutor, long delay, TimeUnit timeUnit) {
+        this(eventExecutor, new NamedThreadFactory("BufferedOrderedQueue-drain-"), delay, timeUnit);
+    }
+
+    public ConcurrentBufferedOrderedQueue(long delay, TimeUnit timeUnit) {
+        this(SimpleExecutor.getInstance(), delay, timeUnit);
+    }
+
+    public ConcurrentBufferedOrderedQueue() {
+        this(1, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void append(T event) {
+        if (event == null) {
+            throw new NullPointerException("event");
+        }
+
+        // Stamp before offering so the drain thread can never see the item with a stale timestamp.
+        lastAppendNanos = System.nanoTime();
+        inbox.offer(event);
+
+        // The drain thread publishes "parked" before re-checking the inbox, so either it sees our item
+        // or we see that it needs a wake up.
+        if (parked) {
+            LockSupport.unpark(drainThread);
+        }
+    }
+
+    /**
+     * The longest an item may wait for "silence on the line" before it is released anyway. Zero (the default)
+     * means wait for silence forever.
+     */
+    public void setMaxLatency(long maxLatency, TimeUnit timeUnit) {
+        if (maxLatency < 0) {
+            throw new IllegalArgumentException("maxLatency cannot be negative");
+        }
+
+        this.maxLatencyNanos = timeUnit.toNanos(maxLatency);
+    }
+
+    public long getMaxLatency(TimeUnit timeUnit) {
+        return timeUnit.convert(maxLatencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private class DrainLoop implements Runnable {
+
+        private final PriorityQueue<T> heap = new PriorityQueue<T>();
+
+        // When we first noticed the oldest unreleased item. Only meaningful while the inbox is not empty.
+        private long firstSeenNanos;
+        private boolean pending;
+
+        @Override
+        public void run() {
+            while (running) {
+                if (inbox.isEmpty()) {
+                    parked = true;
+                    try {
+                        if (inbox.isEmpty() && running) {
+                            LockSupport.park(ConcurrentBufferedOrderedQueue.this);
+                        }
+                    } finally {
+                        parked = false;
+                    }
+
+                    continue;
+                }
+
+                long now = System.nanoTime();
+                if (!pending) {
+                    pending = true;
+                    firstSeenNanos = now;
+                }
+
+                // Wait for "silence on the line" (or until the oldest item has waited long enough)
+                long remaining = lastAppendNanos + delayNanos - now;
+                long maxLatencyNanos = ConcurrentBufferedOrderedQueue.this.maxLatencyNanos;
+                if (maxLatencyNanos > 0) {
+                    remaining = Math.min(remaining, firstSeenNanos + maxLatencyNanos - now);
+                }
+
+                if (remaining > 0) {
+                    LockSupport.parkNanos(ConcurrentBufferedOrderedQueue.this, remaining);
+                    continue;
+                }
+
+                T item = inbox.poll();
+                while (item != null) {
+                    heap.add(item);
+                    item = inbox.poll();
+                }
+
+                pending = false;
+
+                // Only ever released from here, so the heap is thread confined.
+                release(heap);
+            }
+
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(String.format("Drain thread exiting with %d unreleased items", inbox.size()));
+            }
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        running = false;
+        LockSupport.unpark(drainThread);
+    }
+}
@@ -0,0 +1,80 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.executors.SimpleExecutor;
+import com.zipwhip.util.Factory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates lock-free {@link ConcurrentBufferedOrderedQueue}s. Drop-in replacement for the
+ * {@link SilenceOnTheLineBufferedOrderedQueueFactory} in a {@link SignalProviderFactory}.
+ */
+public class ConcurrentBufferedOrderedQueueFactory implements Factory<BufferedOrderedQueue<DeliveredMessage>> {
+
+    private Executor eventExecutor = SimpleExecutor.getInstance();
+    private long delay = 1;
+    private TimeUnit timeUnit = TimeUnit.SECONDS;
+    private int maxBatchSize = BufferedOrderedQueue.DEFAULT_MAX_BATCH_SIZE;
+    private long maxLatencyMillis = 0;
+
+    public ConcurrentBufferedOrderedQueueFactory() {
+
+    }
+
+    public ConcurrentBufferedOrderedQueueFactory(long delay, TimeUnit timeUnit) {
+        this.delay = delay;
+        this.timeUnit = timeUnit;
+    }
+
+    @Override
+    public BufferedOrderedQueue<DeliveredMessage> create() {
+        ConcurrentBufferedOrderedQueue<DeliveredMessage> queue = new ConcurrentBufferedOrderedQueue<DeliveredMessage>(eventExecutor, delay, timeUnit);
+
+        queue.setMaxBatchSize(maxBatchSize);
+        queue.setMaxLatency(maxLatencyMillis, TimeUnit.MILLISECONDS);
+
+        return queue;
+    }
+
+    public Executor getEventExecutor() {
+        return eventExecutor;
+    }
+
+    public void setEventExecutor(Executor eventExecutor) {
+        this.eventExecutor = eventExecutor;
+    }
+
+    public long getDelay() {
+        return delay;
+    }
+
+    public void setDelay(long delay) {
+        this.delay = delay;
+    }
+
+    public TimeUnit getTimeUnit() {
+        return timeUnit;
+    }
+
+    public void setTimeUnit(TimeUnit timeUnit) {
+        this.timeUnit = timeUnit;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis;
+    }
+
+    public void setMaxLatencyMillis(long maxLatencyMillis) {
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
+}
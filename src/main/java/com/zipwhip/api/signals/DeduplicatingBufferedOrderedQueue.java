@@ -0,0 +1,108 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.events.Observable;
+import com.zipwhip.signals.TimeBucketedBloomFilter;
+import com.zipwhip.util.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drops the signals whose id was already appended within a recent window, then passes the rest on to another
+ * BufferedOrderedQueue. The same signal can arrive twice around a reconnect (a replay, a backfill, or a server
+ * retry), and this keeps the consumers from processing it twice.
+ *
+ * The recent ids are kept in a {@link TimeBucketedBloomFilter}, so memory stays fixed however many signals go
+ * through. The price is a small chance (the falsePositiveRate) of dropping a signal that was not a duplicate.
+ * Signals without an id always go through.
+ *
+ * The rate only holds up to expectedIds per window. Past that the filter remembers the ids for less than the window
+ * rather than drop more signals, and {@link #getSaturationCount()} goes up.
+ *
+ * It holds nothing that needs releasing. Destroy the queue it wraps.
+ */
+public class DeduplicatingBufferedOrderedQueue implements BufferedOrderedQueue<DeliveredMessage> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeduplicatingBufferedOrderedQueue.class);
+
+    public static final long DEFAULT_WINDOW_MINUTES = 5;
+    public static final int DEFAULT_EXPECTED_IDS = 10000;
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.000001;
+
+    private final BufferedOrderedQueue<DeliveredMessage> queue;
+    private final TimeBucketedBloomFilter recentIds;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public DeduplicatingBufferedOrderedQueue(BufferedOrderedQueue<DeliveredMessage> queue, TimeBucketedBloomFilter recentIds) {
+        this.queue = queue;
+        this.recentIds = recentIds;
+    }
+
+    public DeduplicatingBufferedOrderedQueue(BufferedOrderedQueue<DeliveredMessage> queue, long window, TimeUnit timeUnit, int expectedIds, double falsePositiveRate) {
+        this(queue, new TimeBucketedBloomFilter(window, timeUnit, expectedIds, falsePositiveRate));
+    }
+
+    public DeduplicatingBufferedOrderedQueue(BufferedOrderedQueue<DeliveredMessage> queue) {
+        this(queue, DEFAULT_WINDOW_MINUTES, TimeUnit.MINUTES, DEFAULT_EXPECTED_IDS, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    @Override
+    public void append(DeliveredMessage event) {
+        if (!StringUtil.isNullOrEmpty(event.getId()) && recentIds.checkAndAdd(event.getId())) {
+            hitCount.incrementAndGet();
+
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Dropping duplicate signal " + event.getId());
+            }
+
+            // The first one was delivered, this one never will be.
+            event.ack();
+            return;
+        }
+
+        missCount.incrementAndGet();
+        queue.append(event);
+    }
+
+    @Override
+    public Observable<DeliveredMessage> getItemEvent() {
+        return queue.getItemEvent();
+    }
+
+    @Override
+    public Observable<List<DeliveredMessage>> getBatchEvent() {
+        return queue.getBatchEvent();
+    }
+
+    /**
+     * @return the number of signals dropped as duplicates.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of signals passed on.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return how many times the filter filled up before the window was over, because more than expectedIds came
+     *         in. Each time, the ids seen longest ago were forgotten early.
+     */
+    public long getSaturationCount() {
+        return recentIds.getEarlyRotationCount();
+    }
+
+    public BufferedOrderedQueue<DeliveredMessage> getQueue() {
+        return queue;
+    }
+}
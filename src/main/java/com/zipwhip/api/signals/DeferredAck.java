@@ -0,0 +1,40 @@
+package com.zipwhip.api.signals;
+
+/**
+ * Lets a messageEvent observer take over the ack of the frame it is being notified of, so the ack goes out once the
+ * signal is really consumed instead of as soon as the observers return.
+ *
+ * Whoever delivers a frame offers its ack just before notifying the observers, and runs it afterwards unless one of
+ * them took it. Both happen on the delivering thread, so an observer only gets to take it if the messageEvent runs
+ * its observers inline. Otherwise the frame is acked the way it always was.
+ */
+public final class DeferredAck {
+
+    private static final ThreadLocal<Runnable> CURRENT = new ThreadLocal<Runnable>();
+
+    private DeferredAck() {
+
+    }
+
+    /**
+     * @param ack the ack of the frame about to be delivered on this thread, or null if it does not need one.
+     */
+    public static void offer(Runnable ack) {
+        if (ack == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(ack);
+        }
+    }
+
+    /**
+     * @return the ack of the frame being delivered on this thread, which the caller now has to run. Null if it needs
+     * none or somebody took it already.
+     */
+    public static Runnable take() {
+        Runnable ack = CURRENT.get();
+        CURRENT.remove();
+
+        return ack;
+    }
+}
@@ -0,0 +1,448 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.concurrent.HoleRange;
+import com.zipwhip.concurrent.ObservableFuture;
+import com.zipwhip.events.Observable;
+import com.zipwhip.events.ObservableHelper;
+import com.zipwhip.events.Observer;
+import com.zipwhip.executors.SimpleExecutor;
+import com.zipwhip.lifecycle.CascadingDestroyableBase;
+import com.zipwhip.timers.Timeout;
+import com.zipwhip.timers.Timer;
+import com.zipwhip.timers.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fills the holes that the version ranges report, by fetching the missing signals from a {@link BackfillSource} and
+ * appending them to the {@link BufferedOrderedQueue}, so they come out in order with everything else.
+ *
+ * Holes are merged per subscription as they come in (overlapping or touching ranges become one), then fetched in
+ * batches of at most maxBatchSize versions, with at most maxConcurrentFetches in flight across all subscriptions.
+ * Each fetch has a deadline. A batch that fails or times out is tried again after a delay that doubles each time,
+ * up to maxAttempts, after which it fires the failureEvent so the app can fall back to a full resync. The batches
+ * that gave up are kept, and go back in line on {@link #retryFailed()} (the provider calls it when it binds to the
+ * same client again), since the version ranges will not report those holes a second time.
+ */
+public class HoleBackfiller extends CascadingDestroyableBase {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HoleBackfiller.class);
+
+    public static final int DEFAULT_MAX_CONCURRENT_FETCHES = 4;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 200;
+    public static final int DEFAULT_TIMEOUT_SECONDS = 30;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_RETRY_DELAY_MILLIS = 1000;
+
+    // No retry waits longer than this, however many attempts there are.
+    private static final long MAX_RETRY_DELAY_MILLIS = 60000;
+
+    private static final Comparator<DeliveredMessage> BY_VERSION = new Comparator<DeliveredMessage>() {
+        @Override
+        public int compare(DeliveredMessage o1, DeliveredMessage o2) {
+            long v1 = o1.getVersion() == null ? 0 : o1.getVersion();
+            long v2 = o2.getVersion() == null ? 0 : o2.getVersion();
+
+            return v1 < v2 ? -1 : (v1 == v2 ? 0 : 1);
+        }
+    };
+
+    private final ObservableHelper<HoleRange> failureEvent =
+            new ObservableHelper<HoleRange>("HoleBackfiller/FailureEvent", SimpleExecutor.getInstance());
+
+    private final BackfillSource backfillSource;
+    private final Timer timer;
+
+    // subscriptionId to the holes still to fetch (start to end), never overlapping or touching. Subscriptions take
+    // turns in insertion order, so one wide hole does not hold up the rest.
+    private final Map<String, TreeMap<Long, Long>> pending = new LinkedHashMap<String, TreeMap<Long, Long>>();
+
+    // The holes that ran out of attempts, the same way, until retryFailed().
+    private final Map<String, TreeMap<Long, Long>> failed = new LinkedHashMap<String, TreeMap<Long, Long>>();
+
+    private BufferedOrderedQueue<DeliveredMessage> bufferedOrderedQueue;
+
+    private int maxConcurrentFetches = DEFAULT_MAX_CONCURRENT_FETCHES;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private int timeoutSeconds = DEFAULT_TIMEOUT_SECONDS;
+    private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+    private long retryDelayMillis = DEFAULT_RETRY_DELAY_MILLIS;
+
+    private int inFlight;
+    private boolean draining;
+
+    public HoleBackfiller(BackfillSource backfillSource, Timer timer) {
+        this.backfillSource = backfillSource;
+        this.timer = timer;
+    }
+
+    /**
+     * Queue up a hole to fetch. The key of the HoleRange is the subscriptionId.
+     */
+    public void add(HoleRange hole) {
+        synchronized (this) {
+            if (isDestroyed()) {
+                return;
+            }
+
+            merge(pending, hole);
+        }
+
+        drain();
+    }
+
+    /**
+     * Put the holes that ran out of attempts back in line, with a fresh set of attempts.
+     */
+    public void retryFailed() {
+        synchronized (this) {
+            if (isDestroyed() || failed.isEmpty()) {
+                return;
+            }
+
+            for (HoleRange hole : toHoles(failed)) {
+                merge(pending, hole);
+            }
+
+            failed.clear();
+        }
+
+        drain();
+    }
+
+    /**
+     * Forget the holes that were not fetched yet, and the ones that failed. Fetches that are already in flight still
+     * finish.
+     */
+    public synchronized void clear() {
+        pending.clear();
+        failed.clear();
+    }
+
+    /**
+     * @return the holes (by subscriptionId) that are waiting for a fetch.
+     */
+    public synchronized List<HoleRange> getPendingHoles() {
+        return toHoles(pending);
+    }
+
+    /**
+     * @return the holes (by subscriptionId) that ran out of attempts, waiting for {@link #retryFailed()}.
+     */
+    public synchronized List<HoleRange> getFailedHoles() {
+        return toHoles(failed);
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight;
+    }
+
+    /**
+     * @return the batches that could not be fetched after maxAttempts. The subscription still has a hole there.
+     */
+    public Observable<HoleRange> getFailureEvent() {
+        return failureEvent;
+    }
+
+    /**
+     * Use this as an observer of {@link VersionCheckpoints#getHoleDetectedEvent()}.
+     */
+    public Observer<HoleRange> getHoleObserver() {
+        return holeObserver;
+    }
+
+    public synchronized BufferedOrderedQueue<DeliveredMessage> getBufferedOrderedQueue() {
+        return bufferedOrderedQueue;
+    }
+
+    public synchronized void setBufferedOrderedQueue(BufferedOrderedQueue<DeliveredMessage> bufferedOrderedQueue) {
+        this.bufferedOrderedQueue = bufferedOrderedQueue;
+    }
+
+    public int getMaxConcurrentFetches() {
+        return maxConcurrentFetches;
+    }
+
+    public void setMaxConcurrentFetches(int maxConcurrentFetches) {
+        this.maxConcurrentFetches = maxConcurrentFetches;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public void setTimeoutSeconds(int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getRetryDelayMillis() {
+        return retryDelayMillis;
+    }
+
+    /**
+     * @param retryDelayMillis how long to wait before the second attempt. Each one after that waits twice as long
+     *                         as the one before, up to a minute.
+     */
+    public void setRetryDelayMillis(long retryDelayMillis) {
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    @Override
+    protected synchronized void onDestroy() {
+        pending.clear();
+        failed.clear();
+    }
+
+    private final Observer<HoleRange> holeObserver = new Observer<HoleRange>() {
+        @Override
+        public void notify(Object sender, HoleRange hole) {
+            add(hole);
+        }
+    };
+
+    private static List<HoleRange> toHoles(Map<String, TreeMap<Long, Long>> map) {
+        List<HoleRange> result = new ArrayList<HoleRange>();
+
+        for (Map.Entry<String, TreeMap<Long, Long>> entry : map.entrySet()) {
+            for (Map.Entry<Long, Long> hole : entry.getValue().entrySet()) {
+                result.add(new HoleRange(entry.getKey(), hole.getKey(), hole.getValue()));
+            }
+        }
+
+        return result;
+    }
+
+    private static void merge(Map<String, TreeMap<Long, Long>> map, HoleRange hole) {
+        TreeMap<Long, Long> holes = map.get(hole.getKey());
+
+        if (holes == null) {
+            holes = new TreeMap<Long, Long>();
+            map.put(hole.getKey(), holes);
+        }
+
+        merge(holes, hole.getStart(), hole.getEnd());
+    }
+
+    private static void merge(TreeMap<Long, Long> holes, long start, long end) {
+        // Join the hole that starts at or below this one, if it reaches this far.
+        Map.Entry<Long, Long> below = holes.floorEntry(start);
+
+        if (below != null && below.getValue() + 1 >= start) {
+            start = below.getKey();
+            end = Math.max(end, below.getValue());
+        }
+
+        // Swallow every hole that starts inside (or right after) this one.
+        Iterator<Map.Entry<Long, Long>> iterator = holes.tailMap(start, true).entrySet().iterator();
+
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> entry = iterator.next();
+
+            if (entry.getKey() > end + 1) {
+                break;
+            }
+
+            end = Math.max(end, entry.getValue());
+            iterator.remove();
+        }
+
+        holes.put(start, end);
+    }
+
+    /**
+     * Start fetches until there is nothing left or the concurrency limit is hit. Only one thread drains at a time, in
+     * a loop, so a source that completes right away does not recurse once per batch.
+     */
+    private void drain() {
+        synchronized (this) {
+            if (draining) {
+                return;
+            }
+
+            draining = true;
+        }
+
+        while (true) {
+            HoleRange batch;
+
+            synchronized (this) {
+                batch = nextBatch();
+
+                if (batch == null) {
+                    draining = false;
+                    return;
+                }
+
+                inFlight++;
+            }
+
+            fetch(batch, 1);
+        }
+    }
+
+    private HoleRange nextBatch() {
+        if (isDestroyed() || inFlight >= maxConcurrentFetches || pending.isEmpty()) {
+            return null;
+        }
+
+        Iterator<Map.Entry<String, TreeMap<Long, Long>>> iterator = pending.entrySet().iterator();
+        Map.Entry<String, TreeMap<Long, Long>> entry = iterator.next();
+        String subscriptionId = entry.getKey();
+        TreeMap<Long, Long> holes = entry.getValue();
+
+        // Take this subscription out, and put it back at the end of the line if it has more.
+        iterator.remove();
+
+        Map.Entry<Long, Long> hole = holes.pollFirstEntry();
+        long start = hole.getKey();
+        long end = Math.min(hole.getValue(), start + maxBatchSize - 1);
+
+        if (end < hole.getValue()) {
+            holes.put(end + 1, hole.getValue());
+        }
+
+        if (!holes.isEmpty()) {
+            pending.put(subscriptionId, holes);
+        }
+
+        return new HoleRange(subscriptionId, start, end);
+    }
+
+    private void fetch(final HoleRange batch, final int attempt) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(String.format("Backfilling %s %s, attempt %d", batch.getKey(), batch, attempt));
+        }
+
+        final ObservableFuture<List<DeliveredMessage>> future;
+
+        try {
+            future = backfillSource.fetch(batch.getKey(), batch.getStart(), batch.getEnd());
+        } catch (Exception e) {
+            onFailure(batch, attempt, e);
+            return;
+        }
+
+        // Whichever comes first, the result or the deadline, decides the attempt. A late result is dropped.
+        final AtomicBoolean finished = new AtomicBoolean();
+
+        final Timeout timeout = timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                if (finished.compareAndSet(false, true)) {
+                    onFailure(batch, attempt, new TimeoutException("Backfill took longer than " + timeoutSeconds + " seconds"));
+                }
+            }
+        }, timeoutSeconds, TimeUnit.SECONDS);
+
+        future.addObserver(new Observer<ObservableFuture<List<DeliveredMessage>>>() {
+            @Override
+            public void notify(Object sender, ObservableFuture<List<DeliveredMessage>> item) {
+                if (!finished.compareAndSet(false, true)) {
+                    return;
+                }
+
+                timeout.cancel();
+
+                if (item.isSuccess()) {
+                    onSuccess(batch, item.getResult());
+                } else {
+                    onFailure(batch, attempt, item.getCause());
+                }
+            }
+        });
+    }
+
+    private void onSuccess(HoleRange batch, List<DeliveredMessage> messages) {
+        BufferedOrderedQueue<DeliveredMessage> queue;
+
+        synchronized (this) {
+            inFlight--;
+            queue = isDestroyed() ? null : bufferedOrderedQueue;
+        }
+
+        if (queue != null && messages != null) {
+            List<DeliveredMessage> sorted = new ArrayList<DeliveredMessage>(messages);
+            Collections.sort(sorted, BY_VERSION);
+
+            for (DeliveredMessage message : sorted) {
+                queue.append(message);
+            }
+        }
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(String.format("Backfilled %s %s with %d signals", batch.getKey(), batch, messages == null ? 0 : messages.size()));
+        }
+
+        drain();
+    }
+
+    private void onFailure(final HoleRange batch, final int attempt, Throwable cause) {
+        if (attempt < maxAttempts && !isDestroyed()) {
+            long delay = Math.min(MAX_RETRY_DELAY_MILLIS, retryDelayMillis << Math.min(attempt - 1, 20));
+
+            LOGGER.warn(String.format("Backfill of %s %s failed, attempt %d of %d, trying again in %dms",
+                    batch.getKey(), batch, attempt, maxAttempts, delay), cause);
+
+            // Still counts as in flight while it waits.
+            timer.newTimeout(new TimerTask() {
+                @Override
+                public void run(Timeout timeout) throws Exception {
+                    if (isDestroyed()) {
+                        synchronized (HoleBackfiller.this) {
+                            inFlight--;
+                        }
+
+                        return;
+                    }
+
+                    fetch(batch, attempt + 1);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+
+            return;
+        }
+
+        LOGGER.error(String.format("Backfill of %s %s failed, giving up until the next bind", batch.getKey(), batch), cause);
+
+        synchronized (this) {
+            inFlight--;
+
+            if (!isDestroyed()) {
+                merge(failed, batch);
+            }
+        }
+
+        failureEvent.notifyObservers(this, batch);
+
+        drain();
+    }
+}
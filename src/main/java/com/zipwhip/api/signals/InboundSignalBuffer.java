@@ -0,0 +1,518 @@
+package com.zipwhip.api.signals;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.zipwhip.events.Observable;
+import com.zipwhip.events.ObservableHelper;
+import com.zipwhip.executors.NamedThreadFactory;
+import com.zipwhip.executors.SimpleExecutor;
+import com.zipwhip.lifecycle.CascadingDestroyableBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded buffer between the socket and whoever consumes the signal frames, so that a slow consumer cannot make
+ * the client buffer without limit.
+ *
+ * The socket thread offers each frame with its acknowledgement. A single release thread hands the frames out
+ * through the releaseEvent, in order, and only then sends the ack. So the server sees how fast the frames are
+ * really consumed, not how fast they are read. An observer that only queues the frame up for later can take the ack
+ * along (see {@link DeferredAck}) and send it once the frame is consumed from there.
+ *
+ * When capacity frames are waiting, the {@link OverflowPolicy} decides what happens to the next one:
+ * <ul>
+ * <li>BLOCK: the socket thread waits for room. Nothing more is read off the socket until then.</li>
+ * <li>SHED: the frame is dropped and not acked, so the server knows it was not delivered.</li>
+ * <li>SPILL: the frame is written to the spill file and acked once it is on disk. Frames are read back (in order)
+ * once the frames in memory are released. A spill file left over from a previous run is released first.</li>
+ * </ul>
+ *
+ * Nothing is released before {@link #start()}, so there is time to observe the releaseEvent.
+ */
+public class InboundSignalBuffer extends CascadingDestroyableBase {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InboundSignalBuffer.class);
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public enum OverflowPolicy {
+        BLOCK,
+        SHED,
+        SPILL
+    }
+
+    private final ObservableHelper<JsonElement> releaseEvent =
+            new ObservableHelper<JsonElement>("InboundSignalBuffer/releaseEvent", SimpleExecutor.getInstance());
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private final ArrayDeque<Frame> frames = new ArrayDeque<Frame>();
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final SpillFile spillFile;
+    private final Thread releaseThread;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile boolean running = true;
+
+    private volatile SignalMetrics signalMetrics;
+
+    private long shedCount;
+    private long spilledCount;
+
+    public InboundSignalBuffer(int capacity, OverflowPolicy overflowPolicy, File spillFile, ThreadFactory threadFactory) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        } else if (overflowPolicy == null) {
+            throw new NullPointerException("overflowPolicy");
+        } else if (overflowPolicy == OverflowPolicy.SPILL && spillFile == null) {
+            throw new IllegalArgumentException("The SPILL policy needs a spillFile");
+        }
+
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.spillFile = overflowPolicy == OverflowPolicy.SPILL ? new SpillFile(spillFile) : null;
+
+        this.releaseThread = threadFactory.newThread(new ReleaseLoop());
+        this.releaseThread.setDaemon(true);
+    }
+
+    public InboundSignalBuffer(int capacity, OverflowPolicy overflowPolicy, File spillFile) {
+        this(capacity, overflowPolicy, spillFile, new NamedThreadFactory("InboundSignalBuffer-"));
+    }
+
+    public InboundSignalBuffer(int capacity, OverflowPolicy overflowPolicy) {
+        this(capacity, overflowPolicy, null);
+    }
+
+    public InboundSignalBuffer() {
+        this(DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Hand over a frame from the socket.
+     *
+     * @param frame the frame.
+     * @param ack sends the acknowledgement, or null if the frame does not need one. It runs on the release thread
+     *            once the frame is released, or on this thread once it is spilled.
+     * @return false if the frame was shed (or this buffer is destroyed). The ack was not sent.
+     */
+    public boolean offer(JsonElement frame, Runnable ack) {
+        boolean spilled = false;
+
+        start();
+
+        lock.lock();
+        try {
+            if (!running) {
+                return false;
+            }
+
+            // Once something is spilled, everything goes through the spill file until it is empty again. Otherwise
+            // a new frame could overtake the spilled ones.
+            if (!hasSpilled() && frames.size() < capacity) {
+                enqueue(frame, ack);
+                return true;
+            }
+
+            switch (overflowPolicy) {
+                case BLOCK:
+                    while (frames.size() >= capacity && running) {
+                        notFull.await();
+                    }
+
+                    if (!running) {
+                        return false;
+                    }
+
+                    enqueue(frame, ack);
+                    return true;
+                case SHED:
+                    shed(frame);
+                    return false;
+                default:
+                    try {
+                        spillFile.write(frame.toString());
+                    } catch (IOException e) {
+                        LOGGER.error("Could not spill, shedding instead", e);
+                        shed(frame);
+                        return false;
+                    }
+
+                    spilledCount++;
+                    spilled = true;
+                    notEmpty.signal();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+
+        if (spilled && ack != null) {
+            // It is on disk, so it will be released even if we go down now.
+            ack.run();
+        }
+
+        return true;
+    }
+
+    /**
+     * Start releasing, if not started yet. Observe the releaseEvent first: what a previous run spilled goes out right
+     * away, and it was acked already. The first offer() starts it too.
+     */
+    public void start() {
+        if (started.compareAndSet(false, true)) {
+            releaseThread.start();
+        }
+    }
+
+    /**
+     * @return the frames in order, on the release thread. The ack goes out once the observers return, unless one of
+     * them took it with {@link DeferredAck#take()}.
+     */
+    public Observable<JsonElement> getReleaseEvent() {
+        return releaseEvent;
+    }
+
+    /**
+     * @return the number of frames waiting in memory.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return frames.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of frames waiting in the spill file.
+     */
+    public long getSpillSize() {
+        lock.lock();
+        try {
+            return hasSpilled() ? spillFile.getCount() : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getShedCount() {
+        lock.lock();
+        try {
+            return shedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSpilledCount() {
+        lock.lock();
+        try {
+            return spilledCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public SignalMetrics getSignalMetrics() {
+        return signalMetrics;
+    }
+
+    /**
+     * @param signalMetrics where to report how long frames wait to be released, or null to not measure it.
+     */
+    public void setSignalMetrics(SignalMetrics signalMetrics) {
+        this.signalMetrics = signalMetrics;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    private boolean hasSpilled() {
+        return spillFile != null && spillFile.getCount() > 0;
+    }
+
+    private void enqueue(JsonElement frame, Runnable ack) {
+        frames.add(new Frame(frame, ack, signalMetrics == null ? 0 : System.nanoTime()));
+        notEmpty.signal();
+    }
+
+    private void shed(JsonElement frame) {
+        shedCount++;
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(String.format("Shedding a frame, %d waiting. Shed so far: %d", frames.size(), shedCount));
+        }
+    }
+
+    private class ReleaseLoop implements Runnable {
+
+        private final JsonParser parser = new JsonParser();
+
+        @Override
+        public void run() {
+            while (running) {
+                Frame frame;
+
+                lock.lock();
+                try {
+                    while (frames.isEmpty() && !hasSpilled() && running) {
+                        notEmpty.await();
+                    }
+
+                    if (!running) {
+                        break;
+                    }
+
+                    if (!frames.isEmpty()) {
+                        frame = frames.poll();
+                        notFull.signal();
+                    } else {
+                        // Already acked when it was spilled.
+                        frame = new Frame(parser.parse(spillFile.read()), null, 0);
+                    }
+                } catch (InterruptedException e) {
+                    break;
+                } catch (Exception e) {
+                    LOGGER.error("Could not read back a spilled frame, dropping the rest of the spill file", e);
+                    spillFile.clear();
+                    continue;
+                } finally {
+                    lock.unlock();
+                }
+
+                release(frame);
+            }
+
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(String.format("Release thread exiting with %d unreleased frames", frames.size()));
+            }
+        }
+
+        private void release(Frame frame) {
+            SignalMetrics metrics = signalMetrics;
+
+            if (metrics != null && frame.offeredNanos != 0) {
+                metrics.record(SignalMetrics.Stage.BUFFER, System.nanoTime() - frame.offeredNanos);
+            }
+
+            // An observer that passes the frame on to another queue takes the ack along, to send it once the frame
+            // comes out of there.
+            DeferredAck.offer(frame.ack);
+
+            try {
+                releaseEvent.notifyObservers(InboundSignalBuffer.this, frame.json);
+            } catch (Exception e) {
+                LOGGER.error("Observer failed while releasing " + frame.json, e);
+            }
+
+            Runnable ack = DeferredAck.take();
+
+            if (ack != null) {
+                try {
+                    ack.run();
+                } catch (Exception e) {
+                    LOGGER.error("Could not ack " + frame.json, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signalAll();
+            notFull.signalAll();
+
+            if (spillFile != null) {
+                // What is still in there was acked, so it stays on disk for the next run.
+                spillFile.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Frame {
+
+        private final JsonElement json;
+        private final Runnable ack;
+        // When it was offered, by System.nanoTime(), or 0 if not measured.
+        private final long offeredNanos;
+
+        private Frame(JsonElement json, Runnable ack, long offeredNanos) {
+            this.json = json;
+            this.ack = ack;
+            this.offeredNanos = offeredNanos;
+        }
+    }
+
+    /**
+     * An append-only file of length prefixed UTF-8 records, read from the front. Emptied once everything is read.
+     * Only ever used with the buffer's lock held.
+     */
+    private static class SpillFile {
+
+        private final File file;
+
+        private RandomAccessFile raf;
+        private long readPosition;
+        private long writePosition;
+        private long count;
+
+        private SpillFile(File file) {
+            this.file = file;
+
+            try {
+                open();
+            } catch (IOException e) {
+                LOGGER.error("Could not open the spill file " + file, e);
+                close();
+            }
+        }
+
+        private void write(String record) throws IOException {
+            if (raf == null) {
+                open();
+            }
+
+            byte[] bytes = record.getBytes(UTF_8);
+
+            raf.seek(writePosition);
+            raf.writeInt(bytes.length);
+            raf.write(bytes);
+            raf.getChannel().force(false);
+
+            writePosition += 4 + bytes.length;
+            count++;
+        }
+
+        private String read() throws IOException {
+            raf.seek(readPosition);
+
+            byte[] bytes = new byte[raf.readInt()];
+            raf.readFully(bytes);
+
+            readPosition += 4 + bytes.length;
+            count--;
+
+            if (count == 0) {
+                clear();
+            }
+
+            return new String(bytes, UTF_8);
+        }
+
+        private long getCount() {
+            return count;
+        }
+
+        private void clear() {
+            readPosition = 0;
+            writePosition = 0;
+            count = 0;
+
+            try {
+                if (raf != null) {
+                    raf.setLength(0);
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Could not truncate the spill file " + file, e);
+            }
+        }
+
+        private void open() throws IOException {
+            raf = new RandomAccessFile(file, "rw");
+            readPosition = 0;
+            writePosition = 0;
+            count = 0;
+
+            // Count what a previous run left behind. A record cut short by a crash was never acked, so it goes.
+            long length = raf.length();
+            while (writePosition + 4 <= length) {
+                raf.seek(writePosition);
+
+                int size;
+                try {
+                    size = raf.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+
+                if (size < 0 || writePosition + 4 + size > length) {
+                    break;
+                }
+
+                writePosition += 4 + size;
+                count++;
+            }
+
+            raf.setLength(writePosition);
+
+            if (count > 0) {
+                LOGGER.info(String.format("Releasing %d frames spilled by a previous run", count));
+            }
+        }
+
+        /**
+         * Move the records not read yet to the front, so the next run does not release the rest again.
+         */
+        private void compact() throws IOException {
+            if (readPosition == 0) {
+                return;
+            }
+
+            byte[] rest = new byte[(int) (writePosition - readPosition)];
+
+            raf.seek(readPosition);
+            raf.readFully(rest);
+            raf.seek(0);
+            raf.write(rest);
+            raf.setLength(rest.length);
+            raf.getChannel().force(false);
+
+            readPosition = 0;
+            writePosition = rest.length;
+        }
+
+        private void close() {
+            try {
+                if (raf != null) {
+                    compact();
+                    raf.close();
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Could not close the spill file " + file, e);
+            }
+
+            raf = null;
+            count = 0;
+        }
+    }
+}
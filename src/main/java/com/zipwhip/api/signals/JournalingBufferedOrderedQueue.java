@@ -0,0 +1,201 @@
+package com.zipwhip.api.signals;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.api.signals.dto.json.DeliveredMessageReader;
+import com.zipwhip.api.signals.dto.json.SignalProviderGsonBuilder;
+import com.zipwhip.events.Observable;
+import com.zipwhip.events.ObservableHelper;
+import com.zipwhip.events.Observer;
+import com.zipwhip.executors.SimpleExecutor;
+import com.zipwhip.lifecycle.CascadingDestroyableBase;
+import com.zipwhip.lifecycle.DestroyableBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes every signal appended to a {@link SignalJournal} before passing it on to another BufferedOrderedQueue,
+ * and marks it consumed once the observers of the batch it is released in have returned. If the process dies with
+ * signals still waiting in the queue (or in the middle of their observers), {@link #replay()} puts them back in on
+ * the next start, instead of waiting on the server to resync. That is also why a signal is acked as soon as it is
+ * journaled.
+ *
+ * The batch observers run on the releasing thread, so "returned" is the end of the dispatch only as far as it is
+ * synchronous: a signal handed to another executor is consumed once it is handed over. A signal can be replayed
+ * after it was dispatched (the process died between the two), so keep this behind the
+ * {@link DeduplicatingBufferedOrderedQueue} or make the observers idempotent.
+ */
+public class JournalingBufferedOrderedQueue extends CascadingDestroyableBase implements BufferedOrderedQueue<DeliveredMessage> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JournalingBufferedOrderedQueue.class);
+
+    private final BufferedOrderedQueue<DeliveredMessage> queue;
+    private final SignalJournal journal;
+    private final Gson gson;
+    private final DeliveredMessageReader reader;
+
+    private final ObservableHelper<List<DeliveredMessage>> batchEvent =
+            new ObservableHelper<List<DeliveredMessage>>("JournaledBatchEvent", SimpleExecutor.getInstance());
+
+    // Where each signal that is in the queue was journaled. By identity, the queue hands back the same instances.
+    private final Map<DeliveredMessage, Long> positions = new IdentityHashMap<DeliveredMessage, Long>();
+
+    /**
+     * @param gson writes the signals to the journal and reads them back. It has to read what it writes.
+     */
+    public JournalingBufferedOrderedQueue(BufferedOrderedQueue<DeliveredMessage> queue, SignalJournal journal, Gson gson) {
+        this.queue = queue;
+        this.journal = journal;
+        this.gson = gson;
+        this.reader = new DeliveredMessageReader(gson);
+
+        queue.getBatchEvent().addObserver(releaseObserver);
+
+        if (queue instanceof DestroyableBase) {
+            link((DestroyableBase) queue);
+        }
+    }
+
+    public JournalingBufferedOrderedQueue(BufferedOrderedQueue<DeliveredMessage> queue, SignalJournal journal) {
+        this(queue, journal, newGson());
+    }
+
+    /**
+     * @return the Gson of the signals, but with dates written as millis too (the shared one only reads them that
+     *         way), so that a journaled signal reads back the same.
+     */
+    public static Gson newGson() {
+        return SignalProviderGsonBuilder.newBuilder()
+                .registerTypeHierarchyAdapter(Date.class, new MillisDateTypeAdapter())
+                .create();
+    }
+
+    @Override
+    public void append(DeliveredMessage event) {
+        boolean journaled = false;
+
+        try {
+            long position = journal.append(gson.toJson(event, DeliveredMessage.class));
+
+            synchronized (positions) {
+                positions.put(event, position);
+            }
+
+            journaled = true;
+        } catch (IOException e) {
+            // Still deliver it, it just won't survive a crash.
+            LOGGER.error("Could not journal " + event, e);
+        }
+
+        queue.append(event);
+
+        if (journaled) {
+            // It is replayed if we go down before it is consumed, so the server need not wait for that.
+            event.ack();
+        }
+    }
+
+    /**
+     * Put the signals that the previous run journaled but did not consume back in the queue. Call it once the
+     * observers of the batchEvent are in place.
+     *
+     * @return how many were put back.
+     */
+    public int replay() {
+        int count = 0;
+
+        for (SignalJournal.Entry entry : journal.getUnconsumed()) {
+            DeliveredMessage message;
+
+            try {
+                message = reader.read(entry.getRecord());
+            } catch (Exception e) {
+                LOGGER.error("Could not read back a journaled signal, dropping it: " + entry.getRecord(), e);
+                journal.consume(entry.getPosition());
+                continue;
+            }
+
+            synchronized (positions) {
+                positions.put(message, entry.getPosition());
+            }
+
+            queue.append(message);
+            count++;
+        }
+
+        return count;
+    }
+
+    private final Observer<List<DeliveredMessage>> releaseObserver = new Observer<List<DeliveredMessage>>() {
+        @Override
+        public void notify(Object sender, List<DeliveredMessage> batch) {
+            try {
+                batchEvent.notifyObservers(JournalingBufferedOrderedQueue.this, batch);
+            } finally {
+                for (DeliveredMessage message : batch) {
+                    Long position;
+
+                    synchronized (positions) {
+                        position = positions.remove(message);
+                    }
+
+                    if (position != null) {
+                        journal.consume(position);
+                    }
+                }
+            }
+        }
+    };
+
+    @Override
+    public Observable<DeliveredMessage> getItemEvent() {
+        return queue.getItemEvent();
+    }
+
+    @Override
+    public Observable<List<DeliveredMessage>> getBatchEvent() {
+        return batchEvent;
+    }
+
+    public BufferedOrderedQueue<DeliveredMessage> getQueue() {
+        return queue;
+    }
+
+    public SignalJournal getJournal() {
+        return journal;
+    }
+
+    @Override
+    protected void onDestroy() {
+        queue.getBatchEvent().removeObserver(releaseObserver);
+        journal.close();
+    }
+
+    private static class MillisDateTypeAdapter implements JsonSerializer<Date>, JsonDeserializer<Date> {
+
+        @Override
+        public Date deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws
+                JsonParseException {
+            return new Date(json.getAsJsonPrimitive().getAsLong());
+        }
+
+        @Override
+        public JsonElement serialize(Date src, Type typeOfSrc, JsonSerializationContext context) {
+            return new JsonPrimitive(src.getTime());
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.events.Observer;
+import com.zipwhip.executors.NamedThreadFactory;
+import com.zipwhip.lifecycle.CascadingDestroyableBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs one observer in its own lane: a bounded queue drained in order by an executor, so that a slow observer
+ * does not hold up the thread that fires the event (for the signal events, the socket reader) or the observers
+ * after it.
+ *
+ * Add the lane where you would have added the observer:
+ * <pre>
+ *     ObserverLane&lt;DeliveredMessage&gt; lane = new ObserverLane&lt;DeliveredMessage&gt;(slowObserver, "Reports", 1000, OverflowPolicy.DROP_OLDEST);
+ *     signalProvider.getSignalReceivedEvent().addObserver(lane);
+ * </pre>
+ * and destroy it once removed. Events are handed to the observer one at a time, in the order they were fired, even
+ * if the executor is shared. When capacity events are waiting, the {@link OverflowPolicy} decides what happens to
+ * the next one:
+ * <ul>
+ * <li>BLOCK: the thread firing the event waits for room.</li>
+ * <li>DROP_NEWEST: the new event is dropped.</li>
+ * <li>DROP_OLDEST: the oldest waiting event is dropped to make room.</li>
+ * </ul>
+ * The queue depth, how long events wait in it and how many were dropped are kept for reporting.
+ */
+public class ObserverLane<T> extends CascadingDestroyableBase implements Observer<T> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObserverLane.class);
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    // How many events one run of the drain handles before it goes to the back of a shared executor.
+    private static final int MAX_EVENTS_PER_DRAIN = 64;
+
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP_NEWEST,
+        DROP_OLDEST
+    }
+
+    private final Observer<T> observer;
+    private final String name;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor executor;
+    private final ExecutorService ownExecutor;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<Pending<T>> queue = new ArrayDeque<Pending<T>>();
+
+    // Everything below is guarded by the lock.
+    private boolean draining;
+    private int maxQueueDepth;
+    private long deliveredCount;
+    private long droppedCount;
+    private long failedCount;
+    private long dequeuedCount;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    /**
+     * @param executor runs the drain. It can be shared between lanes, each lane still delivers in order.
+     */
+    public ObserverLane(Observer<T> observer, String name, int capacity, OverflowPolicy overflowPolicy, Executor executor) {
+        this(observer, name, capacity, overflowPolicy, executor, null);
+    }
+
+    /**
+     * The lane gets a thread of its own, which goes away when the lane is destroyed.
+     */
+    public ObserverLane(Observer<T> observer, String name, int capacity, OverflowPolicy overflowPolicy) {
+        this(observer, name, capacity, overflowPolicy, null,
+                Executors.newSingleThreadExecutor(new NamedThreadFactory("ObserverLane-" + name + "-")));
+    }
+
+    public ObserverLane(Observer<T> observer, String name) {
+        this(observer, name, DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    private ObserverLane(Observer<T> observer, String name, int capacity, OverflowPolicy overflowPolicy, Executor executor, ExecutorService ownExecutor) {
+        if (observer == null) {
+            throw new NullPointerException("observer");
+        } else if (overflowPolicy == null) {
+            throw new NullPointerException("overflowPolicy");
+        } else if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+
+        this.observer = observer;
+        this.name = name;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.ownExecutor = ownExecutor;
+        this.executor = ownExecutor == null ? executor : ownExecutor;
+
+        if (this.executor == null) {
+            throw new NullPointerException("executor");
+        }
+    }
+
+    @Override
+    public void notify(Object sender, T item) {
+        boolean schedule;
+
+        lock.lock();
+        try {
+            while (queue.size() >= capacity && !isDestroyed()) {
+                if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+                    droppedCount++;
+                    return;
+                } else if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                    queue.poll();
+                    droppedCount++;
+                } else {
+                    try {
+                        notFull.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        droppedCount++;
+                        return;
+                    }
+                }
+            }
+
+            if (isDestroyed()) {
+                droppedCount++;
+                return;
+            }
+
+            queue.add(new Pending<T>(sender, item, System.nanoTime()));
+            maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+
+            schedule = !draining;
+            draining = true;
+        } finally {
+            lock.unlock();
+        }
+
+        if (schedule) {
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        try {
+            executor.execute(drain);
+        } catch (RejectedExecutionException e) {
+            lock.lock();
+            try {
+                draining = false;
+            } finally {
+                lock.unlock();
+            }
+
+            if (!isDestroyed()) {
+                LOGGER.error(String.format("The executor of lane %s rejected it", name), e);
+            }
+        }
+    }
+
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            for (int i = 0; i < MAX_EVENTS_PER_DRAIN; i++) {
+                Pending<T> pending;
+
+                lock.lock();
+                try {
+                    pending = queue.poll();
+
+                    if (pending == null) {
+                        draining = false;
+                        return;
+                    }
+
+                    long latency = System.nanoTime() - pending.enqueuedNanos;
+                    dequeuedCount++;
+                    totalLatencyNanos += latency;
+                    maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+
+                    notFull.signal();
+                } finally {
+                    lock.unlock();
+                }
+
+                boolean failed = false;
+                try {
+                    observer.notify(pending.sender, pending.item);
+                } catch (Exception e) {
+                    failed = true;
+                    LOGGER.error(String.format("Observer in lane %s failed on %s", name, pending.item), e);
+                }
+
+                lock.lock();
+                try {
+                    if (failed) {
+                        failedCount++;
+                    } else {
+                        deliveredCount++;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            // Let the other lanes on this executor have a turn.
+            schedule();
+        }
+    };
+
+    public Observer<T> getObserver() {
+        return observer;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * @return how many events are waiting right now.
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the most events that were ever waiting at once.
+     */
+    public int getMaxQueueDepth() {
+        lock.lock();
+        try {
+            return maxQueueDepth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return how many events the observer handled without throwing.
+     */
+    public long getDeliveredCount() {
+        lock.lock();
+        try {
+            return deliveredCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDroppedCount() {
+        lock.lock();
+        try {
+            return droppedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getFailedCount() {
+        lock.lock();
+        try {
+            return failedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the average time an event waited in the lane before the observer got it, or 0 if none has yet.
+     */
+    public long getAverageLatencyNanos() {
+        lock.lock();
+        try {
+            return dequeuedCount == 0 ? 0 : totalLatencyNanos / dequeuedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMaxLatencyNanos() {
+        lock.lock();
+        try {
+            return maxLatencyNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return String.format("ObserverLane(%s depth=%d/%d maxDepth=%d delivered=%d dropped=%d failed=%d maxLatency=%dus)",
+                    name, queue.size(), capacity, maxQueueDepth, deliveredCount, droppedCount, failedCount,
+                    maxLatencyNanos / 1000);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        lock.lock();
+        try {
+            droppedCount += queue.size();
+            queue.clear();
+
+            // Let any BLOCKed senders go.
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (ownExecutor != null) {
+            ownExecutor.shutdownNow();
+        }
+    }
+
+    private static class Pending<T> {
+
+        private final Object sender;
+        private final T item;
+        private final long enqueuedNanos;
+
+        private Pending(Object sender, T item, long enqueuedNanos) {
+            this.sender = sender;
+            this.item = item;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.util.CollectionUtil;
+
+/**
+ * Decides which partition of a {@link PartitionedBufferedOrderedQueue} an event goes to. Events with equal keys are
+ * released in order, relative to each other. Events with different keys may be released in parallel.
+ */
+public interface PartitionKey<T> {
+
+    /**
+     * Keeps the signals of each subscription in order. A signal delivered to several subscriptions goes with the
+     * lowest of their subscriptionIds, whatever order the set iterates in, so the same set always lands on the same
+     * partition. It is only kept in order with the signals of that subscription, not of the others.
+     */
+    public static final PartitionKey<DeliveredMessage> SUBSCRIPTION_ID = new PartitionKey<DeliveredMessage>() {
+        @Override
+        public Object getKey(DeliveredMessage event) {
+            if (CollectionUtil.isNullOrEmpty(event.getSubscriptionIds())) {
+                return null;
+            }
+
+            String lowest = null;
+            for (Object subscriptionId : event.getSubscriptionIds()) {
+                String id = (String) subscriptionId;
+
+                if (lowest == null || (id != null && id.compareTo(lowest) < 0)) {
+                    lowest = id;
+                }
+            }
+
+            return lowest;
+        }
+    };
+
+    /**
+     * @return the key of this event. Null is a key like any other.
+     */
+    Object getKey(T event);
+
+}
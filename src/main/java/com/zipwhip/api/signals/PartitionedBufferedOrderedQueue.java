@@ -0,0 +1,148 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.events.Observable;
+import com.zipwhip.events.ObservableHelper;
+import com.zipwhip.events.Observer;
+import com.zipwhip.executors.NamedThreadFactory;
+import com.zipwhip.executors.SimpleExecutor;
+import com.zipwhip.lifecycle.CascadingDestroyableBase;
+import com.zipwhip.lifecycle.DestroyableBase;
+import com.zipwhip.signals2.timeline.TimelineEvent;
+import com.zipwhip.util.Factory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A BufferedOrderedQueue split into partitions by a {@link PartitionKey} (the subscriptionId, for example). Each
+ * partition is a BufferedOrderedQueue of its own, so events are ordered within a partition, and the partitions are
+ * released independently of each other. By default each partition is a {@link ConcurrentBufferedOrderedQueue} with
+ * its own drain thread, one per core, so a busy subscription no longer holds up the release of every other one.
+ *
+ * The itemEvent and batchEvent fire for every partition. That means the observers are called from several threads
+ * at once, and a batch only ever has events from one partition in it. There is no ordering between events with keys
+ * in different partitions.
+ */
+public class PartitionedBufferedOrderedQueue<T extends TimelineEvent> extends CascadingDestroyableBase implements BufferedOrderedQueue<T> {
+
+    private final List<BufferedOrderedQueue<T>> partitions;
+    private final PartitionKey<T> partitionKey;
+    private final ObservableHelper<T> itemEvent;
+    private final ObservableHelper<List<T>> batchEvent;
+
+    public PartitionedBufferedOrderedQueue(Executor eventExecutor, PartitionKey<T> partitionKey, Factory<BufferedOrderedQueue<T>> partitionFactory, int partitionCount) {
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("partitionCount must be positive");
+        }
+
+        this.partitionKey = partitionKey;
+        this.itemEvent = new ObservableHelper<T>("BufferedOrderedQueue/itemEvent", eventExecutor);
+        this.batchEvent = new ObservableHelper<List<T>>("BufferedOrderedQueue/batchEvent", eventExecutor);
+
+        List<BufferedOrderedQueue<T>> partitions = new ArrayList<BufferedOrderedQueue<T>>(partitionCount);
+
+        for (int i = 0; i < partitionCount; i++) {
+            BufferedOrderedQueue<T> partition = partitionFactory.create();
+
+            partition.getItemEvent().addObserver(itemEvent);
+            partition.getBatchEvent().addObserver(batchEvent);
+
+            if (partition instanceof DestroyableBase) {
+                link((DestroyableBase) partition);
+            }
+
+            partitions.add(partition);
+        }
+
+        this.partitions = Collections.unmodifiableList(partitions);
+    }
+
+    public PartitionedBufferedOrderedQueue(PartitionKey<T> partitionKey, int partitionCount, long delay, TimeUnit timeUnit) {
+        this(SimpleExecutor.getInstance(), partitionKey, new ConcurrentPartitionFactory<T>(delay, timeUnit), partitionCount);
+    }
+
+    public PartitionedBufferedOrderedQueue(PartitionKey<T> partitionKey, long delay, TimeUnit timeUnit) {
+        this(partitionKey, Runtime.getRuntime().availableProcessors(), delay, timeUnit);
+    }
+
+    public PartitionedBufferedOrderedQueue(PartitionKey<T> partitionKey) {
+        this(partitionKey, 1, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void append(T event) {
+        if (event == null) {
+            throw new NullPointerException("event");
+        }
+
+        partitions.get(partitionOf(partitionKey.getKey(event))).append(event);
+    }
+
+    @Override
+    public Observable<T> getItemEvent() {
+        return itemEvent;
+    }
+
+    @Override
+    public Observable<List<T>> getBatchEvent() {
+        return batchEvent;
+    }
+
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    /**
+     * @return the partition that the events with this key go to.
+     */
+    public BufferedOrderedQueue<T> getPartition(Object key) {
+        return partitions.get(partitionOf(key));
+    }
+
+    public PartitionKey<T> getPartitionKey() {
+        return partitionKey;
+    }
+
+    private int partitionOf(Object key) {
+        if (key == null) {
+            return 0;
+        }
+
+        // Spread the bits, since subscriptionIds that differ only at the end would otherwise bunch up.
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+
+        return (hash & Integer.MAX_VALUE) % partitions.size();
+    }
+
+    @Override
+    protected void onDestroy() {
+        for (BufferedOrderedQueue<T> partition : partitions) {
+            partition.getItemEvent().removeObserver(itemEvent);
+            partition.getBatchEvent().removeObserver(batchEvent);
+        }
+    }
+
+    private static class ConcurrentPartitionFactory<T extends TimelineEvent> implements Factory<BufferedOrderedQueue<T>> {
+
+        private final ThreadFactory threadFactory = new NamedThreadFactory("BufferedOrderedQueue-partition-");
+        private final long delay;
+        private final TimeUnit timeUnit;
+
+        private ConcurrentPartitionFactory(long delay, TimeUnit timeUnit) {
+            this.delay = delay;
+            this.timeUnit = timeUnit;
+        }
+
+        @Override
+        public BufferedOrderedQueue<T> create() {
+            return new ConcurrentBufferedOrderedQueue<T>(SimpleExecutor.getInstance(), threadFactory, delay, timeUnit);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.executors.SimpleExecutor;
+import com.zipwhip.util.Factory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates {@link PartitionedBufferedOrderedQueue}s made of {@link ConcurrentBufferedOrderedQueue}s, partitioned by
+ * subscriptionId unless told otherwise. Drop-in replacement for the other queue factories in a
+ * {@link SignalProviderFactory}, as long as the signal observers can be called from several threads at once.
+ */
+public class PartitionedBufferedOrderedQueueFactory implements Factory<BufferedOrderedQueue<DeliveredMessage>> {
+
+    private Executor eventExecutor = SimpleExecutor.getInstance();
+    private PartitionKey<DeliveredMessage> partitionKey = PartitionKey.SUBSCRIPTION_ID;
+    private int partitionCount = Runtime.getRuntime().availableProcessors();
+    private final ConcurrentBufferedOrderedQueueFactory partitionFactory;
+
+    public PartitionedBufferedOrderedQueueFactory() {
+        this(1, TimeUnit.SECONDS);
+    }
+
+    public PartitionedBufferedOrderedQueueFactory(long delay, TimeUnit timeUnit) {
+        this.partitionFactory = new ConcurrentBufferedOrderedQueueFactory(delay, timeUnit);
+    }
+
+    @Override
+    public BufferedOrderedQueue<DeliveredMessage> create() {
+        return new PartitionedBufferedOrderedQueue<DeliveredMessage>(eventExecutor, partitionKey, partitionFactory, partitionCount);
+    }
+
+    public Executor getEventExecutor() {
+        return eventExecutor;
+    }
+
+    public void setEventExecutor(Executor eventExecutor) {
+        this.eventExecutor = eventExecutor;
+    }
+
+    public PartitionKey<DeliveredMessage> getPartitionKey() {
+        return partitionKey;
+    }
+
+    public void setPartitionKey(PartitionKey<DeliveredMessage> partitionKey) {
+        this.partitionKey = partitionKey;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    public void setPartitionCount(int partitionCount) {
+        this.partitionCount = partitionCount;
+    }
+
+    /**
+     * @return the factory of each partition, to set the delay, max batch size and max latency on.
+     */
+    public ConcurrentBufferedOrderedQueueFactory getPartitionFactory() {
+        return partitionFactory;
+    }
+}
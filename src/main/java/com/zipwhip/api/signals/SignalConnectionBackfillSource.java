@@ -0,0 +1,99 @@
+package com.zipwhip.api.signals;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.api.signals.dto.json.DeliveredMessageReader;
+import com.zipwhip.concurrent.DefaultObservableFuture;
+import com.zipwhip.concurrent.MutableObservableFuture;
+import com.zipwhip.concurrent.ObservableFuture;
+import com.zipwhip.events.Observer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fetches missing signals over the signal connection itself: emits a "backfill" event with the subscriptionId and
+ * version range, and reads the signals out of the acknowledgement (a json array of DeliveredMessages).
+ *
+ * The signal servers do not answer the "backfill" event yet, so this is only of use against a server that does.
+ */
+public class SignalConnectionBackfillSource implements BackfillSource {
+
+    private final SignalConnection signalConnection;
+    private final DeliveredMessageReader deliveredMessageReader;
+
+    public SignalConnectionBackfillSource(SignalConnection signalConnection) {
+        this(signalConnection, new DeliveredMessageReader());
+    }
+
+    public SignalConnectionBackfillSource(SignalConnection signalConnection, DeliveredMessageReader deliveredMessageReader) {
+        this.signalConnection = signalConnection;
+        this.deliveredMessageReader = deliveredMessageReader;
+    }
+
+    @Override
+    public ObservableFuture<List<DeliveredMessage>> fetch(String subscriptionId, long start, long end) {
+        final MutableObservableFuture<List<DeliveredMessage>> result = new DefaultObservableFuture<List<DeliveredMessage>>(this);
+
+        Map<String, Object> request = new HashMap<String, Object>();
+        request.put("subscriptionId", subscriptionId);
+        request.put("start", start);
+        request.put("end", end);
+
+        signalConnection.emit("backfill", request).addObserver(new Observer<ObservableFuture<ObservableFuture<Object[]>>>() {
+            @Override
+            public void notify(Object sender, ObservableFuture<ObservableFuture<Object[]>> item) {
+                if (cascadeFailure(item, result)) {
+                    return;
+                }
+
+                item.getResult().addObserver(new Observer<ObservableFuture<Object[]>>() {
+                    @Override
+                    public void notify(Object sender, ObservableFuture<Object[]> item) {
+                        if (cascadeFailure(item, result)) {
+                            return;
+                        }
+
+                        try {
+                            result.setSuccess(read(item.getResult()));
+                        } catch (Exception e) {
+                            result.setFailure(e);
+                        }
+                    }
+                });
+            }
+        });
+
+        return result;
+    }
+
+    private static boolean cascadeFailure(ObservableFuture<?> source, MutableObservableFuture<?> destination) {
+        if (source.isCancelled()) {
+            destination.cancel();
+            return true;
+        } else if (!source.isSuccess()) {
+            destination.setFailure(source.getCause());
+            return true;
+        }
+
+        return false;
+    }
+
+    private List<DeliveredMessage> read(Object[] args) {
+        if (args == null || args.length == 0 || !(args[0] instanceof JsonArray)) {
+            throw new IllegalStateException("Expected an array of signals, got " + (args == null || args.length == 0 ? null : args[0]));
+        }
+
+        JsonArray array = (JsonArray) args[0];
+        List<DeliveredMessage> messages = new ArrayList<DeliveredMessage>(array.size());
+
+        for (JsonElement element : array) {
+            messages.add(deliveredMessageReader.read(element));
+        }
+
+        return messages;
+    }
+}
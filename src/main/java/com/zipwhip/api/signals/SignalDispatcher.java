@@ -0,0 +1,170 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.events.Observer;
+import com.zipwhip.util.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Delivers each signal only to the observers registered for its (type, event), instead of to every observer for
+ * each of them to filter out what it ignores.
+ *
+ * Registrations are rare and signals are many, so every (un)registration rebuilds a {@link SignalTable} with the
+ * full list of observers for each (type, event) that anyone asked for. Dispatching a signal is then one table
+ * lookup and a loop over exactly the observers that want it. Observers run on the thread that dispatches, in the
+ * order they registered.
+ */
+public class SignalDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SignalDispatcher.class);
+
+    private final List<Registration> registrations = new ArrayList<Registration>();
+
+    private volatile SignalTable<List<Observer<DeliveredMessage>>> routes = new SignalTable<List<Observer<DeliveredMessage>>>();
+
+    /**
+     * @param type the signal type ("message", "contact", ...), or null for every signal.
+     * @param event the event of that type ("receive", "read", ...), or null for every event of the type.
+     * @param observer what to call with the signal.
+     */
+    public synchronized void addObserver(String type, String event, Observer<DeliveredMessage> observer) {
+        if (observer == null) {
+            throw new NullPointerException("observer");
+        } else if (type == null && event != null) {
+            throw new IllegalArgumentException("An event needs a type: " + event);
+        }
+
+        registrations.add(new Registration(lowerCase(type), lowerCase(event), observer));
+        rebuild();
+    }
+
+    public void addObserver(String type, Observer<DeliveredMessage> observer) {
+        addObserver(type, null, observer);
+    }
+
+    public synchronized void removeObserver(String type, String event, Observer<DeliveredMessage> observer) {
+        Registration registration = new Registration(lowerCase(type), lowerCase(event), observer);
+
+        if (registrations.remove(registration)) {
+            rebuild();
+        }
+    }
+
+    public void removeObserver(String type, Observer<DeliveredMessage> observer) {
+        removeObserver(type, null, observer);
+    }
+
+    /**
+     * Hand this signal to the observers registered for it.
+     *
+     * @return the number of observers it went to.
+     */
+    public int dispatch(Object sender, DeliveredMessage message) {
+        List<Observer<DeliveredMessage>> observers = routes.get(message.getType(), message.getEvent());
+
+        if (observers == null) {
+            return 0;
+        }
+
+        for (int i = 0; i < observers.size(); i++) {
+            try {
+                observers.get(i).notify(sender, message);
+            } catch (Exception e) {
+                LOGGER.error("Observer failed on " + message, e);
+            }
+        }
+
+        return observers.size();
+    }
+
+    public synchronized int getObserverCount() {
+        return registrations.size();
+    }
+
+    private void rebuild() {
+        // Every pair someone registered for, plus "any event" of each type and "anything", so that a signal always
+        // finds the entry with all of the observers it matches.
+        Set<Registration> keys = new LinkedHashSet<Registration>();
+        for (Registration registration : registrations) {
+            keys.add(new Registration(registration.type, registration.event, null));
+            keys.add(new Registration(registration.type, null, null));
+        }
+        keys.add(new Registration(null, null, null));
+
+        SignalTable<List<Observer<DeliveredMessage>>> routes = new SignalTable<List<Observer<DeliveredMessage>>>();
+
+        for (Registration key : keys) {
+            List<Observer<DeliveredMessage>> observers = new ArrayList<Observer<DeliveredMessage>>();
+
+            for (Registration registration : registrations) {
+                if (registration.matches(key.type, key.event)) {
+                    observers.add(registration.observer);
+                }
+            }
+
+            if (!observers.isEmpty()) {
+                routes.put(key.type, key.event, Collections.unmodifiableList(observers));
+            }
+        }
+
+        this.routes = routes;
+    }
+
+    private static String lowerCase(String string) {
+        return string == null ? null : string.toLowerCase(Locale.ENGLISH);
+    }
+
+    private static class Registration {
+
+        private final String type;
+        private final String event;
+        private final Observer<DeliveredMessage> observer;
+
+        private Registration(String type, String event, Observer<DeliveredMessage> observer) {
+            this.type = type;
+            this.event = event;
+            this.observer = observer;
+        }
+
+        /**
+         * @return true if a signal with this type and event (null meaning one that nobody registered for) is for us.
+         */
+        private boolean matches(String type, String event) {
+            if (this.type == null) {
+                return true;
+            }
+
+            return StringUtil.equals(this.type, type) && (this.event == null || StringUtil.equals(this.event, event));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            } else if (!(o instanceof Registration)) {
+                return false;
+            }
+
+            Registration that = (Registration) o;
+
+            return StringUtil.equals(type, that.type) && StringUtil.equals(event, that.event) && observer == that.observer;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = type == null ? 0 : type.hashCode();
+            result = 31 * result + (event == null ? 0 : event.hashCode());
+            result = 31 * result + (observer == null ? 0 : System.identityHashCode(observer));
+
+            return result;
+        }
+    }
+}
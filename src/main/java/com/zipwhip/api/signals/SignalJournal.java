@@ -0,0 +1,395 @@
+package com.zipwhip.api.signals;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * An append-only journal of records (the signals, as json) in memory mapped segment files, so that what was
+ * accepted but not yet consumed when the process died can be replayed on the next start.
+ *
+ * Each record is its length, a consumed flag and the bytes. Appending is a copy into the mapped segment and marking
+ * it consumed flips the flag in place, so neither waits on the disk. The OS writes the pages out on its own, which
+ * is enough to survive the process dying. Call {@link #flush()} to survive the machine going down too.
+ *
+ * When a segment is full the next one is started. A segment that is not being written anymore is truncated and
+ * deleted as soon as every record in it is consumed, so the journal only ever holds about as much as is in flight.
+ *
+ * The records that were not consumed by the previous run are read when it is opened (see {@link #getUnconsumed()}).
+ * A record cut short by a crash was never handed on, so it is dropped.
+ */
+public class SignalJournal {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SignalJournal.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    public static final int DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+    private static final String PREFIX = "signals-";
+    private static final String SUFFIX = ".journal";
+
+    // The length (int) and the consumed flag (byte) ahead of every record.
+    private static final int HEADER_SIZE = 5;
+    private static final byte CONSUMED = 1;
+
+    private final File directory;
+    private final int segmentSize;
+
+    // By id, which is the order they were written in.
+    private final TreeMap<Integer, Segment> segments = new TreeMap<Integer, Segment>();
+    private final List<Entry> unconsumed;
+
+    private Segment current;
+    private int nextSegmentId;
+    private boolean closed;
+
+    public SignalJournal(File directory, int segmentSize) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize is too small: " + segmentSize);
+        } else if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.unconsumed = Collections.unmodifiableList(open());
+    }
+
+    public SignalJournal(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * @return where the record was written, to hand to {@link #consume(long)} once it was handed on.
+     */
+    public synchronized long append(String record) throws IOException {
+        if (closed) {
+            throw new IOException("The journal is closed");
+        }
+
+        byte[] bytes = record.getBytes(UTF_8);
+
+        if (bytes.length == 0) {
+            // A length of 0 is where the reader stops.
+            throw new IllegalArgumentException("Cannot journal an empty record");
+        }
+
+        if (current == null || current.remaining() < HEADER_SIZE + bytes.length) {
+            roll(HEADER_SIZE + bytes.length);
+        }
+
+        return current.append(bytes);
+    }
+
+    /**
+     * Mark a record consumed, so it is not replayed. Once a full segment has nothing left to replay it is deleted.
+     */
+    public synchronized void consume(long position) {
+        Segment segment = segments.get(segmentIdOf(position));
+
+        if (segment == null || !segment.consume(offsetOf(position))) {
+            return;
+        }
+
+        if (segment.live == 0 && segment != current) {
+            delete(segment);
+        }
+    }
+
+    /**
+     * @return the records the previous run did not consume, in the order they were appended.
+     */
+    public List<Entry> getUnconsumed() {
+        return unconsumed;
+    }
+
+    /**
+     * Write what was appended and consumed so far to the disk.
+     */
+    public synchronized void flush() {
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+        }
+    }
+
+    /**
+     * @return how many segment files there are.
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * @return how many records are waiting to be consumed.
+     */
+    public synchronized long getLiveCount() {
+        long count = 0;
+
+        for (Segment segment : segments.values()) {
+            count += segment.live;
+        }
+
+        return count;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        flush();
+
+        for (Iterator<Segment> iterator = segments.values().iterator(); iterator.hasNext(); ) {
+            Segment segment = iterator.next();
+
+            if (segment.live == 0) {
+                iterator.remove();
+                release(segment);
+            }
+        }
+
+        current = null;
+    }
+
+    private void roll(int needed) throws IOException {
+        Segment previous = current;
+
+        // A record bigger than a segment gets a segment of its own.
+        current = Segment.create(new File(directory, fileName(nextSegmentId)), nextSegmentId, Math.max(segmentSize, needed));
+        segments.put(current.id, current);
+        nextSegmentId++;
+
+        if (previous != null && previous.live == 0) {
+            delete(previous);
+        }
+    }
+
+    private void delete(Segment segment) {
+        segments.remove(segment.id);
+        release(segment);
+    }
+
+    /**
+     * Give the space of a segment back. It must not be touched again.
+     */
+    private void release(Segment segment) {
+        // The mapping only goes away when the buffer is collected, and until then a deleted file keeps its space.
+        // Cut to nothing, it has none to keep. Nothing reads the buffer past this point, so it never faults.
+        try {
+            RandomAccessFile raf = new RandomAccessFile(segment.file, "rw");
+
+            try {
+                raf.setLength(0);
+            } finally {
+                raf.close();
+            }
+        } catch (IOException e) {
+            // Some platforms will not truncate a mapped file. The space comes back once the buffer is collected.
+            LOGGER.debug("Could not truncate the consumed journal segment " + segment.file, e);
+        }
+
+        if (!segment.file.delete() && segment.file.exists()) {
+            LOGGER.warn("Could not delete the consumed journal segment " + segment.file);
+        }
+    }
+
+    private List<Entry> open() throws IOException {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }
+        });
+
+        List<Entry> entries = new ArrayList<Entry>();
+
+        if (files == null) {
+            return entries;
+        }
+
+        // The ids are zero padded, so the names sort in the order they were written.
+        Arrays.sort(files);
+
+        for (File file : files) {
+            int id;
+            try {
+                id = Integer.parseInt(file.getName().substring(PREFIX.length(), file.getName().length() - SUFFIX.length()));
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Skipping " + file + ", it does not look like a journal segment");
+                continue;
+            }
+
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+
+            Segment segment = Segment.load(file, id, entries);
+
+            if (segment.live == 0) {
+                release(segment);
+            } else {
+                segments.put(id, segment);
+            }
+        }
+
+        if (!entries.isEmpty()) {
+            LOGGER.info(String.format("Replaying %d signals journaled by a previous run", entries.size()));
+        }
+
+        return entries;
+    }
+
+    private static String fileName(int id) {
+        return String.format("%s%010d%s", PREFIX, id, SUFFIX);
+    }
+
+    private static long positionOf(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int segmentIdOf(long position) {
+        return (int) (position >>> 32);
+    }
+
+    private static int offsetOf(long position) {
+        return (int) position;
+    }
+
+    /**
+     * A record that was appended but not consumed.
+     */
+    public static class Entry {
+
+        private final long position;
+        private final String record;
+
+        private Entry(long position, String record) {
+            this.position = position;
+            this.record = record;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+
+        public String getRecord() {
+            return record;
+        }
+    }
+
+    private static class Segment {
+
+        private final File file;
+        private final int id;
+        private final MappedByteBuffer buffer;
+
+        private int writePosition;
+        private int live;
+
+        private Segment(File file, int id, MappedByteBuffer buffer) {
+            this.file = file;
+            this.id = id;
+            this.buffer = buffer;
+        }
+
+        private static Segment create(File file, int id, int size) throws IOException {
+            return new Segment(file, id, map(file, size));
+        }
+
+        /**
+         * Read a segment written by a previous run, adding what it did not consume to the entries.
+         */
+        private static Segment load(File file, int id, List<Entry> entries) throws IOException {
+            Segment segment = new Segment(file, id, map(file, (int) file.length()));
+            MappedByteBuffer buffer = segment.buffer;
+
+            int position = 0;
+            while (position + HEADER_SIZE <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+
+                // 0 is where the writing stopped. Anything that does not fit was cut short.
+                if (length <= 0 || position + HEADER_SIZE + length > buffer.capacity()) {
+                    break;
+                }
+
+                if (buffer.get(position + 4) != CONSUMED) {
+                    byte[] bytes = new byte[length];
+                    buffer.position(position + HEADER_SIZE);
+                    buffer.get(bytes);
+
+                    entries.add(new Entry(positionOf(id, position), new String(bytes, UTF_8)));
+                    segment.live++;
+                }
+
+                position += HEADER_SIZE + length;
+            }
+
+            // Never written to again. A new run starts a new segment.
+            segment.writePosition = buffer.capacity();
+
+            return segment;
+        }
+
+        private static MappedByteBuffer map(File file, int size) throws IOException {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+
+            try {
+                // The mapping stays valid once the file is closed.
+                return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } finally {
+                raf.close();
+            }
+        }
+
+        private int remaining() {
+            return buffer.capacity() - writePosition;
+        }
+
+        private long append(byte[] bytes) {
+            int position = writePosition;
+
+            buffer.put(position + 4, (byte) 0);
+            buffer.position(position + HEADER_SIZE);
+            buffer.put(bytes);
+
+            // The length goes last, so a crash in the middle leaves a 0 where the reader stops.
+            buffer.putInt(position, bytes.length);
+
+            writePosition += HEADER_SIZE + bytes.length;
+            live++;
+
+            return positionOf(id, position);
+        }
+
+        /**
+         * @return true if it was not consumed before.
+         */
+        private boolean consume(int position) {
+            if (position < 0 || position + HEADER_SIZE > buffer.capacity() || buffer.get(position + 4) == CONSUMED) {
+                return false;
+            }
+
+            buffer.put(position + 4, CONSUMED);
+            live--;
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.zipwhip.api.signals;
+
+/**
+ * The latency of each stage (see {@link SignalMetrics.Stage}) as seen over JMX. All values are in microseconds.
+ */
+public interface SignalLatencyMXBean {
+
+    SignalLatencyMetrics.StageLatency getTransit();
+
+    SignalLatencyMetrics.StageLatency getBuffer();
+
+    SignalLatencyMetrics.StageLatency getParse();
+
+    SignalLatencyMetrics.StageLatency getQueue();
+
+    SignalLatencyMetrics.StageLatency getDispatch();
+
+    SignalLatencyMetrics.StageLatency getTotal();
+
+    /**
+     * Start counting from scratch, for example after changing the queue delay.
+     */
+    void reset();
+
+}
@@ -0,0 +1,196 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.signals.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a {@link LatencyHistogram} per {@link SignalMetrics.Stage}, in microseconds up to an hour. That is about
+ * 14KB per stage, however many signals go through.
+ *
+ * Read it in code with getHistogram(), or register() it and read it over JMX, under
+ * "com.zipwhip.signals:type=SignalLatency,name=..." by default.
+ */
+public class SignalLatencyMetrics implements SignalMetrics, SignalLatencyMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SignalLatencyMetrics.class);
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+    private final Map<Stage, LatencyHistogram> histograms = new EnumMap<Stage, LatencyHistogram>(Stage.class);
+
+    private ObjectName objectName;
+
+    public SignalLatencyMetrics() {
+        for (Stage stage : Stage.values()) {
+            histograms.put(stage, new LatencyHistogram(HIGHEST_TRACKABLE_MICROS));
+        }
+    }
+
+    @Override
+    public void record(Stage stage, long nanos) {
+        histograms.get(stage).record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * @return the histogram of this stage, in microseconds.
+     */
+    public LatencyHistogram getHistogram(Stage stage) {
+        return histograms.get(stage);
+    }
+
+    @Override
+    public StageLatency getTransit() {
+        return getLatency(Stage.TRANSIT);
+    }
+
+    @Override
+    public StageLatency getBuffer() {
+        return getLatency(Stage.BUFFER);
+    }
+
+    @Override
+    public StageLatency getParse() {
+        return getLatency(Stage.PARSE);
+    }
+
+    @Override
+    public StageLatency getQueue() {
+        return getLatency(Stage.QUEUE);
+    }
+
+    @Override
+    public StageLatency getDispatch() {
+        return getLatency(Stage.DISPATCH);
+    }
+
+    @Override
+    public StageLatency getTotal() {
+        return getLatency(Stage.TOTAL);
+    }
+
+    public StageLatency getLatency(Stage stage) {
+        return new StageLatency(histograms.get(stage));
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Register with the platform MBeanServer.
+     *
+     * @param name tells this provider apart from any others in the same process.
+     */
+    public synchronized void register(String name) throws JMException {
+        register(new ObjectName("com.zipwhip.signals:type=SignalLatency,name=" + ObjectName.quote(name)));
+    }
+
+    public synchronized void register(ObjectName objectName) throws JMException {
+        unregister();
+
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        this.objectName = objectName;
+    }
+
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            LOGGER.warn("Could not unregister " + objectName, e);
+        }
+
+        objectName = null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("SignalLatencyMetrics(");
+
+        for (Stage stage : Stage.values()) {
+            if (stage.ordinal() > 0) {
+                builder.append(", ");
+            }
+
+            builder.append(stage.name().toLowerCase()).append('=').append(getLatency(stage));
+        }
+
+        return builder.append(')').toString();
+    }
+
+    /**
+     * A reading of one stage, in microseconds.
+     */
+    public static class StageLatency {
+
+        private final long count;
+        private final double mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        private StageLatency(LatencyHistogram histogram) {
+            this.count = histogram.getCount();
+            this.mean = histogram.getMean();
+            this.p50 = histogram.getValueAtPercentile(50);
+            this.p90 = histogram.getValueAtPercentile(90);
+            this.p99 = histogram.getValueAtPercentile(99);
+            this.p999 = histogram.getValueAtPercentile(99.9);
+            this.max = histogram.getMax();
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getP999() {
+            return p999;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[count=%d mean=%.1fus p50=%dus p99=%dus max=%dus]", count, mean, p50, p99, max);
+        }
+    }
+}
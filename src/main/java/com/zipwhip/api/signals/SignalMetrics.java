@@ -0,0 +1,30 @@
+package com.zipwhip.api.signals;
+
+/**
+ * Where the SignalProvider (and the connection in front of it) reports how long each signal spent in each stage on
+ * its way to the observers.
+ */
+public interface SignalMetrics {
+
+    enum Stage {
+        // From the server's timestamp to when the SignalProvider got it. Includes any clock skew between the two.
+        TRANSIT,
+        // Waiting in the InboundSignalBuffer for the release thread, if there is one.
+        BUFFER,
+        // Decoding the json into a DeliveredMessage.
+        PARSE,
+        // Waiting in the BufferedOrderedQueue (its silence delay, and any reordering).
+        QUEUE,
+        // From release until every observer of the batch returned. With an asynchronous eventExecutor, only until
+        // the batch was handed to it.
+        DISPATCH,
+        // From when the SignalProvider got the frame until every observer returned (BUFFER is not included).
+        TOTAL
+    }
+
+    /**
+     * @param nanos how long one signal spent in this stage.
+     */
+    void record(Stage stage, long nanos);
+
+}
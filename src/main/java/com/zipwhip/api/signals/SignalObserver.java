@@ -4,7 +4,6 @@ import com.zipwhip.api.signals.dto.DeliveredMessage;
 import com.zipwhip.events.Observer;
 import com.zipwhip.signals2.SignalConversation;
 import com.zipwhip.signals2.SignalMessage;
-import com.zipwhip.util.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,6 +20,23 @@ public class SignalObserver implements Observer<DeliveredMessage>  {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SignalObserver.class);
 
+    private static final int OTHER = 0;
+    private static final int MESSAGE_DELETE = 1;
+    private static final int MESSAGE_RECEIVE = 2;
+    private static final int MESSAGE_READ = 3;
+    private static final int CONVERSATION_CHANGE = 4;
+
+    // Looked up once per signal instead of comparing the type and event against each case in turn.
+    private static final SignalTable<Integer> ROUTES = new SignalTable<Integer>();
+
+    static {
+        ROUTES.put("message", "delete", MESSAGE_DELETE);
+        ROUTES.put("message", "receive", MESSAGE_RECEIVE);
+        ROUTES.put("message", "read", MESSAGE_READ);
+        ROUTES.put("message", "send", MESSAGE_READ);
+        ROUTES.put("conversation", "change", CONVERSATION_CHANGE);
+    }
+
     @Override
     public void notify(Object sender, DeliveredMessage item) {
         String type = item.getType();
@@ -28,27 +44,21 @@ public class SignalObserver implements Observer<DeliveredMessage>  {
         long timestamp = item.getTimestamp();
         Set<String> subscriptionIds = item.getSubscriptionIds();
 
-        if (StringUtil.equalsIgnoreCase(type, "message")) {
-            long messageId = Long.valueOf(item.getId());
+        Integer route = ROUTES.get(type, event);
 
-            if (StringUtil.equalsIgnoreCase(event, "delete")) {
-                onMessageDeleted(subscriptionIds, timestamp, messageId);
+        switch (route == null ? OTHER : route) {
+            case MESSAGE_DELETE:
+                onMessageDeleted(subscriptionIds, timestamp, Long.valueOf(item.getId()));
                 return;
-            } else if (StringUtil.equalsIgnoreCase(event, "receive")) {
+            case MESSAGE_RECEIVE:
                 onMessageReceived(subscriptionIds, timestamp, (SignalMessage) item.getContent());
                 return;
-            } else if (StringUtil.equalsIgnoreCase(event, "read")) {
-                onMessageRead(subscriptionIds, timestamp, messageId);
-                return;
-            } else if (StringUtil.equalsIgnoreCase(event, "send")) {
-                onMessageRead(subscriptionIds, timestamp, messageId);
+            case MESSAGE_READ:
+                onMessageRead(subscriptionIds, timestamp, Long.valueOf(item.getId()));
                 return;
-            }
-        } else if (StringUtil.equalsIgnoreCase(type, "conversation")) {
-            if (StringUtil.equalsIgnoreCase(event, "change")) {
-                onConversationChanged(subscriptionIds, timestamp, (SignalConversation)item.getContent());
+            case CONVERSATION_CHANGE:
+                onConversationChanged(subscriptionIds, timestamp, (SignalConversation) item.getContent());
                 return;
-            }
         }
 
         onSignalReceived(item);
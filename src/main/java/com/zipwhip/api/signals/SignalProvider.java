@@ -9,6 +9,8 @@ import com.zipwhip.lifecycle.Destroyable;
 import com.zipwhip.signals2.presence.Presence;
 import com.zipwhip.signals2.presence.UserAgent;
 
+import java.util.List;
+
 /**
  * Date: 5/7/13
  * Time: 4:41 PM
@@ -99,8 +101,46 @@ public interface SignalProvider extends Destroyable {
      */
     Observable<Event<Presence>> getPresenceChangedEvent();
 
+    /**
+     * Fires once per signal, in order. The observers run one after another on the thread that releases the signals,
+     * so a slow one holds up the rest. Wrap it in an {@link ObserverLane} to give it a queue and thread of its own.
+     *
+     * @return
+     */
     Observable<DeliveredMessage> getSignalReceivedEvent();
 
+    /**
+     * Fires for the signals addressed to one subscriptionId, so you can serve many sessions from a single provider
+     * (and a single socket) instead of creating a provider per session. Subscribe each session with its own
+     * subscriptionId and observe it here.
+     *
+     * The observers are dropped when that subscriptionId is unsubscribed.
+     *
+     * @param subscriptionId The subscriptionId that was (or will be) passed to subscribe().
+     * @return
+     */
+    Observable<DeliveredMessage> getSignalReceivedEvent(String subscriptionId);
+
+    /**
+     * Fires once per release of the BufferedOrderedQueue with every signal from that release, in order. System
+     * commands (subscribe, presence) are not included. The size and latency of a batch are bounded by the queue
+     * (see {@link BufferedOrderedQueue#getBatchEvent()}).
+     *
+     * The per-message getSignalReceivedEvent() is fed from this batch, so observers of either see the same signals.
+     *
+     * @return
+     */
+    Observable<List<DeliveredMessage>> getSignalBatchReceivedEvent();
+
+    /**
+     * Register here for just the (type, event) pairs you handle, for example ("message", "receive"), instead of
+     * observing every signal and filtering on the type and event yourself. Each signal goes straight to the
+     * observers registered for it, on the thread of getSignalBatchReceivedEvent().
+     *
+     * @return
+     */
+    SignalDispatcher getSignalDispatcher();
+
     /**
      * If any parsing exception occurs, or connection exception. Should generally test for the exception type
      *
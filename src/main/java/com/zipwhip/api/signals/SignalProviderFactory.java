@@ -1,8 +1,16 @@
 package com.zipwhip.api.signals;
 
+import com.zipwhip.api.settings.MemorySettingStore;
+import com.zipwhip.api.settings.SettingsStore;
 import com.zipwhip.api.signals.dto.DeliveredMessage;
 import com.zipwhip.important.ImportantTaskExecutor;
 import com.zipwhip.util.Factory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Date: 9/25/13
@@ -13,20 +21,92 @@ import com.zipwhip.util.Factory;
  */
 public class SignalProviderFactory implements Factory<SignalProvider> {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(SignalProviderFactory.class);
+
     private ImportantTaskExecutor importantTaskExecutor;
     private Factory<BufferedOrderedQueue<DeliveredMessage>> bufferedOrderedQueueFactory;
     private Factory<SignalConnection> signalConnectionFactory;
     private SignalsSubscribeActor signalsSubscribeActor;
+    private SettingsStore settingsStore;
+    private boolean resumeEnabled = true;
+    private boolean backfillEnabled = false;
+    private boolean dedupeEnabled = false;
+    private boolean warmBindEnabled = true;
+    private SignalMetrics signalMetrics;
+    private File journalDirectory;
+    private int journalSegmentSize = SignalJournal.DEFAULT_SEGMENT_SIZE;
+    private boolean coalescingEnabled = false;
+    private long coalesceWindowMillis = CoalescingBufferedOrderedQueue.DEFAULT_WINDOW_MILLIS;
+    private long dedupeWindowMinutes = DeduplicatingBufferedOrderedQueue.DEFAULT_WINDOW_MINUTES;
+    private int dedupeExpectedIds = DeduplicatingBufferedOrderedQueue.DEFAULT_EXPECTED_IDS;
+    private double dedupeFalsePositiveRate = DeduplicatingBufferedOrderedQueue.DEFAULT_FALSE_POSITIVE_RATE;
 
     @Override
     public SignalProvider create() {
         SignalProviderImpl signalProvider = new SignalProviderImpl();
 
         signalProvider.setImportantTaskExecutor(importantTaskExecutor);
-        signalProvider.setBufferedOrderedQueue(bufferedOrderedQueueFactory.create());
-        signalProvider.setSignalConnection(signalConnectionFactory.create());
+        BufferedOrderedQueue<DeliveredMessage> bufferedOrderedQueue = bufferedOrderedQueueFactory.create();
+
+        if (journalDirectory != null) {
+            try {
+                JournalingBufferedOrderedQueue journalingQueue = new JournalingBufferedOrderedQueue(bufferedOrderedQueue,
+                        new SignalJournal(journalDirectory, journalSegmentSize));
+
+                signalProvider.setJournalingQueue(journalingQueue);
+                bufferedOrderedQueue = journalingQueue;
+            } catch (IOException e) {
+                LOGGER.error("Could not open the signal journal in " + journalDirectory + ", going without", e);
+            }
+        }
+
+        // Outside of the journal: a signal coalesced away is never released, so it would never be consumed.
+        if (coalescingEnabled) {
+            CoalescingBufferedOrderedQueue coalescingQueue = new CoalescingBufferedOrderedQueue(bufferedOrderedQueue,
+                    importantTaskExecutor.getTimer(), coalesceWindowMillis, TimeUnit.MILLISECONDS);
+            coalescingQueue.coalesceDefaults();
+
+            signalProvider.setCoalescingQueue(coalescingQueue);
+            bufferedOrderedQueue = coalescingQueue;
+        }
+
+        // Outside of the journal, so a duplicate is never journaled (it would never be released to be consumed).
+        if (dedupeEnabled) {
+            bufferedOrderedQueue = new DeduplicatingBufferedOrderedQueue(bufferedOrderedQueue,
+                    dedupeWindowMinutes, TimeUnit.MINUTES, dedupeExpectedIds, dedupeFalsePositiveRate);
+        }
+
+        signalProvider.setBufferedOrderedQueue(bufferedOrderedQueue);
+        SignalConnection signalConnection = signalConnectionFactory.create();
+        signalProvider.setSignalConnection(signalConnection);
         signalProvider.setSignalsSubscribeActor(signalsSubscribeActor);
 
+        if (resumeEnabled) {
+            signalProvider.setVersionCheckpoints(new VersionCheckpoints(importantTaskExecutor.getTimer(),
+                    settingsStore == null ? new MemorySettingStore() : settingsStore));
+
+            if (backfillEnabled) {
+                signalProvider.setHoleBackfiller(new HoleBackfiller(new SignalConnectionBackfillSource(signalConnection),
+                        importantTaskExecutor.getTimer()));
+            }
+        }
+
+        if (warmBindEnabled && settingsStore != null) {
+            signalProvider.setBindCredentials(new BindCredentials(settingsStore));
+        }
+
+        if (signalMetrics != null) {
+            signalProvider.setSignalMetrics(signalMetrics);
+
+            if (signalConnection instanceof SocketIoSignalConnection) {
+                InboundSignalBuffer inboundSignalBuffer = ((SocketIoSignalConnection) signalConnection).getInboundSignalBuffer();
+
+                if (inboundSignalBuffer != null) {
+                    inboundSignalBuffer.setSignalMetrics(signalMetrics);
+                }
+            }
+        }
+
         return signalProvider;
     }
 
@@ -61,4 +141,152 @@ public class SignalProviderFactory implements Factory<SignalProvider> {
     public void setSignalsSubscribeActor(SignalsSubscribeActor signalsSubscribeActor) {
         this.signalsSubscribeActor = signalsSubscribeActor;
     }
+
+    public SettingsStore getSettingsStore() {
+        return settingsStore;
+    }
+
+    /**
+     * @param settingsStore where the providers save the versions to resume from, and the credentials of their last
+     *                      bind. They all save to the same keys, so this only makes sense for a single provider. If
+     *                      null, each provider keeps its versions in memory and binds as a new client on start.
+     */
+    public void setSettingsStore(SettingsStore settingsStore) {
+        this.settingsStore = settingsStore;
+    }
+
+    public boolean isResumeEnabled() {
+        return resumeEnabled;
+    }
+
+    public void setResumeEnabled(boolean resumeEnabled) {
+        this.resumeEnabled = resumeEnabled;
+    }
+
+    public boolean isBackfillEnabled() {
+        return backfillEnabled;
+    }
+
+    /**
+     * @param backfillEnabled fetch the signals behind any holes in the versions as they are found. Only applies when
+     *                        resume is enabled, since the holes come from the same version checkpoints. Off by
+     *                        default: it needs a server that answers the "backfill" event (see
+     *                        {@link SignalConnectionBackfillSource}), and against one that doesn't, every hole waits
+     *                        out the ack timeout of each attempt.
+     */
+    public void setBackfillEnabled(boolean backfillEnabled) {
+        this.backfillEnabled = backfillEnabled;
+    }
+
+    public boolean isDedupeEnabled() {
+        return dedupeEnabled;
+    }
+
+    /**
+     * @param dedupeEnabled drop signals whose id already came through recently (see
+     *                      {@link DeduplicatingBufferedOrderedQueue}). Off by default, since a false positive drops a
+     *                      signal that was not a duplicate.
+     */
+    public void setDedupeEnabled(boolean dedupeEnabled) {
+        this.dedupeEnabled = dedupeEnabled;
+    }
+
+    public long getDedupeWindowMinutes() {
+        return dedupeWindowMinutes;
+    }
+
+    public void setDedupeWindowMinutes(long dedupeWindowMinutes) {
+        this.dedupeWindowMinutes = dedupeWindowMinutes;
+    }
+
+    public int getDedupeExpectedIds() {
+        return dedupeExpectedIds;
+    }
+
+    /**
+     * @param dedupeExpectedIds how many signals to expect per window. More than this and the false positive rate
+     *                          goes up.
+     */
+    public void setDedupeExpectedIds(int dedupeExpectedIds) {
+        this.dedupeExpectedIds = dedupeExpectedIds;
+    }
+
+    public double getDedupeFalsePositiveRate() {
+        return dedupeFalsePositiveRate;
+    }
+
+    /**
+     * @param dedupeFalsePositiveRate the chance of dropping a signal that was not a duplicate.
+     */
+    public void setDedupeFalsePositiveRate(double dedupeFalsePositiveRate) {
+        this.dedupeFalsePositiveRate = dedupeFalsePositiveRate;
+    }
+
+    public boolean isWarmBindEnabled() {
+        return warmBindEnabled;
+    }
+
+    /**
+     * @param warmBindEnabled keep the clientId, token and subscriptions of the last bind in the settingsStore, so a
+     *                        restart binds as the same client and resubscribes right behind the bind (see
+     *                        {@link BindCredentials}). Only applies when there is a settingsStore.
+     */
+    public void setWarmBindEnabled(boolean warmBindEnabled) {
+        this.warmBindEnabled = warmBindEnabled;
+    }
+
+    public SignalMetrics getSignalMetrics() {
+        return signalMetrics;
+    }
+
+    /**
+     * @param signalMetrics where the providers (and their inbound buffers) report how long the signals take through
+     *                      each stage, for example a {@link SignalLatencyMetrics} registered with JMX. If null, nothing
+     *                      is measured.
+     */
+    public void setSignalMetrics(SignalMetrics signalMetrics) {
+        this.signalMetrics = signalMetrics;
+    }
+
+    public File getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    /**
+     * @param journalDirectory where to journal the signals until they are consumed, so that the ones a crash caught
+     *                         in the queue are replayed on the next connect (see {@link JournalingBufferedOrderedQueue}).
+     *                         Like the settingsStore, only for a single provider. If null, nothing is journaled.
+     */
+    public void setJournalDirectory(File journalDirectory) {
+        this.journalDirectory = journalDirectory;
+    }
+
+    public int getJournalSegmentSize() {
+        return journalSegmentSize;
+    }
+
+    public void setJournalSegmentSize(int journalSegmentSize) {
+        this.journalSegmentSize = journalSegmentSize;
+    }
+
+    public boolean isCoalescingEnabled() {
+        return coalescingEnabled;
+    }
+
+    /**
+     * @param coalescingEnabled keep only the latest message progress, presence and conversation change signal per
+     *                          entity within the coalesceWindowMillis (see {@link CoalescingBufferedOrderedQueue}).
+     *                          Other (type, event)s can be added through the provider's coalescingQueue.
+     */
+    public void setCoalescingEnabled(boolean coalescingEnabled) {
+        this.coalescingEnabled = coalescingEnabled;
+    }
+
+    public long getCoalesceWindowMillis() {
+        return coalesceWindowMillis;
+    }
+
+    public void setCoalesceWindowMillis(long coalesceWindowMillis) {
+        this.coalesceWindowMillis = coalesceWindowMillis;
+    }
 }
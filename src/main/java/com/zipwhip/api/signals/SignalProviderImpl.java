@@ -5,6 +5,7 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.zipwhip.api.signals.dto.*;
+import com.zipwhip.api.signals.dto.json.DeliveredMessageReader;
 import com.zipwhip.api.signals.dto.json.SignalProviderGsonBuilder;
 import com.zipwhip.concurrent.*;
 import com.zipwhip.events.Observable;
@@ -21,7 +22,9 @@ import com.zipwhip.util.StringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
 
@@ -46,6 +49,7 @@ public class SignalProviderImpl extends CascadingDestroyableBase implements Sign
     private final ObservableHelper<Throwable> exceptionEvent;
     private final ObservableHelper<Void> connectionChangedEvent;
     private final ObservableHelper<DeliveredMessage> signalReceivedEvent;
+    private final ObservableHelper<List<DeliveredMessage>> signalBatchReceivedEvent;
     private final ObservableHelper<Event<Presence>> presenceChangedEvent;
     private final ObservableHelper<BindResult> bindEvent;
 
@@ -56,10 +60,42 @@ public class SignalProviderImpl extends CascadingDestroyableBase implements Sign
     private ImportantTaskExecutor importantTaskExecutor;
     private BufferedOrderedQueue<DeliveredMessage> bufferedOrderedQueue;
     private Gson gson = SignalProviderGsonBuilder.getInstance();
+    private DeliveredMessageReader deliveredMessageReader = new DeliveredMessageReader(gson);
     private SignalConnection signalConnection;
 
+    // The signals from this connection, routed to each session by subscriptionId.
+    private final SubscriptionIndex subscriptionIndex = new SubscriptionIndex();
+
+    // The signals from this connection, routed to the observers of their (type, event).
+    private final SignalDispatcher signalDispatcher = new SignalDispatcher();
+
+    // The commands that the server sends to us rather than to the consumers.
+    private final SignalDispatcher systemCommandDispatcher = new SignalDispatcher();
+
+    // The last contiguous version per subscription, sent on bind so the server only replays what we missed.
+    private VersionCheckpoints versionCheckpoints;
+
+    // Fetches the signals behind the holes that the checkpoints find, and puts them back in the bufferedOrderedQueue.
+    private HoleBackfiller holeBackfiller;
+
+    // The clientId, token and subscriptions of the last bind, so a restart can bind warm and resubscribe right away.
+    private BindCredentials bindCredentials;
+
+    // Where to report how long the signals take through each stage, or null to not measure them.
+    private volatile SignalMetrics signalMetrics;
+
+    // The part of the bufferedOrderedQueue that journals the signals, replayed on the first connect.
+    private JournalingBufferedOrderedQueue journalingQueue;
+    private boolean journalReplayed;
+
+    // The part of the bufferedOrderedQueue that coalesces bursts, whose dropped signals still count as seen.
+    private CoalescingBufferedOrderedQueue coalescingQueue;
+
     private final Map<String, SubscriptionRequest> pendingSubscriptionRequests = new ConcurrentHashMap<String, SubscriptionRequest>();
 
+    // The subscribes sent along with the bind that is in flight, to cancel if it comes back as another client.
+    private final List<ObservableFuture<SubscribeResult>> resubscribes = new ArrayList<ObservableFuture<SubscribeResult>>();
+
     private volatile ObservableFuture<Void> externalConnectFuture;
     private volatile MutableObservableFuture<Void> connectFuture;
 
@@ -76,9 +112,14 @@ public class SignalProviderImpl extends CascadingDestroyableBase implements Sign
         exceptionEvent = new ObservableHelper<Throwable>("ExceptionEvent", eventExecutor);
         subscribeEvent = new ObservableHelper<SubscribeResult>("SubscribeEvent", eventExecutor);
         unsubscribeEvent = new ObservableHelper<SubscribeResult>("UnsubscribeEvent", eventExecutor);
-        signalReceivedEvent = new ObservableHelper<DeliveredMessage>("MessageReceivedEvent", eventExecutor);
+        signalBatchReceivedEvent = new ObservableHelper<List<DeliveredMessage>>("MessageBatchReceivedEvent", eventExecutor);
+        // The per-message event rides on the batch event, so it is already on the eventExecutor. No second hop.
+        signalReceivedEvent = new ObservableHelper<DeliveredMessage>("MessageReceivedEvent", SimpleExecutor.getInstance());
+        signalBatchReceivedEvent.addObserver(signalBatchToSignalObserver);
         bindEvent = new ObservableHelper<BindResult>("BindEvent", eventExecutor);
         presenceChangedEvent = new ObservableHelper<Event<Presence>>("PresenceChangedEvent", eventExecutor);
+        systemCommandDispatcher.addObserver("subscribe", subscribeCommandObserver);
+        systemCommandDispatcher.addObserver("presence", presenceCommandObserver);
     }
 
     @Override
@@ -102,6 +143,17 @@ public class SignalProviderImpl extends CascadingDestroyableBase implements Sign
         // Everything else is defined from the server.
         presence.setUserAgent(userAgent);
 
+        // By now the consumers are observing, so what the previous run did not get to is not lost on them.
+        if (journalingQueue != null && !journalReplayed) {
+            journalReplayed = true;
+            journalingQueue.replay();
+        }
+
+        if (StringUtil.isNullOrEmpty(clientId) && bindCredentials != null) {
+            clientId = bindCredentials.getClientId();
+            token = bindCredentials.getToken();
+        }
+
         connectFuture = future();
         setClientId(clientId, token);
 
@@ -233,7 +285,7 @@ public class SignalProviderImpl extends CascadingDestroyableBase implements Sign
         return executeBindRequest(clientId, token, true);
     }
 
-    private synchronized ObservableFuture<BindResult> executeBindRequest(String clientId, String token, boolean reconnect) {
+    private synchronized ObservableFuture<BindResult> executeBindRequest(final String clientId, String token, boolean reconnect) {
         if (bindFuture != null) {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("BindRequest already existed. Not going to make a new one?!");
@@ -242,7 +294,19 @@ public class SignalProviderImpl extends CascadingDestroyableBase implements Sign
             return bindFuture;
         }
 
-        final BindRequest _bindRequest = new BindRequest(getUserAgent(), clientId, token);
+        // Only an existing client has subscriptions to resume.
+        Map<String, Long> versions = null;
+        if (versionCheckpoints != null && !StringUtil.isNullOrEmpty(clientId)) {
+            versions = versionCheckpoints.getVersions();
+
+            if (versions.isEmpty()) {
+                versions = null;
+            } else if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(String.format("Asking the server to resume from %s", versions));
+            }
+        }
+
+        final BindRequest _bindRequest = new BindRequest(getUserAgent(), clientId, token, versions);
 
         ObservableFuture<BindResult> future = bindFuture = executeWithTimeout(
                 new BindCallback(signalConnection, _bindRequest, eventExecutor, gson),
@@ -259,6 +323,28 @@ public class SignalProviderImpl extends CascadingDestroyableBase implements Sign
             @Override
             public void notify(Object sender, ObservableFuture<BindResult> item) {
                 synchronized (SignalProviderImpl.this) {
+                    if (item.isSuccess() && !StringUtil.equals(clientId, item.getResult().getClientId())) {
+                        // A new clientId has none of the old subscriptions, so there is nothing to resume.
+                        cancelResubscribes();
+
+                        if (versionCheckpoints != null) {
+                            versionCheckpoints.clear();
+                        }
+
+                        if (holeBackfiller != null) {
+                            holeBackfiller.clear();
+                        }
+                    } else if (item.isSuccess() && holeBackfiller != null) {
+                        // Back on the same client. What could not be fetched while we were away can be now.
+                        holeBackfiller.retryFailed();
+                    }
+
+                    resubscribes.clear();
+
+                    if (item.isSuccess() && bindCredentials != null) {
+                        bindCredentials.setCredentials(item.getResult().getClientId(), item.getResult().getToken());
+                    }
+
                     if (bindFuture != item) {
                         if (LOGGER.isDebugEnabled()) {
                             LOGGER.debug("Avoided a bug? The futures were not the same!");
@@ -287,43 +373,181 @@ public class SignalProviderImpl extends CascadingDestroyableBase implements Sign
                 LOGGER.debug(String.format("Parsing into json %s", element));
             }
 
+            SignalMetrics metrics = signalMetrics;
+            long received = metrics == null ? 0 : System.nanoTime();
             DeliveredMessage deliveredMessage;
 
             try {
                 // parse the message, detect the type, throw the appropriate event
-                deliveredMessage = gson.fromJson(element, DeliveredMessage.class);
+                if (element.isJsonPrimitive()) {
+                    // A raw text frame. Stream it straight into the DeliveredMessage without building a tree.
+                    deliveredMessage = deliveredMessageReader.read(element.getAsString());
+                } else {
+                    deliveredMessage = deliveredMessageReader.read(element);
+                }
             } catch (Exception e) {
                 LOGGER.error("Failed to parse json", e);
                 exceptionEvent.notifyObservers(SignalProviderImpl.this, new JsonParseException(element.toString(), e));
                 return;
             }
 
+            if (metrics != null) {
+                long parsed = System.nanoTime();
+                metrics.record(SignalMetrics.Stage.PARSE, parsed - received);
+
+                if (deliveredMessage.getTimestamp() > 0) {
+                    metrics.record(SignalMetrics.Stage.TRANSIT,
+                            TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - deliveredMessage.getTimestamp()));
+                }
+
+                deliveredMessage.setReceivedNanos(received);
+                deliveredMessage.setQueuedNanos(parsed);
+            }
+
+            // Not consumed until it comes out of the bufferedOrderedQueue, so it is acked from there.
+            deliveredMessage.setAck(DeferredAck.take());
+
             bufferedOrderedQueue.append(deliveredMessage);
         }
     };
 
-    public final Observer<DeliveredMessage> releaseMessageObserver = new Observer<DeliveredMessage>() {
+    private final Observer<HoleRange> backfillHolesObserver = new Observer<HoleRange>() {
         @Override
-        public void notify(Object sender, DeliveredMessage message) {
+        public void notify(Object sender, HoleRange hole) {
+            HoleBackfiller backfiller = holeBackfiller;
+
+            if (backfiller != null) {
+                backfiller.add(hole);
+            }
+        }
+    };
+
+    /**
+     * Called once per drain of the bufferedOrderedQueue. System commands are handled inline, everything else is
+     * handed to the consumers as a single batch (one observer dispatch, one executor hop).
+     */
+    private final Observer<List<DeliveredMessage>> releaseBatchObserver = new Observer<List<DeliveredMessage>>() {
+        @Override
+        public void notify(Object sender, List<DeliveredMessage> batch) {
             if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Releasing message from bufferedOrderedQueue: " + message);
+                LOGGER.debug(String.format("Releasing %d messages from bufferedOrderedQueue", batch.size()));
             }
 
-            // first check for system commands
-            if (StringUtil.equalsIgnoreCase(message.getType(), "subscribe")) {
-                handleSubscribeCommand(message);
-            } else if (StringUtil.equalsIgnoreCase(message.getType(), "presence")) {
-                presenceChangedEvent.notifyObservers(this, message);
-            } else {
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Notifying observers to signalReceivedEvent: " + message);
+            try {
+                dispatch(batch);
+            } finally {
+                // The consumers are done with them.
+                for (DeliveredMessage message : batch) {
+                    ack(message);
+                }
+            }
+        }
+
+        private void dispatch(List<DeliveredMessage> batch) {
+            SignalMetrics metrics = signalMetrics;
+            long released = metrics == null ? 0 : System.nanoTime();
+            List<DeliveredMessage> signals = new ArrayList<DeliveredMessage>(batch.size());
+
+            for (DeliveredMessage message : batch) {
+                // The backfilled ones never went through the messageProcessingObserver.
+                if (metrics != null && message.getQueuedNanos() != 0) {
+                    metrics.record(SignalMetrics.Stage.QUEUE, released - message.getQueuedNanos());
                 }
 
-                signalReceivedEvent.notifyObservers(this, message);
+                // first check for system commands
+                if (systemCommandDispatcher.dispatch(this, message) == 0) {
+                    signals.add(message);
+                }
+            }
+
+            if (signals.isEmpty()) {
+                return;
+            }
+
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(String.format("Notifying observers to signalBatchReceivedEvent: %d signals", signals.size()));
+            }
+
+            signalBatchReceivedEvent.notifyObservers(this, signals);
+
+            if (metrics != null) {
+                recordDispatched(metrics, signals, released);
+            }
+        }
+    };
+
+    private static void ack(DeliveredMessage message) {
+        try {
+            message.ack();
+        } catch (Exception e) {
+            LOGGER.error("Could not ack " + message, e);
+        }
+    }
+
+    private static void recordDispatched(SignalMetrics metrics, List<DeliveredMessage> signals, long released) {
+        long dispatched = System.nanoTime();
+
+        for (DeliveredMessage message : signals) {
+            metrics.record(SignalMetrics.Stage.DISPATCH, dispatched - released);
+
+            if (message.getReceivedNanos() != 0) {
+                metrics.record(SignalMetrics.Stage.TOTAL, dispatched - message.getReceivedNanos());
+            }
+        }
+    }
+
+    /**
+     * Keeps the per-message signalReceivedEvent working on top of the batch path, and hands each signal to the
+     * sessions it is addressed to.
+     */
+    private final Observer<List<DeliveredMessage>> signalBatchToSignalObserver = new Observer<List<DeliveredMessage>>() {
+        @Override
+        public void notify(Object sender, List<DeliveredMessage> signals) {
+            for (DeliveredMessage message : signals) {
+                signalReceivedEvent.notifyObservers(sender, message);
+                signalDispatcher.dispatch(sender, message);
+                subscriptionIndex.route(sender, message);
+
+                if (versionCheckpoints != null) {
+                    versionCheckpoints.add(message);
+                }
+            }
+
+            // Once per batch, not per signal.
+            if (versionCheckpoints != null) {
+                versionCheckpoints.save();
             }
         }
     };
 
+    /**
+     * A signal that was coalesced away is never released, but was seen all the same. Without this its version
+     * would look like a hole, and be backfilled.
+     */
+    private final Observer<DeliveredMessage> coalescedSignalObserver = new Observer<DeliveredMessage>() {
+        @Override
+        public void notify(Object sender, DeliveredMessage message) {
+            if (versionCheckpoints != null) {
+                // Saved with the next batch.
+                versionCheckpoints.add(message);
+            }
+        }
+    };
+
+    private final Observer<DeliveredMessage> subscribeCommandObserver = new Observer<DeliveredMessage>() {
+        @Override
+        public void notify(Object sender, DeliveredMessage message) {
+            handleSubscribeCommand(message);
+        }
+    };
+
+    private final Observer<DeliveredMessage> presenceCommandObserver = new Observer<DeliveredMessage>() {
+        @Override
+        public void notify(Object sender, DeliveredMessage message) {
+            presenceChangedEvent.notifyObservers(sender, message);
+        }
+    };
+
     private void handleSubscribeCommand(DeliveredMessage message) {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Got SubscribeCommand: " + message);
@@ -357,6 +581,10 @@ public class SignalProviderImpl extends CascadingDestroyableBase implements Sign
         subscribeResult.setSessionKey(request.getSessionKey());
         subscribeResult.setChannels(result.getAddresses());
 
+        if (bindCredentials != null) {
+            bindCredentials.addSubscription(result.getSubscriptionId(), request.getSessionKey());
+        }
+
         future.setSuccess(subscribeResult);
 
         subscribeEvent.notifyObservers(SignalProviderImpl.this, subscribeResult);
@@ -372,12 +600,72 @@ public class SignalProviderImpl extends CascadingDestroyableBase implements Sign
     }
 
     private String calculateToken(String clientId) {
-        // TODO: figure out how to do this
         if (StringUtil.isNullOrEmpty(clientId)) {
             return null;
         }
 
-        return clientId;
+        // The token that was handed out with this clientId (by the last bind, or by the caller of connect).
+        if (StringUtil.equals(clientId, this.clientId) && !StringUtil.isNullOrEmpty(token)) {
+            return token;
+        }
+
+        // The one that was kept from a previous run.
+        if (bindCredentials != null && StringUtil.equals(clientId, bindCredentials.getClientId())) {
+            return bindCredentials.getToken();
+        }
+
+        // No token known for this clientId. Bind without one and let the server decide.
+        return null;
+    }
+
+    /**
+     * Subscribe again to what was active on this clientId before a restart. These go out right behind the bind
+     * instead of waiting for its ack, so the bind and the subscribes share one round trip. If the bind comes back
+     * with another clientId they are cancelled again (see {@link #cancelResubscribes()}).
+     */
+    private void resubscribe(String clientId) {
+        if (bindCredentials == null || StringUtil.isNullOrEmpty(clientId)
+                || !StringUtil.equals(clientId, bindCredentials.getClientId())) {
+            return;
+        }
+
+        Map<String, String> subscriptions = bindCredentials.getSubscriptions();
+
+        if (LOGGER.isDebugEnabled() && !subscriptions.isEmpty()) {
+            LOGGER.debug(String.format("Resubscribing %s along with the bind", subscriptions.keySet()));
+        }
+
+        for (Map.Entry<String, String> entry : subscriptions.entrySet()) {
+            if (!pendingSubscriptionRequests.containsKey(entry.getKey())) {
+                resubscribes.add(subscribe(entry.getValue(), entry.getKey()));
+            }
+        }
+    }
+
+    /**
+     * The bind did not keep us on the clientId we resubscribed for, so those subscribes are for a client that is gone.
+     * Cancel what has not completed yet (including what is still queued to go out) and forget the saved set.
+     */
+    private void cancelResubscribes() {
+        if (bindCredentials == null) {
+            return;
+        }
+
+        for (ObservableFuture<SubscribeResult> future : resubscribes) {
+            future.cancel();
+        }
+
+        resubscribes.clear();
+
+        for (String subscriptionId : bindCredentials.getSubscriptions().keySet()) {
+            SubscriptionRequest request = pendingSubscriptionRequests.remove(subscriptionId);
+
+            if (request != null) {
+                request.getFuture().cancel();
+            }
+        }
+
+        bindCredentials.clearSubscriptions();
     }
 
     private <T> ObservableFuture<T> fail(Throwable throwable) {
@@ -402,6 +690,21 @@ public class SignalProviderImpl extends CascadingDestroyableBase implements Sign
         return signalReceivedEvent;
     }
 
+    @Override
+    public Observable<DeliveredMessage> getSignalReceivedEvent(String subscriptionId) {
+        return subscriptionIndex.getSignalReceivedEvent(subscriptionId);
+    }
+
+    @Override
+    public Observable<List<DeliveredMessage>> getSignalBatchReceivedEvent() {
+        return signalBatchReceivedEvent;
+    }
+
+    @Override
+    public SignalDispatcher getSignalDispatcher() {
+        return signalDispatcher;
+    }
+
     @Override
     public Observable<Throwable> getExceptionEvent() {
         return exceptionEvent;
@@ -426,13 +729,17 @@ public class SignalProviderImpl extends CascadingDestroyableBase implements Sign
 
     public void setBufferedOrderedQueue(BufferedOrderedQueue<DeliveredMessage> bufferedOrderedQueue) {
         if (this.bufferedOrderedQueue != null) {
-            this.bufferedOrderedQueue.getItemEvent().removeObserver(releaseMessageObserver);
+            this.bufferedOrderedQueue.getBatchEvent().removeObserver(releaseBatchObserver);
         }
 
         this.bufferedOrderedQueue = bufferedOrderedQueue;
 
         if (this.bufferedOrderedQueue != null) {
-            this.bufferedOrderedQueue.getItemEvent().addObserver(releaseMessageObserver);
+            this.bufferedOrderedQueue.getBatchEvent().addObserver(releaseBatchObserver);
+        }
+
+        if (holeBackfiller != null) {
+            holeBackfiller.setBufferedOrderedQueue(bufferedOrderedQueue);
         }
     }
 
@@ -472,17 +779,122 @@ public class SignalProviderImpl extends CascadingDestroyableBase implements Sign
         return signalConnection;
     }
 
+    public SubscriptionIndex getSubscriptionIndex() {
+        return subscriptionIndex;
+    }
+
+    public VersionCheckpoints getVersionCheckpoints() {
+        return versionCheckpoints;
+    }
+
+    /**
+     * @param versionCheckpoints where to keep the versions to resume from, or null to resync from scratch on every bind.
+     */
+    public void setVersionCheckpoints(VersionCheckpoints versionCheckpoints) {
+        if (this.versionCheckpoints != null) {
+            this.versionCheckpoints.getHoleDetectedEvent().removeObserver(backfillHolesObserver);
+        }
+
+        this.versionCheckpoints = versionCheckpoints;
+
+        if (this.versionCheckpoints != null) {
+            this.versionCheckpoints.getHoleDetectedEvent().addObserver(backfillHolesObserver);
+        }
+    }
+
+    public HoleBackfiller getHoleBackfiller() {
+        return holeBackfiller;
+    }
+
+    /**
+     * @param holeBackfiller what fills the holes in the versions, or null to leave them (the next bind resumes from
+     *                       the first one).
+     */
+    public void setHoleBackfiller(HoleBackfiller holeBackfiller) {
+        this.holeBackfiller = holeBackfiller;
+
+        if (this.holeBackfiller != null) {
+            this.holeBackfiller.setBufferedOrderedQueue(bufferedOrderedQueue);
+            link(this.holeBackfiller);
+        }
+    }
+
+    public BindCredentials getBindCredentials() {
+        return bindCredentials;
+    }
+
+    /**
+     * @param bindCredentials where to keep the clientId, token and subscriptions of the last bind. If set, connect()
+     *                        binds as that client (unless given another) and resubscribes right behind the bind. If null,
+     *                        every start is a new client.
+     */
+    public void setBindCredentials(BindCredentials bindCredentials) {
+        this.bindCredentials = bindCredentials;
+    }
+
+    public SignalMetrics getSignalMetrics() {
+        return signalMetrics;
+    }
+
+    public JournalingBufferedOrderedQueue getJournalingQueue() {
+        return journalingQueue;
+    }
+
+    /**
+     * @param journalingQueue the JournalingBufferedOrderedQueue inside the bufferedOrderedQueue, if there is one.
+     *                        What the previous run journaled but did not consume is replayed into it on the first
+     *                        connect().
+     */
+    public void setJournalingQueue(JournalingBufferedOrderedQueue journalingQueue) {
+        this.journalingQueue = journalingQueue;
+
+        if (this.journalingQueue != null) {
+            link(this.journalingQueue);
+        }
+    }
+
+    public CoalescingBufferedOrderedQueue getCoalescingQueue() {
+        return coalescingQueue;
+    }
+
+    /**
+     * @param coalescingQueue the CoalescingBufferedOrderedQueue inside the bufferedOrderedQueue, if there is one. The
+     *                        signals it drops are recorded in the versionCheckpoints as if they were released.
+     */
+    public void setCoalescingQueue(CoalescingBufferedOrderedQueue coalescingQueue) {
+        if (this.coalescingQueue != null) {
+            this.coalescingQueue.getCoalescedEvent().removeObserver(coalescedSignalObserver);
+        }
+
+        this.coalescingQueue = coalescingQueue;
+
+        if (this.coalescingQueue != null) {
+            this.coalescingQueue.getCoalescedEvent().addObserver(coalescedSignalObserver);
+            link(this.coalescingQueue);
+        }
+    }
+
+    /**
+     * @param signalMetrics where to report how long the signals take to parse, wait in the bufferedOrderedQueue
+     *                      and go through the observers (see {@link SignalLatencyMetrics}), or null to not measure
+     *                      them. The dispatch times only cover the observers if the eventExecutor runs them inline.
+     */
+    public void setSignalMetrics(SignalMetrics signalMetrics) {
+        this.signalMetrics = signalMetrics;
+    }
+
     public Gson getGson() {
         return gson;
     }
 
     public void setGson(Gson gson) {
         this.gson = gson;
+        this.deliveredMessageReader = new DeliveredMessageReader(gson);
     }
 
     @Override
     protected void onDestroy() {
-
+        subscriptionIndex.clear();
     }
 
     public void setSignalConnection(SignalConnection signalConnection) {
@@ -537,6 +949,20 @@ public class SignalProviderImpl extends CascadingDestroyableBase implements Sign
                         return;
                     }
 
+                    // subscribe() falls back to the sessionKey when there is no subscriptionId.
+                    String id = StringUtil.isNullOrEmpty(subscriptionId) ? sessionKey : subscriptionId;
+
+                    subscriptionIndex.remove(id);
+
+                    if (versionCheckpoints != null) {
+                        versionCheckpoints.remove(id);
+                        versionCheckpoints.save();
+                    }
+
+                    if (bindCredentials != null) {
+                        bindCredentials.removeSubscription(id);
+                    }
+
                     subscribeEvent.notifyObservers(SignalProviderImpl.this, new SubscribeResult(sessionKey, subscriptionId));
                 }
             });
@@ -676,10 +1102,13 @@ public class SignalProviderImpl extends CascadingDestroyableBase implements Sign
                     synchronized (SignalProviderImpl.this) {
                         // Our socket is connected, now we need to issue a bind request
                         String _clientId = getClientId();
-                        String _token = calculateToken(clientId);
+                        String _token = calculateToken(_clientId);
 
                         final ObservableFuture<BindResult> _bindFuture = executeBindRequest(_clientId, _token, false);
 
+                        // Pipelined behind the bind, no need to wait for its ack.
+                        resubscribe(_clientId);
+
                         // When this future is successful, we need to save the details
                         _bindFuture.addObserver(new Observer<ObservableFuture<BindResult>>() {
                             @Override
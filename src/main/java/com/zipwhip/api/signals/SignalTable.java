@@ -0,0 +1,84 @@
+package com.zipwhip.api.signals;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Looks up a value by the (type, event) of a signal, case insensitively, without comparing against every known
+ * pair in turn.
+ *
+ * Keys are stored lower case. A lookup first tries the type and event as they came (the server sends them lower
+ * case, so that is a single hash lookup each) and only lower cases them on a miss. The most specific entry wins:
+ * (type, event), then (type, any event), then (any type, any event). A null type or event in put() means "any".
+ *
+ * Fill it before sharing it between threads, it is not safe to put() while others get().
+ */
+public class SignalTable<V> {
+
+    private final Map<String, Map<String, V>> types = new HashMap<String, Map<String, V>>();
+
+    public void put(String type, String event, V value) {
+        if (type == null && event != null) {
+            throw new IllegalArgumentException("An event needs a type: " + event);
+        }
+
+        String key = lowerCase(type);
+        Map<String, V> events = types.get(key);
+
+        if (events == null) {
+            events = new HashMap<String, V>();
+            types.put(key, events);
+        }
+
+        events.put(lowerCase(event), value);
+    }
+
+    /**
+     * @return the value of the most specific entry that matches, or null if none do.
+     */
+    public V get(String type, String event) {
+        if (type != null) {
+            Map<String, V> events = find(types, type);
+
+            if (events != null) {
+                V value = event == null ? null : find(events, event);
+
+                if (value == null) {
+                    value = events.get(null);
+                }
+
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+
+        Map<String, V> any = types.get(null);
+
+        return any == null ? null : any.get(null);
+    }
+
+    public boolean isEmpty() {
+        return types.isEmpty();
+    }
+
+    private static <T> T find(Map<String, T> map, String key) {
+        T value = map.get(key);
+
+        if (value == null) {
+            String lowerCase = lowerCase(key);
+
+            // toLowerCase hands back the same String if there was nothing to change.
+            if (lowerCase != key) {
+                value = map.get(lowerCase);
+            }
+        }
+
+        return value;
+    }
+
+    private static String lowerCase(String string) {
+        return string == null ? null : string.toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -1,13 +1,12 @@
 package com.zipwhip.api.signals;
 
-import com.zipwhip.events.Observable;
-import com.zipwhip.events.ObservableHelper;
 import com.zipwhip.executors.SimpleExecutor;
-import com.zipwhip.lifecycle.CascadingDestroyableBase;
 import com.zipwhip.lifecycle.DestroyableBase;
 import com.zipwhip.signals2.timeline.TimelineEvent;
 import com.zipwhip.timers.HashedWheelTimer;
+import com.zipwhip.timers.Timeout;
 import com.zipwhip.timers.Timer;
+import com.zipwhip.timers.TimerTask;
 import com.zipwhip.util.BufferedRunnable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,22 +21,30 @@ import java.util.concurrent.TimeUnit;
  *
  * This implementation requires "complete silence on the line"
  *
- * If you have a steady stream of signals that occur faster than your timeout, then no signals will ever be released.
+ * If you have a steady stream of signals that occur faster than your timeout, then no signals will ever be released,
+ * unless a max latency is set (see {@link #setMaxLatency(long, TimeUnit)}).
  *
  * @author Michael
  * @version 1
  */
-public class SilenceOnTheLineBufferedOrderedQueue<T extends TimelineEvent> extends CascadingDestroyableBase implements BufferedOrderedQueue<T>, Runnable{
+public class SilenceOnTheLineBufferedOrderedQueue<T extends TimelineEvent> extends BufferedOrderedQueueBase<T> implements Runnable{
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BufferedOrderedQueue.class);
 
     private final BufferedRunnable runnable;
+    private final Timer timer;
     private final PriorityQueue<T> queue = new PriorityQueue<T>();
-    private final ObservableHelper<T> itemEvent;
+
+    private volatile long maxLatencyNanos = 0;
+
+    // Releases the queue when the oldest item in it has waited maxLatency. Guarded by this.
+    private Timeout maxLatencyTimeout;
 
     public SilenceOnTheLineBufferedOrderedQueue(Executor eventExecutor, Timer timer, long delay, TimeUnit timeUnit) {
+        super(eventExecutor);
+
         this.runnable = new BufferedRunnable(timer, this, delay, timeUnit);
-        this.itemEvent = new ObservableHelper<T>("BufferedOrderedQueue/itemEvent", eventExecutor);
+        this.timer = timer;
     }
 
     public SilenceOnTheLineBufferedOrderedQueue(Timer timer, long delay, TimeUnit timeUnit) {
@@ -63,12 +70,34 @@ public class SilenceOnTheLineBufferedOrderedQueue<T extends TimelineEvent> exten
     @Override
     public synchronized void append(T event) {
         queue.add(event);
+
+        long maxLatencyNanos = this.maxLatencyNanos;
+        if (maxLatencyNanos > 0 && maxLatencyTimeout == null) {
+            maxLatencyTimeout = timer.newTimeout(new TimerTask() {
+                @Override
+                public void run(Timeout timeout) throws Exception {
+                    SilenceOnTheLineBufferedOrderedQueue.this.run();
+                }
+            }, maxLatencyNanos, TimeUnit.NANOSECONDS);
+        }
+
         runnable.run();
     }
 
-    @Override
-    public Observable<T> getItemEvent() {
-        return itemEvent;
+    /**
+     * The longest an item may wait for "silence on the line" before it is released anyway. Zero (the default)
+     * means wait for silence forever.
+     */
+    public void setMaxLatency(long maxLatency, TimeUnit timeUnit) {
+        if (maxLatency < 0) {
+            throw new IllegalArgumentException("maxLatency cannot be negative");
+        }
+
+        this.maxLatencyNanos = timeUnit.toNanos(maxLatency);
+    }
+
+    public long getMaxLatency(TimeUnit timeUnit) {
+        return timeUnit.convert(maxLatencyNanos, TimeUnit.NANOSECONDS);
     }
 
     /**
@@ -78,17 +107,19 @@ public class SilenceOnTheLineBufferedOrderedQueue<T extends TimelineEvent> exten
      */
     @Override
     public synchronized void run() {
-        T item = queue.poll();
-
-        while (item != null) {
-            itemEvent.notifyObservers(this, item);
-
-            item = queue.poll();
+        if (maxLatencyTimeout != null) {
+            maxLatencyTimeout.cancel();
+            maxLatencyTimeout = null;
         }
+
+        release(queue);
     }
 
     @Override
-    protected void onDestroy() {
-
+    protected synchronized void onDestroy() {
+        if (maxLatencyTimeout != null) {
+            maxLatencyTimeout.cancel();
+            maxLatencyTimeout = null;
+        }
     }
 }
@@ -4,6 +4,8 @@ import com.zipwhip.api.signals.dto.DeliveredMessage;
 import com.zipwhip.timers.Timer;
 import com.zipwhip.util.Factory;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Created by IntelliJ IDEA.
  * User: Russ
@@ -13,6 +15,7 @@ import com.zipwhip.util.Factory;
 public class SilenceOnTheLineBufferedOrderedQueueFactory implements Factory<BufferedOrderedQueue<DeliveredMessage>> {
 
     private Timer timer;
+    private long maxLatencyMillis = 0;
 
     public SilenceOnTheLineBufferedOrderedQueueFactory(Timer timer) {
         this.timer = timer;
@@ -20,7 +23,11 @@ public class SilenceOnTheLineBufferedOrderedQueueFactory implements Factory<Buff
 
     @Override
     public BufferedOrderedQueue<DeliveredMessage> create() {
-        return new SilenceOnTheLineBufferedOrderedQueue<DeliveredMessage>(timer);
+        SilenceOnTheLineBufferedOrderedQueue<DeliveredMessage> queue = new SilenceOnTheLineBufferedOrderedQueue<DeliveredMessage>(timer);
+
+        queue.setMaxLatency(maxLatencyMillis, TimeUnit.MILLISECONDS);
+
+        return queue;
     }
 
     public Timer getTimer() {
@@ -30,4 +37,12 @@ public class SilenceOnTheLineBufferedOrderedQueueFactory implements Factory<Buff
     public void setTimer(Timer timer) {
         this.timer = timer;
     }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis;
+    }
+
+    public void setMaxLatencyMillis(long maxLatencyMillis) {
+        this.maxLatencyMillis = maxLatencyMillis;
+    }
 }
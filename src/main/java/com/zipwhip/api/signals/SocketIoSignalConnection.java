@@ -27,9 +27,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Date: 9/5/13
@@ -42,6 +46,11 @@ public class SocketIoSignalConnection implements SignalConnection {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SocketIoSignalConnection.class);
 
+    public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+    public static final long DEFAULT_ACK_TIMEOUT_SECONDS = 30;
+
+    private static final long ACK_SWEEP_INTERVAL_MILLIS = 1000;
+
     private volatile SocketIO socketIO;
     private volatile ObservableFuture<Void> externalConnectFuture;
     private volatile MutableObservableFuture<Void> connectFuture;
@@ -60,7 +69,18 @@ public class SocketIoSignalConnection implements SignalConnection {
     private RetryStrategy retryStrategy;
     private Timer timer;
 
+    // If set, frames wait here for the consumer and are acked once released, instead of as soon as they are read.
+    private InboundSignalBuffer inboundSignalBuffer;
+
     private String url;
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private long ackTimeoutSeconds = DEFAULT_ACK_TIMEOUT_SECONDS;
+
+    // Emits not yet handed to the socket, and the ones waiting on an ack. Both guarded by the outbox.
+    private final LinkedList<PendingEmit> outbox = new LinkedList<PendingEmit>();
+    private final AckCorrelationTable<PendingEmit> acks = new AckCorrelationTable<PendingEmit>(DEFAULT_MAX_IN_FLIGHT);
+    private boolean flushing;
+    private boolean sweeping;
 
     public SocketIoSignalConnection() {
         exceptionEvent = new ObservableHelper<Throwable>("ExceptionEvent", eventExecutor);
@@ -166,6 +186,7 @@ public class SocketIoSignalConnection implements SignalConnection {
                 }
             }
 
+            failPendingEmits(new IllegalStateException("Disconnected"));
             disconnectEvent.notifyObservers(SocketIoSignalConnection.this, null);
         }
 
@@ -191,12 +212,31 @@ public class SocketIoSignalConnection implements SignalConnection {
         }
 
         @Override
-        public void onMessage(JsonElement json, IOAcknowledge ack) {
+        public void onMessage(JsonElement json, final IOAcknowledge ack) {
+            InboundSignalBuffer buffer = inboundSignalBuffer;
+            Runnable acknowledgement = ack == null ? null : new Runnable() {
+                @Override
+                public void run() {
+                    ack.ack();
+                }
+            };
+
+            if (buffer != null) {
+                buffer.offer(json, acknowledgement);
+
+                return;
+            }
+
+            // Sent once the observers return, unless one takes it along to send later.
+            DeferredAck.offer(acknowledgement);
+
             try {
                 messageEvent.notifyObservers(SocketIoSignalConnection.this, json);
             } finally {
-                if (ack != null) {
-                    ack.ack();
+                Runnable deferred = DeferredAck.take();
+
+                if (deferred != null) {
+                    deferred.run();
                 }
             }
         }
@@ -264,17 +304,181 @@ public class SocketIoSignalConnection implements SignalConnection {
         return socketIO.isConnected();
     }
 
+    /**
+     * Emits go into an outbox and are sent in order by whichever thread finds the outbox idle, so a burst of emits
+     * from several threads goes out in one pass instead of one task each. At most maxInFlight emits wait on an ack
+     * at a time, the rest stay in the outbox until acks come back.
+     *
+     * The outer future completes when the emit is handed to the socket, the inner one when the server acks it (or
+     * fails after ackTimeoutSeconds).
+     */
     @Override
     public ObservableFuture<ObservableFuture<Object[]>> emit(final String event, final Object... objects) {
-        ObservableFuture<Object[]> ackFuture = importantTaskExecutor.enqueue(
-                executor,
-                new SendWithAckTask(socketIO, event, objects, eventExecutor),
-                FutureDateUtil.in30Seconds());
+        MutableObservableFuture<ObservableFuture<Object[]>> sent = new DefaultObservableFuture<ObservableFuture<Object[]>>(this, eventExecutor);
+
+        synchronized (outbox) {
+            outbox.add(new PendingEmit(event, objects, sent));
+        }
+
+        scheduleFlush();
+
+        return sent;
+    }
+
+    private void scheduleFlush() {
+        synchronized (outbox) {
+            if (flushing || outbox.isEmpty() || acks.size() >= maxInFlight) {
+                return;
+            }
+
+            flushing = true;
+        }
+
+        executor.execute(flushTask);
+    }
 
-        // the underlying library doesn't tell us when transmission is successful.
-        // We have to just fake the "transmit" part of the future.
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            List<PendingEmit> batch = new ArrayList<PendingEmit>();
+
+            while (true) {
+                long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ackTimeoutSeconds);
+                boolean sweep;
+
+                synchronized (outbox) {
+                    while (!outbox.isEmpty() && acks.size() < maxInFlight) {
+                        PendingEmit emit = outbox.poll();
+                        emit.id = acks.add(emit, deadline);
+                        batch.add(emit);
+                    }
+
+                    if (batch.isEmpty()) {
+                        flushing = false;
+                        return;
+                    }
+
+                    sweep = !sweeping;
+                    sweeping = true;
+                }
+
+                if (sweep) {
+                    scheduleSweep();
+                }
+
+                SocketIO socketIO = SocketIoSignalConnection.this.socketIO;
+
+                for (PendingEmit emit : batch) {
+                    send(socketIO, emit);
+                }
+
+                batch.clear();
+            }
+        }
+    };
+
+    private void send(SocketIO socketIO, final PendingEmit emit) {
+        if (socketIO == null) {
+            synchronized (outbox) {
+                acks.remove(emit.id);
+            }
+
+            emit.sent.setFailure(new IllegalStateException("Not connected"));
+            return;
+        }
+
+        try {
+            socketIO.emit(emit.event, new IOAcknowledge() {
+                @Override
+                public void ack(Object... args) {
+                    onAck(emit.id, args);
+                }
+            }, emit.args);
+        } catch (Exception e) {
+            synchronized (outbox) {
+                acks.remove(emit.id);
+            }
+
+            emit.sent.setFailure(e);
+            return;
+        }
 
-        return new FakeObservableFuture<ObservableFuture<Object[]>>(this, ackFuture);
+        // the underlying library doesn't tell us when transmission is successful, only when it is queued.
+        emit.sent.setSuccess(emit.acked);
+    }
+
+    private void onAck(long id, Object[] args) {
+        PendingEmit emit;
+
+        synchronized (outbox) {
+            emit = acks.remove(id);
+        }
+
+        if (emit == null) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(String.format("Ack %s came back after it timed out", id));
+            }
+            return;
+        }
+
+        emit.acked.setSuccess(args);
+        scheduleFlush();
+    }
+
+    private void scheduleSweep() {
+        Timer timer = this.timer == null ? importantTaskExecutor.getTimer() : this.timer;
+
+        timer.newTimeout(sweepTimerTask, ACK_SWEEP_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * One sweep for every emit waiting on an ack, instead of a timeout each. It runs while anything is waiting.
+     */
+    private final TimerTask sweepTimerTask = new TimerTask() {
+        @Override
+        public void run(Timeout timeout) throws Exception {
+            List<PendingEmit> expired;
+            boolean sweep;
+
+            synchronized (outbox) {
+                expired = acks.expire(System.currentTimeMillis());
+                sweep = sweeping = !acks.isEmpty();
+            }
+
+            for (PendingEmit emit : expired) {
+                emit.acked.setFailure(new TimeoutException("No ack from the server in " + ackTimeoutSeconds + " seconds"));
+            }
+
+            if (sweep) {
+                scheduleSweep();
+            }
+
+            if (!expired.isEmpty()) {
+                scheduleFlush();
+            }
+        }
+    };
+
+    /**
+     * Fail whatever is waiting to be sent or acked. The acks will not come back on a new socket.
+     */
+    private void failPendingEmits(Throwable cause) {
+        List<PendingEmit> unacked;
+        List<PendingEmit> unsent;
+
+        synchronized (outbox) {
+            unacked = acks.clear();
+            unsent = new ArrayList<PendingEmit>(outbox);
+            outbox.clear();
+        }
+
+        for (PendingEmit emit : unacked) {
+            emit.acked.setFailure(cause);
+        }
+
+        for (PendingEmit emit : unsent) {
+            emit.sent.setFailure(cause);
+        }
     }
 
     @Override
@@ -291,30 +495,19 @@ public class SocketIoSignalConnection implements SignalConnection {
         });
     }
 
-    private static class SendWithAckTask implements Callable<ObservableFuture<Object[]>> {
+    private class PendingEmit {
 
-        private final SocketIO socketIO;
         private final String event;
         private final Object[] args;
-        private final Executor eventExecutor;
+        private final MutableObservableFuture<ObservableFuture<Object[]>> sent;
+        private final MutableObservableFuture<Object[]> acked;
+        private long id;
 
-        private SendWithAckTask(SocketIO socketIO, String event, Object[] args, Executor eventExecutor) {
-            this.socketIO = socketIO;
+        private PendingEmit(String event, Object[] args, MutableObservableFuture<ObservableFuture<Object[]>> sent) {
             this.event = event;
             this.args = args;
-            this.eventExecutor = eventExecutor;
-        }
-
-        @Override
-        public ObservableFuture<Object[]> call() throws Exception {
-            final MutableObservableFuture<Object[]> result = new DefaultObservableFuture<Object[]>(this, eventExecutor);
-            socketIO.emit(event, new IOAcknowledge() {
-                @Override
-                public void ack(Object... args) {
-                    result.setSuccess(args);
-                }
-            }, args);
-            return result;
+            this.sent = sent;
+            this.acked = new DefaultObservableFuture<Object[]>(SocketIoSignalConnection.this, eventExecutor);
         }
     }
 
@@ -323,6 +516,25 @@ public class SocketIoSignalConnection implements SignalConnection {
         return exceptionEvent;
     }
 
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * @param maxInFlight how many emits can wait on an ack at once. The rest wait in order to be sent.
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public long getAckTimeoutSeconds() {
+        return ackTimeoutSeconds;
+    }
+
+    public void setAckTimeoutSeconds(long ackTimeoutSeconds) {
+        this.ackTimeoutSeconds = ackTimeoutSeconds;
+    }
+
     public String getUrl() {
         return url;
     }
@@ -363,6 +575,28 @@ public class SocketIoSignalConnection implements SignalConnection {
         this.eventExecutor = eventExecutor;
     }
 
+    public InboundSignalBuffer getInboundSignalBuffer() {
+        return inboundSignalBuffer;
+    }
+
+    /**
+     * @param inboundSignalBuffer where incoming frames wait for the messageEvent observers, with a bound and an
+     *                            overflow policy. If null, the observers run on the socket thread and every frame
+     *                            is acked right after, unless one takes the ack along (see {@link DeferredAck}).
+     */
+    public void setInboundSignalBuffer(InboundSignalBuffer inboundSignalBuffer) {
+        if (this.inboundSignalBuffer != null) {
+            this.inboundSignalBuffer.getReleaseEvent().removeObserver(messageEvent);
+        }
+
+        this.inboundSignalBuffer = inboundSignalBuffer;
+
+        if (this.inboundSignalBuffer != null) {
+            this.inboundSignalBuffer.getReleaseEvent().addObserver(messageEvent);
+            this.inboundSignalBuffer.start();
+        }
+    }
+
     @Override
     public Observable<Void> getConnectEvent() {
         return connectEvent;
@@ -0,0 +1,128 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.events.Observable;
+import com.zipwhip.events.ObservableHelper;
+import com.zipwhip.executors.SimpleExecutor;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Routes signals to the sessions they are addressed to, by subscriptionId.
+ *
+ * This is what lets one SignalProvider (one socket, one set of threads) carry thousands of sessions. Each session
+ * observes its own event here, and every incoming signal is handed to the events of the subscriptionIds it names.
+ * Routing is a hash lookup per subscriptionId on the message, so it costs the same with 5 sessions or 5,000.
+ *
+ * A signal whose subscriptionIds are not in the index is not routed anywhere (it still reaches the provider-wide
+ * events).
+ */
+public class SubscriptionIndex {
+
+    private final ConcurrentMap<String, ObservableHelper<DeliveredMessage>> events = new ConcurrentHashMap<String, ObservableHelper<DeliveredMessage>>();
+
+    private final Executor executor;
+
+    public SubscriptionIndex() {
+        this(SimpleExecutor.getInstance());
+    }
+
+    /**
+     * @param executor The executor the per-session observers are notified on.
+     */
+    public SubscriptionIndex(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("The executor cannot be null");
+        }
+
+        this.executor = executor;
+    }
+
+    /**
+     * Get (or create) the event for one subscriptionId.
+     *
+     * @param subscriptionId The subscriptionId that was passed to subscribe().
+     * @return The event that fires for every signal addressed to this subscriptionId.
+     */
+    public Observable<DeliveredMessage> getSignalReceivedEvent(String subscriptionId) {
+        if (subscriptionId == null) {
+            throw new IllegalArgumentException("The subscriptionId cannot be null");
+        }
+
+        ObservableHelper<DeliveredMessage> event = events.get(subscriptionId);
+        if (event != null) {
+            return event;
+        }
+
+        event = new ObservableHelper<DeliveredMessage>("MessageReceivedEvent/" + subscriptionId, executor);
+
+        ObservableHelper<DeliveredMessage> existing = events.putIfAbsent(subscriptionId, event);
+        if (existing != null) {
+            // Somebody else got there first.
+            return existing;
+        }
+
+        return event;
+    }
+
+    /**
+     * Hand the message to every session it is addressed to.
+     *
+     * @param sender  The sender the observers will see.
+     * @param message The signal to route.
+     * @return How many sessions it was handed to.
+     */
+    public int route(Object sender, DeliveredMessage message) {
+        Set<String> subscriptionIds = message.getSubscriptionIds();
+        if (subscriptionIds == null || subscriptionIds.isEmpty()) {
+            return 0;
+        }
+
+        int routed = 0;
+        for (String subscriptionId : subscriptionIds) {
+            ObservableHelper<DeliveredMessage> event = events.get(subscriptionId);
+            if (event == null) {
+                continue;
+            }
+
+            event.notifyObservers(sender, message);
+            routed++;
+        }
+
+        return routed;
+    }
+
+    /**
+     * Stop routing to this subscriptionId. Its observers are dropped.
+     *
+     * @param subscriptionId The subscriptionId to drop.
+     * @return true if it was in the index.
+     */
+    public boolean remove(String subscriptionId) {
+        if (subscriptionId == null) {
+            return false;
+        }
+
+        return events.remove(subscriptionId) != null;
+    }
+
+    public boolean contains(String subscriptionId) {
+        return subscriptionId != null && events.containsKey(subscriptionId);
+    }
+
+    public Collection<String> getSubscriptionIds() {
+        return events.keySet();
+    }
+
+    public int size() {
+        return events.size();
+    }
+
+    public void clear() {
+        events.clear();
+    }
+}
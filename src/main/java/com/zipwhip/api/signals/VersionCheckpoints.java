@@ -0,0 +1,203 @@
+package com.zipwhip.api.signals;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.zipwhip.api.settings.MemorySettingStore;
+import com.zipwhip.api.settings.SettingsStore;
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.concurrent.HoleRange;
+import com.zipwhip.events.Observable;
+import com.zipwhip.events.ObservableHelper;
+import com.zipwhip.events.Observer;
+import com.zipwhip.executors.SimpleExecutor;
+import com.zipwhip.signals.IntervalVersionRange;
+import com.zipwhip.signals.VersionRange;
+import com.zipwhip.timers.Timer;
+import com.zipwhip.util.CollectionUtil;
+import com.zipwhip.util.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Remembers the highest contiguous signal version on each subscription, so that a reconnect can ask the server to
+ * replay only what it missed (see {@link com.zipwhip.api.signals.dto.BindRequest#getVersions()}) instead of
+ * resyncing everything.
+ *
+ * Each subscription gets its own {@link VersionRange}. The checkpoints are saved to the {@link SettingsStore} under
+ * {@link SettingsStore.Keys#VERSIONS} as a json object of subscriptionId to version, and loaded back when created.
+ *
+ * The holes that the ranges detect are all passed on through one event, keyed by subscriptionId.
+ */
+public class VersionCheckpoints {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VersionCheckpoints.class);
+
+    private static final JsonParser PARSER = new JsonParser();
+
+    private final Map<String, VersionRange> ranges = new HashMap<String, VersionRange>();
+    private final ObservableHelper<HoleRange> holeDetectedEvent =
+            new ObservableHelper<HoleRange>("VersionCheckpoints/HoleEvent", SimpleExecutor.getInstance());
+    private final Timer timer;
+    private final SettingsStore settingsStore;
+
+    private boolean dirty;
+
+    public VersionCheckpoints(Timer timer) {
+        this(timer, new MemorySettingStore());
+    }
+
+    public VersionCheckpoints(Timer timer, SettingsStore settingsStore) {
+        this.timer = timer;
+        this.settingsStore = settingsStore;
+
+        load();
+    }
+
+    /**
+     * Record the version of this signal on every subscription it was delivered to.
+     *
+     * @return true if the signal had a version to record.
+     */
+    public synchronized boolean add(DeliveredMessage<?> message) {
+        Long version = message.getVersion();
+
+        if (version == null || CollectionUtil.isNullOrEmpty(message.getSubscriptionIds())) {
+            return false;
+        }
+
+        for (String subscriptionId : message.getSubscriptionIds()) {
+            getRange(subscriptionId).add(version);
+        }
+
+        dirty = true;
+
+        return true;
+    }
+
+    /**
+     * @return the highest contiguous version of this subscription, or null if it has not seen one.
+     */
+    public synchronized Long getVersion(String subscriptionId) {
+        VersionRange range = ranges.get(subscriptionId);
+
+        if (range == null) {
+            return null;
+        }
+
+        return range.getHighestContiguousVersion();
+    }
+
+    /**
+     * @return subscriptionId to highest contiguous version, for every subscription that has seen a version.
+     */
+    public synchronized Map<String, Long> getVersions() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+
+        for (Map.Entry<String, VersionRange> entry : ranges.entrySet()) {
+            Long version = entry.getValue().getHighestContiguousVersion();
+
+            if (version != null) {
+                result.put(entry.getKey(), version);
+            }
+        }
+
+        return result;
+    }
+
+    public synchronized void remove(String subscriptionId) {
+        VersionRange range = ranges.remove(subscriptionId);
+
+        if (range != null) {
+            range.getHoleDetectedEvent().removeObserver(forwardHoles);
+            dirty = true;
+        }
+    }
+
+    /**
+     * Forget every subscription. Used when the server hands out a new clientId, since the old subscriptions (and
+     * their versions) are gone with the old one.
+     */
+    public synchronized void clear() {
+        for (VersionRange range : ranges.values()) {
+            range.getHoleDetectedEvent().removeObserver(forwardHoles);
+        }
+
+        ranges.clear();
+        settingsStore.remove(SettingsStore.Keys.VERSIONS);
+        dirty = false;
+    }
+
+    /**
+     * Write the checkpoints to the SettingsStore, if anything changed since the last save.
+     */
+    public synchronized void save() {
+        if (!dirty) {
+            return;
+        }
+
+        JsonObject object = new JsonObject();
+        for (Map.Entry<String, Long> entry : getVersions().entrySet()) {
+            object.addProperty(entry.getKey(), entry.getValue());
+        }
+
+        settingsStore.put(SettingsStore.Keys.VERSIONS, object.toString());
+        dirty = false;
+    }
+
+    /**
+     * @return the holes found on every subscription. The HoleRange key is the subscriptionId.
+     */
+    public Observable<HoleRange> getHoleDetectedEvent() {
+        return holeDetectedEvent;
+    }
+
+    protected VersionRange createRange(String subscriptionId) {
+        return new IntervalVersionRange(timer, subscriptionId);
+    }
+
+    private VersionRange getRange(String subscriptionId) {
+        VersionRange range = ranges.get(subscriptionId);
+
+        if (range == null) {
+            range = createRange(subscriptionId);
+            range.getHoleDetectedEvent().addObserver(forwardHoles);
+            ranges.put(subscriptionId, range);
+        }
+
+        return range;
+    }
+
+    private final Observer<HoleRange> forwardHoles = new Observer<HoleRange>() {
+        @Override
+        public void notify(Object sender, HoleRange hole) {
+            holeDetectedEvent.notifyObservers(VersionCheckpoints.this, hole);
+        }
+    };
+
+    private synchronized void load() {
+        String value = settingsStore.get(SettingsStore.Keys.VERSIONS);
+
+        if (StringUtil.isNullOrEmpty(value)) {
+            return;
+        }
+
+        try {
+            JsonObject object = PARSER.parse(value).getAsJsonObject();
+
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                // The saved version becomes the start of the range, so the replayed signals continue it.
+                getRange(entry.getKey()).add(entry.getValue().getAsLong());
+            }
+        } catch (RuntimeException e) {
+            // A JsonParseException, or a value that is not an object of numbers.
+            LOGGER.warn("Could not read the saved versions, starting over: " + value, e);
+            ranges.clear();
+            settingsStore.remove(SettingsStore.Keys.VERSIONS);
+        }
+    }
+}
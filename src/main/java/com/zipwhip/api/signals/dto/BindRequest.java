@@ -3,6 +3,7 @@ package com.zipwhip.api.signals.dto;
 import com.zipwhip.signals2.presence.UserAgent;
 
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  * Date: 8/27/13
@@ -22,10 +23,19 @@ public class BindRequest implements Serializable {
     private final UserAgent userAgent;
     private final double version = 1;
 
-    public BindRequest(UserAgent userAgent, String clientId, String token) {
+    // The highest contiguous signal version per subscriptionId. The server replays anything newer, so a reconnect
+    // does not have to resync.
+    private final Map<String, Long> versions;
+
+    public BindRequest(UserAgent userAgent, String clientId, String token, Map<String, Long> versions) {
         this.clientId = clientId;
         this.token = token;
         this.userAgent = userAgent;
+        this.versions = versions;
+    }
+
+    public BindRequest(UserAgent userAgent, String clientId, String token) {
+        this(userAgent, clientId, token, null);
     }
 
     public BindRequest(UserAgent userAgent) {
@@ -47,4 +57,8 @@ public class BindRequest implements Serializable {
     public double getVersion() {
         return version;
     }
+
+    public Map<String, Long> getVersions() {
+        return versions;
+    }
 }
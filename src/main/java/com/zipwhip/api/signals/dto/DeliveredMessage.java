@@ -21,10 +21,18 @@ public class DeliveredMessage<T extends Serializable> implements TimelineEvent,
     private Set<String> subscriptionIds;
     private String id;
     private long timestamp;
+    // The position of this signal in its subscription's stream. Null if the server did not send one.
+    private Long version;
     private String event;
     private String type;
     private T content;
 
+    // When this client got it and when it was queued, by System.nanoTime(), for the latency metrics. Not sent.
+    private transient long receivedNanos;
+    private transient long queuedNanos;
+    // Tells the server this client is done with it. Null once sent, or if it needs none. Not sent.
+    private transient Runnable ack;
+
     public DeliveredMessage() {
     }
 
@@ -52,6 +60,14 @@ public class DeliveredMessage<T extends Serializable> implements TimelineEvent,
         this.timestamp = timestamp;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getEvent() {
         return event;
     }
@@ -76,6 +92,42 @@ public class DeliveredMessage<T extends Serializable> implements TimelineEvent,
         this.content = content;
     }
 
+    public long getReceivedNanos() {
+        return receivedNanos;
+    }
+
+    public void setReceivedNanos(long receivedNanos) {
+        this.receivedNanos = receivedNanos;
+    }
+
+    public long getQueuedNanos() {
+        return queuedNanos;
+    }
+
+    public void setQueuedNanos(long queuedNanos) {
+        this.queuedNanos = queuedNanos;
+    }
+
+    public Runnable getAck() {
+        return ack;
+    }
+
+    public void setAck(Runnable ack) {
+        this.ack = ack;
+    }
+
+    /**
+     * Send the ack, if it has one that was not sent yet. Call it once the signal is consumed, or safe on disk.
+     */
+    public void ack() {
+        Runnable ack = this.ack;
+        this.ack = null;
+
+        if (ack != null) {
+            ack.run();
+        }
+    }
+
     @Override
     public int compareTo(DeliveredMessage o) {
         long timestamp1 = o == null ? 0 : o.getTimestamp();
@@ -96,6 +148,7 @@ public class DeliveredMessage<T extends Serializable> implements TimelineEvent,
                 .append("subscriptionIds", subscriptionIds)
                 .append("id", id)
                 .append("timestamp", timestamp)
+                .append("version", version)
                 .append("event", event)
                 .append("type", type)
                 .append("content", content)
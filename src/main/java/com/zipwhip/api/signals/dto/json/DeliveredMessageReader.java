@@ -0,0 +1,234 @@
+package com.zipwhip.api.signals.dto.json;
+
+import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.zipwhip.api.signals.SignalTable;
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.api.signals.dto.SubscribeCompleteContent;
+import com.zipwhip.gson.GsonUtil;
+import com.zipwhip.signals2.SignalContact;
+import com.zipwhip.signals2.SignalConversation;
+import com.zipwhip.signals2.SignalMessage;
+import com.zipwhip.signals2.presence.Presence;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Decodes a DeliveredMessage in a single pass, without going through Gson's type adapter lookup for the envelope.
+ *
+ * Raw frames are streamed through a {@link JsonReader}: the envelope fields are read as they arrive and, once the
+ * type/event is known, the content is decoded straight off the reader into its final type. If the content comes
+ * before the type (JSON does not promise field ordering), only the content subtree is buffered.
+ *
+ * Frames that the socket library already parsed into a tree are read with one walk of that tree.
+ *
+ * Content types that are not well known fall back to the {@link DeliveredMessageTypeAdapter} rules, so the
+ * result is always the same as gson.fromJson(json, DeliveredMessage.class).
+ */
+public class DeliveredMessageReader {
+
+    private static final JsonParser PARSER = new JsonParser();
+
+    private static final SignalTable<Class<?>> CONTENT_CLASSES = new SignalTable<Class<?>>();
+
+    static {
+        CONTENT_CLASSES.put("subscribe", "complete", SubscribeCompleteContent.class);
+        CONTENT_CLASSES.put("presence", null, Presence.class);
+        CONTENT_CLASSES.put("message", "progress", String.class);
+        CONTENT_CLASSES.put("message", null, SignalMessage.class);
+        CONTENT_CLASSES.put("contact", null, SignalContact.class);
+        CONTENT_CLASSES.put("conversation", null, SignalConversation.class);
+    }
+
+    private final Gson gson;
+
+    public DeliveredMessageReader() {
+        this(SignalProviderGsonBuilder.getInstance());
+    }
+
+    public DeliveredMessageReader(Gson gson) {
+        this.gson = gson;
+    }
+
+    public DeliveredMessage read(String frame) throws JsonParseException {
+        JsonReader reader = new JsonReader(new StringReader(frame));
+
+        try {
+            return read(reader);
+        } catch (IOException e) {
+            throw new JsonParseException(e);
+        } catch (IllegalStateException e) {
+            throw new JsonParseException(e);
+        }
+    }
+
+    public DeliveredMessage read(JsonReader reader) throws IOException {
+        DeliveredMessage message = new DeliveredMessage();
+        JsonElement bufferedContent = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+            } else if ("subscriptionIds".equals(name)) {
+                message.setSubscriptionIds(readSubscriptionIds(reader));
+            } else if ("timestamp".equals(name)) {
+                message.setTimestamp(reader.nextLong());
+            } else if ("version".equals(name)) {
+                message.setVersion(reader.nextLong());
+            } else if ("id".equals(name)) {
+                message.setId(readString(reader));
+            } else if ("event".equals(name)) {
+                message.setEvent(readString(reader));
+            } else if ("type".equals(name)) {
+                message.setType(readString(reader));
+            } else if ("content".equals(name)) {
+                Class<?> contentClass = getContentClass(message.getType(), message.getEvent());
+
+                if (message.getType() == null || message.getEvent() == null || contentClass == null) {
+                    // We can't dispatch yet (or it's not a well known type). Keep just this subtree.
+                    bufferedContent = PARSER.parse(reader);
+                } else if (contentClass == String.class) {
+                    message.setContent(readString(reader));
+                } else {
+                    message.setContent((Serializable) gson.fromJson(reader, contentClass));
+                }
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (bufferedContent != null) {
+            setContent(message, bufferedContent);
+        }
+
+        return message;
+    }
+
+    public DeliveredMessage read(JsonElement element) throws JsonParseException {
+        if (!(element instanceof JsonObject)) {
+            throw new JsonParseException("Not a DeliveredMessage: " + element);
+        }
+
+        DeliveredMessage message = new DeliveredMessage();
+
+        for (Map.Entry<String, JsonElement> entry : ((JsonObject) element).entrySet()) {
+            String name = entry.getKey();
+            JsonElement value = entry.getValue();
+
+            if (GsonUtil.isNull(value)) {
+                continue;
+            }
+
+            if ("subscriptionIds".equals(name)) {
+                message.setSubscriptionIds(readSubscriptionIds(value.getAsJsonArray()));
+            } else if ("timestamp".equals(name)) {
+                message.setTimestamp(value.getAsLong());
+            } else if ("version".equals(name)) {
+                message.setVersion(value.getAsLong());
+            } else if ("id".equals(name)) {
+                message.setId(GsonUtil.getString(value));
+            } else if ("event".equals(name)) {
+                message.setEvent(GsonUtil.getString(value));
+            } else if ("type".equals(name)) {
+                message.setType(GsonUtil.getString(value));
+            }
+        }
+
+        JsonElement content = ((JsonObject) element).get("content");
+        if (!GsonUtil.isNull(content)) {
+            setContent(message, content);
+        }
+
+        return message;
+    }
+
+    /**
+     * The same well known commands that {@link DeliveredMessageTypeAdapter} understands.
+     *
+     * @return the class to decode the content into, or null if it is not well known.
+     */
+    static Class<?> getContentClass(String type, String event) {
+        return CONTENT_CLASSES.get(type, event);
+    }
+
+    private void setContent(DeliveredMessage message, JsonElement content) {
+        Class<?> contentClass = getContentClass(message.getType(), message.getEvent());
+
+        if (contentClass == String.class) {
+            message.setContent(GsonUtil.getString(content));
+        } else if (contentClass != null) {
+            message.setContent((Serializable) gson.fromJson(content, contentClass));
+        } else {
+            // Not well known. Let the legacy adapter apply its default-value rules.
+            JsonObject envelope = new JsonObject();
+            envelope.addProperty("type", message.getType());
+            envelope.addProperty("event", message.getEvent());
+            envelope.add("content", content);
+
+            DeliveredMessage legacy = gson.fromJson(envelope, DeliveredMessage.class);
+            message.setContent(legacy.getContent());
+        }
+    }
+
+    private static String readString(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+
+        if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+            return PARSER.parse(reader).toString();
+        }
+
+        return reader.nextString();
+    }
+
+    /**
+     * A TreeSet, as the DeliveredMessageTypeAdapter reads them, so the order does not depend on which one did.
+     */
+    private static Set<String> readSubscriptionIds(JsonReader reader) throws IOException {
+        Set<String> result = null;
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+
+            if (result == null) {
+                result = new TreeSet<String>();
+            }
+
+            result.add(reader.nextString());
+        }
+        reader.endArray();
+
+        return result;
+    }
+
+    private static Set<String> readSubscriptionIds(JsonArray array) {
+        Set<String> result = null;
+
+        for (JsonElement element : array) {
+            if (GsonUtil.isNull(element)) {
+                continue;
+            }
+
+            if (result == null) {
+                result = new TreeSet<String>();
+            }
+
+            result.add(element.getAsString());
+        }
+
+        return result;
+    }
+}
@@ -2,13 +2,7 @@ package com.zipwhip.api.signals.dto.json;
 
 import com.google.gson.*;
 import com.zipwhip.api.signals.dto.DeliveredMessage;
-import com.zipwhip.api.signals.dto.SubscribeCompleteContent;
 import com.zipwhip.gson.GsonUtil;
-import com.zipwhip.signals2.SignalContact;
-import com.zipwhip.signals2.SignalConversation;
-import com.zipwhip.signals2.SignalMessage;
-import com.zipwhip.signals2.presence.Presence;
-import com.zipwhip.util.StringUtil;
 
 import java.io.Serializable;
 import java.lang.reflect.Type;
@@ -45,6 +39,7 @@ public class DeliveredMessageTypeAdapter implements JsonSerializer<DeliveredMess
         }
 
         message.setTimestamp(GsonUtil.getLong(object.get("timestamp")));
+        message.setVersion(GsonUtil.getLong(object.get("version")));
         message.setId(GsonUtil.getString(object.get("id")));
         message.setEvent(GsonUtil.getString(object.get("event")));
         message.setType(GsonUtil.getString(object.get("type")));
@@ -54,22 +49,12 @@ public class DeliveredMessageTypeAdapter implements JsonSerializer<DeliveredMess
         //
         // Try to parse some WELL KNOWN commands
         //
-        if (StringUtil.equalsIgnoreCase(message.getType(), "subscribe")) {
-            if (StringUtil.equalsIgnoreCase(message.getEvent(), "complete")) {
-                message.setContent(context.<SubscribeCompleteContent>deserialize(content, SubscribeCompleteContent.class));
-            }
-        } else if (StringUtil.equalsIgnoreCase(message.getType(), "presence")) {
-            message.setContent(context.<Presence>deserialize(content, Presence.class));
-        } else if (StringUtil.equalsIgnoreCase(message.getType(), "message")) {
-            if (StringUtil.equalsIgnoreCase(message.getEvent(), "progress")) {
-                message.setContent(GsonUtil.getString(content));
-            } else {
-                message.setContent(context.<SignalMessage>deserialize(content, SignalMessage.class));
-            }
-        } else if (StringUtil.equalsIgnoreCase(message.getType(), "contact")) {
-            message.setContent(context.<SignalContact>deserialize(content, SignalContact.class));
-        } else if (StringUtil.equalsIgnoreCase(message.getType(), "conversation")) {
-            message.setContent(context.<SignalConversation>deserialize(content, SignalConversation.class));
+        Class<?> contentClass = DeliveredMessageReader.getContentClass(message.getType(), message.getEvent());
+
+        if (contentClass == String.class) {
+            message.setContent(GsonUtil.getString(content));
+        } else if (contentClass != null) {
+            message.setContent(context.<Serializable>deserialize(content, contentClass));
         }
 
         //
@@ -90,6 +75,28 @@ public class DeliveredMessageTypeAdapter implements JsonSerializer<DeliveredMess
 
     @Override
     public JsonElement serialize(DeliveredMessage src, Type typeOfSrc, JsonSerializationContext context) {
-        return null;
+        JsonObject object = new JsonObject();
+
+        if (src.getSubscriptionIds() != null) {
+            JsonArray array = new JsonArray();
+            for (Object subscriptionId : src.getSubscriptionIds()) {
+                array.add(new JsonPrimitive((String) subscriptionId));
+            }
+
+            object.add("subscriptionIds", array);
+        }
+
+        object.addProperty("timestamp", src.getTimestamp());
+        object.addProperty("version", src.getVersion());
+        object.addProperty("id", src.getId());
+        // Ahead of the content, so a streaming reader knows what the content is when it gets there.
+        object.addProperty("type", src.getType());
+        object.addProperty("event", src.getEvent());
+
+        if (src.getContent() != null) {
+            object.add("content", context.serialize(src.getContent()));
+        }
+
+        return object;
     }
 }
@@ -18,12 +18,7 @@ import java.util.Date;
  */
 public class SignalProviderGsonBuilder {
 
-    private static final Gson gson = new GsonBuilder()
-            .registerTypeHierarchyAdapter(DeliveredMessage.class, new DeliveredMessageTypeAdapter())
-            .registerTypeHierarchyAdapter(Address.class, new AddressTypeConverter())
-            .registerTypeHierarchyAdapter(SubscribeCompleteContent.class, new SubscribeCompleteContentTypeAdapter())
-            .registerTypeHierarchyAdapter(BindResult.class, new BindResultTypeAdapter())
-
+    private static final Gson gson = newBuilder()
                     // We support dates in the System.currentTimeMillis() format.
                     // I wonder how to support BOTH the string format AND the millis format.
             .registerTypeHierarchyAdapter(Date.class, new JsonDeserializer<Date>() {
@@ -40,4 +35,15 @@ public class SignalProviderGsonBuilder {
         return gson;
     }
 
+    /**
+     * @return a builder with the adapters of the signal types, but no Date adapter, for a Gson that needs its own.
+     */
+    public static GsonBuilder newBuilder() {
+        return new GsonBuilder()
+                .registerTypeHierarchyAdapter(DeliveredMessage.class, new DeliveredMessageTypeAdapter())
+                .registerTypeHierarchyAdapter(Address.class, new AddressTypeConverter())
+                .registerTypeHierarchyAdapter(SubscribeCompleteContent.class, new SubscribeCompleteContentTypeAdapter())
+                .registerTypeHierarchyAdapter(BindResult.class, new BindResultTypeAdapter());
+    }
+
 }
@@ -0,0 +1,86 @@
+package com.zipwhip.api.signals.nio;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of fixed size direct buffers for socket reads.
+ *
+ * A connection only holds a buffer while it has a partial frame waiting for more bytes. An idle connection holds
+ * nothing, so thousands of mostly quiet connections share a handful of buffers.
+ *
+ * Buffers that were not handed out by this pool (for example the larger one a connection grows into for an
+ * oversized frame) are ignored by release() and left to the garbage collector.
+ */
+public class BufferPool {
+
+    public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    public static final int DEFAULT_MAX_POOLED = 256;
+
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    private final int bufferSize;
+    private final int maxPooled;
+
+    public BufferPool() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED);
+    }
+
+    /**
+     * @param bufferSize The size of every buffer in the pool.
+     * @param maxPooled  How many idle buffers to keep. Anything released past that is dropped.
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("The bufferSize must be positive");
+        } else if (maxPooled < 0) {
+            throw new IllegalArgumentException("The maxPooled cannot be negative");
+        }
+
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * @return A cleared buffer of getBufferSize() bytes.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        pooled.decrementAndGet();
+        buffer.clear();
+
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || buffer.capacity() != bufferSize) {
+            return;
+        }
+
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+
+        buffer.clear();
+        buffers.offer(buffer);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return How many idle buffers are in the pool right now.
+     */
+    public int getPooledCount() {
+        return pooled.get();
+    }
+}
@@ -0,0 +1,205 @@
+package com.zipwhip.api.signals.nio;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The start line and headers of an HTTP request or response, read straight out of a socket buffer. Just enough
+ * HTTP for the socket.io handshake and the WebSocket upgrade.
+ */
+final class HttpHead {
+
+    private static final int MAX_HEAD_SIZE = 8 * 1024;
+    private static final int MAX_CHUNKED_BODY_SIZE = 64 * 1024;
+
+    private final String startLine;
+    private final Map<String, String> headers;
+
+    private HttpHead(String startLine, Map<String, String> headers) {
+        this.startLine = startLine;
+        this.headers = headers;
+    }
+
+    /**
+     * @param buffer A flipped buffer of received bytes.
+     * @return The head, with the buffer positioned just after it, or null (buffer untouched) if it is not all here.
+     * @throws IllegalStateException If the head is too large to be a real one.
+     */
+    static HttpHead read(ByteBuffer buffer) {
+        int start = buffer.position();
+        int limit = buffer.limit();
+
+        for (int i = start; i + 3 < limit; i++) {
+            if (buffer.get(i) == '\r' && buffer.get(i + 1) == '\n' && buffer.get(i + 2) == '\r' && buffer.get(i + 3) == '\n') {
+                byte[] bytes = new byte[i - start];
+                buffer.get(bytes);
+                buffer.position(i + 4);
+
+                return parse(new String(bytes, WebSocketCodec.UTF8));
+            }
+        }
+
+        if (limit - start > MAX_HEAD_SIZE) {
+            throw new IllegalStateException("HTTP head is larger than " + MAX_HEAD_SIZE + " bytes");
+        }
+
+        return null;
+    }
+
+    /**
+     * Decode a body sent with "Transfer-Encoding: chunked", trailers and all.
+     *
+     * @param buffer A flipped buffer, positioned at the start of the body.
+     * @return The body, with the buffer positioned just after it, or null (buffer position undefined) if it is not
+     *         all here.
+     * @throws IOException If a chunk size can't be read.
+     * @throws IllegalStateException If the body is too large to be a real one.
+     */
+    static byte[] readChunked(ByteBuffer buffer) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        while (true) {
+            String line = readLine(buffer);
+            if (line == null) {
+                return null;
+            }
+
+            int semicolon = line.indexOf(';');
+            int size;
+            try {
+                size = Integer.parseInt((semicolon < 0 ? line : line.substring(0, semicolon)).trim(), 16);
+            } catch (NumberFormatException e) {
+                throw new IOException("Bad chunk size: " + line);
+            }
+
+            if (size < 0 || body.size() + size > MAX_CHUNKED_BODY_SIZE) {
+                throw new IllegalStateException("Chunked body is larger than " + MAX_CHUNKED_BODY_SIZE + " bytes");
+            }
+
+            if (size == 0) {
+                // Trailers, up to an empty line.
+                while (true) {
+                    line = readLine(buffer);
+                    if (line == null) {
+                        return null;
+                    } else if (line.length() == 0) {
+                        return body.toByteArray();
+                    }
+                }
+            }
+
+            if (buffer.remaining() < size + 2) {
+                return null;
+            }
+
+            byte[] chunk = new byte[size];
+            buffer.get(chunk);
+            body.write(chunk, 0, size);
+
+            if (buffer.get() != '\r' || buffer.get() != '\n') {
+                throw new IOException("Chunk of " + size + " bytes is not followed by a line break");
+            }
+        }
+    }
+
+    private static String readLine(ByteBuffer buffer) {
+        int start = buffer.position();
+
+        for (int i = start; i + 1 < buffer.limit(); i++) {
+            if (buffer.get(i) == '\r' && buffer.get(i + 1) == '\n') {
+                byte[] bytes = new byte[i - start];
+                buffer.get(bytes);
+                buffer.position(i + 2);
+
+                return new String(bytes, WebSocketCodec.UTF8);
+            }
+        }
+
+        return null;
+    }
+
+    private static HttpHead parse(String text) {
+        String[] lines = text.split("\r\n");
+        Map<String, String> headers = new HashMap<String, String>();
+
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+            if (colon > 0) {
+                headers.put(lines[i].substring(0, colon).trim().toLowerCase(), lines[i].substring(colon + 1).trim());
+            }
+        }
+
+        return new HttpHead(lines[0], headers);
+    }
+
+    String getStartLine() {
+        return startLine;
+    }
+
+    /**
+     * @return The status code of a response, or -1 if this isn't one.
+     */
+    int getStatus() {
+        String[] parts = startLine.split(" ");
+        if (parts.length < 2 || !parts[0].startsWith("HTTP/")) {
+            return -1;
+        }
+
+        try {
+            return Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return The path of a request, or null if this isn't one.
+     */
+    String getPath() {
+        String[] parts = startLine.split(" ");
+        if (parts.length < 3 || !parts[2].startsWith("HTTP/")) {
+            return null;
+        }
+
+        return parts[1];
+    }
+
+    /**
+     * @param name The header name, in lower case.
+     */
+    String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    int getContentLength() {
+        String value = headers.get("content-length");
+        if (value == null) {
+            return -1;
+        }
+
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    boolean isChunked() {
+        String encoding = headers.get("transfer-encoding");
+
+        return encoding != null && encoding.toLowerCase().contains("chunked");
+    }
+
+    boolean isKeepAlive() {
+        String connection = headers.get("connection");
+        if (connection != null) {
+            return !"close".equalsIgnoreCase(connection);
+        }
+
+        // HTTP/1.1 keeps the connection open unless told otherwise, HTTP/1.0 does the opposite.
+        return startLine.startsWith("HTTP/1.1") || startLine.endsWith("HTTP/1.1");
+    }
+}
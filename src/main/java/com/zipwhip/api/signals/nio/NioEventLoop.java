@@ -0,0 +1,224 @@
+package com.zipwhip.api.signals.nio;
+
+import com.zipwhip.executors.NamedThreadFactory;
+import com.zipwhip.lifecycle.CascadingDestroyableBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One selector and one thread that drive any number of non-blocking connections.
+ *
+ * Everything a connection does to its socket happens on this thread: reads, frame decoding, the observers of the
+ * message event (unless a connection is given another eventExecutor), writes, and timeouts. Other threads hand it
+ * work with execute(), which wakes the selector at most once per batch of tasks.
+ *
+ * Share one loop between all the connections to a host. Threads then scale with loops, not with connections.
+ */
+public class NioEventLoop extends CascadingDestroyableBase implements Executor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NioEventLoop.class);
+
+    public static final long DEFAULT_TICK_MILLIS = 100;
+
+    private final Selector selector;
+    private final Thread thread;
+    private final BufferPool bufferPool;
+    private final long tickMillis;
+
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+
+    private volatile boolean running = true;
+
+    public NioEventLoop() {
+        this(new NamedThreadFactory("NioEventLoop-"), new BufferPool(), DEFAULT_TICK_MILLIS);
+    }
+
+    /**
+     * @param threadFactory Makes the selector thread.
+     * @param bufferPool    Where the connections borrow their read buffers from.
+     * @param tickMillis    How often the connections check their timeouts.
+     */
+    public NioEventLoop(ThreadFactory threadFactory, BufferPool bufferPool, long tickMillis) {
+        if (bufferPool == null) {
+            throw new IllegalArgumentException("The bufferPool cannot be null");
+        } else if (tickMillis <= 0) {
+            throw new IllegalArgumentException("The tickMillis must be positive");
+        }
+
+        try {
+            this.selector = Selector.open();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open a selector", e);
+        }
+
+        this.bufferPool = bufferPool;
+        this.tickMillis = tickMillis;
+        this.thread = threadFactory.newThread(new SelectLoop());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Run the task on the loop thread.
+     */
+    @Override
+    public void execute(Runnable task) {
+        tasks.offer(task);
+
+        if (!inEventLoop() && wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    public BufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Must be called on the loop thread.
+     */
+    SelectionKey register(SelectableChannel channel, int ops, Handler handler) throws IOException {
+        if (!inEventLoop()) {
+            throw new IllegalStateException("Channels can only be registered on the loop thread");
+        }
+
+        return channel.register(selector, ops, handler);
+    }
+
+    @Override
+    protected void onDestroy() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * The callbacks a channel gets from the loop. All of them run on the loop thread.
+     */
+    interface Handler {
+
+        /**
+         * The channel is ready for one of the operations it registered for.
+         */
+        void onSelected(SelectionKey key);
+
+        /**
+         * Called every tick, so the handler can time things out.
+         */
+        void onTick(long now);
+
+        /**
+         * The loop is shutting down. Close up.
+         */
+        void onShutdown();
+
+    }
+
+    private class SelectLoop implements Runnable {
+
+        @Override
+        public void run() {
+            long nextTick = System.currentTimeMillis() + tickMillis;
+
+            while (running) {
+                try {
+                    selector.select(Math.max(1, nextTick - System.currentTimeMillis()));
+                } catch (IOException e) {
+                    LOGGER.error("Select failed", e);
+                }
+
+                wakeupPending.set(false);
+
+                runTasks();
+
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    try {
+                        ((Handler) key.attachment()).onSelected(key);
+                    } catch (Exception e) {
+                        LOGGER.error("Handler failed on " + key.attachment(), e);
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                if (now >= nextTick) {
+                    for (Handler handler : handlers()) {
+                        try {
+                            handler.onTick(now);
+                        } catch (Exception e) {
+                            LOGGER.error("Handler failed to tick " + handler, e);
+                        }
+                    }
+
+                    nextTick = now + tickMillis;
+                }
+            }
+
+            for (Handler handler : handlers()) {
+                try {
+                    handler.onShutdown();
+                } catch (Exception e) {
+                    LOGGER.error("Handler failed to shut down " + handler, e);
+                }
+            }
+
+            // Anything queued after the handlers closed just finds them closed.
+            runTasks();
+
+            try {
+                selector.close();
+            } catch (IOException e) {
+                LOGGER.warn("Could not close the selector", e);
+            }
+        }
+
+        private void runTasks() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    LOGGER.error("Task failed " + task, e);
+                }
+            }
+        }
+
+        /**
+         * A copy, so the handlers can cancel their keys while we walk it.
+         */
+        private List<Handler> handlers() {
+            List<Handler> result = new ArrayList<Handler>(selector.keys().size());
+
+            for (SelectionKey key : selector.keys()) {
+                if (key.isValid()) {
+                    result.add((Handler) key.attachment());
+                }
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,1072 @@
+package com.zipwhip.api.signals.nio;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.zipwhip.api.signals.SignalConnection;
+import com.zipwhip.api.signals.dto.json.SignalProviderGsonBuilder;
+import com.zipwhip.concurrent.DefaultObservableFuture;
+import com.zipwhip.concurrent.FakeFailingObservableFuture;
+import com.zipwhip.concurrent.FakeObservableFuture;
+import com.zipwhip.concurrent.MutableObservableFuture;
+import com.zipwhip.concurrent.ObservableFuture;
+import com.zipwhip.events.Observable;
+import com.zipwhip.events.ObservableHelper;
+import com.zipwhip.events.Observer;
+import com.zipwhip.executors.SimpleExecutor;
+import com.zipwhip.gson.GsonUtil;
+import com.zipwhip.reliable.retry.RetryStrategy;
+import com.zipwhip.signals2.SignalServerException;
+import com.zipwhip.timers.Timeout;
+import com.zipwhip.timers.Timer;
+import com.zipwhip.timers.TimerTask;
+import com.zipwhip.util.StringUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A SignalConnection on non-blocking sockets. It speaks the same socket.io 0.9 protocol (over an RFC 6455
+ * WebSocket) as the {@link com.zipwhip.api.signals.SocketIoSignalConnection}, so it is a drop in replacement.
+ *
+ * The difference is the threading. The socket.io-java-client spends threads on every connection. Here, every
+ * connection sharing a {@link NioEventLoop} is driven by that loop's one thread:
+ * <ul>
+ * <li>Reads go into a buffer borrowed from the loop's {@link BufferPool}. It goes back as soon as no partial frame
+ * is left in it, so idle connections hold no buffers.</li>
+ * <li>Frames are decoded and published to getMessageEvent() right there on the loop thread. There is no thread
+ * handoff per frame. The message arrives as a JsonPrimitive of the raw JSON text, which the SignalProvider streams
+ * straight into a DeliveredMessage without building a tree.</li>
+ * <li>emit() encodes on the caller's thread and queues the frame. The loop writes everything queued with one
+ * gathering write. The outer future completes when the frame is handed to the socket, the inner one when the
+ * server acks it.</li>
+ * <li>Connect, heartbeat and ack timeouts are checked on the loop's tick, not with timer threads.</li>
+ * </ul>
+ * Because observers of the message event run on the loop thread, they must not block. Hand the work off (the
+ * SignalProvider's BufferedOrderedQueue already does) if it is slow.
+ *
+ * Only http:// urls are supported.
+ */
+public class NioSignalConnection implements SignalConnection {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NioSignalConnection.class);
+
+    public static final int DEFAULT_MAX_FRAME_SIZE = 1024 * 1024;
+    public static final long DEFAULT_CONNECT_TIMEOUT_SECONDS = 30;
+    public static final long DEFAULT_ACK_TIMEOUT_SECONDS = 30;
+
+    private static final int MAX_GATHERED_WRITES = 64;
+    private static final JsonParser PARSER = new JsonParser();
+
+    private enum State {
+        DISCONNECTED,
+        // GET /socket.io/1/ for a session id.
+        HANDSHAKING,
+        // GET /socket.io/1/websocket/{sessionId} with an Upgrade.
+        UPGRADING,
+        // A WebSocket, waiting for the socket.io connect packet.
+        OPENING,
+        CONNECTED
+    }
+
+    private final NioEventLoop eventLoop;
+    private final ChannelHandler handler = new ChannelHandler();
+    private final Random random = new Random();
+    private final AtomicLong ackIds = new AtomicLong();
+
+    private final ObservableHelper<JsonElement> messageEvent;
+    private final ObservableHelper<Void> disconnectEvent;
+    private final ObservableHelper<Void> connectEvent;
+    private final ObservableHelper<Throwable> exceptionEvent;
+
+    private Executor eventExecutor = SimpleExecutor.getInstance();
+    private Gson gson = SignalProviderGsonBuilder.getInstance();
+    private RetryStrategy retryStrategy;
+    private Timer timer;
+
+    private String url;
+    private long connectTimeoutSeconds = DEFAULT_CONNECT_TIMEOUT_SECONDS;
+    private long ackTimeoutSeconds = DEFAULT_ACK_TIMEOUT_SECONDS;
+    private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+
+    private volatile State state = State.DISCONNECTED;
+    private volatile MutableObservableFuture<Void> connectFuture;
+    private volatile int retryCount = 0;
+
+    // Everything below is only touched on the loop thread.
+    private final LinkedList<PendingWrite> writes = new LinkedList<PendingWrite>();
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHERED_WRITES];
+    private final Map<Long, PendingAck> acks = new HashMap<Long, PendingAck>();
+
+    private SocketChannel channel;
+    private SelectionKey key;
+    private ByteBuffer readBuffer;
+    private ByteArrayOutputStream fragments;
+
+    private InetSocketAddress address;
+    private String host;
+    private String path;
+    private String websocketKey;
+
+    private MutableObservableFuture<Void> handshakeFuture;
+    private long connectDeadline;
+    private long heartbeatTimeoutMillis;
+    private long lastReadMillis;
+    private boolean closeRequested;
+
+    public NioSignalConnection(NioEventLoop eventLoop) {
+        if (eventLoop == null) {
+            throw new IllegalArgumentException("The eventLoop cannot be null");
+        }
+
+        this.eventLoop = eventLoop;
+
+        // The observers run on the loop thread, the same as the socket.io-java-client runs them on its own.
+        exceptionEvent = new ObservableHelper<Throwable>("ExceptionEvent", SimpleExecutor.getInstance());
+        connectEvent = new ObservableHelper<Void>("ConnectEvent", SimpleExecutor.getInstance());
+        disconnectEvent = new ObservableHelper<Void>("DisconnectEvent", SimpleExecutor.getInstance());
+        messageEvent = new ObservableHelper<JsonElement>("JsonMessageEvent", SimpleExecutor.getInstance());
+    }
+
+    @Override
+    public synchronized ObservableFuture<Void> connect() {
+        if (connectFuture != null) {
+            return connectFuture;
+        } else if (state == State.CONNECTED) {
+            return new FakeObservableFuture<Void>(this, null);
+        }
+
+        final String host;
+        final String path;
+        final InetSocketAddress address;
+
+        try {
+            URL parsed = new URL(url);
+            if (!"http".equalsIgnoreCase(parsed.getProtocol())) {
+                throw new MalformedURLException("Only http urls are supported: " + url);
+            }
+
+            int port = parsed.getPort() == -1 ? parsed.getDefaultPort() : parsed.getPort();
+
+            host = parsed.getHost() + ":" + port;
+            path = parsed.getPath().endsWith("/") ? parsed.getPath() : parsed.getPath() + "/";
+
+            // Resolve on the caller's thread, so a slow DNS lookup never stalls the other connections on the loop.
+            address = new InetSocketAddress(parsed.getHost(), port);
+            if (address.isUnresolved()) {
+                throw new UnknownHostException(parsed.getHost());
+            }
+        } catch (IOException e) {
+            return new FakeFailingObservableFuture<Void>(this, e);
+        }
+
+        final MutableObservableFuture<Void> future = connectFuture = new DefaultObservableFuture<Void>(this, eventExecutor);
+
+        future.addObserver(new Observer<ObservableFuture<Void>>() {
+            @Override
+            public void notify(Object sender, ObservableFuture<Void> item) {
+                synchronized (NioSignalConnection.this) {
+                    if (item.isSuccess()) {
+                        retryCount = 0;
+                    }
+
+                    if (connectFuture == item) {
+                        connectFuture = null;
+                    }
+                }
+            }
+        });
+
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                open(address, host, path, future);
+            }
+        });
+
+        return future;
+    }
+
+    @Override
+    public ObservableFuture<Void> disconnect() {
+        if (state == State.DISCONNECTED && connectFuture == null) {
+            return new FakeObservableFuture<Void>(this, null);
+        }
+
+        final MutableObservableFuture<Void> result = new DefaultObservableFuture<Void>(this, eventExecutor);
+
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                retryCount = 0;
+                closeRequested = true;
+
+                if (state == State.CONNECTED && writes.isEmpty()) {
+                    // Say goodbye if the socket will take it right now. If not, the server sees the close anyway.
+                    try {
+                        channel.write(WebSocketCodec.encodeText(SocketIoPacket.format(SocketIoPacket.DISCONNECT, null, null), true, random));
+                    } catch (IOException e) {
+                        LOGGER.debug("Could not send the disconnect packet", e);
+                    }
+                }
+
+                close(null);
+                result.setSuccess(null);
+            }
+        });
+
+        return result;
+    }
+
+    @Override
+    public void reconnect() {
+        disconnect().addObserver(new Observer<ObservableFuture<Void>>() {
+            @Override
+            public void notify(Object sender, ObservableFuture<Void> item) {
+                if (item.isSuccess()) {
+                    connect();
+                } else {
+                    reconnectLater();
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean isConnected() {
+        return state == State.CONNECTED;
+    }
+
+    @Override
+    public ObservableFuture<ObservableFuture<Object[]>> emit(String event, Object... objects) {
+        final MutableObservableFuture<ObservableFuture<Object[]>> sent = new DefaultObservableFuture<ObservableFuture<Object[]>>(this, eventExecutor);
+        final MutableObservableFuture<Object[]> acked = new DefaultObservableFuture<Object[]>(this, eventExecutor);
+
+        if (!isConnected()) {
+            sent.setFailure(new IllegalStateException("Not connected"));
+            return sent;
+        }
+
+        JsonArray args = new JsonArray();
+        if (objects != null) {
+            for (Object object : objects) {
+                args.add(gson.toJsonTree(object));
+            }
+        }
+
+        JsonObject json = new JsonObject();
+        json.addProperty("name", event);
+        json.add("args", args);
+
+        final long id = ackIds.incrementAndGet();
+
+        // Encode (and mask) here, so the loop thread only has to write it.
+        final ByteBuffer frame = WebSocketCodec.encodeText(SocketIoPacket.format(SocketIoPacket.EVENT, id + "+", gson.toJson(json)), true, random);
+
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (state != State.CONNECTED) {
+                    sent.setFailure(new IllegalStateException("Not connected"));
+                    return;
+                }
+
+                acks.put(id, new PendingAck(acked, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ackTimeoutSeconds)));
+                write(new PendingWrite(frame, sent, acked));
+            }
+        });
+
+        return sent;
+    }
+
+    private void open(InetSocketAddress address, String host, String path, MutableObservableFuture<Void> future) {
+        if (state != State.DISCONNECTED) {
+            future.setFailure(new IllegalStateException("Already connecting"));
+            return;
+        }
+
+        this.address = address;
+        this.host = host;
+        this.path = path;
+        this.handshakeFuture = future;
+        this.closeRequested = false;
+        this.connectDeadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(connectTimeoutSeconds);
+        this.state = State.HANDSHAKING;
+
+        try {
+            openChannel();
+        } catch (IOException e) {
+            close(e);
+            return;
+        }
+
+        // Ask for keep-alive so the upgrade can go down the same socket.
+        writeAscii("GET " + path + "socket.io/1/?t=" + System.currentTimeMillis() + " HTTP/1.1\r\n"
+                + "Host: " + host + "\r\n"
+                + "Connection: keep-alive\r\n"
+                + "\r\n");
+    }
+
+    private void openChannel() throws IOException {
+        channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+
+        if (channel.connect(address)) {
+            key = eventLoop.register(channel, SelectionKey.OP_READ, handler);
+        } else {
+            key = eventLoop.register(channel, SelectionKey.OP_CONNECT, handler);
+        }
+    }
+
+    private void closeChannel() {
+        if (key != null) {
+            key.cancel();
+            key = null;
+        }
+
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close the channel", e);
+            }
+
+            channel = null;
+        }
+    }
+
+    private void read() {
+        ByteBuffer buffer = readBuffer != null ? readBuffer : eventLoop.getBufferPool().acquire();
+        readBuffer = buffer;
+
+        int count;
+        try {
+            count = channel.read(buffer);
+        } catch (IOException e) {
+            close(e);
+            return;
+        }
+
+        if (count < 0) {
+            onEndOfStream();
+            return;
+        } else if (count == 0) {
+            releaseReadBufferIfEmpty();
+            return;
+        }
+
+        lastReadMillis = System.currentTimeMillis();
+
+        buffer.flip();
+
+        try {
+            process(buffer);
+        } catch (Exception e) {
+            close(e);
+            return;
+        }
+
+        if (readBuffer != buffer) {
+            // Closed (or moved to a new socket) while we were processing.
+            return;
+        }
+
+        if (!buffer.hasRemaining()) {
+            releaseReadBuffer();
+            return;
+        }
+
+        // Keep the partial frame for the next read.
+        buffer.compact();
+
+        if (!buffer.hasRemaining()) {
+            grow();
+        }
+    }
+
+    /**
+     * A frame that doesn't fit in a pooled buffer gets a one-off buffer of its own.
+     */
+    private void grow() {
+        ByteBuffer buffer = readBuffer;
+        int capacity = Math.min(buffer.capacity() * 2, maxFrameSize + 14);
+
+        if (capacity <= buffer.capacity()) {
+            close(new IOException("Frame is larger than the limit of " + maxFrameSize));
+            return;
+        }
+
+        ByteBuffer bigger = ByteBuffer.allocate(capacity);
+
+        buffer.flip();
+        bigger.put(buffer);
+
+        eventLoop.getBufferPool().release(buffer);
+        readBuffer = bigger;
+    }
+
+    private void releaseReadBufferIfEmpty() {
+        if (readBuffer != null && readBuffer.position() == 0) {
+            releaseReadBuffer();
+        }
+    }
+
+    private void releaseReadBuffer() {
+        if (readBuffer != null) {
+            eventLoop.getBufferPool().release(readBuffer);
+            readBuffer = null;
+        }
+    }
+
+    private void onEndOfStream() {
+        if (state == State.HANDSHAKING && readBuffer != null) {
+            // A response without a Content-Length ends when the server closes the socket.
+            ByteBuffer buffer = readBuffer;
+            buffer.flip();
+
+            try {
+                HttpHead head = HttpHead.read(buffer);
+                if (head != null) {
+                    byte[] body;
+
+                    if (head.isChunked()) {
+                        body = HttpHead.readChunked(buffer);
+
+                        if (body == null) {
+                            throw new IOException("Connection closed in the middle of the handshake");
+                        }
+                    } else {
+                        body = new byte[buffer.remaining()];
+                        buffer.get(body);
+                    }
+
+                    onHandshake(head, new String(body, WebSocketCodec.UTF8), false);
+                    return;
+                }
+            } catch (Exception e) {
+                close(e);
+                return;
+            }
+        }
+
+        close(state == State.CONNECTED ? null : new IOException("Connection closed by the server"));
+    }
+
+    private void process(ByteBuffer buffer) throws IOException {
+        if (state == State.HANDSHAKING) {
+            int start = buffer.position();
+
+            HttpHead head = HttpHead.read(buffer);
+            if (head == null) {
+                return;
+            }
+
+            byte[] body;
+
+            if (head.isChunked()) {
+                body = HttpHead.readChunked(buffer);
+
+                if (body == null) {
+                    // Wait for the last chunk.
+                    buffer.position(start);
+                    return;
+                }
+            } else {
+                int length = head.getContentLength();
+                if (length < 0 || buffer.remaining() < length) {
+                    // Wait for the rest of the body (or for the server to close, if it gave no length).
+                    buffer.position(start);
+                    return;
+                }
+
+                body = new byte[length];
+                buffer.get(body);
+            }
+
+            onHandshake(head, new String(body, WebSocketCodec.UTF8), head.isKeepAlive());
+            return;
+        }
+
+        if (state == State.UPGRADING) {
+            HttpHead head = HttpHead.read(buffer);
+            if (head == null) {
+                return;
+            }
+
+            if (head.getStatus() != 101) {
+                throw new IOException("WebSocket upgrade refused: " + head.getStartLine());
+            } else if (!WebSocketCodec.accept(websocketKey).equals(head.getHeader("sec-websocket-accept"))) {
+                throw new IOException("WebSocket upgrade answered with the wrong Sec-WebSocket-Accept");
+            }
+
+            state = State.OPENING;
+        }
+
+        while ((state == State.OPENING || state == State.CONNECTED) && readBuffer == buffer) {
+            WebSocketCodec.Frame frame = WebSocketCodec.decode(buffer, maxFrameSize);
+            if (frame == null) {
+                return;
+            }
+
+            onFrame(frame);
+        }
+    }
+
+    private void onHandshake(HttpHead head, String body, boolean keepAlive) throws IOException {
+        if (head.getStatus() != 200) {
+            throw new IOException("Handshake refused: " + head.getStartLine() + " " + body);
+        }
+
+        // sessionId:heartbeatTimeout:closeTimeout:transports
+        String[] parts = body.trim().split(":");
+        if (parts.length < 4) {
+            throw new IOException("Unexpected handshake: " + body);
+        } else if (!Arrays.asList(parts[3].split(",")).contains("websocket")) {
+            throw new IOException("The server does not offer the websocket transport: " + body);
+        }
+
+        String sessionId = parts[0];
+        heartbeatTimeoutMillis = StringUtil.isNullOrEmpty(parts[1]) ? 0 : TimeUnit.SECONDS.toMillis(Long.parseLong(parts[1]));
+
+        if (!keepAlive) {
+            releaseReadBuffer();
+            closeChannel();
+            openChannel();
+        }
+
+        state = State.UPGRADING;
+        websocketKey = WebSocketCodec.newKey(random);
+
+        writeAscii("GET " + path + "socket.io/1/websocket/" + sessionId + " HTTP/1.1\r\n"
+                + "Host: " + host + "\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: " + websocketKey + "\r\n"
+                + "Sec-WebSocket-Version: 13\r\n"
+                + "\r\n");
+    }
+
+    private void onFrame(WebSocketCodec.Frame frame) throws IOException {
+        switch (frame.getOpcode()) {
+            case WebSocketCodec.OPCODE_TEXT:
+            case WebSocketCodec.OPCODE_CONTINUATION:
+                String text = reassemble(frame);
+                if (text != null) {
+                    onPacket(SocketIoPacket.parse(text));
+                }
+                break;
+            case WebSocketCodec.OPCODE_PING:
+                write(new PendingWrite(WebSocketCodec.encode(WebSocketCodec.OPCODE_PONG, frame.getPayload(), true, random), null, null));
+                break;
+            case WebSocketCodec.OPCODE_CLOSE:
+                close(null);
+                break;
+            default:
+                // pong, binary: nothing for us.
+                break;
+        }
+    }
+
+    /**
+     * @return The text once the last fragment is in, null until then.
+     */
+    private String reassemble(WebSocketCodec.Frame frame) throws IOException {
+        if (frame.getOpcode() == WebSocketCodec.OPCODE_TEXT) {
+            if (frame.isFin()) {
+                return frame.getText();
+            }
+
+            fragments = new ByteArrayOutputStream();
+        } else if (fragments == null) {
+            throw new IOException("Continuation frame without a first fragment");
+        }
+
+        fragments.write(frame.getPayload(), 0, frame.getPayload().length);
+
+        if (fragments.size() > maxFrameSize) {
+            throw new IOException("Fragmented message is larger than the limit of " + maxFrameSize);
+        } else if (!frame.isFin()) {
+            return null;
+        }
+
+        String text = new String(fragments.toByteArray(), WebSocketCodec.UTF8);
+        fragments = null;
+
+        return text;
+    }
+
+    private void onPacket(SocketIoPacket packet) throws IOException {
+        switch (packet.getType()) {
+            case SocketIoPacket.CONNECT:
+                onConnected();
+                break;
+            case SocketIoPacket.HEARTBEAT:
+                send(SocketIoPacket.format(SocketIoPacket.HEARTBEAT, null, null));
+                break;
+            case SocketIoPacket.MESSAGE:
+            case SocketIoPacket.JSON:
+                try {
+                    messageEvent.notifyObservers(this, new JsonPrimitive(packet.getData() == null ? "" : packet.getData()));
+                } finally {
+                    ack(packet);
+                }
+                break;
+            case SocketIoPacket.EVENT:
+                try {
+                    onEvent(packet.getData());
+                } finally {
+                    ack(packet);
+                }
+                break;
+            case SocketIoPacket.ACK:
+                onAck(packet.getData());
+                break;
+            case SocketIoPacket.ERROR:
+                exceptionEvent.notifyObservers(this, new IOException("socket.io error: " + packet.getData()));
+                break;
+            case SocketIoPacket.DISCONNECT:
+                close(null);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onConnected() {
+        if (state != State.OPENING) {
+            return;
+        }
+
+        state = State.CONNECTED;
+
+        MutableObservableFuture<Void> future = handshakeFuture;
+        handshakeFuture = null;
+
+        if (future != null) {
+            future.setSuccess(null);
+        }
+
+        connectEvent.notifyObservers(this, null);
+    }
+
+    private void onEvent(String data) {
+        if (data == null) {
+            return;
+        }
+
+        JsonObject object = PARSER.parse(data).getAsJsonObject();
+        if (!StringUtil.equals(GsonUtil.getString(object.get("name")), "error")) {
+            return;
+        }
+
+        JsonElement args = object.get("args");
+        if (args == null || !args.isJsonArray()) {
+            return;
+        }
+
+        for (JsonElement arg : args.getAsJsonArray()) {
+            JsonObject error = arg.getAsJsonObject();
+
+            exceptionEvent.notifyObservers(this, new SignalServerException(
+                    GsonUtil.getInt(error.get("code")),
+                    GsonUtil.getString(error.get("message"))));
+        }
+    }
+
+    private void onAck(String data) {
+        if (StringUtil.isNullOrEmpty(data)) {
+            return;
+        }
+
+        int plus = data.indexOf('+');
+
+        long id;
+        try {
+            id = Long.parseLong(plus < 0 ? data : data.substring(0, plus));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Ack with a bad id: " + data);
+            return;
+        }
+
+        PendingAck ack = acks.remove(id);
+        if (ack == null) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(String.format("Ack %s came back after it timed out", id));
+            }
+            return;
+        }
+
+        if (plus < 0 || plus == data.length() - 1) {
+            ack.future.setSuccess(new Object[0]);
+            return;
+        }
+
+        JsonArray array = PARSER.parse(data.substring(plus + 1)).getAsJsonArray();
+        Object[] args = new Object[array.size()];
+
+        for (int i = 0; i < args.length; i++) {
+            args[i] = array.get(i);
+        }
+
+        ack.future.setSuccess(args);
+    }
+
+    private void ack(SocketIoPacket packet) {
+        if (packet.wantsAck() && state == State.CONNECTED) {
+            send(SocketIoPacket.formatAck(packet.getId()));
+        }
+    }
+
+    private void send(String packet) {
+        write(new PendingWrite(WebSocketCodec.encodeText(packet, true, random), null, null));
+    }
+
+    private void writeAscii(String text) {
+        write(new PendingWrite(ByteBuffer.wrap(text.getBytes(WebSocketCodec.UTF8)), null, null));
+    }
+
+    private void write(PendingWrite write) {
+        boolean idle = writes.isEmpty();
+
+        writes.add(write);
+
+        // If something was already queued, the socket is full and the loop will flush when it drains.
+        if (idle) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (channel == null || !channel.isConnected()) {
+            // finishConnect() will flush.
+            return;
+        }
+
+        while (!writes.isEmpty()) {
+            int count = Math.min(writes.size(), MAX_GATHERED_WRITES);
+
+            Iterator<PendingWrite> iterator = writes.iterator();
+            for (int i = 0; i < count; i++) {
+                gather[i] = iterator.next().buffer;
+            }
+
+            try {
+                channel.write(gather, 0, count);
+            } catch (IOException e) {
+                close(e);
+                return;
+            } finally {
+                Arrays.fill(gather, 0, count, null);
+            }
+
+            int finished = 0;
+            while (!writes.isEmpty() && !writes.getFirst().buffer.hasRemaining()) {
+                PendingWrite write = writes.removeFirst();
+                finished++;
+
+                if (write.sent != null) {
+                    write.sent.setSuccess(write.acked);
+                }
+            }
+
+            if (finished < count) {
+                // The socket is full. Pick up again once it drains.
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void close(Throwable cause) {
+        if (state == State.DISCONNECTED) {
+            return;
+        }
+
+        boolean wasConnected = state == State.CONNECTED;
+        state = State.DISCONNECTED;
+
+        closeChannel();
+        releaseReadBuffer();
+        fragments = null;
+
+        Throwable failure = cause != null ? cause : new IOException("Disconnected");
+
+        for (PendingWrite write : writes) {
+            if (write.sent != null) {
+                write.sent.setFailure(failure);
+            }
+        }
+        writes.clear();
+
+        for (PendingAck ack : acks.values()) {
+            ack.future.setFailure(failure);
+        }
+        acks.clear();
+
+        MutableObservableFuture<Void> future = handshakeFuture;
+        handshakeFuture = null;
+
+        if (future != null) {
+            future.setFailure(failure);
+        }
+
+        if (cause != null) {
+            exceptionEvent.notifyObservers(this, cause);
+        }
+
+        if (wasConnected) {
+            disconnectEvent.notifyObservers(this, null);
+
+            if (!closeRequested) {
+                reconnectLater();
+            }
+        }
+    }
+
+    private final TimerTask reconnectTimerTask = new TimerTask() {
+        @Override
+        public void run(Timeout timeout) throws Exception {
+            if (isConnected()) {
+                return;
+            }
+
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Reconnecting.");
+            }
+
+            connect().addObserver(new Observer<ObservableFuture<Void>>() {
+                @Override
+                public void notify(Object sender, ObservableFuture<Void> item) {
+                    if (!item.isSuccess()) {
+                        reconnectLater();
+                    }
+                }
+            });
+        }
+    };
+
+    private synchronized void reconnectLater() {
+        if (retryStrategy == null || timer == null) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("No retryStrategy/timer, so not reconnecting.");
+            }
+            return;
+        }
+
+        long retryInSeconds = retryStrategy.getNextRetryInterval(retryCount);
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug(String.format("Scheduling reconnect in %s seconds.", retryInSeconds));
+        }
+
+        timer.newTimeout(reconnectTimerTask, retryInSeconds, TimeUnit.SECONDS);
+        retryCount++;
+    }
+
+    private class ChannelHandler implements NioEventLoop.Handler {
+
+        @Override
+        public void onSelected(SelectionKey selected) {
+            if (selected != key) {
+                // A socket we already left (the handshake one, or one closed before the loop got to it).
+                selected.cancel();
+                return;
+            }
+
+            if (selected.isConnectable()) {
+                try {
+                    if (!channel.finishConnect()) {
+                        return;
+                    }
+                } catch (IOException e) {
+                    close(e);
+                    return;
+                }
+
+                key.interestOps(SelectionKey.OP_READ);
+                flush();
+            }
+
+            if (key != null && selected.isValid() && selected.isWritable()) {
+                flush();
+            }
+
+            if (key != null && selected.isValid() && selected.isReadable()) {
+                read();
+            }
+        }
+
+        @Override
+        public void onTick(long now) {
+            if (state == State.DISCONNECTED) {
+                return;
+            } else if (state != State.CONNECTED) {
+                if (now > connectDeadline) {
+                    close(new TimeoutException("Timed out connecting to " + url));
+                }
+                return;
+            } else if (heartbeatTimeoutMillis > 0 && now - lastReadMillis > heartbeatTimeoutMillis) {
+                close(new TimeoutException("Nothing from the server in " + heartbeatTimeoutMillis + "ms"));
+                return;
+            }
+
+            if (acks.isEmpty()) {
+                return;
+            }
+
+            Iterator<PendingAck> iterator = acks.values().iterator();
+            while (iterator.hasNext()) {
+                PendingAck ack = iterator.next();
+
+                if (ack.deadline <= now) {
+                    iterator.remove();
+                    ack.future.setFailure(new TimeoutException("No ack from the server in " + ackTimeoutSeconds + " seconds"));
+                }
+            }
+        }
+
+        @Override
+        public void onShutdown() {
+            closeRequested = true;
+            close(null);
+        }
+
+        @Override
+        public String toString() {
+            return "NioSignalConnection(" + url + ")";
+        }
+    }
+
+    private static class PendingWrite {
+
+        private final ByteBuffer buffer;
+        private final MutableObservableFuture<ObservableFuture<Object[]>> sent;
+        private final ObservableFuture<Object[]> acked;
+
+        private PendingWrite(ByteBuffer buffer, MutableObservableFuture<ObservableFuture<Object[]>> sent, ObservableFuture<Object[]> acked) {
+            this.buffer = buffer;
+            this.sent = sent;
+            this.acked = acked;
+        }
+    }
+
+    private static class PendingAck {
+
+        private final MutableObservableFuture<Object[]> future;
+        private final long deadline;
+
+        private PendingAck(MutableObservableFuture<Object[]> future, long deadline) {
+            this.future = future;
+            this.deadline = deadline;
+        }
+    }
+
+    public NioEventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    @Override
+    public Observable<Throwable> getExceptionEvent() {
+        return exceptionEvent;
+    }
+
+    @Override
+    public Observable<Void> getConnectEvent() {
+        return connectEvent;
+    }
+
+    @Override
+    public Observable<Void> getDisconnectEvent() {
+        return disconnectEvent;
+    }
+
+    @Override
+    public Observable<JsonElement> getMessageEvent() {
+        return messageEvent;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public Gson getGson() {
+        return gson;
+    }
+
+    public void setGson(Gson gson) {
+        this.gson = gson;
+    }
+
+    public Executor getEventExecutor() {
+        return eventExecutor;
+    }
+
+    /**
+     * @param eventExecutor Where the observers of the connect/emit futures run. The events themselves always fire
+     *                      on the loop thread.
+     */
+    public void setEventExecutor(Executor eventExecutor) {
+        this.eventExecutor = eventExecutor;
+    }
+
+    public void setRetryStrategy(RetryStrategy retryStrategy) {
+        this.retryStrategy = retryStrategy;
+    }
+
+    public void setTimer(Timer timer) {
+        this.timer = timer;
+    }
+
+    public long getConnectTimeoutSeconds() {
+        return connectTimeoutSeconds;
+    }
+
+    public void setConnectTimeoutSeconds(long connectTimeoutSeconds) {
+        this.connectTimeoutSeconds = connectTimeoutSeconds;
+    }
+
+    public long getAckTimeoutSeconds() {
+        return ackTimeoutSeconds;
+    }
+
+    public void setAckTimeoutSeconds(long ackTimeoutSeconds) {
+        this.ackTimeoutSeconds = ackTimeoutSeconds;
+    }
+
+    public int getMaxFrameSize() {
+        return maxFrameSize;
+    }
+
+    public void setMaxFrameSize(int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+    }
+}
@@ -0,0 +1,80 @@
+package com.zipwhip.api.signals.nio;
+
+import com.google.gson.Gson;
+import com.zipwhip.api.signals.SignalConnection;
+import com.zipwhip.api.signals.dto.json.SignalProviderGsonBuilder;
+import com.zipwhip.reliable.retry.RetryStrategy;
+import com.zipwhip.timers.Timer;
+import com.zipwhip.util.Factory;
+
+/**
+ * Makes NioSignalConnections that all share one {@link NioEventLoop}, so a whole host's worth of connections runs
+ * on one selector thread. Plug it into the SignalProviderFactory as its signalConnectionFactory.
+ */
+public class NioSignalConnectionFactory implements Factory<SignalConnection> {
+
+    private NioEventLoop eventLoop;
+    private String url;
+    private Gson gson = SignalProviderGsonBuilder.getInstance();
+    private RetryStrategy retryStrategy;
+    private Timer timer;
+
+    @Override
+    public synchronized SignalConnection create() {
+        if (eventLoop == null) {
+            eventLoop = new NioEventLoop();
+        }
+
+        NioSignalConnection connection = new NioSignalConnection(eventLoop);
+
+        connection.setUrl(url);
+        connection.setGson(gson);
+        connection.setRetryStrategy(retryStrategy);
+        connection.setTimer(timer);
+
+        return connection;
+    }
+
+    public synchronized NioEventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    /**
+     * @param eventLoop The loop to share. If none is set, one is created with the first connection.
+     */
+    public synchronized void setEventLoop(NioEventLoop eventLoop) {
+        this.eventLoop = eventLoop;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public Gson getGson() {
+        return gson;
+    }
+
+    public void setGson(Gson gson) {
+        this.gson = gson;
+    }
+
+    public RetryStrategy getRetryStrategy() {
+        return retryStrategy;
+    }
+
+    public void setRetryStrategy(RetryStrategy retryStrategy) {
+        this.retryStrategy = retryStrategy;
+    }
+
+    public Timer getTimer() {
+        return timer;
+    }
+
+    public void setTimer(Timer timer) {
+        this.timer = timer;
+    }
+}
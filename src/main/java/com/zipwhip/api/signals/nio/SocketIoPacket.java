@@ -0,0 +1,106 @@
+package com.zipwhip.api.signals.nio;
+
+import java.io.IOException;
+
+/**
+ * A socket.io 0.9 packet: "type:id:endpoint:data". This is the wire format the socket.io-java-client speaks, so
+ * both transports talk to the same servers.
+ */
+final class SocketIoPacket {
+
+    static final int DISCONNECT = 0;
+    static final int CONNECT = 1;
+    static final int HEARTBEAT = 2;
+    static final int MESSAGE = 3;
+    static final int JSON = 4;
+    static final int EVENT = 5;
+    static final int ACK = 6;
+    static final int ERROR = 7;
+    static final int NOOP = 8;
+
+    private final int type;
+    private final String id;
+    private final String endpoint;
+    private final String data;
+
+    SocketIoPacket(int type, String id, String endpoint, String data) {
+        this.type = type;
+        this.id = id;
+        this.endpoint = endpoint;
+        this.data = data;
+    }
+
+    static SocketIoPacket parse(String text) throws IOException {
+        int first = text.indexOf(':');
+        if (first <= 0) {
+            throw new IOException("Not a socket.io packet: " + text);
+        }
+
+        int type;
+        try {
+            type = Integer.parseInt(text.substring(0, first));
+        } catch (NumberFormatException e) {
+            throw new IOException("Not a socket.io packet: " + text);
+        }
+
+        int second = text.indexOf(':', first + 1);
+        if (second < 0) {
+            return new SocketIoPacket(type, text.substring(first + 1), "", null);
+        }
+
+        // The data can hold colons of its own, so only the first three count.
+        int third = text.indexOf(':', second + 1);
+        if (third < 0) {
+            return new SocketIoPacket(type, text.substring(first + 1, second), text.substring(second + 1), null);
+        }
+
+        return new SocketIoPacket(type, text.substring(first + 1, second), text.substring(second + 1, third), text.substring(third + 1));
+    }
+
+    static String format(int type, String id, String data) {
+        StringBuilder sb = new StringBuilder(8 + (data == null ? 0 : data.length()));
+
+        sb.append(type).append(':');
+        if (id != null) {
+            sb.append(id);
+        }
+        // No endpoint, and the trailing separator only when there is data ("2::" vs "3:::hello").
+        sb.append(':');
+        if (data != null) {
+            sb.append(':').append(data);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * The reply to a packet that asked for one. An id that ends in '+' wants the (empty) ack arguments back too.
+     */
+    static String formatAck(String id) {
+        if (id.endsWith("+")) {
+            return format(ACK, null, id + "[]");
+        }
+
+        return format(ACK, null, id);
+    }
+
+    int getType() {
+        return type;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    String getData() {
+        return data;
+    }
+
+    boolean wantsAck() {
+        return id != null && id.length() > 0;
+    }
+}
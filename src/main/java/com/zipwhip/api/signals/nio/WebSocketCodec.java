@@ -0,0 +1,208 @@
+package com.zipwhip.api.signals.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+
+/**
+ * The parts of RFC 6455 that a socket.io connection needs: the upgrade handshake keys and framing.
+ *
+ * decode() works straight off the read buffer. It either consumes one whole frame or leaves the buffer where it
+ * was, so a frame that is split across reads is simply decoded on a later read.
+ */
+final class WebSocketCodec {
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    static final int OPCODE_CONTINUATION = 0x0;
+    static final int OPCODE_TEXT = 0x1;
+    static final int OPCODE_BINARY = 0x2;
+    static final int OPCODE_CLOSE = 0x8;
+    static final int OPCODE_PING = 0x9;
+    static final int OPCODE_PONG = 0xA;
+
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+
+    private WebSocketCodec() {
+
+    }
+
+    static ByteBuffer encodeText(String text, boolean mask, Random random) {
+        return encode(OPCODE_TEXT, text.getBytes(UTF8), mask, random);
+    }
+
+    /**
+     * @param opcode  The frame type.
+     * @param payload The frame body.
+     * @param mask    Clients must mask, servers must not.
+     * @param random  Where the masking key comes from (ignored if mask is false).
+     * @return A flipped buffer holding the whole frame.
+     */
+    static ByteBuffer encode(int opcode, byte[] payload, boolean mask, Random random) {
+        int length = payload.length;
+        int lengthBytes = length < 126 ? 0 : length < 65536 ? 2 : 8;
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 + lengthBytes + (mask ? 4 : 0) + length);
+
+        buffer.put((byte) (0x80 | opcode));
+
+        int maskBit = mask ? 0x80 : 0;
+        if (lengthBytes == 0) {
+            buffer.put((byte) (maskBit | length));
+        } else if (lengthBytes == 2) {
+            buffer.put((byte) (maskBit | 126));
+            buffer.putShort((short) length);
+        } else {
+            buffer.put((byte) (maskBit | 127));
+            buffer.putLong(length);
+        }
+
+        if (mask) {
+            byte[] key = new byte[4];
+            random.nextBytes(key);
+            buffer.put(key);
+
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte) (payload[i] ^ key[i & 3]));
+            }
+        } else {
+            buffer.put(payload);
+        }
+
+        buffer.flip();
+
+        return buffer;
+    }
+
+    /**
+     * @param buffer     A flipped buffer of received bytes.
+     * @param maxPayload The largest frame we will accept.
+     * @return The next frame, or null if the buffer does not hold all of it yet.
+     * @throws IOException If the frame is larger than maxPayload.
+     */
+    static Frame decode(ByteBuffer buffer, int maxPayload) throws IOException {
+        int start = buffer.position();
+        int available = buffer.remaining();
+
+        if (available < 2) {
+            return null;
+        }
+
+        int b0 = buffer.get(start) & 0xFF;
+        int b1 = buffer.get(start + 1) & 0xFF;
+
+        boolean masked = (b1 & 0x80) != 0;
+        int length7 = b1 & 0x7F;
+        int headerLength = 2 + (length7 == 126 ? 2 : length7 == 127 ? 8 : 0) + (masked ? 4 : 0);
+
+        if (available < headerLength) {
+            return null;
+        }
+
+        long length;
+        if (length7 == 126) {
+            length = buffer.getShort(start + 2) & 0xFFFF;
+        } else if (length7 == 127) {
+            length = buffer.getLong(start + 2);
+        } else {
+            length = length7;
+        }
+
+        if (length < 0 || length > maxPayload) {
+            throw new IOException("Frame of " + length + " bytes is larger than the limit of " + maxPayload);
+        } else if (available < headerLength + length) {
+            return null;
+        }
+
+        byte[] payload = new byte[(int) length];
+
+        buffer.position(start + headerLength);
+        buffer.get(payload);
+
+        if (masked) {
+            int keyStart = start + headerLength - 4;
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= buffer.get(keyStart + (i & 3));
+            }
+        }
+
+        return new Frame((b0 & 0x80) != 0, b0 & 0x0F, payload);
+    }
+
+    /**
+     * @return A fresh Sec-WebSocket-Key.
+     */
+    static String newKey(Random random) {
+        byte[] nonce = new byte[16];
+        random.nextBytes(nonce);
+
+        return base64(nonce);
+    }
+
+    /**
+     * @return The Sec-WebSocket-Accept the server must answer the given key with.
+     */
+    static String accept(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+
+            return base64(digest.digest((key + ACCEPT_GUID).getBytes(UTF8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    private static String base64(byte[] bytes) {
+        StringBuilder sb = new StringBuilder((bytes.length + 2) / 3 * 4);
+
+        for (int i = 0; i < bytes.length; i += 3) {
+            int b = (bytes[i] & 0xFF) << 16;
+            if (i + 1 < bytes.length) {
+                b |= (bytes[i + 1] & 0xFF) << 8;
+            }
+            if (i + 2 < bytes.length) {
+                b |= bytes[i + 2] & 0xFF;
+            }
+
+            sb.append(BASE64[(b >> 18) & 0x3F]);
+            sb.append(BASE64[(b >> 12) & 0x3F]);
+            sb.append(i + 1 < bytes.length ? BASE64[(b >> 6) & 0x3F] : '=');
+            sb.append(i + 2 < bytes.length ? BASE64[b & 0x3F] : '=');
+        }
+
+        return sb.toString();
+    }
+
+    static class Frame {
+
+        private final boolean fin;
+        private final int opcode;
+        private final byte[] payload;
+
+        Frame(boolean fin, int opcode, byte[] payload) {
+            this.fin = fin;
+            this.opcode = opcode;
+            this.payload = payload;
+        }
+
+        boolean isFin() {
+            return fin;
+        }
+
+        int getOpcode() {
+            return opcode;
+        }
+
+        byte[] getPayload() {
+            return payload;
+        }
+
+        String getText() {
+            return new String(payload, UTF8);
+        }
+    }
+}
@@ -3,50 +3,88 @@ package com.zipwhip.important;
 import com.zipwhip.concurrent.*;
 import com.zipwhip.events.Observer;
 import com.zipwhip.executors.SimpleExecutor;
-import com.zipwhip.important.schedulers.TimerScheduler;
+import com.zipwhip.important.schedulers.LockFreeWheelTimer;
 import com.zipwhip.lifecycle.CascadingDestroyableBase;
+import com.zipwhip.lifecycle.DestroyableBase;
+import com.zipwhip.timers.Timeout;
+import com.zipwhip.timers.Timer;
+import com.zipwhip.timers.TimerTask;
 import com.zipwhip.util.FutureDateUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
+import java.util.Date;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by IntelliJ IDEA.
  * User: Russ
  * Date: 8/29/12
  * Time: 11:53 AM
+ *
+ * By default timeouts are driven by a {@link LockFreeWheelTimer}: every ScheduledRequest holds its own Timeout
+ * handle, so there's no lookup on timeout and cancel is O(1). If you hand us a {@link Scheduler} (for example one
+ * that persists timeouts across restarts) we route timeouts through it by requestId instead.
  */
 public class ImportantTaskExecutor extends CascadingDestroyableBase {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ImportantTaskExecutor.class);
 
-    private final Map<String, ScheduledRequest> queuedRequests = Collections.synchronizedMap(new HashMap<String, ScheduledRequest>());
+    private final AtomicLong requestIds = new AtomicLong();
+
+    // Only used when timeouts are routed through a Scheduler.
+    private final Map<String, ScheduledRequest> queuedRequests = new ConcurrentHashMap<String, ScheduledRequest>();
 //    private final Set<String> executingRequests = Collections.synchronizedSet(new HashSet<String>());
 
     private Scheduler scheduler;
+    private Timer timer;
 
     private long timeout = 0;
     private TimeUnit units = TimeUnit.SECONDS;
 
     public ImportantTaskExecutor() {
-        this(null);
+        this((Timer) null);
     }
 
     public ImportantTaskExecutor(Scheduler scheduler) {
         if (scheduler == null){
-            TimerScheduler scheduler1 = new TimerScheduler((String)null);
-            this.setScheduler(scheduler1);
-            this.link(scheduler1);
+            this.setTimer(createDefaultTimer());
         } else {
             this.setScheduler(scheduler);
         }
     }
 
+    /**
+     * @param timer The timer that drives the timeouts. We don't stop it on destroy, since it might be shared.
+     */
+    public ImportantTaskExecutor(Timer timer) {
+        if (timer == null){
+            this.setTimer(createDefaultTimer());
+        } else {
+            this.setTimer(timer);
+        }
+    }
+
+    private Timer createDefaultTimer() {
+        final LockFreeWheelTimer timer = new LockFreeWheelTimer();
+
+        // since we created it, stop it when we get destroyed.
+        this.link(new DestroyableBase() {
+            @Override
+            protected void onDestroy() {
+                timer.stop();
+            }
+        });
+
+        return timer;
+    }
+
     public <T> ObservableFuture<T> enqueue(Executor executor, final Callable<ObservableFuture<T>> request) {
         return enqueue(executor, request, null);
     }
@@ -60,7 +98,7 @@ public class ImportantTaskExecutor extends CascadingDestroyableBase {
             executor = SimpleExecutor.getInstance();
         }
 
-        final String requestId = UUID.randomUUID().toString();
+        final long requestId = requestIds.incrementAndGet();
 
         // we're returning this value.
         final MutableObservableFuture<T> parentFuture = createObservableFuture(executor, request);
@@ -116,10 +154,6 @@ public class ImportantTaskExecutor extends CascadingDestroyableBase {
                                         if (requestFuture instanceof MutableObservableFuture) {
                                             NestedObservableFuture.syncState(parentFuture, (MutableObservableFuture)requestFuture);
                                         }
-
-                                        if (expirationDate != null) {
-                                            scheduler.cancel(requestId);
-                                        }
                                     }
                                 });
                             }
@@ -157,21 +191,48 @@ public class ImportantTaskExecutor extends CascadingDestroyableBase {
         return parentFuture;
     }
 
-    private <T> ScheduledRequest<T> createScheduledRequestIfExpiring(MutableObservableFuture<T> parentFuture, String requestId, Date expirationDate, Callable<ObservableFuture<T>> request) {
-        ScheduledRequest<T> scheduledRequest = null;
+    private <T> ScheduledRequest<T> createScheduledRequestIfExpiring(MutableObservableFuture<T> parentFuture, long requestId, Date expirationDate, Callable<ObservableFuture<T>> request) {
         expirationDate = getExpirationDate(expirationDate);
-        if (expirationDate != null) {
-            scheduledRequest = new ScheduledRequest<T>(requestId, request, parentFuture, expirationDate);
+        if (expirationDate == null) {
+            return null;
+        }
 
-            // in case it times out
-            queuedRequests.put(requestId, scheduledRequest);
+        final ScheduledRequest<T> scheduledRequest = new ScheduledRequest<T>(requestId, request, parentFuture, expirationDate);
 
-            scheduler.schedule(requestId, expirationDate);
+        // in case it times out
+        if (timer != null) {
+            scheduledRequest.setTimeout(timer.newTimeout(new TimerTask() {
+                @Override
+                public void run(Timeout timeout) throws Exception {
+                    onTimeout(scheduledRequest);
+                }
+            }, expirationDate.getTime() - System.currentTimeMillis(), TimeUnit.MILLISECONDS));
+        } else {
+            queuedRequests.put(scheduledRequest.getSchedulerKey(), scheduledRequest);
+            scheduler.schedule(scheduledRequest.getSchedulerKey(), expirationDate);
         }
 
+        // However it finishes, the timeout isn't needed anymore.
+        parentFuture.addObserver(new Observer<ObservableFuture<T>>() {
+            @Override
+            public void notify(Object sender, ObservableFuture<T> item) {
+                cancelTimeout(scheduledRequest);
+            }
+        });
+
         return scheduledRequest;
     }
 
+    private void cancelTimeout(ScheduledRequest<?> scheduledRequest) {
+        Timeout timeout = scheduledRequest.getTimeout();
+
+        if (timeout != null) {
+            timeout.cancel();
+        } else if (queuedRequests.remove(scheduledRequest.getSchedulerKey()) != null) {
+            scheduler.cancel(scheduledRequest.getSchedulerKey());
+        }
+    }
+
     private Date getExpirationDate(Date expirationDate) {
         if (expirationDate == null) {
             if (timeout != 0) {
@@ -185,45 +246,40 @@ public class ImportantTaskExecutor extends CascadingDestroyableBase {
 
         @Override
         public void notify(Object sender, String requestId) {
-            if (!queuedRequests.containsKey(requestId)) {
-                return; // wasn't our timer
+            ScheduledRequest scheduledRequest = queuedRequests.remove(requestId);
+            if (scheduledRequest == null) {
+                return; // wasn't our timer (or it was already finished)
             }
 
-            synchronized (ImportantTaskExecutor.this) {
-                if (isDestroyed()) {
-                    LOGGER.error("We were destroyed, but the onTimerScheduleComplete hit. Did you forget to shut down the executor?");
-                    return;
-                }
-            }
+            onTimeout(scheduledRequest);
+        }
+    };
 
-            ScheduledRequest scheduledRequest = queuedRequests.get(requestId);
-            if (scheduledRequest == null) {
-                // must be a reboot of the service.
-                LOGGER.warn("The timeout hit on request, though it was not found in the store: " + requestId);
+    private void onTimeout(ScheduledRequest<?> scheduledRequest) {
+        synchronized (this) {
+            if (isDestroyed()) {
+                LOGGER.error("We were destroyed, but the timeout hit. Did you forget to shut down the executor?");
                 return;
             }
+        }
 
-//            Callable<ObservableFuture<?>> request = scheduledRequest.getRequest();
-            Date expirationDate = scheduledRequest.getExpirationDate();
-            if (expirationDate != null && nowIsAfterThisDate(expirationDate)) {
-                queuedRequests.remove(scheduledRequest.getRequestId());
-
-                // was the initial future even finished yet?
-                ObservableFuture f = scheduledRequest.getRequestFuture();
-                if (f == null) {
-                    // it took too long to even make the request. Wow.
-                    scheduledRequest.getParentFuture().setFailure(new TimeoutException("Too late? " + expirationDate));
-                } else {
-                    // it just simply timed out normally
-                    if (scheduledRequest.getRequestFuture() instanceof MutableObservableFuture) {
-                        ((MutableObservableFuture<?>)scheduledRequest.getRequestFuture()).setFailure(new TimeoutException("Too late? " + expirationDate));
-                    }
-                }
+        Date expirationDate = scheduledRequest.getExpirationDate();
+        if (expirationDate != null && nowIsAfterThisDate(expirationDate)) {
+            // was the initial future even finished yet?
+            ObservableFuture f = scheduledRequest.getRequestFuture();
+            if (f == null) {
+                // it took too long to even make the request. Wow.
+                scheduledRequest.getParentFuture().setFailure(new TimeoutException("Too late? " + expirationDate));
             } else {
-                LOGGER.warn(String.format("The expiration was too early?!?!! expires: %s", expirationDate));
+                // it just simply timed out normally
+                if (scheduledRequest.getRequestFuture() instanceof MutableObservableFuture) {
+                    ((MutableObservableFuture<?>)scheduledRequest.getRequestFuture()).setFailure(new TimeoutException("Too late? " + expirationDate));
+                }
             }
+        } else {
+            LOGGER.warn(String.format("The expiration was too early?!?!! expires: %s", expirationDate));
         }
-    };
+    }
 
     private boolean nowIsAfterThisDate(Date date) {
         if (date == null) {
@@ -248,11 +304,29 @@ public class ImportantTaskExecutor extends CascadingDestroyableBase {
         return scheduler;
     }
 
+    public Timer getTimer() {
+        return timer;
+    }
+
+    /**
+     * Drive the timeouts directly from this timer, with no Scheduler in between.
+     */
+    public void setTimer(Timer timer) {
+        if (this.scheduler != null) {
+            this.scheduler.removeOnScheduleComplete(onTimerScheduleComplete);
+            this.scheduler = null;
+        }
+
+        this.timer = timer;
+    }
+
     public void setScheduler(Scheduler scheduler) {
         if (this.scheduler != null) {
             this.scheduler.removeOnScheduleComplete(onTimerScheduleComplete);
         }
 
+        this.timer = null;
+
         this.scheduler = new ScopedScheduler(scheduler) {
             @Override
             public String toString() {
@@ -281,12 +355,13 @@ public class ImportantTaskExecutor extends CascadingDestroyableBase {
 
         private final Callable<ObservableFuture<T>> request;
         private final MutableObservableFuture<T> parentFuture;
-        private final String requestId;
+        private final long requestId;
         private final Date expirationDate;
 
-        private ObservableFuture<T> requestFuture;
+        private volatile ObservableFuture<T> requestFuture;
+        private volatile Timeout timeout;
 
-        public ScheduledRequest(String requestId, Callable<ObservableFuture<T>> request, MutableObservableFuture<T> parentFuture, Date expirationDate) {
+        public ScheduledRequest(long requestId, Callable<ObservableFuture<T>> request, MutableObservableFuture<T> parentFuture, Date expirationDate) {
             this.requestId = requestId;
             this.parentFuture = parentFuture;
             this.request = request;
@@ -313,9 +388,24 @@ public class ImportantTaskExecutor extends CascadingDestroyableBase {
             return expirationDate;
         }
 
-        public String getRequestId() {
+        public long getRequestId() {
             return requestId;
         }
+
+        /**
+         * @return the key this request is known by when the timeouts go through a Scheduler.
+         */
+        public String getSchedulerKey() {
+            return Long.toString(requestId);
+        }
+
+        public Timeout getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Timeout timeout) {
+            this.timeout = timeout;
+        }
     }
 
     @Override
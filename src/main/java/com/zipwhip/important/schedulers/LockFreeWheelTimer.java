@@ -0,0 +1,409 @@
+package com.zipwhip.important.schedulers;
+
+import com.zipwhip.executors.NamedThreadFactory;
+import com.zipwhip.timers.Timeout;
+import com.zipwhip.timers.Timer;
+import com.zipwhip.timers.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed wheel Timer that never takes a lock on the caller's thread.
+ *
+ * newTimeout() only allocates the Timeout and offers it to a lock-free inbox. cancel() is a single CAS plus an offer.
+ * One worker thread owns the wheel: every tick it moves new timeouts into their buckets, unlinks cancelled ones
+ * (each Timeout knows its own bucket, so that's O(1)) and runs whatever expired.
+ *
+ * Every Timeout is the direct handle for its own cancellation, so callers don't need a map from id to timeout.
+ * Tasks run on the worker thread, so they should be quick.
+ */
+public class LockFreeWheelTimer implements Timer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LockFreeWheelTimer.class);
+
+    private static final int WORKER_INIT = 0;
+    private static final int WORKER_STARTED = 1;
+    private static final int WORKER_SHUTDOWN = 2;
+
+    // Don't let a flood of new timeouts starve the expiration of the current tick.
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicInteger workerState = new AtomicInteger(WORKER_INIT);
+    private final ConcurrentLinkedQueue<WheelTimeout> newTimeouts = new ConcurrentLinkedQueue<WheelTimeout>();
+    private final ConcurrentLinkedQueue<WheelTimeout> cancelledTimeouts = new ConcurrentLinkedQueue<WheelTimeout>();
+
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long tickNanos;
+    private final Thread workerThread;
+
+    private volatile long startTime;
+    private volatile Set<Timeout> unprocessedTimeouts;
+
+    public LockFreeWheelTimer() {
+        this(new NamedThreadFactory("LockFreeWheelTimer-"), 10, TimeUnit.MILLISECONDS, 512);
+    }
+
+    public LockFreeWheelTimer(ThreadFactory threadFactory, long tickDuration, TimeUnit unit) {
+        this(threadFactory, tickDuration, unit, 512);
+    }
+
+    public LockFreeWheelTimer(ThreadFactory threadFactory, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (threadFactory == null) {
+            throw new NullPointerException("threadFactory");
+        } else if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be positive");
+        } else if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+            throw new IllegalArgumentException("ticksPerWheel must be between 1 and 2^30");
+        }
+
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+
+        this.mask = size - 1;
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.workerThread = threadFactory.newThread(new Worker());
+        this.workerThread.setDaemon(true);
+    }
+
+    @Override
+    public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        } else if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+
+        start();
+
+        long deadline = System.nanoTime() + unit.toNanos(delay) - startTime;
+        WheelTimeout timeout = new WheelTimeout(this, ids.incrementAndGet(), task, deadline);
+
+        newTimeouts.offer(timeout);
+
+        return timeout;
+    }
+
+    @Override
+    public Set<Timeout> stop() {
+        if (Thread.currentThread() == workerThread) {
+            throw new IllegalStateException("stop() cannot be called from a TimerTask");
+        }
+
+        if (!workerState.compareAndSet(WORKER_STARTED, WORKER_SHUTDOWN)) {
+            // never started (or already stopped). Either way, there's no worker to wait for.
+            workerState.set(WORKER_SHUTDOWN);
+
+            Set<Timeout> unprocessed = unprocessedTimeouts;
+            return unprocessed == null ? Collections.<Timeout>emptySet() : unprocessed;
+        }
+
+        boolean interrupted = false;
+        while (workerThread.isAlive()) {
+            LockSupport.unpark(workerThread);
+            try {
+                workerThread.join(100);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        return unprocessedTimeouts;
+    }
+
+    /**
+     * @return the number of timeouts that have been created, also the last id that was handed out.
+     */
+    public long getCreatedCount() {
+        return ids.get();
+    }
+
+    private void start() {
+        switch (workerState.get()) {
+            case WORKER_INIT:
+                if (workerState.compareAndSet(WORKER_INIT, WORKER_STARTED)) {
+                    long now = System.nanoTime();
+                    // zero means "not started yet"
+                    startTime = now == 0 ? 1 : now;
+                    workerThread.start();
+                }
+                break;
+            case WORKER_STARTED:
+                break;
+            default:
+                throw new IllegalStateException("Cannot add a timeout after the timer was stopped");
+        }
+
+        // someone else might have won the race, wait for them to publish the start time
+        while (startTime == 0) {
+            Thread.yield();
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        private long tick;
+
+        @Override
+        public void run() {
+            while (workerState.get() == WORKER_STARTED) {
+                long deadline = waitForNextTick();
+                if (deadline < 0) {
+                    break;
+                }
+
+                processCancelled();
+                transferNewTimeouts();
+                wheel[(int) (tick & mask)].expire(deadline);
+                tick++;
+            }
+
+            Set<Timeout> unprocessed = new HashSet<Timeout>();
+            for (Bucket bucket : wheel) {
+                bucket.drainTo(unprocessed);
+            }
+
+            WheelTimeout timeout = newTimeouts.poll();
+            while (timeout != null) {
+                if (!timeout.isCancelled()) {
+                    unprocessed.add(timeout);
+                }
+                timeout = newTimeouts.poll();
+            }
+
+            unprocessedTimeouts = Collections.unmodifiableSet(unprocessed);
+        }
+
+        /**
+         * @return the deadline of this tick (relative to startTime), or -1 if we were stopped while waiting.
+         */
+        private long waitForNextTick() {
+            long deadline = tickNanos * (tick + 1);
+
+            while (true) {
+                long remaining = deadline - (System.nanoTime() - startTime);
+                if (remaining <= 0) {
+                    return deadline;
+                }
+
+                LockSupport.parkNanos(LockFreeWheelTimer.this, remaining);
+
+                if (workerState.get() != WORKER_STARTED) {
+                    return -1;
+                }
+            }
+        }
+
+        private void transferNewTimeouts() {
+            for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+                WheelTimeout timeout = newTimeouts.poll();
+                if (timeout == null) {
+                    break;
+                } else if (timeout.isCancelled()) {
+                    continue;
+                }
+
+                long calculated = timeout.deadline / tickNanos;
+                timeout.remainingRounds = (calculated - tick) / wheel.length;
+
+                // don't schedule into the past, the current tick is the earliest we can do
+                long ticks = Math.max(calculated, tick);
+                wheel[(int) (ticks & mask)].add(timeout);
+            }
+        }
+
+        private void processCancelled() {
+            WheelTimeout timeout = cancelledTimeouts.poll();
+            while (timeout != null) {
+                Bucket bucket = timeout.bucket;
+                if (bucket != null) {
+                    bucket.remove(timeout);
+                }
+                timeout = cancelledTimeouts.poll();
+            }
+        }
+    }
+
+    /**
+     * A doubly linked list of timeouts. Only ever touched by the worker thread.
+     */
+    private static class Bucket {
+
+        private WheelTimeout head;
+        private WheelTimeout tail;
+
+        void add(WheelTimeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire(long deadline) {
+            WheelTimeout timeout = head;
+
+            while (timeout != null) {
+                WheelTimeout next = timeout.next;
+
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    if (timeout.deadline <= deadline) {
+                        timeout.expire();
+                    } else {
+                        // can't happen unless the wheel math is broken
+                        LOGGER.error(String.format("Timeout %s was placed into the wrong bucket (deadline %d > %d)", timeout, timeout.deadline, deadline));
+                    }
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+
+                timeout = next;
+            }
+        }
+
+        void remove(WheelTimeout timeout) {
+            if (timeout.bucket != this) {
+                // already removed (expired, or processed twice)
+                return;
+            }
+
+            WheelTimeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+
+            if (timeout == head) {
+                if (timeout == tail) {
+                    head = tail = null;
+                } else {
+                    head = next;
+                }
+            } else if (timeout == tail) {
+                tail = timeout.prev;
+            }
+
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void drainTo(Set<Timeout> set) {
+            WheelTimeout timeout = head;
+            while (timeout != null) {
+                WheelTimeout next = timeout.next;
+                if (!timeout.isCancelled() && !timeout.isExpired()) {
+                    set.add(timeout);
+                }
+                remove(timeout);
+                timeout = next;
+            }
+        }
+    }
+
+    private static final class WheelTimeout implements Timeout {
+
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<WheelTimeout> STATE_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(WheelTimeout.class, "state");
+
+        private final LockFreeWheelTimer timer;
+        private final long id;
+        private final TimerTask task;
+        private final long deadline;
+
+        private volatile int state = ST_INIT;
+
+        // owned by the worker thread
+        private long remainingRounds;
+        private WheelTimeout next;
+        private WheelTimeout prev;
+        private Bucket bucket;
+
+        private WheelTimeout(LockFreeWheelTimer timer, long id, TimerTask task, long deadline) {
+            this.timer = timer;
+            this.id = id;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public Timer getTimer() {
+            return timer;
+        }
+
+        @Override
+        public TimerTask getTask() {
+            return task;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state == ST_EXPIRED;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == ST_CANCELLED;
+        }
+
+        @Override
+        public void cancel() {
+            if (STATE_UPDATER.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+                // let the worker unlink it on its next tick. If it's still in the inbox it will be skipped there.
+                timer.cancelledTimeouts.offer(this);
+            }
+        }
+
+        private void expire() {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+
+            try {
+                task.run(this);
+            } catch (Throwable t) {
+                LOGGER.warn(String.format("An exception was thrown by %s", task), t);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[WheelTimeout: %d %s]", id, task);
+        }
+    }
+}
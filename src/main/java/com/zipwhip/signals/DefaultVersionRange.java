@@ -318,6 +318,27 @@ public class DefaultVersionRange implements VersionRange {
         return value.getLong();
     }
 
+    @Override
+    public synchronized Long getHighestContiguousVersion() {
+        if (CollectionUtil.isNullOrEmpty(list)) {
+            return null;
+        }
+
+        // The trimmed flags stand in for the values that autoPruneSignalList removed between two neighbors.
+        Value current = list.get(0);
+        for (int index = 1; index < list.size(); index++) {
+            Value next = list.get(index);
+
+            if (!(current.isTrimmedToRight() || next.isTrimmedToLeft() || isToTheRight(next, current))) {
+                break;
+            }
+
+            current = next;
+        }
+
+        return current.getLong();
+    }
+
     @Override
     public List<HoleRange> takeHoles() {
         // Get the current holes.
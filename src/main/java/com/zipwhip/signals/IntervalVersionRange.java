@@ -0,0 +1,289 @@
+package com.zipwhip.signals;
+
+import com.zipwhip.concurrent.HoleRange;
+import com.zipwhip.events.Observable;
+import com.zipwhip.events.ObservableHelper;
+import com.zipwhip.executors.SimpleExecutor;
+import com.zipwhip.timers.Timer;
+import com.zipwhip.util.BufferedRunnable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A VersionRange that stores the versions it has seen as runs of consecutive versions ([1-40], [42-97], ...) in
+ * two sorted primitive arrays. The holes are simply the spaces between the runs.
+ *
+ * Memory is two longs per run, so it grows with the number of holes and not their width: a jump from version 1 to
+ * 1,000,000 is one more run and one hole, where {@link DefaultVersionRange} would track 999,998 boxed Longs.
+ * Finding the run for a version is a binary search. In order versions just extend the last run. Opening or closing
+ * a hole moves the runs above it down or up one slot.
+ *
+ * Holes are reported the same way as DefaultVersionRange: buffered for a while (so late arrivals can fill them),
+ * then each one that is still open is handed out once, as a single HoleRange for the whole gap.
+ */
+public class IntervalVersionRange implements VersionRange {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IntervalVersionRange.class);
+
+    protected static final int DEFAULT_HOLE_NOTIFY_TIMEOUT = 3;
+    protected static final int DEFAULT_MAX_RANGE = 50;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final ObservableHelper<HoleRange> holeDetectedEvent =
+            new ObservableHelper<HoleRange>("IntervalVersionRange/HoleEvent", SimpleExecutor.getInstance());
+
+    private final ObservableHelper<Long> resetDetectedEvent =
+            new ObservableHelper<Long>("IntervalVersionRange/ResetEvent", SimpleExecutor.getInstance());
+
+    private final BufferedRunnable holeDetectedEventRunnable;
+
+    private String key;
+
+    // The runs, sorted and never touching: ends[i] + 1 < starts[i + 1].
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private long[] ends = new long[INITIAL_CAPACITY];
+    private int size;
+
+    // The holes that takeHoles() already handed out, in the same layout. Only what is still missing is reported.
+    private long[] reportedStarts = new long[0];
+    private long[] reportedEnds = new long[0];
+    private int reportedSize;
+
+    public IntervalVersionRange(Timer timer, String key) {
+        this(timer);
+        this.key = key;
+    }
+
+    public IntervalVersionRange(Timer timer) {
+        this(timer, DEFAULT_HOLE_NOTIFY_TIMEOUT, TimeUnit.SECONDS);
+    }
+
+    public IntervalVersionRange(Timer timer, int notifyHoleTimeout, TimeUnit timeUnit) {
+        this.holeDetectedEventRunnable = new BufferedRunnable(timer, notifyHoles, notifyHoleTimeout, timeUnit);
+    }
+
+    @Override
+    public synchronized boolean add(long version) {
+        // The last run that starts at or below this version.
+        int index = floor(version);
+
+        if (index >= 0 && version <= ends[index]) {
+            return false;
+        }
+
+        if (size > 0 && version < starts[0] && version + DEFAULT_MAX_RANGE < ends[size - 1]) {
+            // Far below anything we have seen, and not filling a hole we know about.
+            LOGGER.warn("Received much lower version, must have been a version reset!");
+
+            clear();
+            insert(0, version, version);
+
+            resetDetectedEvent.notifyObservers(this, version);
+
+            return true;
+        }
+
+        boolean joinsLeft = index >= 0 && ends[index] + 1 == version;
+        boolean joinsRight = index + 1 < size && starts[index + 1] - 1 == version;
+
+        if (joinsLeft && joinsRight) {
+            // Closed a hole: the two runs become one.
+            ends[index] = ends[index + 1];
+            remove(index + 1);
+        } else if (joinsLeft) {
+            ends[index] = version;
+        } else if (joinsRight) {
+            starts[index + 1] = version;
+        } else {
+            insert(index + 1, version, version);
+
+            if (size > 1) {
+                // A new run means a new hole (filling one in part never uncovers anything unreported).
+                holeDetectedEventRunnable.run();
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public synchronized List<HoleRange> takeHoles() {
+        List<HoleRange> result = new ArrayList<HoleRange>();
+
+        // Both lists are sorted, so one pass subtracts what was already reported from each hole.
+        int reported = 0;
+        for (int index = 0; index + 1 < size; index++) {
+            long start = ends[index] + 1;
+            long end = starts[index + 1] - 1;
+
+            while (reported < reportedSize && reportedEnds[reported] < start) {
+                reported++;
+            }
+
+            for (int r = reported; r < reportedSize && reportedStarts[r] <= end; r++) {
+                if (reportedStarts[r] > start) {
+                    result.add(new HoleRange(key, start, reportedStarts[r] - 1));
+                }
+
+                start = Math.max(start, reportedEnds[r] + 1);
+            }
+
+            if (start <= end) {
+                result.add(new HoleRange(key, start, end));
+            }
+        }
+
+        // Everything open now has been reported. Anything reported before that is no longer open was filled.
+        int holes = Math.max(0, size - 1);
+        reportedStarts = new long[holes];
+        reportedEnds = new long[holes];
+        reportedSize = holes;
+
+        for (int index = 0; index < holes; index++) {
+            reportedStarts[index] = ends[index] + 1;
+            reportedEnds[index] = starts[index + 1] - 1;
+        }
+
+        return result;
+    }
+
+    /**
+     * @return every hole that is open right now, whether or not it was reported yet.
+     */
+    public synchronized List<HoleRange> getHoles() {
+        List<HoleRange> result = new ArrayList<HoleRange>(Math.max(0, size - 1));
+
+        for (int index = 0; index + 1 < size; index++) {
+            result.add(new HoleRange(key, ends[index] + 1, starts[index + 1] - 1));
+        }
+
+        return result;
+    }
+
+    public synchronized boolean contains(long version) {
+        int index = floor(version);
+
+        return index >= 0 && version <= ends[index];
+    }
+
+    /**
+     * @return the number of runs of consecutive versions, which is one more than the number of holes.
+     */
+    public synchronized int getRunCount() {
+        return size;
+    }
+
+    @Override
+    public synchronized Long getHighestVersion() {
+        if (size == 0) {
+            return null;
+        }
+
+        return ends[size - 1];
+    }
+
+    @Override
+    public synchronized Long getHighestContiguousVersion() {
+        if (size == 0) {
+            return null;
+        }
+
+        return ends[0];
+    }
+
+    @Override
+    public Observable<HoleRange> getHoleDetectedEvent() {
+        return holeDetectedEvent;
+    }
+
+    @Override
+    public Observable<Long> getResetDetectedEvent() {
+        return resetDetectedEvent;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    private final Runnable notifyHoles = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (IntervalVersionRange.this) {
+                for (HoleRange hole : takeHoles()) {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug(String.format("Notify holes. Start: %d, End: %d", hole.getStart(), hole.getEnd()));
+                    }
+
+                    holeDetectedEvent.notifyObservers(IntervalVersionRange.this, hole);
+                }
+            }
+        }
+    };
+
+    /**
+     * @return the index of the last run that starts at or below this version, or -1 if there is none.
+     */
+    private int floor(long version) {
+        // In order versions land on the last run, so check it before searching.
+        if (size == 0 || version < starts[0]) {
+            return -1;
+        } else if (version >= starts[size - 1]) {
+            return size - 1;
+        }
+
+        int low = 0;
+        int high = size - 1;
+
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+
+            if (starts[middle] <= version) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+
+    private void insert(int index, long start, long end) {
+        if (size == starts.length) {
+            long[] newStarts = new long[size * 2];
+            long[] newEnds = new long[size * 2];
+
+            System.arraycopy(starts, 0, newStarts, 0, size);
+            System.arraycopy(ends, 0, newEnds, 0, size);
+
+            starts = newStarts;
+            ends = newEnds;
+        }
+
+        System.arraycopy(starts, index, starts, index + 1, size - index);
+        System.arraycopy(ends, index, ends, index + 1, size - index);
+
+        starts[index] = start;
+        ends[index] = end;
+        size++;
+    }
+
+    private void remove(int index) {
+        System.arraycopy(starts, index + 1, starts, index, size - index - 1);
+        System.arraycopy(ends, index + 1, ends, index, size - index - 1);
+        size--;
+    }
+
+    private void clear() {
+        size = 0;
+        reportedSize = 0;
+    }
+}
@@ -0,0 +1,147 @@
+package com.zipwhip.signals;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts values (latencies, say in microseconds) in log-linear buckets, the way HdrHistogram does, so the memory is
+ * fixed up front however many values are recorded and the percentiles come out within a known relative error.
+ *
+ * Values below 2^precisionBits get a bucket each. Above that, every power of two is split into 2^(precisionBits - 1)
+ * buckets, so a value is reported at most 1 / 2^(precisionBits - 1) above what was recorded (7 bits: under 1.6%).
+ * Values above highestTrackableValue are counted in the last bucket, but the max is kept exactly.
+ *
+ * record() is lock free and safe from any thread. The readings are not a consistent snapshot while values are
+ * being recorded, which is fine for reporting.
+ */
+public class LatencyHistogram {
+
+    public static final int DEFAULT_PRECISION_BITS = 7;
+
+    private final long highestTrackableValue;
+    private final int subBucketBits;
+    private final int subBucketCount;
+    private final int subBucketHalfCount;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalValue = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public LatencyHistogram(long highestTrackableValue, int precisionBits) {
+        if (precisionBits < 2 || precisionBits > 20) {
+            throw new IllegalArgumentException("precisionBits must be between 2 and 20");
+        } else if (highestTrackableValue < (1L << precisionBits)) {
+            throw new IllegalArgumentException("highestTrackableValue must be at least 2^precisionBits");
+        }
+
+        this.highestTrackableValue = highestTrackableValue;
+        this.subBucketBits = precisionBits;
+        this.subBucketCount = 1 << precisionBits;
+        this.subBucketHalfCount = subBucketCount >> 1;
+        this.counts = new AtomicLongArray(indexOf(highestTrackableValue) + 1);
+    }
+
+    public LatencyHistogram(long highestTrackableValue) {
+        this(highestTrackableValue, DEFAULT_PRECISION_BITS);
+    }
+
+    /**
+     * @param value a negative value (a clock that went back) is counted as 0.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        counts.incrementAndGet(indexOf(Math.min(value, highestTrackableValue)));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(value);
+
+        long max = maxValue.get();
+        while (value > max && !maxValue.compareAndSet(max, value)) {
+            max = maxValue.get();
+        }
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        long count = totalCount.get();
+
+        return count == 0 ? 0 : (double) totalValue.get() / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100.
+     * @return the highest value that falls in the same bucket as the value at this percentile, or 0 if nothing was
+     *         recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+        long seen = 0;
+
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+
+            if (seen >= target) {
+                // The last bucket also holds the values above highestTrackableValue.
+                return i == counts.length() - 1 ? getMax() : Math.min(highestValueAt(i), getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * @return the bytes held by the buckets, which does not change as values are recorded.
+     */
+    public long getSizeInBytes() {
+        return counts.length() * 8L;
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+
+        totalCount.set(0);
+        totalValue.set(0);
+        maxValue.set(0);
+    }
+
+    private int indexOf(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+
+        // Keep the top subBucketBits bits of the value. The shift is how many were dropped.
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (subBucketBits - 1);
+        int subBucket = (int) (value >>> shift);
+
+        return shift * subBucketHalfCount + subBucket;
+    }
+
+    private long highestValueAt(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+
+        int shift = index / subBucketHalfCount - 1;
+        long subBucket = index - shift * subBucketHalfCount;
+
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,183 @@
+package com.zipwhip.signals;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the ids seen in a recent window of time, in a fixed amount of memory.
+ *
+ * The window is split into buckets, each a bloom filter for the ids added during its slice of time. An id is looked
+ * up in every bucket still in the window, and added to the current one. When the current bucket's slice is over it
+ * moves on to the next bucket, clearing it, so an id is remembered for at least (window - window / buckets) and at
+ * most window.
+ *
+ * Like any bloom filter it can say an id was seen when it was not (a false positive), never the other way around.
+ * The buckets are sized so that, with up to expectedIds / buckets ids in each, the chance of a false positive is
+ * about falsePositiveRate. A bucket that fills up before its slice is over moves on early rather than let the rate
+ * climb, so a burst above expectedIds shortens how long the ids are remembered instead (see
+ * {@link #getEarlyRotationCount()}). Memory is about 1.44 * log2(buckets / falsePositiveRate) bits per expected id,
+ * whatever the traffic: 10,000 ids at a rate of one in a million take about 40KB.
+ */
+public class TimeBucketedBloomFilter {
+
+    public static final int DEFAULT_BUCKETS = 4;
+
+    private final long[][] bits;
+    // When each bucket was started, and how many ids it holds.
+    private final long[] starts;
+    private final int[] counts;
+    private final long bitCount;
+    private final int hashCount;
+    private final int idsPerBucket;
+    private final long bucketMillis;
+    private final long windowMillis;
+
+    private int current;
+    private long earlyRotationCount;
+
+    public TimeBucketedBloomFilter(long window, TimeUnit timeUnit, int expectedIds, double falsePositiveRate) {
+        this(window, timeUnit, expectedIds, falsePositiveRate, DEFAULT_BUCKETS);
+    }
+
+    public TimeBucketedBloomFilter(long window, TimeUnit timeUnit, int expectedIds, double falsePositiveRate, int buckets) {
+        if (buckets <= 0 || expectedIds <= 0) {
+            throw new IllegalArgumentException("buckets and expectedIds must be positive");
+        } else if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+
+        this.bucketMillis = Math.max(1, timeUnit.toMillis(window) / buckets);
+        this.windowMillis = bucketMillis * buckets;
+
+        // A lookup checks every bucket, so each one gets its share of the rate.
+        double bucketRate = falsePositiveRate / buckets;
+        this.idsPerBucket = Math.max(1, (int) Math.ceil((double) expectedIds / buckets));
+        long optimalBits = (long) Math.ceil(-idsPerBucket * Math.log(bucketRate) / (Math.log(2) * Math.log(2)));
+
+        // Round up to whole longs.
+        this.bitCount = Math.max(64, (optimalBits + 63) & ~63L);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / idsPerBucket * Math.log(2)));
+
+        this.bits = new long[buckets][(int) (bitCount >>> 6)];
+        this.starts = new long[buckets];
+        this.counts = new int[buckets];
+
+        for (int i = 0; i < buckets; i++) {
+            starts[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Look for this id in the window, and remember it in the current bucket.
+     *
+     * @return true if it was (probably) seen before, false if it is certainly new.
+     */
+    public synchronized boolean checkAndAdd(String id) {
+        long now = now();
+
+        if (starts[current] == Long.MIN_VALUE || now - starts[current] >= bucketMillis) {
+            rotate(now);
+        } else if (counts[current] >= idsPerBucket) {
+            earlyRotationCount++;
+            rotate(now);
+        }
+
+        long hash1 = hash(id);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+
+        boolean seen = false;
+        for (int bucket = 0; bucket < bits.length && !seen; bucket++) {
+            if (starts[bucket] != Long.MIN_VALUE && now - starts[bucket] < windowMillis) {
+                seen = contains(bits[bucket], hash1, hash2);
+            }
+        }
+
+        if (!seen) {
+            add(bits[current], hash1, hash2);
+            counts[current]++;
+        }
+
+        return seen;
+    }
+
+    /**
+     * @return the memory held by the bits, in bytes.
+     */
+    public long getSizeInBytes() {
+        return bits.length * (bitCount >>> 3);
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * @return how many times a bucket filled up before its slice of time was over. If this keeps going up, the ids
+     *         are coming faster than expectedIds per window and are remembered for less than the window.
+     */
+    public synchronized long getEarlyRotationCount() {
+        return earlyRotationCount;
+    }
+
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    private void rotate(long now) {
+        // The next bucket holds the oldest slice, which is leaving the window (or already has).
+        current = (current + 1) % bits.length;
+
+        Arrays.fill(bits[current], 0L);
+        starts[current] = now;
+        counts[current] = 0;
+    }
+
+    private boolean contains(long[] words, long hash1, long hash2) {
+        long hash = hash1;
+
+        for (int i = 0; i < hashCount; i++) {
+            long index = (hash & Long.MAX_VALUE) % bitCount;
+
+            if ((words[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+
+            hash += hash2;
+        }
+
+        return true;
+    }
+
+    private void add(long[] words, long hash1, long hash2) {
+        long hash = hash1;
+
+        for (int i = 0; i < hashCount; i++) {
+            long index = (hash & Long.MAX_VALUE) % bitCount;
+
+            words[(int) (index >>> 6)] |= 1L << index;
+            hash += hash2;
+        }
+    }
+
+    private static long hash(String id) {
+        // FNV-1a over the chars, then mixed so that similar ids land far apart.
+        long hash = 0xcbf29ce484222325L;
+
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+}
@@ -22,6 +22,9 @@ public interface VersionRange {
     // Track the latest
     Long getHighestVersion();
 
+    // The highest version with nothing missing between it and the first version seen
+    Long getHighestContiguousVersion();
+
     // Notifies when holes are detected
     Observable<HoleRange> getHoleDetectedEvent();
 
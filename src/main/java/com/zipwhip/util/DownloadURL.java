@@ -1,83 +1,52 @@
 package com.zipwhip.util;
 
-//------------------------------------------------------------//
-//  DnldURL.java:                                             //
-//------------------------------------------------------------//
-//  A Java program that demonstrates a procedure that can be  //
-//  used to download the contents of a specified URL.         //
-//------------------------------------------------------------//
-//  Code created by Developer's Daily                         //
-//  http://www.DevDaily.com                                   //
-//------------------------------------------------------------//
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedInputStream;
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
-
+import java.net.URLConnection;
+
+/**
+ * Downloads the contents of a URL into a String.
+ * <p/>
+ * The body is decoded with the charset from the Content-Type header (UTF-8 if there is none) and copied in
+ * chunks into one StringBuilder, so the cost is linear in the size of the response. Line breaks are kept.
+ */
 public class DownloadURL {
 
     private static Logger LOGGER = LoggerFactory.getLogger(DownloadURL.class);
 
     public static String get(String url) throws Exception {
-        String result = "";
-        //-----------------------------------------------------//
-        //  Step 1:  Start creating a few objects we'll need.
-        //-----------------------------------------------------//
-
-        URL u;
         InputStream is = null;
-        DataInputStream dis;
-        String s;
 
         try {
+            URLConnection connection = new URL(url).openConnection();
+
+            HttpUtil.checkStatus(connection);
+
+            is = connection.getInputStream();
+
+            int contentLength = connection.getContentLength();
+            StringBuilder result = new StringBuilder(contentLength > 0 ? contentLength : 8192);
+
+            Reader reader = new InputStreamReader(is, HttpUtil.getCharset(connection.getContentType()));
 
-            //------------------------------------------------------------//
-            // Step 2:  Create the URL.                                   //
-            //------------------------------------------------------------//
-            // Note: Put your real URL here, or better yet, read it as a  //
-            // command-line arg, or read it from a file.                  //
-            //------------------------------------------------------------//
-
-            u = new URL(url);
-
-            //----------------------------------------------//
-            // Step 3:  Open an input stream from the url.  //
-            //----------------------------------------------//
-
-            is = u.openStream();         // throws an IOException
-
-            //-------------------------------------------------------------//
-            // Step 4:                                                     //
-            //-------------------------------------------------------------//
-            // Convert the InputStream to a buffered DataInputStream.      //
-            // Buffering the stream makes the reading faster; the          //
-            // readLine() method of the DataInputStream makes the reading  //
-            // easier.                                                     //
-            //-------------------------------------------------------------//
-
-            dis = new DataInputStream(new BufferedInputStream(is));
-
-            //------------------------------------------------------------//
-            // Step 5:                                                    //
-            //------------------------------------------------------------//
-            // Now just read each record of the input stream, and print   //
-            // it out.  Note that it's assumed that this problem is run   //
-            // from a command-line, not from an application or applet.    //
-            //------------------------------------------------------------//
-            while ((s = dis.readLine()) != null) {
-                result += s;
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                result.append(buffer, 0, read);
             }
 
+            return result.toString();
+
         } catch (MalformedURLException mue) {
 
             LOGGER.error("Ouch - a MalformedURLException happened.", mue);
-            mue.printStackTrace();
             throw mue;
 
         } catch (IOException ioe) {
@@ -86,11 +55,6 @@ public class DownloadURL {
             throw ioe;
 
         } finally {
-
-            //---------------------------------//
-            // Step 6:  Close the InputStream  //
-            //---------------------------------//
-
             try {
                 if (is != null) {
                     is.close();
@@ -98,10 +62,6 @@ public class DownloadURL {
             } catch (IOException ioe) {
                 // just going to ignore this one
             }
-
-        } // end of 'finally' clause
-
-        return result;
-    }  // end of main
-} // end of class definition
-
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.zipwhip.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+
+/**
+ * What every reader of a URLConnection response needs: the status check and the charset of the body.
+ */
+public class HttpUtil {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpUtil.class);
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final ThreadLocal<byte[]> BUFFERS = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[8192];
+        }
+    };
+
+    /**
+     * Fail on an error status. The error body is read first, otherwise the socket can't go back to the keep-alive
+     * pool.
+     *
+     * @param connection The connection, before its input stream is read. Anything that is not HTTP passes.
+     * @throws IOException With the status and message, if the status is 400 or above.
+     */
+    public static void checkStatus(URLConnection connection) throws IOException {
+        if (!(connection instanceof HttpURLConnection)) {
+            return;
+        }
+
+        HttpURLConnection http = (HttpURLConnection) connection;
+        int status = http.getResponseCode();
+
+        if (status >= 400) {
+            drain(http.getErrorStream());
+            throw new IOException(status + " - " + http.getResponseMessage());
+        }
+    }
+
+    /**
+     * Like {@link #checkStatus(URLConnection)}, for a binary resource. The API answers a binary resource it does not
+     * have with a 200 and a json body, so that is taken as a 404.
+     */
+    public static void checkBinaryStatus(URLConnection connection) throws IOException {
+        checkStatus(connection);
+
+        String contentType = connection.getContentType();
+        if (contentType != null && contentType.contains("json")) {
+            drain(connection.getInputStream());
+            throw new IOException("404 - Resource not found");
+        }
+    }
+
+    /**
+     * @param contentType The Content-Type header, or null.
+     * @return The charset it declares, or UTF-8 if it declares none (or one we don't know).
+     */
+    public static Charset getCharset(String contentType) {
+        if (contentType != null) {
+            for (String param : contentType.split(";")) {
+                param = param.trim();
+
+                if (param.regionMatches(true, 0, "charset=", 0, 8)) {
+                    String name = param.substring(8).trim().replace("\"", "");
+
+                    try {
+                        return Charset.forName(name);
+                    } catch (Exception e) {
+                        LOGGER.warn("Unknown charset " + name + ", falling back to UTF-8");
+                    }
+                }
+            }
+        }
+
+        // JSON is UTF-8 unless told otherwise.
+        return UTF_8;
+    }
+
+    /**
+     * Read a stream to the end and close it, so its connection can be reused.
+     */
+    public static void drain(InputStream input) {
+        if (input == null) {
+            return;
+        }
+
+        try {
+            byte[] buffer = BUFFERS.get();
+            while (input.read(buffer) != -1) {
+                // keep reading
+            }
+        } catch (IOException e) {
+            // nothing we can do, the socket just won't be reused.
+        } finally {
+            try {
+                input.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+}
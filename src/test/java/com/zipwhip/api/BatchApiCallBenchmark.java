@@ -0,0 +1,105 @@
+package com.zipwhip.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.zipwhip.concurrent.ObservableFuture;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shows the throughput of ZipwhipNetworkSupport.executeBatch() against a local stub HTTP server that answers every
+ * call after a fixed latency (think of the round trip to the real API).
+ *
+ * A window of 1 is the same as calling executeSync() in a loop. Larger windows pipeline the calls.
+ *
+ * This is not a unit test. Run it by hand:
+ *
+ *      mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.zipwhip.api.BatchApiCallBenchmark
+ */
+public class BatchApiCallBenchmark {
+
+    private static final int CALLS = 2000;
+    private static final long SERVER_LATENCY_MILLIS = 5;
+    private static final int[] WINDOWS = new int[]{1, 4, 16, 64};
+
+    private static final byte[] RESPONSE = "{\"success\":true,\"response\":{\"id\":1,\"firstName\":\"Bob\"}}".getBytes();
+
+    public static void main(String[] args) throws Exception {
+        ExecutorService serverExecutor = Executors.newFixedThreadPool(128);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    Thread.sleep(SERVER_LATENCY_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, RESPONSE.length);
+                OutputStream body = exchange.getResponseBody();
+                body.write(RESPONSE);
+                body.close();
+            }
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        ExecutorService workerExecutor = Executors.newFixedThreadPool(4);
+        NingHttpConnection connection = new NingHttpConnection(workerExecutor);
+        connection.setHost("http://127.0.0.1:" + server.getAddress().getPort());
+        connection.setSessionKey("benchmark");
+
+        ZipwhipNetworkSupport support = new ZipwhipNetworkSupport(connection) {
+            @Override
+            protected void onDestroy() {
+
+            }
+        };
+
+        List<ApiCall> calls = new ArrayList<ApiCall>(CALLS);
+        for (int i = 0; i < CALLS; i++) {
+            Map<String, Object> params = new HashMap<String, Object>();
+            params.put("contactId", i);
+            calls.add(new ApiCall(ZipwhipNetworkSupport.CONTACT_GET, params));
+        }
+
+        // warm up the connection pool and the JIT
+        support.executeBatch(calls.subList(0, 200), 16).await(60, TimeUnit.SECONDS);
+
+        for (int window : WINDOWS) {
+            long start = System.nanoTime();
+            ObservableFuture<List<ApiCallResult>> future = support.executeBatch(calls, window);
+            future.await(10, TimeUnit.MINUTES);
+            long elapsed = System.nanoTime() - start;
+
+            int failed = 0;
+            for (ApiCallResult result : future.getResult()) {
+                if (!result.isSuccess()) {
+                    failed++;
+                }
+            }
+
+            System.out.println(String.format("window=%3d %8.0f calls/sec (%d calls, %d failed, %dms)",
+                    window, CALLS / (elapsed / 1e9), CALLS, failed, TimeUnit.NANOSECONDS.toMillis(elapsed)));
+        }
+
+        System.out.println(connection.getStats());
+
+        support.destroy();
+        workerExecutor.shutdownNow();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+}
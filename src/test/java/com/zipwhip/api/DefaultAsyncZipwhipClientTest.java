@@ -0,0 +1,218 @@
+package com.zipwhip.api;
+
+import com.zipwhip.api.dto.Contact;
+import com.zipwhip.api.dto.Conversation;
+import com.zipwhip.api.dto.Message;
+import com.zipwhip.api.dto.MessageToken;
+import com.zipwhip.concurrent.DefaultObservableFuture;
+import com.zipwhip.concurrent.MutableObservableFuture;
+import com.zipwhip.concurrent.ObservableFuture;
+import com.zipwhip.lifecycle.DestroyableBase;
+import com.zipwhip.util.SignTool;
+import com.zipwhip.vendor.DefaultAsyncVendorClientTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for DefaultAsyncZipwhipClient
+ */
+public class DefaultAsyncZipwhipClientTest {
+
+    private static final String FAILURE = "{\"response\":\"nope\",\"sessions\":null,\"success\":false}";
+
+    private final AtomicInteger callbacks = new AtomicInteger();
+
+    private CannedApiConnection connection;
+    private AsyncZipwhipClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = new CannedApiConnection();
+        connection.responses.put(ZipwhipNetworkSupport.CONTACT_GET, DefaultAsyncVendorClientTest.CONTACT_GET_RESPONSE);
+        connection.responses.put(ZipwhipNetworkSupport.MESSAGE_SEND, DefaultAsyncVendorClientTest.MESSAGE_SEND_RESULT);
+        connection.responses.put(ZipwhipNetworkSupport.CONVERSATION_LIST, DefaultAsyncVendorClientTest.CONVERSATION_LIST_RESULT);
+        connection.responses.put(ZipwhipNetworkSupport.MESSAGE_LIST, DefaultAsyncVendorClientTest.MESSAGE_LIST_RESULT);
+        connection.responses.put(ZipwhipNetworkSupport.CONVERSATION_READ, DefaultAsyncVendorClientTest.BOOLEAN_TRUE_RESULT);
+
+        // runs inline, but counts so we can tell the parsing was handed to it.
+        Executor callbackExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                callbacks.incrementAndGet();
+                command.run();
+            }
+        };
+
+        client = new DefaultAsyncZipwhipClient(callbackExecutor, connection);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.destroy();
+    }
+
+    @Test
+    public void testGetContact() throws Exception {
+        ObservableFuture<Contact> future = client.getContact("2063758020");
+
+        assertTrue(future.await(5, TimeUnit.SECONDS));
+        assertTrue(future.isSuccess());
+        assertEquals("2063758020", future.getResult().getMobileNumber());
+        assertTrue("The response was not parsed in the callbackExecutor", callbacks.get() > 0);
+    }
+
+    @Test
+    public void testSendMessage() throws Exception {
+        ObservableFuture<List<MessageToken>> future = client.sendMessage("2063758020", "hello");
+
+        assertTrue(future.await(5, TimeUnit.SECONDS));
+        assertTrue(future.isSuccess());
+        assertEquals(1, future.getResult().size());
+    }
+
+    @Test
+    public void testListConversationsAndMessages() throws Exception {
+        ObservableFuture<List<Conversation>> conversations = client.listConversations();
+        ObservableFuture<List<Message>> messages = client.listMessages(10);
+
+        assertTrue(conversations.await(5, TimeUnit.SECONDS));
+        assertTrue(messages.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, conversations.getResult().size());
+        assertEquals(10, messages.getResult().size());
+    }
+
+    @Test
+    public void testBadArgumentsNeverThrow() throws Exception {
+        ObservableFuture<List<Message>> failed = client.listMessagesByFingerprint(null);
+        assertTrue(failed.isDone());
+        assertFalse(failed.isSuccess());
+
+        ObservableFuture<Boolean> read = client.readConversation(null);
+        assertTrue(read.isDone());
+        assertFalse(read.getResult());
+
+        assertEquals("Nothing should have been sent", 0, connection.sent.get());
+    }
+
+    @Test
+    public void testServerFailure() throws Exception {
+        connection.responses.put(ZipwhipNetworkSupport.CONTACT_GET, FAILURE);
+
+        ObservableFuture<Contact> future = client.getContact(1L);
+
+        assertTrue(future.await(5, TimeUnit.SECONDS));
+        assertFalse(future.isSuccess());
+        assertNotNull(future.getCause());
+    }
+
+    @Test
+    public void testNotAuthenticated() throws Exception {
+        connection.authenticated = false;
+
+        ObservableFuture<Boolean> future = client.readConversation("2216445311");
+
+        assertTrue(future.isDone());
+        assertFalse(future.isSuccess());
+    }
+
+    private static class CannedApiConnection extends DestroyableBase implements ApiConnection {
+
+        private final Map<String, String> responses = new HashMap<String, String>();
+        private final AtomicInteger sent = new AtomicInteger();
+        private volatile boolean authenticated = true;
+
+        @Override
+        public ObservableFuture<String> send(String method, Map<String, Object> params) throws Exception {
+            sent.incrementAndGet();
+
+            MutableObservableFuture<String> result = new DefaultObservableFuture<String>(this);
+            String response = responses.get(method);
+
+            if (response == null) {
+                result.setFailure(new Exception("No canned response for " + method));
+            } else {
+                result.setSuccess(response);
+            }
+
+            return result;
+        }
+
+        @Override
+        public ObservableFuture<String> send(String method, Map<String, Object> params, List<File> files) throws Exception {
+            return send(method, params);
+        }
+
+        @Override
+        public ObservableFuture<InputStream> sendBinaryResponse(String method, Map<String, Object> params) throws Exception {
+            return null;
+        }
+
+        @Override
+        public boolean isAuthenticated() {
+            return authenticated;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public void setSessionKey(String sessionKey) {
+
+        }
+
+        @Override
+        public String getSessionKey() {
+            return "";
+        }
+
+        @Override
+        public void setAuthenticator(SignTool authenticator) {
+
+        }
+
+        @Override
+        public SignTool getAuthenticator() {
+            return null;
+        }
+
+        @Override
+        public void setHost(String host) {
+
+        }
+
+        @Override
+        public String getHost() {
+            return null;
+        }
+
+        @Override
+        public void setApiVersion(String apiVersion) {
+
+        }
+
+        @Override
+        public String getApiVersion() {
+            return null;
+        }
+
+        @Override
+        protected void onDestroy() {
+
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.zipwhip.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.zipwhip.concurrent.ObservableFuture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs HttpConnection against a local stub server.
+ */
+public class HttpConnectionTest {
+
+    private static final String MULTI_LINE = "{\"success\":true,\n\"response\":\"café ✓\"}\n";
+
+    private HttpServer server;
+    private ExecutorService bossExecutor;
+    private ExecutorService workerExecutor;
+    private HttpConnection connection;
+
+    private volatile byte[] lastUpload;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+
+                if (path.endsWith("utf8")) {
+                    respond(exchange, 200, "application/json; charset=UTF-8", MULTI_LINE.getBytes("UTF-8"));
+                } else if (path.endsWith("latin1")) {
+                    respond(exchange, 200, "application/json; charset=ISO-8859-1", "café".getBytes("ISO-8859-1"));
+                } else if (path.endsWith("gzip")) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+                    gzip.write(MULTI_LINE.getBytes("UTF-8"));
+                    gzip.close();
+
+                    exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                    respond(exchange, 200, "application/json", bytes.toByteArray());
+                } else if (path.endsWith("upload")) {
+                    lastUpload = readAll(exchange.getRequestBody());
+                    respond(exchange, 200, "application/json", "{\"success\":true}".getBytes("UTF-8"));
+                } else if (path.endsWith("image")) {
+                    respond(exchange, 200, "image/png", new byte[]{1, 2, 3, 4, 5});
+                } else {
+                    respond(exchange, 500, "text/plain", "boom".getBytes("UTF-8"));
+                }
+            }
+        });
+        server.start();
+
+        bossExecutor = Executors.newFixedThreadPool(2);
+        workerExecutor = Executors.newSingleThreadExecutor();
+
+        connection = new HttpConnection(bossExecutor, workerExecutor);
+        connection.setHost("http://127.0.0.1:" + server.getAddress().getPort());
+        connection.setSessionKey("test");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.destroy();
+        bossExecutor.shutdownNow();
+        workerExecutor.shutdownNow();
+        server.stop(0);
+    }
+
+    @Test
+    public void testCharsetAndNewlinesArePreserved() throws Exception {
+        assertEquals(MULTI_LINE, get(connection.send("utf8", null)));
+        assertEquals("café", get(connection.send("latin1", null)));
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        assertEquals(MULTI_LINE, get(connection.send("gzip", null)));
+    }
+
+    @Test
+    public void testConnectionsAreReused() throws Exception {
+        // not much to assert on the JDK keep-alive cache, but a few hundred sequential calls must not fail or leak.
+        for (int i = 0; i < 200; i++) {
+            assertEquals(MULTI_LINE, get(connection.send("utf8", null)));
+        }
+    }
+
+    @Test
+    public void testServerError() throws Exception {
+        ObservableFuture<String> future = connection.send("explode", null);
+
+        assertTrue(future.await(10, TimeUnit.SECONDS));
+        assertFalse(future.isSuccess());
+        assertTrue(future.getCause() instanceof IOException);
+    }
+
+    @Test
+    public void testUpload() throws Exception {
+        File file = File.createTempFile("upload", ".txt");
+        file.deleteOnExit();
+
+        FileOutputStream output = new FileOutputStream(file);
+        output.write("hello upload".getBytes("UTF-8"));
+        output.close();
+
+        assertEquals("{\"success\":true}", get(connection.send("upload", null, Collections.singletonList(file))));
+
+        String body = new String(lastUpload, "UTF-8");
+        assertTrue(body.contains("name=\"data\"; filename=\"" + file.getName() + "\""));
+        assertTrue(body.contains("\r\n\r\nhello upload\r\n"));
+        assertTrue(body.trim().endsWith("--"));
+    }
+
+    @Test
+    public void testBinaryResponse() throws Exception {
+        ObservableFuture<InputStream> future = connection.sendBinaryResponse("image", null);
+
+        assertTrue(future.await(10, TimeUnit.SECONDS));
+        assertTrue(future.isSuccess());
+        assertTrue(Arrays.equals(new byte[]{1, 2, 3, 4, 5}, readAll(future.getResult())));
+    }
+
+    private static String get(ObservableFuture<String> future) throws Exception {
+        assertTrue(future.await(10, TimeUnit.SECONDS));
+        if (!future.isSuccess()) {
+            throw new Exception(future.getCause());
+        }
+
+        return future.getResult();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream output = exchange.getResponseBody();
+        output.write(body);
+        output.close();
+    }
+
+    private static byte[] readAll(InputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+        }
+        input.close();
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,123 @@
+package com.zipwhip.api;
+
+import com.ning.http.client.AsyncHttpClientConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.zipwhip.concurrent.ObservableFuture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs NingHttpConnection against a local stub server.
+ */
+public class NingHttpConnectionTest {
+
+    private static final byte[] RESPONSE = "{\"success\":true,\"response\":true}".getBytes();
+
+    private HttpServer server;
+    private ExecutorService workerExecutor;
+    private NingHttpConnection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, RESPONSE.length);
+                OutputStream body = exchange.getResponseBody();
+                body.write(RESPONSE);
+                body.close();
+            }
+        });
+        server.start();
+
+        workerExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (connection != null) {
+            connection.destroy();
+        }
+        workerExecutor.shutdownNow();
+        server.stop(0);
+    }
+
+    @Test
+    public void testConfigurationIsApplied() throws Exception {
+        NingHttpConnectionConfiguration configuration = new NingHttpConnectionConfiguration();
+        configuration.setMaxConnectionsPerHost(8);
+        configuration.setMaxConnectionsTotal(16);
+        configuration.setRequestTimeoutInMs(5000);
+        configuration.setIdleConnectionInPoolTimeoutInMs(30000);
+        configuration.setCompressionEnabled(true);
+        configuration.setKeepAlive(true);
+
+        AsyncHttpClientConfig config = configuration.toAsyncHttpClientConfig();
+
+        assertEquals(8, config.getMaxConnectionPerHost());
+        assertEquals(16, config.getMaxTotalConnections());
+        assertEquals(5000, config.getRequestTimeoutInMs());
+        assertEquals(30000, config.getIdleConnectionInPoolTimeoutInMs());
+        assertTrue(config.isCompressionEnabled());
+        assertTrue(config.getAllowPoolingConnection());
+    }
+
+    @Test
+    public void testStats() throws Exception {
+        connection = new NingHttpConnection(workerExecutor, null, null, new NingHttpConnectionConfiguration());
+        connection.setHost("http://127.0.0.1:" + server.getAddress().getPort());
+        connection.setSessionKey("test");
+
+        List<ObservableFuture<String>> futures = new ArrayList<ObservableFuture<String>>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(connection.send(ZipwhipNetworkSupport.CONTACT_GET, null));
+        }
+
+        for (ObservableFuture<String> future : futures) {
+            assertTrue(future.await(10, TimeUnit.SECONDS));
+            assertTrue(future.isSuccess());
+        }
+
+        NingHttpConnectionStats stats = connection.getStats();
+
+        assertEquals(0, stats.getActiveRequests());
+        assertTrue(stats.getPeakActiveRequests() >= 1);
+        assertEquals(5, stats.getCompletedRequests());
+        assertEquals(0, stats.getFailedRequests());
+        assertTrue(stats.getMaxWaitMillis() >= stats.getAverageWaitMillis());
+    }
+
+    @Test
+    public void testFailuresAreCounted() throws Exception {
+        connection = new NingHttpConnection(workerExecutor, null, null, new NingHttpConnectionConfiguration());
+        connection.setSessionKey("test");
+
+        // nothing listens here once the server is gone.
+        int port = server.getAddress().getPort();
+        server.stop(0);
+        connection.setHost("http://127.0.0.1:" + port);
+
+        ObservableFuture<String> future = connection.send(ZipwhipNetworkSupport.CONTACT_GET, null);
+
+        assertTrue(future.await(10, TimeUnit.SECONDS));
+        assertFalse(future.isSuccess());
+        assertEquals(0, connection.getStats().getActiveRequests());
+        assertEquals(1, connection.getStats().getFailedRequests());
+    }
+}
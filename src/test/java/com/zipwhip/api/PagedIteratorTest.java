@@ -0,0 +1,198 @@
+package com.zipwhip.api;
+
+import com.zipwhip.concurrent.DefaultObservableFuture;
+import com.zipwhip.concurrent.MutableObservableFuture;
+import com.zipwhip.concurrent.ObservableFuture;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives a PagedIterator with a fake loader so we can see exactly which pages were asked for and when.
+ */
+public class PagedIteratorTest {
+
+    @Test
+    public void testWalksToTheTotal() throws Exception {
+        FakeLoader loader = new FakeLoader(25, true);
+
+        List<Integer> result = drain(new PagedIterator<Integer>(loader, 10, 1));
+
+        assertEquals(25, result.size());
+        for (int i = 0; i < 25; i++) {
+            assertEquals(Integer.valueOf(i), result.get(i));
+        }
+
+        // 0, 10, 20. Nothing past the total.
+        assertEquals(3, loader.requests.size());
+    }
+
+    @Test
+    public void testStopsAtTheFirstShortPage() throws Exception {
+        FakeLoader loader = new FakeLoader(25, false);
+
+        assertEquals(25, drain(new PagedIterator<Integer>(loader, 10, 0)).size());
+        assertEquals(3, loader.requests.size());
+    }
+
+    @Test
+    public void testExactMultipleWithoutTotal() throws Exception {
+        FakeLoader loader = new FakeLoader(20, false);
+
+        assertEquals(20, drain(new PagedIterator<Integer>(loader, 10, 0)).size());
+
+        // Can't tell the second page was the last one until an empty page comes back.
+        assertEquals(3, loader.requests.size());
+    }
+
+    @Test
+    public void testPrefetchIsBounded() throws Exception {
+        FakeLoader loader = new FakeLoader(1000, true);
+        loader.autoComplete = false;
+
+        PagedIterator<Integer> iterator = new PagedIterator<Integer>(loader, 10, 2);
+
+        // The first pages start loading straight away.
+        assertEquals(2, loader.requests.size());
+        assertEquals(2, iterator.getPendingPages());
+
+        loader.complete(0);
+        assertEquals(Integer.valueOf(0), iterator.next());
+
+        // While page 0 is consumed, pages 1 and 2 are loading. Never more.
+        assertEquals(3, loader.requests.size());
+        assertEquals(2, iterator.getPendingPages());
+
+        for (int i = 1; i < 10; i++) {
+            iterator.next();
+        }
+        assertEquals(3, loader.requests.size());
+
+        loader.complete(1);
+        assertEquals(Integer.valueOf(10), iterator.next());
+        assertEquals(4, loader.requests.size());
+        assertEquals(1000, iterator.getTotal());
+
+        iterator.destroy();
+    }
+
+    @Test
+    public void testNoPrefetch() throws Exception {
+        FakeLoader loader = new FakeLoader(30, true);
+
+        PagedIterator<Integer> iterator = new PagedIterator<Integer>(loader, 10, 0);
+        assertEquals(0, loader.requests.size());
+
+        iterator.next();
+        assertEquals(1, loader.requests.size());
+        assertEquals(0, iterator.getPendingPages());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        FakeLoader loader = new FakeLoader(100, true);
+        loader.failAt = 10;
+
+        PagedIterator<Integer> iterator = new PagedIterator<Integer>(loader, 10, 1);
+
+        for (int i = 0; i < 10; i++) {
+            iterator.next();
+        }
+
+        try {
+            iterator.hasNext();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("boom", e.getCause().getMessage());
+        }
+
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testLoaderThrows() throws Exception {
+        PagedIterator<Integer> iterator = new PagedIterator<Integer>(new PageLoader<Integer>() {
+            @Override
+            public ObservableFuture<Page<Integer>> load(int start, int limit) throws Exception {
+                throw new Exception("The connection is not authenticated, can't continue.");
+            }
+        }, 10, 1);
+
+        try {
+            iterator.next();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("The connection is not authenticated, can't continue.", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void testDestroy() throws Exception {
+        FakeLoader loader = new FakeLoader(100, true);
+
+        PagedIterator<Integer> iterator = new PagedIterator<Integer>(loader, 10, 3);
+        iterator.next();
+        iterator.destroy();
+
+        assertFalse(iterator.hasNext());
+        assertEquals(0, iterator.getPendingPages());
+    }
+
+    private static List<Integer> drain(PagedIterator<Integer> iterator) {
+        List<Integer> result = new ArrayList<Integer>();
+        while (iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    private static class FakeLoader implements PageLoader<Integer> {
+
+        private final int size;
+        private final boolean reportTotal;
+
+        private final List<Integer> requests = new ArrayList<Integer>();
+        private final List<MutableObservableFuture<Page<Integer>>> futures = new ArrayList<MutableObservableFuture<Page<Integer>>>();
+
+        private boolean autoComplete = true;
+        private int failAt = -1;
+
+        private FakeLoader(int size, boolean reportTotal) {
+            this.size = size;
+            this.reportTotal = reportTotal;
+        }
+
+        @Override
+        public ObservableFuture<Page<Integer>> load(int start, int limit) throws Exception {
+            requests.add(start);
+
+            MutableObservableFuture<Page<Integer>> future = new DefaultObservableFuture<Page<Integer>>(this);
+            futures.add(future);
+
+            if (autoComplete) {
+                complete(futures.size() - 1);
+            }
+
+            return future;
+        }
+
+        private void complete(int index) {
+            int start = requests.get(index);
+
+            if (start == failAt) {
+                futures.get(index).setFailure(new Exception("boom"));
+                return;
+            }
+
+            List<Integer> items = new ArrayList<Integer>();
+            for (int i = start; i < Math.min(size, start + 10); i++) {
+                items.add(i);
+            }
+
+            futures.get(index).setSuccess(new Page<Integer>(items, reportTotal ? size : Page.UNKNOWN_TOTAL));
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.zipwhip.api;
+
+import com.zipwhip.concurrent.DefaultObservableFuture;
+import com.zipwhip.concurrent.MutableObservableFuture;
+import com.zipwhip.concurrent.ObservableFuture;
+import com.zipwhip.executors.SimpleExecutor;
+import com.zipwhip.lifecycle.DestroyableBase;
+import com.zipwhip.util.SignTool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for ZipwhipNetworkSupport.executeBatch()
+ */
+public class ZipwhipNetworkSupportBatchTest {
+
+    private static final String SUCCESS = "{\"response\":true,\"sessions\":null,\"success\":true}";
+    private static final String FAILURE = "{\"response\":\"nope\",\"sessions\":null,\"success\":false}";
+
+    private QueuedApiConnection connection;
+    private ZipwhipNetworkSupport support;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = new QueuedApiConnection();
+        support = new ZipwhipNetworkSupport(SimpleExecutor.getInstance(), connection) {
+            @Override
+            protected void onDestroy() {
+
+            }
+        };
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        support.destroy();
+    }
+
+    @Test
+    public void testWindowIsBoundedAndFailuresAreIsolated() throws Exception {
+        List<ApiCall> calls = new ArrayList<ApiCall>();
+        for (int i = 0; i < 50; i++) {
+            calls.add(new ApiCall(i % 10 == 0 ? "fail" : ZipwhipNetworkSupport.CONTACT_GET, null));
+        }
+
+        ObservableFuture<List<ApiCallResult>> future = support.executeBatch(calls, 4);
+
+        // answer the calls one at a time, each answer lets the next call go out.
+        while (!future.isDone()) {
+            assertTrue("Too many calls in flight: " + connection.pending.size(), connection.pending.size() <= 4);
+            connection.completeOne();
+        }
+
+        assertEquals(4, connection.maxInFlight.get());
+        assertTrue(future.isSuccess());
+
+        List<ApiCallResult> results = future.getResult();
+        assertEquals(50, results.size());
+
+        for (int i = 0; i < 50; i++) {
+            ApiCallResult result = results.get(i);
+            assertSame(calls.get(i), result.getCall());
+            assertEquals(i % 10 != 0, result.isSuccess());
+        }
+    }
+
+    @Test
+    public void testSynchronousFailuresDoNotRecurse() throws Exception {
+        connection.authenticated = false;
+
+        List<ApiCall> calls = new ArrayList<ApiCall>();
+        for (int i = 0; i < 100000; i++) {
+            calls.add(new ApiCall(ZipwhipNetworkSupport.CONTACT_GET, null));
+        }
+
+        ObservableFuture<List<ApiCallResult>> future = support.executeBatch(calls, 2);
+
+        assertTrue(future.await(10, TimeUnit.SECONDS));
+        assertEquals(100000, future.getResult().size());
+        assertFalse(future.getResult().get(0).isSuccess());
+    }
+
+    @Test
+    public void testEmptyBatch() throws Exception {
+        ObservableFuture<List<ApiCallResult>> future = support.executeBatch(new ArrayList<ApiCall>());
+
+        assertTrue(future.isSuccess());
+        assertTrue(future.getResult().isEmpty());
+    }
+
+    private static class QueuedApiConnection extends DestroyableBase implements ApiConnection {
+
+        private final ConcurrentLinkedQueue<Object[]> pending = new ConcurrentLinkedQueue<Object[]>();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private volatile boolean authenticated = true;
+
+        @Override
+        public ObservableFuture<String> send(String method, Map<String, Object> params) throws Exception {
+            MutableObservableFuture<String> result = new DefaultObservableFuture<String>(this);
+            pending.add(new Object[]{method, result});
+            maxInFlight.set(Math.max(maxInFlight.get(), pending.size()));
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        void completeOne() {
+            Object[] call = pending.poll();
+            if (call == null) {
+                fail("Nothing in flight, but the batch isn't done");
+            }
+
+            ((MutableObservableFuture<String>) call[1]).setSuccess("fail".equals(call[0]) ? FAILURE : SUCCESS);
+        }
+
+        @Override
+        public ObservableFuture<String> send(String method, Map<String, Object> params, List<File> files) throws Exception {
+            return send(method, params);
+        }
+
+        @Override
+        public ObservableFuture<InputStream> sendBinaryResponse(String method, Map<String, Object> params) throws Exception {
+            return null;
+        }
+
+        @Override
+        public boolean isAuthenticated() {
+            return authenticated;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public void setSessionKey(String sessionKey) {
+
+        }
+
+        @Override
+        public String getSessionKey() {
+            return "";
+        }
+
+        @Override
+        public void setAuthenticator(SignTool authenticator) {
+
+        }
+
+        @Override
+        public SignTool getAuthenticator() {
+            return null;
+        }
+
+        @Override
+        public void setHost(String host) {
+
+        }
+
+        @Override
+        public String getHost() {
+            return null;
+        }
+
+        @Override
+        public void setApiVersion(String apiVersion) {
+
+        }
+
+        @Override
+        public String getApiVersion() {
+            return null;
+        }
+
+        @Override
+        protected void onDestroy() {
+
+        }
+    }
+}
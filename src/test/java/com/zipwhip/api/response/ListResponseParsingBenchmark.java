@@ -0,0 +1,124 @@
+package com.zipwhip.api.response;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares the JsonResponseParser (org.json tree, then walk it) with the StreamingResponseParser on message/list,
+ * contact/list and conversation/list responses of 1k and 10k elements.
+ *
+ * Three ways of decoding are timed:
+ * <ul>
+ * <li>tree: JsonResponseParser.parse() followed by parseXxx(ServerResponse), what the clients do today</li>
+ * <li>deferred: the same two calls on the StreamingResponseParser (envelope check, then one decode)</li>
+ * <li>reader: StreamingResponseParser.parseXxx(Reader), the single pass</li>
+ * </ul>
+ * Allocation is measured with the HotSpot per-thread allocation counter, so this needs a HotSpot JVM.
+ *
+ * This is not a unit test. Run it by hand:
+ *
+ *      mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.zipwhip.api.response.ListResponseParsingBenchmark
+ */
+public class ListResponseParsingBenchmark {
+
+    private static final int[] SIZES = {1000, 10000};
+
+    private static final int WARMUP_ELEMENTS = 50000;
+    private static final int MEASURED_ELEMENTS = 100000;
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        final JsonResponseParser tree = new JsonResponseParser();
+        final StreamingResponseParser streaming = new StreamingResponseParser();
+
+        for (int size : SIZES) {
+            String messages = ListResponses.messages(size);
+            String contacts = ListResponses.contacts(size);
+            String conversations = ListResponses.conversations(size);
+
+            System.out.println(String.format("--- %d elements (message/list %d KB, contact/list %d KB, conversation/list %d KB)",
+                    size, messages.length() / 1024, contacts.length() / 1024, conversations.length() / 1024));
+
+            // alternate a few rounds so neither side gets all the JIT luck.
+            for (int round = 0; round < 2; round++) {
+                run("message/list      tree    ", messages, size, new Decoder() {
+                    @Override
+                    public Object decode(String json) throws Exception {
+                        return tree.parseMessagesListResult(tree.parse(json));
+                    }
+                });
+                run("message/list      deferred", messages, size, new Decoder() {
+                    @Override
+                    public Object decode(String json) throws Exception {
+                        return streaming.parseMessagesListResult(streaming.parse(json));
+                    }
+                });
+                run("message/list      reader  ", messages, size, new Decoder() {
+                    @Override
+                    public Object decode(String json) throws Exception {
+                        return streaming.parseMessagesListResult(new StringReader(json));
+                    }
+                });
+                run("contact/list      tree    ", contacts, size, new Decoder() {
+                    @Override
+                    public Object decode(String json) throws Exception {
+                        return tree.parseContacts(tree.parse(json));
+                    }
+                });
+                run("contact/list      reader  ", contacts, size, new Decoder() {
+                    @Override
+                    public Object decode(String json) throws Exception {
+                        return streaming.parseContacts(new StringReader(json));
+                    }
+                });
+                run("conversation/list tree    ", conversations, size, new Decoder() {
+                    @Override
+                    public Object decode(String json) throws Exception {
+                        return tree.parseConversations(tree.parse(json));
+                    }
+                });
+                run("conversation/list reader  ", conversations, size, new Decoder() {
+                    @Override
+                    public Object decode(String json) throws Exception {
+                        return streaming.parseConversations(new StringReader(json));
+                    }
+                });
+            }
+        }
+    }
+
+    private static void run(String name, String json, int size, Decoder decoder) throws Exception {
+        int warmup = Math.max(1, WARMUP_ELEMENTS / size);
+        int iterations = Math.max(1, MEASURED_ELEMENTS / size);
+
+        for (int i = 0; i < warmup; i++) {
+            sink = decoder.decode(json);
+        }
+
+        long startBytes = allocatedBytes();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < iterations; i++) {
+            sink = decoder.decode(json);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - startBytes;
+
+        System.out.println(String.format("%s %9.2f ms/response %8.0f ns/element %9.1f KB allocated/response",
+                name,
+                elapsed / 1e6 / iterations,
+                (double) elapsed / iterations / size,
+                allocated / 1024.0 / iterations));
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private interface Decoder {
+        Object decode(String json) throws Exception;
+    }
+}
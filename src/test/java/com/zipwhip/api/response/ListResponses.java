@@ -0,0 +1,115 @@
+package com.zipwhip.api.response;
+
+/**
+ * Builds message/list, contact/list and conversation/list responses of any size, shaped like the real thing
+ * (extra fields the DTOs don't map, nulls, enum objects).
+ */
+public class ListResponses {
+
+    public static String messages(int count) {
+        StringBuilder sb = new StringBuilder(count * 900);
+
+        sb.append("{\"success\":true,\"response\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+
+            sb.append("{\"address\":\"ptn:/206555").append(pad(i)).append("\",")
+                    .append("\"advertisement\":null,\"bcc\":null,")
+                    .append("\"body\":\"Hey, are we still on for lunch tomorrow? \\\"").append(i).append("\\\" \\u2713\",")
+                    .append("\"carrier\":\"Tmo\",\"cc\":null,\"channel\":\"\",")
+                    .append("\"class\":\"com.zipwhip.website.data.dto.Message\",")
+                    .append("\"contactDeviceId\":").append(3000000 + i).append(',')
+                    .append("\"contactId\":").append(4000000 + i).append(',')
+                    .append("\"dateCreated\":\"2012-04-24T15:42:25-07:00\",")
+                    .append("\"deleted\":").append(i % 7 == 0).append(',')
+                    .append("\"destAddress\":\"3609900541\",")
+                    .append("\"deviceId\":2252293,\"dtoParentId\":2252293,")
+                    .append("\"errorState\":false,")
+                    .append("\"fingerprint\":\"").append(1189375339L + i).append("\",")
+                    .append("\"firstName\":\"Bob\",\"fwd\":\"\",\"hasAttachment\":").append(i % 5 == 0).append(',')
+                    .append("\"id\":").append(196731185526153216L + i).append(',')
+                    .append("\"isRead\":").append(i % 2 == 0).append(',')
+                    .append("\"lastName\":\"Smith\",\"lastUpdated\":null,")
+                    .append("\"messageConsoleLog\":\"Message created on Tue Apr 24 15:42:25 PDT 2012\",")
+                    .append("\"mobileNumber\":\"206555").append(pad(i)).append("\",")
+                    .append("\"sourceAddress\":\"206555").append(pad(i)).append("\",")
+                    .append("\"statusCode\":4,\"statusDesc\":\"OK\",\"subject\":\"\",\"thread\":\"\",")
+                    .append("\"to\":\"\",")
+                    .append("\"transmissionState\":{\"enumType\":\"com.zipwhip.outgoing.TransmissionState\",\"name\":\"DELIVERED\"},")
+                    .append("\"type\":\"MO\",\"uuid\":\"8d1b9c2e-7a54-4f0b-a7b5-").append(pad(i)).append("\",")
+                    .append("\"version\":").append(i % 3)
+                    .append('}');
+        }
+        sb.append("],\"total\":").append(count * 3).append(",\"size\":").append(count).append('}');
+
+        return sb.toString();
+    }
+
+    public static String contacts(int count) {
+        StringBuilder sb = new StringBuilder(count * 600);
+
+        sb.append("{\"success\":true,\"response\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+
+            sb.append("{\"MOCount\":").append(i % 11).append(",\"ZOCount\":0,")
+                    .append("\"address\":\"ptn:/206555").append(pad(i)).append("\",")
+                    .append("\"birthday\":null,\"carrier\":\"Unknown\",\"channel\":\"\",\"city\":\"Seattle\",")
+                    .append("\"class\":\"com.zipwhip.website.data.dto.Contact\",")
+                    .append("\"dateCreated\":\"2012-04-02T10:10:45-07:00\",\"deleted\":false,")
+                    .append("\"deviceId\":2252293,\"dtoParentId\":2252293,")
+                    .append("\"email\":\"contact").append(i).append("@example.com\",")
+                    .append("\"firstName\":\"Test\",\"fwd\":\"\",\"id\":").append(513916101L + i).append(',')
+                    .append("\"isZwUser\":false,\"keywords\":\"\",\"lastName\":\"Contact ").append(i).append("\",")
+                    .append("\"lastUpdated\":\"2012-04-02T10:10:46-07:00\",\"latlong\":\"\",\"loc\":\"\",")
+                    .append("\"mobileNumber\":\"206555").append(pad(i)).append("\",")
+                    .append("\"new\":false,\"notes\":null,\"phoneId\":0,\"phoneKey\":\"\",\"state\":\"WA\",")
+                    .append("\"targetGroupDevice\":-1,\"thread\":\"\",\"vector\":\"\",")
+                    .append("\"version\":").append(i % 4).append(",\"zipcode\":\"98101\"")
+                    .append('}');
+        }
+        sb.append("]}");
+
+        return sb.toString();
+    }
+
+    public static String conversations(int count) {
+        StringBuilder sb = new StringBuilder(count * 800);
+
+        sb.append("{\"success\":true,\"response\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+
+            sb.append("{\"address\":\"ptn:/206555").append(pad(i)).append("\",\"bcc\":\"\",\"cc\":null,")
+                    .append("\"class\":\"com.zipwhip.website.data.dto.Conversation\",")
+                    .append("\"dateCreated\":\"2012-04-19T16:21:53-07:00\",\"deleted\":false,")
+                    .append("\"deviceAddress\":null,\"deviceId\":2252293,\"dtoParentId\":2252293,")
+                    .append("\"fingerprint\":\"").append(107924374 + i).append("\",")
+                    .append("\"id\":").append(1964179401L + i).append(',')
+                    .append("\"lastContactDeviceId\":").append(i).append(",\"lastContactFirstName\":\"Bob\",")
+                    .append("\"lastContactId\":").append(4000000 + i).append(",\"lastContactLastName\":\"\",")
+                    .append("\"lastContactMobileNumber\":\"206555").append(pad(i)).append("\",")
+                    .append("\"lastMessageBody\":\"See you there \\n- Bob\",")
+                    .append("\"lastMessageDate\":\"2012-04-19T16:21:53-07:00\",")
+                    .append("\"lastNonDeletedMessageDate\":\"2012-04-19T16:21:53-07:00\",")
+                    .append("\"lastUpdated\":\"2012-04-19T16:21:53-07:00\",\"new\":").append(i % 9 == 0).append(',')
+                    .append("\"unreadCount\":").append(i % 6).append(",\"version\":").append(i % 5)
+                    .append('}');
+        }
+        sb.append("]}");
+
+        return sb.toString();
+    }
+
+    private static String pad(int i) {
+        String s = String.valueOf(i % 10000);
+        return "0000".substring(s.length()) + s;
+    }
+
+}
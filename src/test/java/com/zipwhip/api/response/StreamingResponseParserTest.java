@@ -0,0 +1,150 @@
+package com.zipwhip.api.response;
+
+import com.zipwhip.api.dto.Contact;
+import com.zipwhip.api.dto.Conversation;
+import com.zipwhip.api.dto.Message;
+import com.zipwhip.api.dto.MessageAttachment;
+import com.zipwhip.api.dto.TransmissionState;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+/**
+ * The streaming parser has to give back exactly what the JsonResponseParser does.
+ */
+public class StreamingResponseParserTest {
+
+    private JsonResponseParser treeParser;
+    private StreamingResponseParser streamingParser;
+
+    @Before
+    public void setUp() throws Exception {
+        treeParser = new JsonResponseParser();
+        streamingParser = new StreamingResponseParser();
+    }
+
+    @Test
+    public void testMessageList() throws Exception {
+        String json = ListResponses.messages(50);
+
+        MessageListResult expected = treeParser.parseMessagesListResult(treeParser.parse(json));
+
+        ServerResponse response = streamingParser.parse(json);
+        Assert.assertTrue(response instanceof DeferredArrayServerResponse);
+        Assert.assertTrue(response.isSuccess());
+
+        assertSame(expected, streamingParser.parseMessagesListResult(response));
+        assertSame(expected, streamingParser.parseMessagesListResult(new StringReader(json)));
+
+        Assert.assertEquals(expected.getMessages(), streamingParser.parseMessages(response));
+        Assert.assertEquals(expected.getMessages(), streamingParser.parseMessages(new StringReader(json)));
+
+        Message message = expected.getMessages().get(0);
+        Assert.assertEquals(TransmissionState.DELIVERED, message.getTransmissionState());
+        Assert.assertEquals("", message.getCc());
+        Assert.assertEquals(150, expected.getTotal());
+        Assert.assertEquals(50, expected.getSize());
+    }
+
+    @Test
+    public void testContactList() throws Exception {
+        String json = ListResponses.contacts(50);
+
+        List<Contact> expected = treeParser.parseContacts(treeParser.parse(json));
+
+        Assert.assertEquals(50, expected.size());
+        Assert.assertEquals(expected, streamingParser.parseContacts(streamingParser.parse(json)));
+        Assert.assertEquals(expected, streamingParser.parseContacts(new StringReader(json)));
+
+        // equals() does not cover everything, check a few of the rest by hand.
+        Contact contact = streamingParser.parseContacts(new StringReader(json)).get(7);
+        Assert.assertEquals(expected.get(7).getId(), contact.getId());
+        Assert.assertEquals(expected.get(7).getMoCount(), contact.getMoCount());
+        Assert.assertEquals(expected.get(7).getVersion(), contact.getVersion());
+        Assert.assertEquals(expected.get(7).getDeviceId(), contact.getDeviceId());
+        Assert.assertEquals("", contact.getNotes());
+    }
+
+    @Test
+    public void testConversationList() throws Exception {
+        String json = ListResponses.conversations(50);
+
+        List<Conversation> expected = treeParser.parseConversations(treeParser.parse(json));
+
+        Assert.assertEquals(50, expected.size());
+        Assert.assertEquals(expected, streamingParser.parseConversations(streamingParser.parse(json)));
+        Assert.assertEquals(expected, streamingParser.parseConversations(new StringReader(json)));
+
+        Conversation conversation = streamingParser.parseConversations(new StringReader(json)).get(6);
+        Assert.assertEquals(expected.get(6).getUnreadCount(), conversation.getUnreadCount());
+        Assert.assertEquals(expected.get(6).getVersion(), conversation.getVersion());
+        Assert.assertEquals(expected.get(6).getLastContactId(), conversation.getLastContactId());
+        Assert.assertEquals(expected.get(6).isNew(), conversation.isNew());
+        Assert.assertEquals("", conversation.getDeviceAddress());
+    }
+
+    @Test
+    public void testSuccessAfterTheArray() throws Exception {
+        String json = "{\"response\":[{\"id\":1,\"body\":\"hi\"}],\"total\":1,\"size\":1,\"success\":true}";
+
+        ServerResponse response = streamingParser.parse(json);
+
+        Assert.assertTrue(response instanceof DeferredArrayServerResponse);
+        Assert.assertTrue(response.isSuccess());
+
+        MessageListResult result = streamingParser.parseMessagesListResult(response);
+        Assert.assertEquals(1, result.getMessages().size());
+        Assert.assertEquals("hi", result.getMessages().get(0).getBody());
+        Assert.assertEquals(1, result.getTotal());
+    }
+
+    @Test
+    public void testNonArrayResponsesAreUnchanged() throws Exception {
+        ServerResponse response = streamingParser.parse(JsonResponseParserTest.ENROLLMENT_RESULT);
+
+        Assert.assertTrue(response instanceof ObjectServerResponse);
+        Assert.assertTrue(response.isSuccess());
+
+        response = streamingParser.parse("{\"success\":false,\"response\":\"Something went wrong\"}");
+
+        Assert.assertTrue(response instanceof StringServerResponse);
+        Assert.assertFalse(response.isSuccess());
+
+        Assert.assertNull(streamingParser.parse(""));
+        Assert.assertNull(streamingParser.parse("null"));
+    }
+
+    @Test
+    public void testShortListsGoThroughTheTree() throws Exception {
+        List<MessageAttachment> expected = treeParser.parseAttachments(treeParser.parse(JsonResponseParserTest.ATTACHMENT_RESULT));
+        List<MessageAttachment> attachments = streamingParser.parseAttachments(streamingParser.parse(JsonResponseParserTest.ATTACHMENT_RESULT));
+
+        Assert.assertEquals(expected.size(), attachments.size());
+        Assert.assertEquals(expected.get(1).getStorageKey(), attachments.get(1).getStorageKey());
+    }
+
+    @Test
+    public void testUnsuccessfulResponse() throws Exception {
+        try {
+            streamingParser.parseContacts(new StringReader("{\"success\":false,\"response\":\"Not authorized\"}"));
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertEquals("Not authorized", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testEmptyList() throws Exception {
+        Assert.assertTrue(streamingParser.parseContacts(new StringReader("{\"success\":true,\"response\":[ ]}")).isEmpty());
+        Assert.assertTrue(streamingParser.parseConversations(streamingParser.parse("{\"success\":true,\"response\":[]}")).isEmpty());
+    }
+
+    private static void assertSame(MessageListResult expected, MessageListResult actual) {
+        Assert.assertEquals(expected.getMessages(), actual.getMessages());
+        Assert.assertEquals(expected.getTotal(), actual.getTotal());
+        Assert.assertEquals(expected.getSize(), actual.getSize());
+    }
+}
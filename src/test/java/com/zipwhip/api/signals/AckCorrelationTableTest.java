@@ -0,0 +1,94 @@
+package com.zipwhip.api.signals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AckCorrelationTableTest {
+
+    AckCorrelationTable<String> table = new AckCorrelationTable<String>();
+
+    @Test
+    public void testRemoveById() throws Exception {
+        long a = table.add("a", 10);
+        long b = table.add("b", 20);
+
+        assertEquals(2, table.size());
+        assertEquals("b", table.remove(b));
+        assertNull(table.remove(b));
+        assertEquals("a", table.remove(a));
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void testExpireOnlyWhatIsDue() throws Exception {
+        table.add("a", 10);
+        long b = table.add("b", 20);
+        table.add("c", 30);
+
+        // Acked entries are skipped.
+        table.remove(b);
+
+        assertEquals(Arrays.asList("a"), table.expire(25));
+        assertEquals(1, table.size());
+        assertEquals(Arrays.asList("c"), table.expire(30));
+        assertTrue(table.expire(100).isEmpty());
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void testGrowsAndKeepsEveryId() throws Exception {
+        Map<Long, String> expected = new HashMap<Long, String>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10000; i++) {
+            expected.put(table.add("v" + i, i), "v" + i);
+
+            // Ack about half of them along the way, out of order.
+            if (random.nextBoolean()) {
+                List<Long> ids = new ArrayList<Long>(expected.keySet());
+                long id = ids.get(random.nextInt(ids.size()));
+                assertEquals(expected.remove(id), table.remove(id));
+            }
+        }
+
+        assertEquals(expected.size(), table.size());
+
+        for (Map.Entry<Long, String> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), table.remove(entry.getKey()));
+        }
+
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        table.add("a", 10);
+        long b = table.add("b", 20);
+        table.add("c", 30);
+        table.remove(b);
+
+        assertEquals(Arrays.asList("a", "c"), table.clear());
+        assertTrue(table.isEmpty());
+        assertTrue(table.expire(100).isEmpty());
+
+        long d = table.add("d", 40);
+        assertEquals("d", table.remove(d));
+    }
+
+    @Test
+    public void testEarlierDeadlineWaitsForTheLastOne() throws Exception {
+        table.add("a", 20);
+        table.add("b", 10);
+
+        assertTrue(table.expire(15).isEmpty());
+        assertEquals(Arrays.asList("a", "b"), table.expire(20));
+    }
+}
@@ -0,0 +1,73 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.settings.MemorySettingStore;
+import com.zipwhip.api.settings.SettingsStore;
+import com.zipwhip.util.StringUtil;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BindCredentialsTest {
+
+    SettingsStore settingsStore = new MemorySettingStore();
+
+    @Test
+    public void testSurvivesRestart() throws Exception {
+        BindCredentials credentials = new BindCredentials(settingsStore);
+        credentials.setCredentials("client", "token");
+        credentials.addSubscription("subscription1", "sessionKey1");
+        credentials.addSubscription("subscription2", "sessionKey2");
+        credentials.removeSubscription("subscription2");
+
+        BindCredentials restarted = new BindCredentials(settingsStore);
+
+        assertEquals("client", restarted.getClientId());
+        assertEquals("token", restarted.getToken());
+
+        Map<String, String> subscriptions = restarted.getSubscriptions();
+        assertEquals(1, subscriptions.size());
+        assertEquals("sessionKey1", subscriptions.get("subscription1"));
+    }
+
+    @Test
+    public void testNewClientIdForgetsSubscriptions() throws Exception {
+        BindCredentials credentials = new BindCredentials(settingsStore);
+        credentials.setCredentials("client", "token");
+        credentials.addSubscription("subscription1", "sessionKey1");
+
+        // Same client, new token: the subscriptions are still there.
+        credentials.setCredentials("client", "token2");
+        assertEquals(1, credentials.getSubscriptions().size());
+
+        credentials.setCredentials("client2", "token3");
+        assertTrue(credentials.getSubscriptions().isEmpty());
+        assertTrue(new BindCredentials(settingsStore).getSubscriptions().isEmpty());
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        BindCredentials credentials = new BindCredentials(settingsStore);
+        credentials.setCredentials("client", "token");
+        credentials.addSubscription("subscription1", "sessionKey1");
+        credentials.clear();
+
+        BindCredentials restarted = new BindCredentials(settingsStore);
+        assertNull(restarted.getClientId());
+        assertNull(restarted.getToken());
+        assertTrue(restarted.getSubscriptions().isEmpty());
+    }
+
+    @Test
+    public void testUnreadableSubscriptionsAreDropped() throws Exception {
+        settingsStore.put(SettingsStore.Keys.CLIENT_ID, "client");
+        settingsStore.put(SettingsStore.Keys.SUBSCRIPTIONS, "not json {");
+
+        BindCredentials credentials = new BindCredentials(settingsStore);
+
+        assertEquals("client", credentials.getClientId());
+        assertTrue(credentials.getSubscriptions().isEmpty());
+        assertTrue(StringUtil.isNullOrEmpty(settingsStore.get(SettingsStore.Keys.SUBSCRIPTIONS)));
+    }
+}
@@ -0,0 +1,131 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.events.Observer;
+import com.zipwhip.executors.NamedThreadFactory;
+import com.zipwhip.lifecycle.Destroyable;
+import com.zipwhip.timers.HashedWheelTimer;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares SilenceOnTheLineBufferedOrderedQueue, ConcurrentBufferedOrderedQueue and a PartitionedBufferedOrderedQueue
+ * (one ConcurrentBufferedOrderedQueue per core, by subscriptionId) at 1k, 10k and 100k signals/sec, spread over
+ * 16 subscriptions.
+ *
+ * Several producer threads (think socket readers) append at a paced rate while the observer burns a little CPU per
+ * item, the way a real consumer would. We report the cost of append() as seen by the producers and how long it takes
+ * for the last item to come out once the producers go quiet.
+ *
+ * This is not a unit test. Run it by hand:
+ *
+ *      mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.zipwhip.api.signals.BufferedOrderedQueueBenchmark
+ */
+public class BufferedOrderedQueueBenchmark {
+
+    private static final int[] RATES = new int[]{1000, 10000, 100000};
+    private static final int PRODUCERS = 4;
+    private static final long DURATION_MILLIS = 3000;
+    private static final long DELAY_MILLIS = 10;
+    private static final long OBSERVER_COST_NANOS = TimeUnit.MICROSECONDS.toNanos(5);
+    private static final int SUBSCRIPTIONS = 16;
+
+    public static void main(String[] args) throws Exception {
+        for (int rate : RATES) {
+            HashedWheelTimer timer = new HashedWheelTimer(new NamedThreadFactory("BenchmarkTimer-"), 1, TimeUnit.MILLISECONDS);
+            run("SilenceOnTheLine", new SilenceOnTheLineBufferedOrderedQueue<DeliveredMessage>(timer, DELAY_MILLIS, TimeUnit.MILLISECONDS), rate);
+            timer.stop();
+
+            run("Concurrent      ", new ConcurrentBufferedOrderedQueue<DeliveredMessage>(DELAY_MILLIS, TimeUnit.MILLISECONDS), rate);
+            run("Partitioned     ", new PartitionedBufferedOrderedQueue<DeliveredMessage>(PartitionKey.SUBSCRIPTION_ID, DELAY_MILLIS, TimeUnit.MILLISECONDS), rate);
+        }
+    }
+
+    private static void run(String name, final BufferedOrderedQueue<DeliveredMessage> queue, int rate) throws Exception {
+        final long total = rate * DURATION_MILLIS / 1000;
+        final long perProducer = total / PRODUCERS;
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) * PRODUCERS / rate;
+
+        final AtomicLong released = new AtomicLong();
+        final CountDownLatch allReleased = new CountDownLatch(1);
+        final AtomicLong appendNanos = new AtomicLong();
+        final AtomicLong maxAppendNanos = new AtomicLong();
+        final AtomicLong timestamps = new AtomicLong();
+
+        queue.getItemEvent().addObserver(new Observer<DeliveredMessage>() {
+            @Override
+            public void notify(Object sender, DeliveredMessage item) {
+                burn(OBSERVER_COST_NANOS);
+                if (released.incrementAndGet() == perProducer * PRODUCERS) {
+                    allReleased.countDown();
+                }
+            }
+        });
+
+        Thread[] producers = new Thread[PRODUCERS];
+        for (int i = 0; i < PRODUCERS; i++) {
+            producers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    long next = System.nanoTime();
+                    for (long j = 0; j < perProducer; j++) {
+                        DeliveredMessage message = new DeliveredMessage();
+                        long timestamp = timestamps.incrementAndGet();
+                        message.setTimestamp(timestamp);
+                        message.setSubscriptionIds(Collections.singleton("subscription" + (timestamp % SUBSCRIPTIONS)));
+
+                        long start = System.nanoTime();
+                        queue.append(message);
+                        long elapsed = System.nanoTime() - start;
+
+                        appendNanos.addAndGet(elapsed);
+                        long max = maxAppendNanos.get();
+                        while (elapsed > max && !maxAppendNanos.compareAndSet(max, elapsed)) {
+                            max = maxAppendNanos.get();
+                        }
+
+                        next += intervalNanos;
+                        long sleep = next - System.nanoTime();
+                        if (sleep > 0) {
+                            LockSupport.parkNanos(sleep);
+                        }
+                    }
+                }
+            });
+        }
+
+        for (Thread producer : producers) {
+            producer.start();
+        }
+
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        long quiet = System.nanoTime();
+        boolean finished = allReleased.await(30, TimeUnit.SECONDS);
+        long drainMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - quiet);
+
+        System.out.println(String.format("%s rate=%6d/s appends=%7d avgAppend=%8.2fus maxAppend=%10.2fus drainAfterQuiet=%5dms %s",
+                name, rate, perProducer * PRODUCERS,
+                appendNanos.get() / 1000.0 / (perProducer * PRODUCERS),
+                maxAppendNanos.get() / 1000.0,
+                drainMillis,
+                finished ? "" : "(DID NOT FINISH)"));
+
+        if (queue instanceof Destroyable) {
+            ((Destroyable) queue).destroy();
+        }
+    }
+
+    private static void burn(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            // spin
+        }
+    }
+}
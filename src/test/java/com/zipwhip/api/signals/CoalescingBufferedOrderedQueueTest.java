@@ -0,0 +1,119 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.events.Observable;
+import com.zipwhip.events.Observer;
+import com.zipwhip.timers.HashedWheelTimer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CoalescingBufferedOrderedQueueTest {
+
+    final List<String> appended = Collections.synchronizedList(new ArrayList<String>());
+    final List<String> coalesced = new ArrayList<String>();
+
+    final BufferedOrderedQueue<DeliveredMessage> recording = new BufferedOrderedQueue<DeliveredMessage>() {
+        @Override
+        public void append(DeliveredMessage event) {
+            appended.add(event.getId());
+        }
+
+        @Override
+        public Observable<DeliveredMessage> getItemEvent() {
+            return null;
+        }
+
+        @Override
+        public Observable<List<DeliveredMessage>> getBatchEvent() {
+            return null;
+        }
+    };
+
+    CoalescingBufferedOrderedQueue queue;
+
+    @Before
+    public void setUp() throws Exception {
+        queue = new CoalescingBufferedOrderedQueue(recording, new HashedWheelTimer(), 1, TimeUnit.DAYS);
+        queue.coalesceDefaults();
+        queue.getCoalescedEvent().addObserver(new Observer<DeliveredMessage>() {
+            @Override
+            public void notify(Object sender, DeliveredMessage item) {
+                coalesced.add(item.getId());
+            }
+        });
+    }
+
+    @Test
+    public void testKeepsTheLatestPerEntity() throws Exception {
+        queue.append(message("1", "message", "progress", 1, "{\"id\":\"m1\",\"progress\":10}"));
+        queue.append(message("2", "message", "progress", 2, "{\"id\":\"m2\",\"progress\":10}"));
+        queue.append(message("3", "message", "progress", 3, "{\"id\":\"m1\",\"progress\":50}"));
+        // Came in late, older than what is held.
+        queue.append(message("4", "message", "progress", 0, "{\"id\":\"m1\",\"progress\":5}"));
+
+        assertTrue(appended.isEmpty());
+        assertEquals(2, queue.getHeldCount());
+        assertEquals(Arrays.asList("1", "4"), coalesced);
+        assertEquals(2, queue.getCoalescedCount());
+
+        queue.flush();
+
+        assertEquals(2, appended.size());
+        assertTrue(appended.containsAll(Arrays.asList("2", "3")));
+        assertEquals(0, queue.getHeldCount());
+    }
+
+    @Test
+    public void testOnlyWhatWasAskedFor() throws Exception {
+        // Not coalesced at all.
+        queue.append(message("1", "message", "receive", 1, "{\"id\":\"m1\"}"));
+        queue.append(message("2", "message", "receive", 2, "{\"id\":\"m1\"}"));
+        // No key to coalesce on.
+        queue.append(message("3", "conversation", "change", 3, "{\"name\":\"none\"}"));
+
+        assertEquals(Arrays.asList("1", "2", "3"), appended);
+
+        queue.removeCoalesce("message", "progress");
+        queue.append(message("4", "message", "progress", 4, "{\"id\":\"m1\"}"));
+
+        assertEquals(Arrays.asList("1", "2", "3", "4"), appended);
+        assertTrue(coalesced.isEmpty());
+    }
+
+    @Test
+    public void testReleasedAtTheEndOfTheWindow() throws Exception {
+        queue = new CoalescingBufferedOrderedQueue(recording, new HashedWheelTimer(), 100, TimeUnit.MILLISECONDS);
+        queue.coalesceDefaults();
+
+        queue.append(message("1", "conversation", "change", 1, "{\"id\":\"c1\"}"));
+        queue.append(message("2", "conversation", "change", 2, "{\"id\":\"c1\"}"));
+
+        for (int i = 0; i < 100 && appended.isEmpty(); i++) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(Collections.singletonList("2"), appended);
+        assertEquals(0, queue.getHeldCount());
+    }
+
+    private static DeliveredMessage message(String id, String type, String event, long timestamp, String content) {
+        DeliveredMessage message = new DeliveredMessage();
+        message.setId(id);
+        message.setType(type);
+        message.setEvent(event);
+        message.setTimestamp(timestamp);
+        message.setSubscriptionIds(new TreeSet<String>(Collections.singleton("subscription")));
+        message.setContent(content);
+
+        return message;
+    }
+}
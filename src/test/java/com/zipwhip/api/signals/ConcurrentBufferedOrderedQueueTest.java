@@ -0,0 +1,132 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.events.Observer;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class ConcurrentBufferedOrderedQueueTest {
+
+    ConcurrentBufferedOrderedQueue<DeliveredMessage> queue = new ConcurrentBufferedOrderedQueue<DeliveredMessage>(100, TimeUnit.MILLISECONDS);
+
+    @After
+    public void tearDown() throws Exception {
+        queue.destroy();
+    }
+
+    @Test
+    public void testCorrectOrdering() throws Exception {
+        final List<DeliveredMessage> list = new ArrayList<DeliveredMessage>();
+        final CountDownLatch latch = new CountDownLatch(3);
+        queue.getItemEvent().addObserver(new Observer<DeliveredMessage>() {
+            @Override
+            public void notify(Object sender, DeliveredMessage item) {
+                list.add(item);
+                latch.countDown();
+            }
+        });
+
+        queue.append(message(3));
+        queue.append(message(1));
+        queue.append(message(2));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, list.get(0).getTimestamp());
+        assertEquals(2, list.get(1).getTimestamp());
+        assertEquals(3, list.get(2).getTimestamp());
+    }
+
+    @Test
+    public void testSlowObserverDoesNotBlockAppend() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        queue.getItemEvent().addObserver(new Observer<DeliveredMessage>() {
+            @Override
+            public void notify(Object sender, DeliveredMessage item) {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        queue.append(message(1));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        // The observer is parked inside notify(). Appending must still return immediately.
+        long start = System.nanoTime();
+        queue.append(message(2));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        release.countDown();
+
+        assertTrue("append() blocked for " + elapsed + "ms", elapsed < 50);
+    }
+
+    @Test
+    public void testBatchesAreBoundedBySize() throws Exception {
+        queue.setMaxBatchSize(2);
+
+        final List<List<DeliveredMessage>> batches = new ArrayList<List<DeliveredMessage>>();
+        final CountDownLatch latch = new CountDownLatch(3);
+        queue.getBatchEvent().addObserver(new Observer<List<DeliveredMessage>>() {
+            @Override
+            public void notify(Object sender, List<DeliveredMessage> item) {
+                batches.add(item);
+                latch.countDown();
+            }
+        });
+
+        for (int i = 5; i > 0; i--) {
+            queue.append(message(i));
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        assertEquals(2, batches.get(0).size());
+        assertEquals(2, batches.get(1).size());
+        assertEquals(1, batches.get(2).size());
+        assertEquals(1, batches.get(0).get(0).getTimestamp());
+        assertEquals(5, batches.get(2).get(0).getTimestamp());
+    }
+
+    @Test
+    public void testMaxLatencyForcesRelease() throws Exception {
+        queue.setMaxLatency(300, TimeUnit.MILLISECONDS);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        queue.getBatchEvent().addObserver(new Observer<List<DeliveredMessage>>() {
+            @Override
+            public void notify(Object sender, List<DeliveredMessage> item) {
+                latch.countDown();
+            }
+        });
+
+        // Never let the line go silent for the 100ms delay.
+        long end = System.currentTimeMillis() + 2000;
+        long timestamp = 0;
+        while (latch.getCount() > 0 && System.currentTimeMillis() < end) {
+            queue.append(message(timestamp++));
+            Thread.sleep(10);
+        }
+
+        assertTrue("The max latency did not force a release", latch.await(0, TimeUnit.MILLISECONDS));
+    }
+
+    private DeliveredMessage message(long timestamp) {
+        DeliveredMessage message = new DeliveredMessage();
+        message.setTimestamp(timestamp);
+        return message;
+    }
+}
@@ -0,0 +1,86 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.events.Observable;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DeduplicatingBufferedOrderedQueueTest {
+
+    final List<String> appended = new ArrayList<String>();
+
+    final BufferedOrderedQueue<DeliveredMessage> recording = new BufferedOrderedQueue<DeliveredMessage>() {
+        @Override
+        public void append(DeliveredMessage event) {
+            appended.add(event.getId());
+        }
+
+        @Override
+        public Observable<DeliveredMessage> getItemEvent() {
+            return null;
+        }
+
+        @Override
+        public Observable<List<DeliveredMessage>> getBatchEvent() {
+            return null;
+        }
+    };
+
+    DeduplicatingBufferedOrderedQueue queue = new DeduplicatingBufferedOrderedQueue(recording);
+
+    @Test
+    public void testDropsRepeatedIds() throws Exception {
+        queue.append(message("1"));
+        queue.append(message("2"));
+        queue.append(message("1"));
+        queue.append(message("3"));
+        queue.append(message("2"));
+
+        assertEquals(Arrays.asList("1", "2", "3"), appended);
+        assertEquals(2, queue.getHitCount());
+        assertEquals(3, queue.getMissCount());
+    }
+
+    @Test
+    public void testAcksTheDuplicates() throws Exception {
+        final List<String> acked = new ArrayList<String>();
+
+        for (int i = 0; i < 2; i++) {
+            DeliveredMessage message = message("1");
+            message.setAck(new Runnable() {
+                @Override
+                public void run() {
+                    acked.add("1");
+                }
+            });
+
+            queue.append(message);
+        }
+
+        // The first is acked once it is released, which the recording queue never does.
+        assertEquals(Collections.singletonList("1"), acked);
+    }
+
+    @Test
+    public void testSignalsWithoutIdsGoThrough() throws Exception {
+        queue.append(message(null));
+        queue.append(message(null));
+        queue.append(message(""));
+
+        assertEquals(3, appended.size());
+        assertEquals(0, queue.getHitCount());
+    }
+
+    private static DeliveredMessage message(String id) {
+        DeliveredMessage message = new DeliveredMessage();
+        message.setId(id);
+
+        return message;
+    }
+}
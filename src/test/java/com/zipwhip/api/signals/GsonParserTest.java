@@ -1,7 +1,9 @@
 package com.zipwhip.api.signals;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParser;
 import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.api.signals.dto.json.DeliveredMessageReader;
 import com.zipwhip.api.signals.dto.json.SignalProviderGsonBuilder;
 import com.zipwhip.signals2.SignalContentConverter;
 import com.zipwhip.signals2.SignalMessage;
@@ -17,6 +19,7 @@ import java.util.TreeSet;
 import static junit.framework.Assert.fail;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 /**
  * Date: 9/10/13
@@ -28,6 +31,7 @@ import static org.junit.Assert.assertNotNull;
 public class GsonParserTest {
 
     private Gson gson = SignalProviderGsonBuilder.getInstance();
+    private DeliveredMessageReader reader = new DeliveredMessageReader(gson);
 
     @Test
     public void testDevice() throws Exception {
@@ -118,4 +122,47 @@ public class GsonParserTest {
 
         fail("This should be improved");
     }
+
+    @Test
+    public void testReaderMatchesTypeAdapter() throws Exception {
+        SignalMessage signal = new SignalMessage();
+        signal.setBody("body");
+        signal.setMessageType("MO");
+        signal.setAddress("ptn:/234234");
+        signal.setDeviceId(342343L);
+
+        String content = gson.toJson(SignalContentConverter.toMap(signal));
+
+        // content first, so the reader has to buffer it until it knows the type.
+        String[] frames = new String[]{
+                "{\"subscriptionIds\":[\"a\",\"b\"],\"timestamp\":12345,\"id\":\"1\",\"type\":\"message\",\"event\":\"receive\",\"unknown\":{\"x\":[1,2]},\"content\":" + content + "}",
+                "{\"content\":" + content + ",\"event\":\"receive\",\"type\":\"message\",\"id\":\"1\",\"timestamp\":12345,\"subscriptionIds\":[\"a\"]}",
+                "{\"type\":\"message\",\"event\":\"progress\",\"content\":\"50\",\"timestamp\":1}",
+                "{\"type\":\"custom\",\"event\":\"thing\",\"content\":\"hello\",\"subscriptionIds\":[]}"
+        };
+
+        for (String frame : frames) {
+            DeliveredMessage expected = gson.fromJson(frame, DeliveredMessage.class);
+
+            assertSameMessage(expected, reader.read(frame));
+            assertSameMessage(expected, reader.read(new JsonParser().parse(frame)));
+        }
+    }
+
+    @Test
+    public void testReaderEmptySubscriptionIds() throws Exception {
+        DeliveredMessage message = reader.read("{\"type\":\"message\",\"event\":\"progress\",\"subscriptionIds\":[]}");
+
+        assertNull(message.getSubscriptionIds());
+        assertNull(message.getContent());
+    }
+
+    private void assertSameMessage(DeliveredMessage expected, DeliveredMessage actual) {
+        assertEquals(expected.getSubscriptionIds(), actual.getSubscriptionIds());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getEvent(), actual.getEvent());
+        assertEquals(expected.getContent(), actual.getContent());
+    }
 }
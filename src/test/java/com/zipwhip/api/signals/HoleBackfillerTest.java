@@ -0,0 +1,258 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.concurrent.DefaultObservableFuture;
+import com.zipwhip.concurrent.HoleRange;
+import com.zipwhip.concurrent.MutableObservableFuture;
+import com.zipwhip.concurrent.ObservableFuture;
+import com.zipwhip.events.Observable;
+import com.zipwhip.events.Observer;
+import com.zipwhip.timers.HashedWheelTimer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class HoleBackfillerTest {
+
+    private RecordingBackfillSource source;
+    private RecordingQueue queue;
+    private HoleBackfiller backfiller;
+
+    @Before
+    public void setUp() throws Exception {
+        source = new RecordingBackfillSource();
+        queue = new RecordingQueue();
+        backfiller = new HoleBackfiller(source, new HashedWheelTimer());
+        backfiller.setBufferedOrderedQueue(queue);
+    }
+
+    @Test
+    public void testMergesOverlappingAndAdjacentHoles() throws Exception {
+        // Nothing is fetched while the one fetch slot is taken, so the rest stays pending and merges.
+        backfiller.setMaxConcurrentFetches(1);
+        backfiller.add(new HoleRange("z", 1000, 1000));
+
+        backfiller.add(new HoleRange("a", 2, 4));
+        backfiller.add(new HoleRange("a", 10, 12));
+        backfiller.add(new HoleRange("a", 5, 6));
+        backfiller.add(new HoleRange("a", 11, 20));
+        backfiller.add(new HoleRange("a", 30, 31));
+        backfiller.add(new HoleRange("b", 2, 4));
+
+        assertEquals(Arrays.asList(new HoleRange("a", 2, 6), new HoleRange("a", 10, 20), new HoleRange("a", 30, 31),
+                new HoleRange("b", 2, 4)), backfiller.getPendingHoles());
+
+        backfiller.add(new HoleRange("a", 7, 9));
+
+        assertEquals(Arrays.asList(new HoleRange("a", 2, 20), new HoleRange("a", 30, 31), new HoleRange("b", 2, 4)),
+                backfiller.getPendingHoles());
+    }
+
+    @Test
+    public void testSplitsIntoBoundedConcurrentBatches() throws Exception {
+        backfiller.setMaxConcurrentFetches(2);
+        backfiller.setMaxBatchSize(10);
+
+        backfiller.add(new HoleRange("a", 1, 35));
+
+        assertEquals(Arrays.asList("a 1-10", "a 11-20"), source.calls);
+        assertEquals(2, backfiller.getInFlightCount());
+
+        source.complete(0);
+
+        assertEquals(Arrays.asList("a 1-10", "a 11-20", "a 21-30"), source.calls);
+        assertEquals(2, backfiller.getInFlightCount());
+
+        source.complete(1);
+        source.complete(2);
+        source.complete(3);
+
+        assertEquals(Arrays.asList("a 1-10", "a 11-20", "a 21-30", "a 31-35"), source.calls);
+        assertEquals(0, backfiller.getInFlightCount());
+        assertTrue(backfiller.getPendingHoles().isEmpty());
+    }
+
+    @Test
+    public void testSubscriptionsTakeTurns() throws Exception {
+        backfiller.setMaxConcurrentFetches(1);
+        backfiller.setMaxBatchSize(10);
+
+        backfiller.add(new HoleRange("z", 1, 1));
+        backfiller.add(new HoleRange("a", 1, 30));
+        backfiller.add(new HoleRange("b", 1, 5));
+
+        source.complete(0);
+        source.complete(1);
+        source.complete(2);
+
+        assertEquals(Arrays.asList("z 1-1", "a 1-10", "b 1-5", "a 11-20"), source.calls);
+    }
+
+    @Test
+    public void testAppendsInVersionOrder() throws Exception {
+        backfiller.add(new HoleRange("a", 5, 7));
+
+        source.futures.get(0).setSuccess(Arrays.<DeliveredMessage>asList(message(7), message(5), message(6)));
+
+        assertEquals(Arrays.asList(5L, 6L, 7L), queue.versions());
+    }
+
+    @Test
+    public void testRetriesThenGivesUp() throws Exception {
+        final List<HoleRange> failures = new ArrayList<HoleRange>();
+
+        backfiller.getFailureEvent().addObserver(new Observer<HoleRange>() {
+            @Override
+            public void notify(Object sender, HoleRange hole) {
+                failures.add(hole);
+            }
+        });
+
+        backfiller.setRetryDelayMillis(10);
+        backfiller.add(new HoleRange("a", 5, 7));
+
+        source.futures.get(0).setFailure(new Exception("1"));
+        source.awaitCalls(2);
+        source.futures.get(1).setFailure(new Exception("2"));
+        source.awaitCalls(3);
+
+        assertTrue(failures.isEmpty());
+        assertEquals(Arrays.asList("a 5-7", "a 5-7", "a 5-7"), source.calls);
+
+        source.futures.get(2).setFailure(new Exception("3"));
+
+        assertEquals(Collections.singletonList(new HoleRange("a", 5, 7)), failures);
+        assertEquals(0, backfiller.getInFlightCount());
+        assertTrue(queue.messages.isEmpty());
+    }
+
+    @Test
+    public void testBacksOffThenRetriesFailedHolesLater() throws Exception {
+        backfiller.setMaxAttempts(2);
+        backfiller.setRetryDelayMillis(300);
+        backfiller.add(new HoleRange("a", 5, 7));
+
+        source.futures.get(0).setFailure(new Exception("1"));
+
+        // Not tried again right away, and still taking its fetch slot while it waits.
+        assertEquals(1, source.calls.size());
+        assertEquals(1, backfiller.getInFlightCount());
+
+        source.awaitCalls(2);
+        source.futures.get(1).setFailure(new Exception("2"));
+
+        assertEquals(0, backfiller.getInFlightCount());
+        assertTrue(backfiller.getPendingHoles().isEmpty());
+        assertEquals(Collections.singletonList(new HoleRange("a", 5, 7)), backfiller.getFailedHoles());
+
+        // As on a bind back to the same client.
+        backfiller.retryFailed();
+
+        assertEquals(3, source.calls.size());
+        assertTrue(backfiller.getFailedHoles().isEmpty());
+
+        source.futures.get(2).setSuccess(Arrays.<DeliveredMessage>asList(message(5), message(6), message(7)));
+
+        assertEquals(Arrays.asList(5L, 6L, 7L), queue.versions());
+    }
+
+    @Test
+    public void testTimeoutCountsAsAFailedAttempt() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        backfiller.setTimeoutSeconds(1);
+        backfiller.setMaxAttempts(2);
+        backfiller.getFailureEvent().addObserver(new Observer<HoleRange>() {
+            @Override
+            public void notify(Object sender, HoleRange hole) {
+                latch.countDown();
+            }
+        });
+
+        backfiller.add(new HoleRange("a", 5, 7));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(2, source.calls.size());
+
+        // A late answer is dropped.
+        source.futures.get(0).setSuccess(Collections.<DeliveredMessage>singletonList(message(5)));
+
+        assertTrue(queue.messages.isEmpty());
+    }
+
+    private static DeliveredMessage message(long version) {
+        DeliveredMessage message = new DeliveredMessage();
+
+        message.setVersion(version);
+        message.setTimestamp(version);
+
+        return message;
+    }
+
+    private static class RecordingBackfillSource implements BackfillSource {
+
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        final List<MutableObservableFuture<List<DeliveredMessage>>> futures =
+                Collections.synchronizedList(new ArrayList<MutableObservableFuture<List<DeliveredMessage>>>());
+
+        @Override
+        public ObservableFuture<List<DeliveredMessage>> fetch(String subscriptionId, long start, long end) {
+            MutableObservableFuture<List<DeliveredMessage>> future = new DefaultObservableFuture<List<DeliveredMessage>>(this);
+
+            calls.add(subscriptionId + " " + start + "-" + end);
+            futures.add(future);
+
+            return future;
+        }
+
+        void awaitCalls(int count) throws InterruptedException {
+            for (int i = 0; i < 250 && calls.size() < count; i++) {
+                Thread.sleep(20);
+            }
+
+            assertEquals(count, calls.size());
+        }
+
+        void complete(int index) {
+            futures.get(index).setSuccess(Collections.<DeliveredMessage>emptyList());
+        }
+    }
+
+    private static class RecordingQueue implements BufferedOrderedQueue<DeliveredMessage> {
+
+        final List<DeliveredMessage> messages = Collections.synchronizedList(new ArrayList<DeliveredMessage>());
+
+        @Override
+        public void append(DeliveredMessage event) {
+            messages.add(event);
+        }
+
+        @Override
+        public Observable<DeliveredMessage> getItemEvent() {
+            return null;
+        }
+
+        @Override
+        public Observable<List<DeliveredMessage>> getBatchEvent() {
+            return null;
+        }
+
+        List<Long> versions() {
+            List<Long> result = new ArrayList<Long>();
+
+            for (DeliveredMessage message : messages) {
+                result.add(message.getVersion());
+            }
+
+            return result;
+        }
+    }
+}
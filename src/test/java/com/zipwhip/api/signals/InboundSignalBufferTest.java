@@ -0,0 +1,243 @@
+package com.zipwhip.api.signals;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.zipwhip.events.Observer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class InboundSignalBufferTest {
+
+    File spillFile;
+    InboundSignalBuffer buffer;
+
+    // The observer waits on this before releasing anything, so frames pile up.
+    final CountDownLatch open = new CountDownLatch(1);
+    final CountDownLatch started = new CountDownLatch(1);
+    final List<String> released = Collections.synchronizedList(new ArrayList<String>());
+    final AtomicInteger acks = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        spillFile = File.createTempFile("InboundSignalBufferTest", ".spill");
+        spillFile.delete();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        open.countDown();
+
+        if (buffer != null) {
+            buffer.destroy();
+        }
+
+        spillFile.delete();
+    }
+
+    @Test
+    public void testAckedOnlyOnceReleased() throws Exception {
+        buffer = create(10, InboundSignalBuffer.OverflowPolicy.BLOCK);
+
+        assertTrue(buffer.offer(frame("1"), ack()));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(0, acks.get());
+
+        open.countDown();
+
+        assertTrue(awaitReleased(1));
+        assertEquals(1, awaitAcks(1));
+    }
+
+    @Test
+    public void testObserverCanTakeTheAck() throws Exception {
+        final List<Runnable> taken = Collections.synchronizedList(new ArrayList<Runnable>());
+
+        buffer = create(10, InboundSignalBuffer.OverflowPolicy.BLOCK);
+        buffer.getReleaseEvent().addObserver(new Observer<JsonElement>() {
+            @Override
+            public void notify(Object sender, JsonElement item) {
+                taken.add(DeferredAck.take());
+            }
+        });
+
+        open.countDown();
+        buffer.offer(frame("1"), ack());
+        buffer.offer(frame("2"), null);
+
+        assertTrue(awaitReleased(2));
+        for (int i = 0; i < 500 && taken.size() < 2; i++) {
+            Thread.sleep(10);
+        }
+
+        // Whoever took it sends it, the buffer does not.
+        assertEquals(2, taken.size());
+        assertNull(taken.get(1));
+        assertEquals(0, acks.get());
+
+        taken.get(0).run();
+        assertEquals(1, acks.get());
+    }
+
+    @Test
+    public void testBlockWaitsForRoom() throws Exception {
+        buffer = create(1, InboundSignalBuffer.OverflowPolicy.BLOCK);
+
+        // One in the observer, one waiting. The third has to wait for room.
+        buffer.offer(frame("1"), ack());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        buffer.offer(frame("2"), ack());
+
+        final CountDownLatch offered = new CountDownLatch(1);
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                buffer.offer(frame("3"), ack());
+                offered.countDown();
+            }
+        }).start();
+
+        assertFalse(offered.await(200, TimeUnit.MILLISECONDS));
+
+        open.countDown();
+
+        assertTrue(offered.await(5, TimeUnit.SECONDS));
+        assertTrue(awaitReleased(3));
+        assertEquals(Arrays.asList("1", "2", "3"), released);
+        assertEquals(3, awaitAcks(3));
+    }
+
+    @Test
+    public void testShedDropsWithoutAck() throws Exception {
+        buffer = create(1, InboundSignalBuffer.OverflowPolicy.SHED);
+
+        buffer.offer(frame("1"), ack());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(buffer.offer(frame("2"), ack()));
+        assertFalse(buffer.offer(frame("3"), ack()));
+        assertEquals(1, buffer.getShedCount());
+
+        open.countDown();
+
+        assertTrue(awaitReleased(2));
+        assertEquals(2, awaitAcks(2));
+        assertEquals(Arrays.asList("1", "2"), released);
+    }
+
+    @Test
+    public void testSpillKeepsOrderAndAcksOnceOnDisk() throws Exception {
+        buffer = create(1, InboundSignalBuffer.OverflowPolicy.SPILL);
+
+        buffer.offer(frame("1"), ack());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        buffer.offer(frame("2"), ack());
+
+        for (int i = 3; i <= 6; i++) {
+            assertTrue(buffer.offer(frame(String.valueOf(i)), ack()));
+        }
+
+        // The spilled ones are acked already, the ones in memory are not.
+        assertEquals(4, acks.get());
+        assertEquals(4, buffer.getSpillSize());
+        assertEquals(1, buffer.size());
+
+        open.countDown();
+
+        assertTrue(awaitReleased(6));
+        assertEquals(Arrays.asList("1", "2", "3", "4", "5", "6"), released);
+        assertEquals(6, awaitAcks(6));
+        assertEquals(0, buffer.getSpillSize());
+    }
+
+    @Test
+    public void testSpillSurvivesRestart() throws Exception {
+        buffer = create(1, InboundSignalBuffer.OverflowPolicy.SPILL);
+
+        buffer.offer(frame("1"), ack());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        buffer.offer(frame("2"), ack());
+        buffer.offer(frame("3"), ack());
+        buffer.offer(frame("4"), ack());
+
+        buffer.destroy();
+        released.clear();
+
+        final List<String> recovered = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch latch = new CountDownLatch(2);
+
+        buffer = new InboundSignalBuffer(1, InboundSignalBuffer.OverflowPolicy.SPILL, spillFile);
+        buffer.getReleaseEvent().addObserver(new Observer<JsonElement>() {
+            @Override
+            public void notify(Object sender, JsonElement item) {
+                recovered.add(item.getAsString());
+                latch.countDown();
+            }
+        });
+        buffer.start();
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("3", "4"), recovered);
+    }
+
+    private InboundSignalBuffer create(int capacity, InboundSignalBuffer.OverflowPolicy policy) {
+        InboundSignalBuffer buffer = new InboundSignalBuffer(capacity, policy, spillFile);
+
+        buffer.getReleaseEvent().addObserver(new Observer<JsonElement>() {
+            @Override
+            public void notify(Object sender, JsonElement item) {
+                started.countDown();
+
+                try {
+                    open.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                released.add(item.getAsString());
+            }
+        });
+
+        return buffer;
+    }
+
+    private Runnable ack() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                acks.incrementAndGet();
+            }
+        };
+    }
+
+    private boolean awaitReleased(int count) throws InterruptedException {
+        for (int i = 0; i < 500 && released.size() < count; i++) {
+            Thread.sleep(10);
+        }
+
+        return released.size() == count;
+    }
+
+    private int awaitAcks(int count) throws InterruptedException {
+        for (int i = 0; i < 500 && acks.get() < count; i++) {
+            Thread.sleep(10);
+        }
+
+        return acks.get();
+    }
+
+    private static JsonElement frame(String data) {
+        return new JsonPrimitive(data);
+    }
+}
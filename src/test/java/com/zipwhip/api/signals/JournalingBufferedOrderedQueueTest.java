@@ -0,0 +1,156 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.api.signals.dto.json.SignalProviderGsonBuilder;
+import com.zipwhip.events.Observable;
+import com.zipwhip.events.ObservableHelper;
+import com.zipwhip.events.Observer;
+import com.zipwhip.executors.SimpleExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class JournalingBufferedOrderedQueueTest {
+
+    File directory;
+
+    final List<DeliveredMessage> appended = new ArrayList<DeliveredMessage>();
+    final List<DeliveredMessage> released = new ArrayList<DeliveredMessage>();
+
+    final ObservableHelper<List<DeliveredMessage>> batchEvent =
+            new ObservableHelper<List<DeliveredMessage>>("BatchEvent", SimpleExecutor.getInstance());
+
+    final BufferedOrderedQueue<DeliveredMessage> recording = new BufferedOrderedQueue<DeliveredMessage>() {
+        @Override
+        public void append(DeliveredMessage event) {
+            appended.add(event);
+        }
+
+        @Override
+        public Observable<DeliveredMessage> getItemEvent() {
+            return null;
+        }
+
+        @Override
+        public Observable<List<DeliveredMessage>> getBatchEvent() {
+            return batchEvent;
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("JournalingBufferedOrderedQueueTest", "");
+        directory.delete();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        File[] files = directory.listFiles();
+
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+
+        directory.delete();
+    }
+
+    @Test
+    public void testReplaysWhatWasNotReleased() throws Exception {
+        JournalingBufferedOrderedQueue queue = queue();
+        queue.getBatchEvent().addObserver(new Observer<List<DeliveredMessage>>() {
+            @Override
+            public void notify(Object sender, List<DeliveredMessage> batch) {
+                released.addAll(batch);
+            }
+        });
+
+        queue.append(message("1", 1));
+        queue.append(message("2", 2));
+        release(appended.get(0));
+
+        assertEquals(1, released.size());
+        assertEquals(1, queue.getJournal().getLiveCount());
+
+        // As if the process died with the second still in the queue.
+        appended.clear();
+        JournalingBufferedOrderedQueue restarted = queue();
+
+        assertEquals(1, restarted.replay());
+        assertEquals(1, appended.size());
+
+        DeliveredMessage replayed = appended.get(0);
+        assertEquals("2", replayed.getId());
+        assertEquals(2L, replayed.getTimestamp());
+        assertEquals(Long.valueOf(7), replayed.getVersion());
+        assertEquals("message", replayed.getType());
+        assertEquals("read", replayed.getEvent());
+        assertEquals(new TreeSet<String>(Collections.singleton("subscription")), replayed.getSubscriptionIds());
+
+        release(replayed);
+
+        assertEquals(0, restarted.getJournal().getLiveCount());
+        assertEquals(0, queue().replay());
+    }
+
+    @Test
+    public void testAcksOnceJournaled() throws Exception {
+        final List<String> acked = new ArrayList<String>();
+
+        DeliveredMessage message = message("1", 1);
+        message.setAck(new Runnable() {
+            @Override
+            public void run() {
+                acked.add("1");
+            }
+        });
+
+        queue().append(message);
+
+        // Not released yet, but it would be replayed.
+        assertEquals(Collections.singletonList("1"), acked);
+
+        message.ack();
+        assertEquals(1, acked.size());
+    }
+
+    @Test
+    public void testOnlyTheJournalWritesDatesAsMillis() throws Exception {
+        Date date = new Date(1234);
+
+        assertEquals(date, JournalingBufferedOrderedQueue.newGson().fromJson("1234", Date.class));
+        assertEquals("1234", JournalingBufferedOrderedQueue.newGson().toJson(date));
+        // What goes on the wire is left as it was.
+        assertFalse("1234".equals(SignalProviderGsonBuilder.getInstance().toJson(date)));
+    }
+
+    private JournalingBufferedOrderedQueue queue() throws Exception {
+        return new JournalingBufferedOrderedQueue(recording, new SignalJournal(directory, 4096));
+    }
+
+    private void release(DeliveredMessage message) {
+        batchEvent.notifyObservers(this, Collections.singletonList(message));
+    }
+
+    private static DeliveredMessage message(String id, long timestamp) {
+        DeliveredMessage message = new DeliveredMessage();
+        message.setId(id);
+        message.setTimestamp(timestamp);
+        message.setVersion(7L);
+        message.setType("message");
+        message.setEvent("read");
+        message.setSubscriptionIds(new TreeSet<String>(Collections.singleton("subscription")));
+
+        return message;
+    }
+}
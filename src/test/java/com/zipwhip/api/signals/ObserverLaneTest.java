@@ -0,0 +1,136 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.events.Observer;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ObserverLaneTest {
+
+    final List<Integer> notified = Collections.synchronizedList(new ArrayList<Integer>());
+    final CountDownLatch gate = new CountDownLatch(1);
+    final CountDownLatch started = new CountDownLatch(1);
+
+    // Holds the first event until the gate opens, so the rest pile up in the lane.
+    final Observer<Integer> slow = new Observer<Integer>() {
+        @Override
+        public void notify(Object sender, Integer item) {
+            started.countDown();
+
+            try {
+                gate.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            notified.add(item);
+        }
+    };
+
+    ObserverLane<Integer> lane;
+
+    @After
+    public void tearDown() throws Exception {
+        gate.countDown();
+
+        if (lane != null) {
+            lane.destroy();
+        }
+    }
+
+    @Test
+    public void testDoesNotHoldUpTheSender() throws Exception {
+        lane = new ObserverLane<Integer>(slow, "test", 10, ObserverLane.OverflowPolicy.BLOCK);
+
+        for (int i = 0; i < 5; i++) {
+            lane.notify(this, i);
+        }
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(4, lane.getQueueDepth());
+
+        gate.countDown();
+        awaitDelivered(5);
+
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), notified);
+        assertEquals(0, lane.getQueueDepth());
+        assertTrue(lane.getMaxQueueDepth() >= 4);
+        assertTrue(lane.getMaxLatencyNanos() > 0);
+    }
+
+    @Test
+    public void testDropNewest() throws Exception {
+        lane = new ObserverLane<Integer>(slow, "test", 2, ObserverLane.OverflowPolicy.DROP_NEWEST);
+
+        lane.notify(this, 0);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        for (int i = 1; i < 5; i++) {
+            lane.notify(this, i);
+        }
+
+        gate.countDown();
+        awaitDelivered(3);
+
+        assertEquals(Arrays.asList(0, 1, 2), notified);
+        assertEquals(2, lane.getDroppedCount());
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        lane = new ObserverLane<Integer>(slow, "test", 2, ObserverLane.OverflowPolicy.DROP_OLDEST);
+
+        lane.notify(this, 0);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        for (int i = 1; i < 5; i++) {
+            lane.notify(this, i);
+        }
+
+        gate.countDown();
+        awaitDelivered(3);
+
+        assertEquals(Arrays.asList(0, 3, 4), notified);
+        assertEquals(2, lane.getDroppedCount());
+    }
+
+    @Test
+    public void testFailingObserverKeepsTheLaneGoing() throws Exception {
+        lane = new ObserverLane<Integer>(new Observer<Integer>() {
+            @Override
+            public void notify(Object sender, Integer item) {
+                if (item == 0) {
+                    throw new RuntimeException("expected");
+                }
+
+                notified.add(item);
+            }
+        }, "test");
+
+        lane.notify(this, 0);
+        lane.notify(this, 1);
+
+        awaitDelivered(1);
+
+        assertEquals(Arrays.asList(1), notified);
+        assertEquals(1, lane.getFailedCount());
+    }
+
+    private void awaitDelivered(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (lane.getDeliveredCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(count, lane.getDeliveredCount());
+    }
+}
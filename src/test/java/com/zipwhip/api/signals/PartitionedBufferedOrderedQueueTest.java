@@ -0,0 +1,147 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.events.Observer;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PartitionedBufferedOrderedQueueTest {
+
+    PartitionedBufferedOrderedQueue<DeliveredMessage> queue =
+            new PartitionedBufferedOrderedQueue<DeliveredMessage>(PartitionKey.SUBSCRIPTION_ID, 4, 100, TimeUnit.MILLISECONDS);
+
+    @After
+    public void tearDown() throws Exception {
+        queue.destroy();
+    }
+
+    @Test
+    public void testOrderedWithinEachSubscription() throws Exception {
+        final Map<String, List<Long>> released = new HashMap<String, List<Long>>();
+        final CountDownLatch latch = new CountDownLatch(800);
+
+        queue.getItemEvent().addObserver(new Observer<DeliveredMessage>() {
+            @Override
+            public void notify(Object sender, DeliveredMessage item) {
+                String subscriptionId = (String) PartitionKey.SUBSCRIPTION_ID.getKey(item);
+
+                synchronized (released) {
+                    if (!released.containsKey(subscriptionId)) {
+                        released.put(subscriptionId, new ArrayList<Long>());
+                    }
+
+                    released.get(subscriptionId).add(item.getTimestamp());
+                }
+
+                latch.countDown();
+            }
+        });
+
+        List<DeliveredMessage> messages = new ArrayList<DeliveredMessage>();
+        for (int timestamp = 1; timestamp <= 100; timestamp++) {
+            for (int subscription = 0; subscription < 8; subscription++) {
+                messages.add(message(timestamp, "subscription" + subscription));
+            }
+        }
+
+        Collections.shuffle(messages, new Random(42));
+
+        for (DeliveredMessage message : messages) {
+            queue.append(message);
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(8, released.size());
+
+        for (List<Long> timestamps : released.values()) {
+            assertEquals(100, timestamps.size());
+
+            for (int i = 0; i < timestamps.size(); i++) {
+                assertEquals(Long.valueOf(i + 1), timestamps.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testSlowPartitionDoesNotHoldUpTheOthers() throws Exception {
+        final String slow = "slow";
+        String fast = null;
+
+        for (int i = 0; fast == null; i++) {
+            if (queue.getPartition("fast" + i) != queue.getPartition(slow)) {
+                fast = "fast" + i;
+            }
+        }
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch fastReleased = new CountDownLatch(1);
+
+        queue.getItemEvent().addObserver(new Observer<DeliveredMessage>() {
+            @Override
+            public void notify(Object sender, DeliveredMessage item) {
+                if (slow.equals(PartitionKey.SUBSCRIPTION_ID.getKey(item))) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                } else {
+                    fastReleased.countDown();
+                }
+            }
+        });
+
+        queue.append(message(1, slow));
+        queue.append(message(2, fast));
+
+        try {
+            assertTrue(fastReleased.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testSameKeySamePartition() throws Exception {
+        assertEquals(4, queue.getPartitionCount());
+        assertSame(queue.getPartition("a"), queue.getPartition(new String("a")));
+        assertSame(queue.getPartition(null), queue.getPartition(null));
+
+        DeliveredMessage message = new DeliveredMessage();
+        assertNull(PartitionKey.SUBSCRIPTION_ID.getKey(message));
+
+        // Whatever order the set is in.
+        message.setSubscriptionIds(new LinkedHashSet<String>(Arrays.asList("c", "a", "b")));
+        assertEquals("a", PartitionKey.SUBSCRIPTION_ID.getKey(message));
+
+        message.setSubscriptionIds(new LinkedHashSet<String>(Arrays.asList("b", "c", "a")));
+        assertEquals("a", PartitionKey.SUBSCRIPTION_ID.getKey(message));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNeedsAPartition() throws Exception {
+        new PartitionedBufferedOrderedQueue<DeliveredMessage>(PartitionKey.SUBSCRIPTION_ID, 0, 100, TimeUnit.MILLISECONDS);
+    }
+
+    private static DeliveredMessage message(long timestamp, String subscriptionId) {
+        DeliveredMessage message = new DeliveredMessage();
+
+        message.setTimestamp(timestamp);
+        message.setSubscriptionIds(Collections.singleton(subscriptionId));
+
+        return message;
+    }
+}
@@ -0,0 +1,112 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.events.ObservableHelper;
+import com.zipwhip.events.Observer;
+import com.zipwhip.executors.SimpleExecutor;
+import com.zipwhip.util.StringUtil;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares two ways of getting a signal to the consumers that handle it, with 50 observers registered
+ * (5 types x 10 events, one observer per pair):
+ *
+ * broadcast - every observer gets every signal and compares the type and event with equalsIgnoreCase.
+ * dispatch  - the observers register their (type, event) with a SignalDispatcher and only the matching one is called.
+ *
+ * This is not a unit test. Run it by hand:
+ *
+ *      mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.zipwhip.api.signals.SignalDispatchBenchmark
+ */
+public class SignalDispatchBenchmark {
+
+    private static final String[] TYPES = new String[]{"message", "contact", "conversation", "carbon", "device"};
+    private static final int EVENTS = 10;
+    private static final int SIGNALS = 1000000;
+    private static final int ROUNDS = 5;
+
+    private static long handled;
+
+    public static void main(String[] args) throws Exception {
+        DeliveredMessage[] signals = signals();
+
+        ObservableHelper<DeliveredMessage> broadcast = new ObservableHelper<DeliveredMessage>("Broadcast", SimpleExecutor.getInstance());
+        SignalDispatcher dispatcher = new SignalDispatcher();
+
+        for (String type : TYPES) {
+            for (int i = 0; i < EVENTS; i++) {
+                broadcast.addObserver(new FilteringObserver(type, event(i)));
+                dispatcher.addObserver(type, event(i), new CountingObserver());
+            }
+        }
+
+        for (int round = 0; round < ROUNDS; round++) {
+            handled = 0;
+            long start = System.nanoTime();
+            for (DeliveredMessage signal : signals) {
+                broadcast.notifyObservers(SignalDispatchBenchmark.class, signal);
+            }
+            report("broadcast", start, round);
+
+            handled = 0;
+            start = System.nanoTime();
+            for (DeliveredMessage signal : signals) {
+                dispatcher.dispatch(SignalDispatchBenchmark.class, signal);
+            }
+            report("dispatch ", start, round);
+        }
+    }
+
+    private static void report(String name, long start, int round) {
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format("%s round=%d signals=%d handled=%d %8.1fns/signal (%dms)",
+                name, round, SIGNALS, handled, (double) elapsed / SIGNALS, TimeUnit.NANOSECONDS.toMillis(elapsed)));
+    }
+
+    private static DeliveredMessage[] signals() {
+        Random random = new Random(42);
+        DeliveredMessage[] signals = new DeliveredMessage[SIGNALS];
+
+        for (int i = 0; i < SIGNALS; i++) {
+            DeliveredMessage message = new DeliveredMessage();
+            message.setType(TYPES[random.nextInt(TYPES.length)]);
+            message.setEvent(event(random.nextInt(EVENTS)));
+            signals[i] = message;
+        }
+
+        return signals;
+    }
+
+    private static String event(int i) {
+        return "event" + i;
+    }
+
+    private static class FilteringObserver implements Observer<DeliveredMessage> {
+
+        private final String type;
+        private final String event;
+
+        private FilteringObserver(String type, String event) {
+            this.type = type;
+            this.event = event;
+        }
+
+        @Override
+        public void notify(Object sender, DeliveredMessage item) {
+            if (StringUtil.equalsIgnoreCase(item.getType(), type) && StringUtil.equalsIgnoreCase(item.getEvent(), event)) {
+                handled++;
+            }
+        }
+    }
+
+    private static class CountingObserver implements Observer<DeliveredMessage> {
+
+        @Override
+        public void notify(Object sender, DeliveredMessage item) {
+            handled++;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.events.Observer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SignalDispatcherTest {
+
+    final List<String> notified = new ArrayList<String>();
+
+    SignalDispatcher dispatcher = new SignalDispatcher();
+
+    @Test
+    public void testOnlyMatchingObserversAreCalled() throws Exception {
+        dispatcher.addObserver("message", "receive", recording("receive"));
+        dispatcher.addObserver("message", "read", recording("read"));
+        dispatcher.addObserver("contact", recording("contact"));
+
+        assertEquals(1, dispatcher.dispatch(this, message("message", "receive")));
+        assertEquals(1, dispatcher.dispatch(this, message("contact", "change")));
+        assertEquals(0, dispatcher.dispatch(this, message("message", "delete")));
+        assertEquals(0, dispatcher.dispatch(this, message("conversation", "change")));
+
+        assertEquals(Arrays.asList("receive", "contact"), notified);
+    }
+
+    @Test
+    public void testWildcardsKeepRegistrationOrder() throws Exception {
+        dispatcher.addObserver(null, null, recording("everything"));
+        dispatcher.addObserver("message", "receive", recording("receive"));
+        dispatcher.addObserver("message", recording("message"));
+
+        dispatcher.dispatch(this, message("message", "receive"));
+        assertEquals(Arrays.asList("everything", "receive", "message"), notified);
+
+        notified.clear();
+        dispatcher.dispatch(this, message("message", "read"));
+        assertEquals(Arrays.asList("everything", "message"), notified);
+
+        notified.clear();
+        dispatcher.dispatch(this, message("presence", null));
+        assertEquals(Arrays.asList("everything"), notified);
+    }
+
+    @Test
+    public void testIgnoresCase() throws Exception {
+        dispatcher.addObserver("Message", "RECEIVE", recording("receive"));
+
+        dispatcher.dispatch(this, message("message", "receive"));
+        dispatcher.dispatch(this, message("MESSAGE", "Receive"));
+
+        assertEquals(Arrays.asList("receive", "receive"), notified);
+    }
+
+    @Test
+    public void testRemoveObserver() throws Exception {
+        Observer<DeliveredMessage> observer = recording("receive");
+        dispatcher.addObserver("message", "receive", observer);
+        dispatcher.removeObserver("message", "receive", observer);
+
+        assertEquals(0, dispatcher.dispatch(this, message("message", "receive")));
+        assertEquals(0, dispatcher.getObserverCount());
+        assertTrue(notified.isEmpty());
+    }
+
+    @Test
+    public void testFailingObserverDoesNotStopTheOthers() throws Exception {
+        dispatcher.addObserver("message", new Observer<DeliveredMessage>() {
+            @Override
+            public void notify(Object sender, DeliveredMessage item) {
+                throw new RuntimeException("expected");
+            }
+        });
+        dispatcher.addObserver("message", recording("message"));
+
+        dispatcher.dispatch(this, message("message", "receive"));
+
+        assertEquals(Arrays.asList("message"), notified);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEventNeedsAType() throws Exception {
+        dispatcher.addObserver(null, "receive", recording("receive"));
+    }
+
+    private Observer<DeliveredMessage> recording(final String name) {
+        return new Observer<DeliveredMessage>() {
+            @Override
+            public void notify(Object sender, DeliveredMessage item) {
+                notified.add(name);
+            }
+        };
+    }
+
+    private static DeliveredMessage message(String type, String event) {
+        DeliveredMessage message = new DeliveredMessage();
+        message.setType(type);
+        message.setEvent(event);
+
+        return message;
+    }
+}
@@ -0,0 +1,119 @@
+package com.zipwhip.api.signals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class SignalJournalTest {
+
+    File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = File.createTempFile("SignalJournalTest", "");
+        directory.delete();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        File[] files = directory.listFiles();
+
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+
+        directory.delete();
+    }
+
+    @Test
+    public void testReplaysWhatWasNotConsumed() throws Exception {
+        SignalJournal journal = new SignalJournal(directory, 1024);
+        long first = journal.append("{\"id\":\"1\"}");
+        journal.append("{\"id\":\"2\"}");
+        long third = journal.append("{\"id\":\"3\"}");
+        journal.consume(first);
+        journal.consume(third);
+
+        // As if the process died: never closed.
+        SignalJournal reopened = new SignalJournal(directory, 1024);
+
+        assertEquals(1, reopened.getUnconsumed().size());
+        assertEquals("{\"id\":\"2\"}", reopened.getUnconsumed().get(0).getRecord());
+        assertEquals(1, reopened.getLiveCount());
+
+        reopened.consume(reopened.getUnconsumed().get(0).getPosition());
+        reopened.close();
+
+        assertEquals(0, new SignalJournal(directory, 1024).getUnconsumed().size());
+    }
+
+    @Test
+    public void testConsumedSegmentsAreDeleted() throws Exception {
+        SignalJournal journal = new SignalJournal(directory, 64);
+        long[] positions = new long[20];
+
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = journal.append("signal number " + i);
+        }
+
+        // 5 + 15ish bytes a record, so 3 to a segment.
+        assertTrue(journal.getSegmentCount() > 5);
+        assertEquals(journal.getSegmentCount(), directory.listFiles().length);
+
+        // Still open here after it is deleted, as the mapping is.
+        RandomAccessFile first = new RandomAccessFile(new File(directory, "signals-0000000000.journal"), "r");
+        assertEquals(64, first.length());
+
+        for (long position : positions) {
+            journal.consume(position);
+        }
+
+        // Its space was given back, not just its name.
+        assertEquals(0, first.length());
+        first.close();
+
+        // Only the one being written to is left.
+        assertEquals(1, journal.getSegmentCount());
+        assertEquals(1, directory.listFiles().length);
+        assertEquals(0, journal.getLiveCount());
+
+        // A record bigger than a segment gets one of its own.
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            big.append(i);
+        }
+        journal.append(big.toString());
+
+        assertEquals(big.toString(), new SignalJournal(directory, 64).getUnconsumed().get(0).getRecord());
+    }
+
+    @Test
+    public void testRecordCutShortIsDropped() throws Exception {
+        SignalJournal journal = new SignalJournal(directory, 1024);
+        journal.append("whole");
+        journal.flush();
+
+        // A length with no record behind it, as a crash between the two could leave.
+        File segment = directory.listFiles()[0];
+        RandomAccessFile raf = new RandomAccessFile(segment, "rw");
+        raf.seek(10);
+        raf.writeInt(5000);
+        raf.close();
+
+        SignalJournal reopened = new SignalJournal(directory, 1024);
+
+        assertEquals(1, reopened.getUnconsumed().size());
+        assertEquals("whole", reopened.getUnconsumed().get(0).getRecord());
+
+        // New appends go to a new segment.
+        reopened.append("next");
+        assertEquals(2, reopened.getSegmentCount());
+    }
+}
@@ -0,0 +1,52 @@
+package com.zipwhip.api.signals;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class SignalLatencyMetricsTest {
+
+    SignalLatencyMetrics metrics = new SignalLatencyMetrics();
+
+    @Test
+    public void testRecordsInMicros() throws Exception {
+        metrics.record(SignalMetrics.Stage.PARSE, 5000);
+        metrics.record(SignalMetrics.Stage.PARSE, 7000);
+
+        assertEquals(2, metrics.getParse().getCount());
+        assertEquals(7, metrics.getParse().getMax());
+        assertEquals(5, metrics.getParse().getP50());
+        assertEquals(0, metrics.getTotal().getCount());
+
+        metrics.reset();
+
+        assertEquals(0, metrics.getParse().getCount());
+    }
+
+    @Test
+    public void testReadOverJmx() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        metrics.register("test");
+        try {
+            ObjectName name = new ObjectName("com.zipwhip.signals:type=SignalLatency,name=\"test\"");
+            assertTrue(server.isRegistered(name));
+
+            metrics.record(SignalMetrics.Stage.DISPATCH, 2000000);
+
+            CompositeData dispatch = (CompositeData) server.getAttribute(name, "Dispatch");
+            assertEquals(1L, dispatch.get("count"));
+            assertEquals(2000L, dispatch.get("max"));
+
+            metrics.unregister();
+            assertFalse(server.isRegistered(name));
+        } finally {
+            metrics.unregister();
+        }
+    }
+}
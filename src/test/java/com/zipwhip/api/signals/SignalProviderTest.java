@@ -1,12 +1,21 @@
 package com.zipwhip.api.signals;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.ning.http.client.AsyncHttpClient;
+import com.zipwhip.api.settings.MemorySettingStore;
+import com.zipwhip.api.signals.dto.BindRequest;
 import com.zipwhip.api.signals.dto.DeliveredMessage;
 import com.zipwhip.api.signals.dto.SubscribeResult;
 import com.zipwhip.api.signals.dto.json.SignalProviderGsonBuilder;
+import com.zipwhip.concurrent.DefaultObservableFuture;
+import com.zipwhip.concurrent.MutableObservableFuture;
 import com.zipwhip.concurrent.ObservableFuture;
+import com.zipwhip.events.Observable;
+import com.zipwhip.events.ObservableHelper;
 import com.zipwhip.events.Observer;
+import com.zipwhip.executors.SimpleExecutor;
 import com.zipwhip.important.ImportantTaskExecutor;
 import com.zipwhip.signals2.address.ClientAddress;
 import com.zipwhip.signals2.presence.Presence;
@@ -199,6 +208,54 @@ public class SignalProviderTest {
         assertTrue(future1.isFailed());
     }
 
+    @Test
+    public void testWarmBindResubscribesBeforeTheBindAck() throws Exception {
+        BindCredentials bindCredentials = new BindCredentials(new MemorySettingStore());
+        bindCredentials.setCredentials("clientId", "token");
+        bindCredentials.addSubscription("subscriptionId", "sessionKey");
+
+        final AckLaterSignalConnection signalConnection = new AckLaterSignalConnection();
+        final CountDownLatch subscribeCountDownLatch = new CountDownLatch(1);
+        final boolean[] ackedBeforeSubscribe = new boolean[1];
+
+        SignalProviderImpl provider = new SignalProviderImpl();
+        provider.setSignalsSubscribeActor(new MockSignalSubscribeActor() {
+            @Override
+            public ObservableFuture<Void> subscribe(String clientId, String sessionKey, String subscriptionId, UserAgent presence) {
+                assertEquals("clientId", clientId);
+                assertEquals("sessionKey", sessionKey);
+                assertEquals("subscriptionId", subscriptionId);
+
+                ackedBeforeSubscribe[0] = signalConnection.ack.isDone();
+                subscribeCountDownLatch.countDown();
+
+                return super.subscribe(clientId, sessionKey, subscriptionId, presence);
+            }
+        });
+        provider.setBufferedOrderedQueue(new SilenceOnTheLineBufferedOrderedQueue<DeliveredMessage>());
+        provider.setGson(gson);
+        provider.setImportantTaskExecutor(importantTaskExecutor);
+        provider.setSignalConnection(signalConnection);
+        provider.setBindCredentials(bindCredentials);
+
+        ObservableFuture<Void> future = provider.connect(new UserAgent());
+
+        // The subscribe goes out while the bind is still waiting for its ack.
+        await(subscribeCountDownLatch);
+        assertFalse(ackedBeforeSubscribe[0]);
+        assertEquals("clientId", signalConnection.bindRequest.getClientId());
+        assertEquals("token", signalConnection.bindRequest.getToken());
+
+        // The server did not keep us, so the subscribe was for a client that is gone.
+        signalConnection.ack("newClientId", "newToken");
+
+        await(future);
+
+        assertEquals("newClientId", provider.getClientId());
+        assertEquals("newClientId", bindCredentials.getClientId());
+        assertTrue(bindCredentials.getSubscriptions().isEmpty());
+    }
+
     @Test
     public void testSubscribeWhenNotConnected() throws ExecutionException, InterruptedException {
         final String sessionKey = "sessionKey";
@@ -299,4 +356,90 @@ public class SignalProviderTest {
 
         return future.get();
     }
+
+    /**
+     * Connects right away and holds on to the ack of the bind until the test gives it.
+     */
+    private static class AckLaterSignalConnection implements SignalConnection {
+
+        private final ObservableHelper<Throwable> exceptionEvent = new ObservableHelper<Throwable>("exceptionEvent", SimpleExecutor.getInstance());
+        private final ObservableHelper<Void> connectEvent = new ObservableHelper<Void>("connectEvent", SimpleExecutor.getInstance());
+        private final ObservableHelper<Void> disconnectEvent = new ObservableHelper<Void>("disconnectEvent", SimpleExecutor.getInstance());
+        private final ObservableHelper<JsonElement> messageEvent = new ObservableHelper<JsonElement>("messageEvent", SimpleExecutor.getInstance());
+
+        private final MutableObservableFuture<Object[]> ack = new DefaultObservableFuture<Object[]>(this, SimpleExecutor.getInstance());
+
+        private volatile boolean connected;
+        private volatile BindRequest bindRequest;
+
+        public void ack(String clientId, String token) {
+            JsonObject result = new JsonObject();
+            result.addProperty("clientId", clientId);
+            result.addProperty("token", token);
+
+            ack.setSuccess(new Object[]{result});
+        }
+
+        @Override
+        public ObservableFuture<Void> connect() {
+            connected = true;
+
+            MutableObservableFuture<Void> result = new DefaultObservableFuture<Void>(this, SimpleExecutor.getInstance());
+            result.setSuccess(null);
+
+            return result;
+        }
+
+        @Override
+        public ObservableFuture<Void> disconnect() {
+            connected = false;
+
+            MutableObservableFuture<Void> result = new DefaultObservableFuture<Void>(this, SimpleExecutor.getInstance());
+            result.setSuccess(null);
+
+            return result;
+        }
+
+        @Override
+        public ObservableFuture<ObservableFuture<Object[]>> emit(String event, Object... objects) {
+            if ("bind".equals(event)) {
+                bindRequest = (BindRequest) objects[0];
+            }
+
+            MutableObservableFuture<ObservableFuture<Object[]>> result = new DefaultObservableFuture<ObservableFuture<Object[]>>(this, SimpleExecutor.getInstance());
+            result.setSuccess(ack);
+
+            return result;
+        }
+
+        @Override
+        public void reconnect() {
+
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public Observable<Throwable> getExceptionEvent() {
+            return exceptionEvent;
+        }
+
+        @Override
+        public Observable<Void> getConnectEvent() {
+            return connectEvent;
+        }
+
+        @Override
+        public Observable<Void> getDisconnectEvent() {
+            return disconnectEvent;
+        }
+
+        @Override
+        public Observable<JsonElement> getMessageEvent() {
+            return messageEvent;
+        }
+    }
 }
@@ -6,11 +6,13 @@ import com.zipwhip.timers.HashedWheelTimer;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
 
 /**
  * Date: 9/4/13
@@ -49,4 +51,59 @@ public class SilenceOnTheLineBufferedOrderedQueueTest {
         assertEquals(1, list.get(0).getTimestamp());
         assertEquals(2, list.get(1).getTimestamp());
     }
+
+    @Test
+    public void testThrowingObserverDoesNotStopTheRelease() throws Exception {
+        final List<DeliveredMessage> released = Collections.synchronizedList(new ArrayList<DeliveredMessage>());
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        queue.getItemEvent().addObserver(new Observer<DeliveredMessage>() {
+            @Override
+            public void notify(Object sender, DeliveredMessage item) {
+                throw new IllegalStateException("broken observer");
+            }
+        });
+        queue.getBatchEvent().addObserver(new Observer<List<DeliveredMessage>>() {
+            @Override
+            public void notify(Object sender, List<DeliveredMessage> item) {
+                released.addAll(item);
+                latch.countDown();
+            }
+        });
+
+        for (int i = 1; i <= 2; i++) {
+            DeliveredMessage message = new DeliveredMessage();
+            message.setTimestamp(i);
+            queue.append(message);
+        }
+
+        latch.await(5, TimeUnit.SECONDS);
+
+        assertEquals(2, released.size());
+    }
+
+    @Test
+    public void testMaxLatencyBreaksASteadyStream() throws Exception {
+        queue.setMaxLatency(200, TimeUnit.MILLISECONDS);
+
+        final List<List<DeliveredMessage>> batches = Collections.synchronizedList(new ArrayList<List<DeliveredMessage>>());
+        queue.getBatchEvent().addObserver(new Observer<List<DeliveredMessage>>() {
+            @Override
+            public void notify(Object sender, List<DeliveredMessage> item) {
+                batches.add(item);
+            }
+        });
+
+        // Never 100ms of silence, so only the max latency can release anything while this runs.
+        for (int i = 0; i < 50 && batches.isEmpty(); i++) {
+            DeliveredMessage message = new DeliveredMessage();
+            message.setTimestamp(i);
+            queue.append(message);
+
+            Thread.sleep(20);
+        }
+
+        assertFalse(batches.isEmpty());
+        assertEquals(0, batches.get(0).get(0).getTimestamp());
+    }
 }
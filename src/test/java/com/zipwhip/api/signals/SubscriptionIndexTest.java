@@ -0,0 +1,108 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.events.Observer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Many sessions share one index, each one only hears its own signals.
+ */
+public class SubscriptionIndexTest {
+
+    private SubscriptionIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        index = new SubscriptionIndex();
+    }
+
+    @Test
+    public void testRoutesBySubscriptionId() throws Exception {
+        List<String> sessionA = listen("a");
+        List<String> sessionB = listen("b");
+
+        assertEquals(1, index.route(this, message("1", "a")));
+        assertEquals(1, index.route(this, message("2", "b")));
+        assertEquals(2, index.route(this, message("3", "a", "b")));
+
+        assertEquals(Arrays.asList("1", "3"), sessionA);
+        assertEquals(Arrays.asList("2", "3"), sessionB);
+    }
+
+    @Test
+    public void testUnknownAndMissingSubscriptionIds() throws Exception {
+        List<String> sessionA = listen("a");
+
+        assertEquals(0, index.route(this, message("1", "nobody")));
+        assertEquals(0, index.route(this, new DeliveredMessage()));
+
+        assertTrue(sessionA.isEmpty());
+    }
+
+    @Test
+    public void testSameEventForSameSubscriptionId() throws Exception {
+        assertSame(index.getSignalReceivedEvent("a"), index.getSignalReceivedEvent("a"));
+        assertNotSame(index.getSignalReceivedEvent("a"), index.getSignalReceivedEvent("b"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        List<String> sessionA = listen("a");
+
+        assertTrue(index.remove("a"));
+        assertFalse(index.remove("a"));
+        assertFalse(index.contains("a"));
+
+        assertEquals(0, index.route(this, message("1", "a")));
+        assertTrue(sessionA.isEmpty());
+    }
+
+    @Test
+    public void testManySessions() throws Exception {
+        List<List<String>> sessions = new ArrayList<List<String>>();
+        for (int i = 0; i < 5000; i++) {
+            sessions.add(listen("session-" + i));
+        }
+
+        for (int i = 0; i < 5000; i++) {
+            index.route(this, message(String.valueOf(i), "session-" + i));
+        }
+
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(Arrays.asList(String.valueOf(i)), sessions.get(i));
+        }
+    }
+
+    private List<String> listen(String subscriptionId) {
+        final List<String> received = new ArrayList<String>();
+
+        index.getSignalReceivedEvent(subscriptionId).addObserver(new Observer<DeliveredMessage>() {
+            @Override
+            public void notify(Object sender, DeliveredMessage item) {
+                received.add(item.getId());
+            }
+        });
+
+        return received;
+    }
+
+    private static DeliveredMessage message(String id, String... subscriptionIds) {
+        DeliveredMessage message = new DeliveredMessage();
+
+        message.setId(id);
+        message.setType("message");
+        message.setEvent("receive");
+        message.setSubscriptionIds(new HashSet<String>(Arrays.asList(subscriptionIds)));
+
+        return message;
+    }
+}
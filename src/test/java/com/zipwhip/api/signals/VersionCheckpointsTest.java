@@ -0,0 +1,103 @@
+package com.zipwhip.api.signals;
+
+import com.zipwhip.api.settings.MemorySettingStore;
+import com.zipwhip.api.settings.SettingsStore;
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+import com.zipwhip.timers.HashedWheelTimer;
+import com.zipwhip.timers.Timer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class VersionCheckpointsTest {
+
+    private Timer timer = new HashedWheelTimer();
+    private SettingsStore settingsStore;
+    private VersionCheckpoints checkpoints;
+
+    @Before
+    public void setUp() throws Exception {
+        settingsStore = new MemorySettingStore();
+        checkpoints = new VersionCheckpoints(timer, settingsStore);
+    }
+
+    @Test
+    public void testTracksContiguousVersionPerSubscription() throws Exception {
+        assertTrue(checkpoints.add(message(1, "a", "b")));
+        assertTrue(checkpoints.add(message(2, "a")));
+        assertTrue(checkpoints.add(message(4, "a")));
+        assertTrue(checkpoints.add(message(2, "b")));
+        assertTrue(checkpoints.add(message(3, "b")));
+
+        assertEquals(Long.valueOf(2), checkpoints.getVersion("a"));
+        assertEquals(Long.valueOf(3), checkpoints.getVersion("b"));
+        assertNull(checkpoints.getVersion("c"));
+
+        // The hole is filled (by a replay)
+        checkpoints.add(message(3, "a"));
+
+        assertEquals(Long.valueOf(4), checkpoints.getVersion("a"));
+    }
+
+    @Test
+    public void testSignalsWithoutVersionsAreIgnored() throws Exception {
+        DeliveredMessage message = message(1, "a");
+        message.setVersion(null);
+
+        assertFalse(checkpoints.add(message));
+        assertFalse(checkpoints.add(new DeliveredMessage()));
+        assertTrue(checkpoints.getVersions().isEmpty());
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        checkpoints.add(message(10, "a"));
+        checkpoints.add(message(11, "a"));
+        checkpoints.add(message(5, "b"));
+        checkpoints.save();
+
+        VersionCheckpoints loaded = new VersionCheckpoints(timer, settingsStore);
+
+        assertEquals(checkpoints.getVersions(), loaded.getVersions());
+
+        // And the replay carries on from there.
+        loaded.add(message(12, "a"));
+        assertEquals(Long.valueOf(12), loaded.getVersion("a"));
+    }
+
+    @Test
+    public void testRemoveAndClear() throws Exception {
+        checkpoints.add(message(1, "a"));
+        checkpoints.add(message(1, "b"));
+        checkpoints.remove("a");
+        checkpoints.save();
+
+        assertEquals(1, new VersionCheckpoints(timer, settingsStore).getVersions().size());
+
+        checkpoints.clear();
+
+        assertTrue(checkpoints.getVersions().isEmpty());
+        assertTrue(new VersionCheckpoints(timer, settingsStore).getVersions().isEmpty());
+    }
+
+    @Test
+    public void testBadSavedVersionsAreDropped() throws Exception {
+        settingsStore.put(SettingsStore.Keys.VERSIONS, "not json {");
+
+        assertTrue(new VersionCheckpoints(timer, settingsStore).getVersions().isEmpty());
+        assertEquals("", settingsStore.get(SettingsStore.Keys.VERSIONS));
+    }
+
+    private static DeliveredMessage message(long version, String... subscriptionIds) {
+        DeliveredMessage message = new DeliveredMessage();
+
+        message.setVersion(version);
+        message.setSubscriptionIds(new TreeSet<String>(Arrays.asList(subscriptionIds)));
+
+        return message;
+    }
+}
@@ -0,0 +1,91 @@
+package com.zipwhip.api.signals.dto.json;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.zipwhip.api.signals.dto.DeliveredMessage;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares the allocation rate and cost of decoding a signal frame the old way (parse into a tree, then walk
+ * it with the DeliveredMessageTypeAdapter) with the streaming DeliveredMessageReader.
+ *
+ * Allocation is measured with the HotSpot per-thread allocation counter, so this needs a HotSpot JVM.
+ *
+ * This is not a unit test. Run it by hand:
+ *
+ *      mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.zipwhip.api.signals.dto.json.DeliveredMessageDecodingBenchmark
+ */
+public class DeliveredMessageDecodingBenchmark {
+
+    private static final int WARMUP = 200000;
+    private static final int ITERATIONS = 1000000;
+
+    private static final String FRAME = "{\"subscriptionIds\":[\"3ba0f93f-4ae1-4ba9-9b4b-4e2f7b5c6a0e\"]," +
+            "\"timestamp\":1380000000000,\"id\":\"8d1b9c2e-7a54-4f0b-a7b5-0c2a6c6f6f1d\",\"type\":\"message\",\"event\":\"receive\"," +
+            "\"content\":{\"id\":123456789,\"body\":\"Hey, are we still on for lunch tomorrow?\",\"address\":\"ptn:/2065551234\"," +
+            "\"fingerprint\":\"1234567890\",\"messageType\":\"MO\",\"transmissionState\":\"DELIVERED\",\"deviceId\":342343," +
+            "\"contactId\":4345345,\"contactDeviceId\":3424324,\"fromName\":\"Bob\",\"hasAttachments\":false," +
+            "\"dateCreated\":1380000000000,\"dateRead\":0}}";
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws Exception {
+        final Gson gson = SignalProviderGsonBuilder.getInstance();
+        final JsonParser parser = new JsonParser();
+        final DeliveredMessageReader reader = new DeliveredMessageReader(gson);
+
+        Decoder tree = new Decoder() {
+            @Override
+            public DeliveredMessage decode(String frame) {
+                JsonElement element = parser.parse(frame);
+                return gson.fromJson(element, DeliveredMessage.class);
+            }
+        };
+
+        Decoder streaming = new Decoder() {
+            @Override
+            public DeliveredMessage decode(String frame) {
+                return reader.read(frame);
+            }
+        };
+
+        // alternate a few rounds so neither side gets all the JIT luck.
+        for (int round = 0; round < 3; round++) {
+            run("tree+adapter", tree);
+            run("streaming   ", streaming);
+        }
+    }
+
+    private static void run(String name, Decoder decoder) {
+        for (int i = 0; i < WARMUP; i++) {
+            sink = decoder.decode(FRAME);
+        }
+
+        long startBytes = allocatedBytes();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = decoder.decode(FRAME);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - startBytes;
+
+        System.out.println(String.format("%s %8.1f ns/op %8.1f bytes/op %8.1f MB/s allocated",
+                name,
+                (double) elapsed / ITERATIONS,
+                (double) allocated / ITERATIONS,
+                allocated / 1048576.0 / (elapsed / 1e9)));
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private interface Decoder {
+        DeliveredMessage decode(String frame);
+    }
+}
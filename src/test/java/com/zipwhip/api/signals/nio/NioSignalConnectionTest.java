@@ -0,0 +1,214 @@
+package com.zipwhip.api.signals.nio;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.zipwhip.concurrent.ObservableFuture;
+import com.zipwhip.events.Observer;
+import com.zipwhip.executors.NamedThreadFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the NioSignalConnection against the local socket.io stub server.
+ */
+public class NioSignalConnectionTest {
+
+    private SocketIoStubServer server;
+    private NioEventLoop eventLoop;
+    private NioSignalConnection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new SocketIoStubServer();
+        server.start();
+
+        // Small buffers, so ordinary frames already span several reads.
+        eventLoop = new NioEventLoop(new NamedThreadFactory("NioSignalConnectionTest-"), new BufferPool(256, 4), 20);
+
+        connection = new NioSignalConnection(eventLoop);
+        connection.setUrl(server.getUrl());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        eventLoop.destroy();
+        server.stop();
+    }
+
+    @Test
+    public void testConnectAndReceive() throws Exception {
+        final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch latch = new CountDownLatch(3);
+
+        connection.getMessageEvent().addObserver(new Observer<JsonElement>() {
+            @Override
+            public void notify(Object sender, JsonElement item) {
+                received.add(item.getAsString());
+                latch.countDown();
+            }
+        });
+
+        connect();
+
+        server.broadcast("{\"n\":1}");
+        server.broadcast("{\"n\":2}");
+        server.broadcast("{\"n\":3}");
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(3, received.size());
+        assertEquals("{\"n\":1}", received.get(0));
+        assertEquals("{\"n\":3}", received.get(2));
+    }
+
+    @Test
+    public void testFrameLargerThanPooledBuffer() throws Exception {
+        final String[] received = new String[1];
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        connection.getMessageEvent().addObserver(new Observer<JsonElement>() {
+            @Override
+            public void notify(Object sender, JsonElement item) {
+                received[0] = item.getAsString();
+                latch.countDown();
+            }
+        });
+
+        connect();
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+
+        server.broadcast(sb.toString());
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(sb.toString(), received[0]);
+    }
+
+    @Test
+    public void testEmitIsAcked() throws Exception {
+        connect();
+
+        Map<String, String> request = new HashMap<String, String>();
+        request.put("clientId", null);
+
+        ObservableFuture<ObservableFuture<Object[]>> sent = connection.emit("bind", request);
+
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+        assertTrue(sent.isSuccess());
+
+        ObservableFuture<Object[]> acked = sent.getResult();
+
+        assertTrue(acked.await(5, TimeUnit.SECONDS));
+        assertTrue(acked.isSuccess());
+        assertEquals(1, acked.getResult().length);
+        assertTrue(acked.getResult()[0] instanceof JsonObject);
+        assertNotNull(((JsonObject) acked.getResult()[0]).get("clientId"));
+    }
+
+    @Test
+    public void testEmitWhenNotConnected() throws Exception {
+        ObservableFuture<ObservableFuture<Object[]>> sent = connection.emit("bind");
+
+        assertTrue(sent.isDone());
+        assertFalse(sent.isSuccess());
+    }
+
+    @Test
+    public void testAnswersHeartbeats() throws Exception {
+        connect();
+
+        server.heartbeat();
+
+        assertTrue(server.awaitHeartbeats(1, 5, TimeUnit.SECONDS));
+        assertEquals(1, server.getHeartbeatCount());
+    }
+
+    @Test
+    public void testHandshakeWithoutKeepAlive() throws Exception {
+        server.setKeepAlive(false);
+
+        connect();
+    }
+
+    @Test
+    public void testChunkedHandshake() throws Exception {
+        server.setChunked(true);
+
+        connect();
+    }
+
+    @Test
+    public void testChunkedHandshakeWithoutKeepAlive() throws Exception {
+        server.setChunked(true);
+        server.setKeepAlive(false);
+
+        connect();
+    }
+
+    @Test
+    public void testServerDisconnects() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        connection.getDisconnectEvent().addObserver(new Observer<Void>() {
+            @Override
+            public void notify(Object sender, Void item) {
+                latch.countDown();
+            }
+        });
+
+        connect();
+
+        server.disconnectAll();
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertFalse(connection.isConnected());
+    }
+
+    @Test
+    public void testDisconnect() throws Exception {
+        connect();
+
+        ObservableFuture<Void> future = connection.disconnect();
+
+        assertTrue(future.await(5, TimeUnit.SECONDS));
+        assertTrue(future.isSuccess());
+        assertFalse(connection.isConnected());
+
+        assertTrue(server.awaitConnectionCount(0, 5, TimeUnit.SECONDS));
+
+        // and back again
+        connect();
+    }
+
+    @Test
+    public void testConnectionRefused() throws Exception {
+        server.stop();
+
+        ObservableFuture<Void> future = connection.connect();
+
+        assertTrue(future.await(5, TimeUnit.SECONDS));
+        assertFalse(future.isSuccess());
+        assertFalse(connection.isConnected());
+    }
+
+    private void connect() throws Exception {
+        ObservableFuture<Void> future = connection.connect();
+
+        assertTrue(future.await(5, TimeUnit.SECONDS));
+        assertTrue(future.isSuccess());
+        assertTrue(connection.isConnected());
+    }
+}
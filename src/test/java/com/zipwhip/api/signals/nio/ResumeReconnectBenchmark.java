@@ -0,0 +1,171 @@
+package com.zipwhip.api.signals.nio;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.zipwhip.api.signals.VersionCheckpoints;
+import com.zipwhip.api.signals.dto.BindRequest;
+import com.zipwhip.api.signals.dto.json.DeliveredMessageReader;
+import com.zipwhip.concurrent.ObservableFuture;
+import com.zipwhip.events.Observer;
+import com.zipwhip.signals2.presence.UserAgent;
+import com.zipwhip.timers.HashedWheelTimer;
+import com.zipwhip.timers.Timer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to consistency after a reconnect, with and without resuming from the last contiguous version.
+ *
+ * The SocketIoStubServer journal holds the subscription's history. The client had seen all of it except the last
+ * few signals, which went out while it was disconnected. Each run reconnects and binds, then:
+ * <ul>
+ * <li>resync: pages through the whole history with the "list" event, the way listMessages/listConversations do
+ * after a reconnect today</li>
+ * <li>resume: binds with its versions and waits for the server to replay what it missed</li>
+ * </ul>
+ * The clock stops once the client holds every version up to the head. Both run against a local server, so the
+ * resync numbers leave out the real web round trips and are a lower bound.
+ *
+ * This is not a unit test. Run it by hand (history, missed, page size):
+ *
+ *      mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.zipwhip.api.signals.nio.ResumeReconnectBenchmark -Dexec.args="10000 50 100"
+ */
+public class ResumeReconnectBenchmark {
+
+    private static final String SUBSCRIPTION_ID = "3ba0f93f-4ae1-4ba9-9b4b-4e2f7b5c6a0e";
+    private static final String CLIENT_ID = "8d1b9c2e-7a54-4f0b-a7b5-0c2a6c6f6f1d";
+
+    private static final int WARMUP = 10;
+    private static final int RUNS = 30;
+
+    private static final Timer TIMER = new HashedWheelTimer();
+
+    public static void main(String[] args) throws Exception {
+        int history = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int missed = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int pageSize = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        SocketIoStubServer server = new SocketIoStubServer();
+        server.start();
+
+        for (long version = 1; version <= history; version++) {
+            server.publish(version, frame(version));
+        }
+
+        NioEventLoop eventLoop = new NioEventLoop();
+
+        for (boolean resume : new boolean[]{false, true}) {
+            long[] nanos = new long[RUNS];
+
+            for (int run = -WARMUP; run < RUNS; run++) {
+                long elapsed = reconnect(eventLoop, server.getUrl(), history, history - missed, pageSize, resume);
+
+                if (run >= 0) {
+                    nanos[run] = elapsed;
+                }
+            }
+
+            Arrays.sort(nanos);
+
+            System.out.println(String.format("%-6s history %6d, missed %5d: p50 %8.2f ms  p90 %8.2f ms  max %8.2f ms",
+                    resume ? "resume" : "resync", history, missed,
+                    nanos[RUNS / 2] / 1000000.0, nanos[RUNS * 9 / 10] / 1000000.0, nanos[RUNS - 1] / 1000000.0));
+        }
+
+        eventLoop.destroy();
+        server.stop();
+
+        System.exit(0);
+    }
+
+    private static long reconnect(NioEventLoop eventLoop, String url, final long head, long seen, int pageSize, boolean resume) throws Exception {
+        final DeliveredMessageReader reader = new DeliveredMessageReader();
+        final VersionCheckpoints checkpoints = new VersionCheckpoints(TIMER);
+        final CountDownLatch consistent = new CountDownLatch(1);
+
+        if (resume) {
+            // What we had before the connection dropped. A resync starts over instead.
+            checkpoints.add(reader.read(frame(seen)));
+        }
+
+        NioSignalConnection connection = new NioSignalConnection(eventLoop);
+        connection.setUrl(url);
+        connection.getMessageEvent().addObserver(new Observer<JsonElement>() {
+            @Override
+            public void notify(Object sender, JsonElement item) {
+                checkpoints.add(reader.read(item.getAsString()));
+
+                if (Long.valueOf(head).equals(checkpoints.getVersion(SUBSCRIPTION_ID))) {
+                    consistent.countDown();
+                }
+            }
+        });
+
+        long start = System.nanoTime();
+
+        await(connection.connect());
+
+        Map<String, Long> versions = resume ? checkpoints.getVersions() : null;
+        await(await(connection.emit("bind", new BindRequest(new UserAgent(), CLIENT_ID, null, versions))));
+
+        if (resume) {
+            if (!consistent.await(30, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("The replay never finished");
+            }
+        } else {
+            long after = 0;
+
+            while (true) {
+                Map<String, Object> request = new HashMap<String, Object>();
+                request.put("after", after);
+                request.put("limit", pageSize);
+
+                JsonArray page = (JsonArray) await(await(connection.emit("list", request)))[0];
+
+                for (JsonElement element : page) {
+                    checkpoints.add(reader.read(element));
+                }
+
+                if (page.size() < pageSize) {
+                    break;
+                }
+
+                after += page.size();
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        if (!Long.valueOf(head).equals(checkpoints.getVersion(SUBSCRIPTION_ID))) {
+            throw new IllegalStateException("Not consistent: " + checkpoints.getVersions() + " != " + head);
+        }
+
+        await(connection.disconnect());
+
+        return elapsed;
+    }
+
+    private static <T> T await(ObservableFuture<T> future) throws Exception {
+        if (!future.await(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Timed out: " + future);
+        } else if (!future.isSuccess()) {
+            throw new IllegalStateException("Failed: " + future, future.getCause());
+        }
+
+        return future.getResult();
+    }
+
+    private static String frame(long version) {
+        return "{\"subscriptionIds\":[\"" + SUBSCRIPTION_ID + "\"]," +
+                "\"timestamp\":" + (1380000000000L + version) + ",\"version\":" + version + "," +
+                "\"id\":\"" + version + "\",\"type\":\"message\",\"event\":\"receive\"," +
+                "\"content\":{\"id\":" + version + ",\"body\":\"Hey, are we still on for lunch tomorrow?\",\"address\":\"ptn:/2065551234\"," +
+                "\"fingerprint\":\"1234567890\",\"messageType\":\"MO\",\"transmissionState\":\"DELIVERED\",\"deviceId\":342343," +
+                "\"contactId\":4345345,\"contactDeviceId\":3424324,\"fromName\":\"Bob\",\"hasAttachments\":false," +
+                "\"dateCreated\":1380000000000,\"dateRead\":0}}";
+    }
+}
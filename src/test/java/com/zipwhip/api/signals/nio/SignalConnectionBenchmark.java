@@ -0,0 +1,151 @@
+package com.zipwhip.api.signals.nio;
+
+import com.google.gson.JsonElement;
+import com.zipwhip.api.signals.SignalConnection;
+import com.zipwhip.api.signals.SocketIoSignalConnection;
+import com.zipwhip.concurrent.ObservableFuture;
+import com.zipwhip.events.Observer;
+import com.zipwhip.important.ImportantTaskExecutor;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the NioSignalConnection with the SocketIoSignalConnection (socket.io-java-client) against the local
+ * SocketIoStubServer.
+ *
+ * For each transport it opens N connections, then reports:
+ * <ul>
+ * <li>how long it took to connect them all, and how many threads that cost</li>
+ * <li>per-frame latency (server write to observer call) for M broadcasts fanned out to every connection</li>
+ * </ul>
+ * The stub server speaks socket.io 0.9 over an RFC 6455 WebSocket, so the socket.io-java-client build on the
+ * classpath needs its RFC 6455 websocket transport.
+ *
+ * This is not a unit test. Run it by hand (connections, then broadcasts):
+ *
+ *      mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.zipwhip.api.signals.nio.SignalConnectionBenchmark -Dexec.args="1000 200"
+ */
+public class SignalConnectionBenchmark {
+
+    private static final long BROADCAST_INTERVAL_MILLIS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int broadcasts = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        // The factory starts its loop with the first connection, so the loop thread is counted.
+        final NioSignalConnectionFactory factory = new NioSignalConnectionFactory();
+        run("nio                  ", connections, broadcasts, new ConnectionMaker() {
+            @Override
+            public SignalConnection create(String url) {
+                factory.setUrl(url);
+                return factory.create();
+            }
+        });
+        factory.getEventLoop().destroy();
+
+        final ImportantTaskExecutor importantTaskExecutor = new ImportantTaskExecutor();
+        run("socket.io-java-client", connections, broadcasts, new ConnectionMaker() {
+            @Override
+            public SignalConnection create(String url) {
+                SocketIoSignalConnection connection = new SocketIoSignalConnection();
+                connection.setImportantTaskExecutor(importantTaskExecutor);
+                connection.setUrl(url);
+                return connection;
+            }
+        });
+
+        System.exit(0);
+    }
+
+    private static void run(String name, int count, int broadcasts, ConnectionMaker maker) throws Exception {
+        SocketIoStubServer server = new SocketIoStubServer();
+        server.start();
+
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        final long[] latencies = new long[count * broadcasts];
+        final AtomicInteger received = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(latencies.length);
+
+        Observer<JsonElement> observer = new Observer<JsonElement>() {
+            @Override
+            public void notify(Object sender, JsonElement item) {
+                long latency = System.nanoTime() - Long.parseLong(item.getAsString());
+
+                int index = received.getAndIncrement();
+                if (index < latencies.length) {
+                    latencies[index] = latency;
+                }
+
+                done.countDown();
+            }
+        };
+
+        List<SignalConnection> connections = new ArrayList<SignalConnection>(count);
+        List<ObservableFuture<Void>> futures = new ArrayList<ObservableFuture<Void>>(count);
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < count; i++) {
+            SignalConnection connection = maker.create(server.getUrl());
+            connection.getMessageEvent().addObserver(observer);
+
+            connections.add(connection);
+            futures.add(connection.connect());
+        }
+
+        int connected = 0;
+        for (ObservableFuture<Void> future : futures) {
+            if (future.await(60, TimeUnit.SECONDS) && future.isSuccess()) {
+                connected++;
+            }
+        }
+
+        long connectMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+
+        for (int i = 0; i < broadcasts; i++) {
+            server.broadcast(String.valueOf(System.nanoTime()));
+            Thread.sleep(BROADCAST_INTERVAL_MILLIS);
+        }
+
+        done.await(60, TimeUnit.SECONDS);
+
+        int samples = Math.min(received.get(), latencies.length);
+        Arrays.sort(latencies, 0, samples);
+
+        System.out.println(String.format("%s %5d/%d connected in %6d ms, %5d threads | %8d frames p50 %8.1f us p99 %8.1f us p99.9 %8.1f us max %8.1f us",
+                name, connected, count, connectMillis, threads, samples,
+                percentile(latencies, samples, 0.50),
+                percentile(latencies, samples, 0.99),
+                percentile(latencies, samples, 0.999),
+                percentile(latencies, samples, 1.0)));
+
+        for (SignalConnection connection : connections) {
+            connection.disconnect();
+        }
+
+        server.stop();
+    }
+
+    private static double percentile(long[] sorted, int samples, double percentile) {
+        if (samples == 0) {
+            return 0;
+        }
+
+        int index = Math.min(samples - 1, (int) Math.ceil(percentile * samples) - 1);
+
+        return sorted[Math.max(0, index)] / 1000.0;
+    }
+
+    private interface ConnectionMaker {
+        SignalConnection create(String url);
+    }
+}
@@ -0,0 +1,576 @@
+package com.zipwhip.api.signals.nio;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local socket.io 0.9 server, just enough of one to test and benchmark the signal transports against.
+ *
+ * It answers the handshake (GET /socket.io/1/) and the WebSocket upgrade, sends the connect packet, counts
+ * heartbeats, acks every emitted event (a "bind" gets a clientId and token back, anything else gets its args
+ * echoed) and can broadcast a message to every connected client. It runs on its own NioEventLoop.
+ *
+ * Published messages are kept in a journal by version. A bind that carries versions gets everything after the
+ * lowest of them replayed, a "list" event ({"after": version, "limit": n}) pages through the whole journal, and a
+ * "backfill" event ({"start": version, "end": version}) gets the messages with versions in between (inclusive).
+ */
+public class SocketIoStubServer {
+
+    private static final JsonParser PARSER = new JsonParser();
+
+    private final NioEventLoop eventLoop;
+    private final Set<Client> clients = Collections.newSetFromMap(new ConcurrentHashMap<Client, Boolean>());
+    private final AtomicInteger heartbeats = new AtomicInteger();
+    private final AtomicInteger events = new AtomicInteger();
+    private final ConcurrentNavigableMap<Long, String> journal = new ConcurrentSkipListMap<Long, String>();
+
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private volatile boolean keepAlive = true;
+    private volatile boolean chunked;
+    private volatile int heartbeatTimeoutSeconds = 60;
+
+    private ServerSocketChannel server;
+
+    public SocketIoStubServer() {
+        this(new NioEventLoop());
+    }
+
+    public SocketIoStubServer(NioEventLoop eventLoop) {
+        this.eventLoop = eventLoop;
+    }
+
+    public void start() throws Exception {
+        server = ServerSocketChannel.open();
+        server.configureBlocking(false);
+        server.socket().setReuseAddress(true);
+        server.socket().bind(new InetSocketAddress("127.0.0.1", 0), 4096);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final IOException[] error = new IOException[1];
+
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    eventLoop.register(server, SelectionKey.OP_ACCEPT, new Acceptor());
+                } catch (IOException e) {
+                    error[0] = e;
+                }
+
+                latch.countDown();
+            }
+        });
+
+        if (!latch.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("The server did not start");
+        } else if (error[0] != null) {
+            throw error[0];
+        }
+    }
+
+    /**
+     * Stop the loop, and wait for the listening socket to be closed.
+     */
+    public void stop() throws InterruptedException {
+        eventLoop.destroy();
+
+        if (!stopped.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("The server did not stop");
+        }
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.socket().getLocalPort() + "/";
+    }
+
+    /**
+     * Send a socket.io message packet with this data to every connected client. The frame is encoded once.
+     */
+    public void broadcast(String data) {
+        final ByteBuffer frame = WebSocketCodec.encodeText(SocketIoPacket.format(SocketIoPacket.MESSAGE, null, data), false, null);
+
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (Client client : clients) {
+                    client.write(frame.duplicate());
+                }
+            }
+        });
+    }
+
+    /**
+     * Keep this message in the journal under its version, then broadcast it.
+     */
+    public void publish(long version, String data) {
+        journal.put(version, data);
+        broadcast(data);
+    }
+
+    public void heartbeat() {
+        final ByteBuffer frame = WebSocketCodec.encodeText(SocketIoPacket.format(SocketIoPacket.HEARTBEAT, null, null), false, null);
+
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (Client client : clients) {
+                    client.write(frame.duplicate());
+                }
+            }
+        });
+    }
+
+    /**
+     * Send every client a disconnect packet and close it.
+     */
+    public void disconnectAll() {
+        eventLoop.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (Client client : clients) {
+                    client.send(SocketIoPacket.format(SocketIoPacket.DISCONNECT, null, null));
+                    client.closeAfterWrite();
+                }
+            }
+        });
+    }
+
+    public int getConnectionCount() {
+        return clients.size();
+    }
+
+    public int getHeartbeatCount() {
+        return heartbeats.get();
+    }
+
+    public int getEventCount() {
+        return events.get();
+    }
+
+    /**
+     * Wait until at least this many heartbeats came in.
+     */
+    public boolean awaitHeartbeats(int count, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+
+        synchronized (heartbeats) {
+            while (heartbeats.get() < count) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return false;
+                }
+
+                heartbeats.wait(wait);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Wait until there are no more than this many connected clients.
+     */
+    public boolean awaitConnectionCount(int count, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+
+        synchronized (clients) {
+            while (clients.size() > count) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return false;
+                }
+
+                clients.wait(wait);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param keepAlive If false, the handshake response closes its socket, so the client has to open another one
+     *                  for the upgrade.
+     */
+    public void setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * @param chunked If true, the handshake response body is sent with "Transfer-Encoding: chunked" instead of a
+     *                Content-Length.
+     */
+    public void setChunked(boolean chunked) {
+        this.chunked = chunked;
+    }
+
+    public void setHeartbeatTimeoutSeconds(int heartbeatTimeoutSeconds) {
+        this.heartbeatTimeoutSeconds = heartbeatTimeoutSeconds;
+    }
+
+    private class Acceptor implements NioEventLoop.Handler {
+
+        @Override
+        public void onSelected(SelectionKey key) {
+            SocketChannel channel;
+
+            try {
+                while ((channel = server.accept()) != null) {
+                    channel.configureBlocking(false);
+                    channel.socket().setTcpNoDelay(true);
+
+                    Client client = new Client(channel);
+                    client.key = eventLoop.register(channel, SelectionKey.OP_READ, client);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Accept failed", e);
+            }
+        }
+
+        @Override
+        public void onTick(long now) {
+
+        }
+
+        @Override
+        public void onShutdown() {
+            try {
+                server.close();
+            } catch (IOException e) {
+                // shutting down anyway
+            }
+
+            stopped.countDown();
+        }
+    }
+
+    private class Client implements NioEventLoop.Handler {
+
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        private final LinkedList<ByteBuffer> out = new LinkedList<ByteBuffer>();
+
+        private SelectionKey key;
+        private boolean websocket;
+        private boolean closeAfterWrite;
+        private boolean closed;
+
+        private Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void onSelected(SelectionKey key) {
+            if (key.isWritable()) {
+                flush();
+            }
+
+            if (!closed && key.isReadable()) {
+                read();
+            }
+        }
+
+        @Override
+        public void onTick(long now) {
+
+        }
+
+        @Override
+        public void onShutdown() {
+            close();
+        }
+
+        private void read() {
+            try {
+                if (channel.read(in) < 0) {
+                    close();
+                    return;
+                }
+
+                in.flip();
+                process();
+                in.compact();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void process() throws IOException {
+            while (!closed) {
+                if (!websocket) {
+                    HttpHead head = HttpHead.read(in);
+                    if (head == null) {
+                        return;
+                    }
+
+                    onRequest(head);
+                } else {
+                    WebSocketCodec.Frame frame = WebSocketCodec.decode(in, in.capacity());
+                    if (frame == null) {
+                        return;
+                    }
+
+                    onFrame(frame);
+                }
+            }
+        }
+
+        private void onRequest(HttpHead head) {
+            String path = head.getPath();
+
+            if (path != null && path.startsWith("/socket.io/1/websocket/") && "websocket".equalsIgnoreCase(head.getHeader("upgrade"))) {
+                writeAscii("HTTP/1.1 101 Switching Protocols\r\n"
+                        + "Upgrade: websocket\r\n"
+                        + "Connection: Upgrade\r\n"
+                        + "Sec-WebSocket-Accept: " + WebSocketCodec.accept(head.getHeader("sec-websocket-key")) + "\r\n"
+                        + "\r\n");
+
+                websocket = true;
+                clients.add(this);
+
+                send(SocketIoPacket.format(SocketIoPacket.CONNECT, null, null));
+            } else if (path != null && path.startsWith("/socket.io/1/")) {
+                boolean keep = keepAlive && head.isKeepAlive();
+                String body = UUID.randomUUID() + ":" + heartbeatTimeoutSeconds + ":60:websocket";
+
+                if (chunked) {
+                    // Split in two, with an extension and a trailer, as a proxy might send it.
+                    int half = body.length() / 2;
+
+                    writeAscii("HTTP/1.1 200 OK\r\n"
+                            + "Content-Type: text/plain\r\n"
+                            + "Transfer-Encoding: chunked\r\n"
+                            + "Connection: " + (keep ? "keep-alive" : "close") + "\r\n"
+                            + "\r\n"
+                            + Integer.toHexString(half) + ";name=value\r\n" + body.substring(0, half) + "\r\n"
+                            + Integer.toHexString(body.length() - half) + "\r\n" + body.substring(half) + "\r\n"
+                            + "0\r\n"
+                            + "X-Trailer: yes\r\n"
+                            + "\r\n");
+                } else {
+                    writeAscii("HTTP/1.1 200 OK\r\n"
+                            + "Content-Type: text/plain\r\n"
+                            + "Content-Length: " + body.length() + "\r\n"
+                            + "Connection: " + (keep ? "keep-alive" : "close") + "\r\n"
+                            + "\r\n"
+                            + body);
+                }
+
+                if (!keep) {
+                    closeAfterWrite();
+                }
+            } else {
+                writeAscii("HTTP/1.1 404 Not Found\r\nContent-Length: 0\r\nConnection: close\r\n\r\n");
+                closeAfterWrite();
+            }
+        }
+
+        private void onFrame(WebSocketCodec.Frame frame) throws IOException {
+            if (frame.getOpcode() == WebSocketCodec.OPCODE_CLOSE) {
+                close();
+                return;
+            } else if (frame.getOpcode() != WebSocketCodec.OPCODE_TEXT) {
+                return;
+            }
+
+            SocketIoPacket packet = SocketIoPacket.parse(frame.getText());
+
+            switch (packet.getType()) {
+                case SocketIoPacket.HEARTBEAT:
+                    synchronized (heartbeats) {
+                        heartbeats.incrementAndGet();
+                        heartbeats.notifyAll();
+                    }
+                    break;
+                case SocketIoPacket.EVENT:
+                    events.incrementAndGet();
+
+                    JsonObject event = PARSER.parse(packet.getData()).getAsJsonObject();
+                    if (packet.wantsAck()) {
+                        send(SocketIoPacket.format(SocketIoPacket.ACK, null, ackFor(packet.getId(), event)));
+                    }
+                    if ("bind".equals(event.get("name").getAsString())) {
+                        resume(firstArg(event));
+                    }
+                    break;
+                case SocketIoPacket.DISCONNECT:
+                    close();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private String ackFor(String id, JsonObject event) {
+            if (!id.endsWith("+")) {
+                return id;
+            }
+
+            String name = event.get("name").getAsString();
+            JsonObject request = firstArg(event);
+
+            if ("bind".equals(name)) {
+                // An existing client keeps its clientId, a new one gets one.
+                JsonElement clientId = request == null ? null : request.get("clientId");
+
+                JsonObject result = new JsonObject();
+                result.addProperty("clientId", clientId == null || clientId.isJsonNull() ? UUID.randomUUID().toString() : clientId.getAsString());
+                result.addProperty("token", UUID.randomUUID().toString());
+
+                return id + "[" + result + "]";
+            } else if ("list".equals(name)) {
+                JsonArray page = new JsonArray();
+                int limit = request.get("limit").getAsInt();
+
+                for (String data : journal.tailMap(request.get("after").getAsLong(), false).values()) {
+                    if (page.size() == limit) {
+                        break;
+                    }
+
+                    page.add(PARSER.parse(data));
+                }
+
+                return id + "[" + page + "]";
+            } else if ("backfill".equals(name)) {
+                JsonArray found = new JsonArray();
+
+                for (String data : journal.subMap(request.get("start").getAsLong(), true, request.get("end").getAsLong(), true).values()) {
+                    found.add(PARSER.parse(data));
+                }
+
+                return id + "[" + found + "]";
+            }
+
+            JsonElement args = event.get("args");
+
+            return id + (args == null ? "[]" : args.toString());
+        }
+
+        private JsonObject firstArg(JsonObject event) {
+            JsonElement args = event.get("args");
+
+            if (args == null || !args.isJsonArray() || args.getAsJsonArray().size() == 0) {
+                return null;
+            }
+
+            JsonElement arg = args.getAsJsonArray().get(0);
+
+            return arg.isJsonObject() ? arg.getAsJsonObject() : null;
+        }
+
+        private void resume(JsonObject request) {
+            JsonElement versions = request == null ? null : request.get("versions");
+
+            if (versions == null || !versions.isJsonObject()) {
+                return;
+            }
+
+            long after = Long.MAX_VALUE;
+            for (Map.Entry<String, JsonElement> entry : versions.getAsJsonObject().entrySet()) {
+                after = Math.min(after, entry.getValue().getAsLong());
+            }
+
+            for (String data : journal.tailMap(after, false).values()) {
+                send(SocketIoPacket.format(SocketIoPacket.MESSAGE, null, data));
+            }
+        }
+
+        private void send(String packet) {
+            write(WebSocketCodec.encodeText(packet, false, null));
+        }
+
+        private void writeAscii(String text) {
+            write(ByteBuffer.wrap(text.getBytes(WebSocketCodec.UTF8)));
+        }
+
+        private void write(ByteBuffer buffer) {
+            if (closed) {
+                return;
+            }
+
+            boolean idle = out.isEmpty();
+            out.add(buffer);
+
+            if (idle) {
+                flush();
+            }
+        }
+
+        private void closeAfterWrite() {
+            closeAfterWrite = true;
+
+            if (out.isEmpty()) {
+                close();
+            }
+        }
+
+        private void flush() {
+            try {
+                while (!out.isEmpty()) {
+                    channel.write(out.getFirst());
+
+                    if (out.getFirst().hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+
+                    out.removeFirst();
+                }
+            } catch (IOException e) {
+                close();
+                return;
+            }
+
+            if (closeAfterWrite) {
+                close();
+                return;
+            }
+
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        private void close() {
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            out.clear();
+
+            synchronized (clients) {
+                clients.remove(this);
+                clients.notifyAll();
+            }
+
+            if (key != null) {
+                key.cancel();
+            }
+
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // closing anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.zipwhip.api.signals.nio;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Framing round trips, and the handshake example from RFC 6455.
+ */
+public class WebSocketCodecTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testAcceptMatchesTheRfcExample() throws Exception {
+        assertEquals("s3pPLMBiTxaQ9kYGzzhZRbK+xOo=", WebSocketCodec.accept("dGhlIHNhbXBsZSBub25jZQ=="));
+        assertEquals(24, WebSocketCodec.newKey(random).length());
+    }
+
+    @Test
+    public void testRoundTripAllLengthEncodings() throws Exception {
+        for (int length : new int[]{0, 125, 126, 65535, 65536}) {
+            for (boolean mask : new boolean[]{true, false}) {
+                String text = text(length);
+
+                WebSocketCodec.Frame frame = WebSocketCodec.decode(WebSocketCodec.encodeText(text, mask, random), Integer.MAX_VALUE);
+
+                assertNotNull(frame);
+                assertTrue(frame.isFin());
+                assertEquals(WebSocketCodec.OPCODE_TEXT, frame.getOpcode());
+                assertEquals(text, frame.getText());
+            }
+        }
+    }
+
+    @Test
+    public void testPartialFrameLeavesTheBufferAlone() throws Exception {
+        ByteBuffer whole = WebSocketCodec.encodeText(text(300), true, random);
+
+        for (int available = 0; available < whole.remaining(); available++) {
+            ByteBuffer partial = whole.duplicate();
+            partial.limit(available);
+
+            assertNull(WebSocketCodec.decode(partial, Integer.MAX_VALUE));
+            assertEquals(0, partial.position());
+        }
+    }
+
+    @Test
+    public void testTwoFramesInOneBuffer() throws Exception {
+        ByteBuffer first = WebSocketCodec.encodeText("3:::one", true, random);
+        ByteBuffer second = WebSocketCodec.encodeText("3:::two", true, random);
+
+        ByteBuffer buffer = ByteBuffer.allocate(first.remaining() + second.remaining());
+        buffer.put(first).put(second).flip();
+
+        assertEquals("3:::one", WebSocketCodec.decode(buffer, 1024).getText());
+        assertEquals("3:::two", WebSocketCodec.decode(buffer, 1024).getText());
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    public void testFrameTooLarge() throws Exception {
+        try {
+            WebSocketCodec.decode(WebSocketCodec.encodeText(text(2000), false, random), 1000);
+            fail();
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSocketIoPackets() throws Exception {
+        SocketIoPacket packet = SocketIoPacket.parse("5:12+::{\"name\":\"bind\",\"args\":[\"a:b\"]}");
+
+        assertEquals(SocketIoPacket.EVENT, packet.getType());
+        assertEquals("12+", packet.getId());
+        assertEquals("", packet.getEndpoint());
+        assertEquals("{\"name\":\"bind\",\"args\":[\"a:b\"]}", packet.getData());
+        assertTrue(packet.wantsAck());
+        assertEquals("6:::12+[]", SocketIoPacket.formatAck(packet.getId()));
+
+        packet = SocketIoPacket.parse("2::");
+
+        assertEquals(SocketIoPacket.HEARTBEAT, packet.getType());
+        assertFalse(packet.wantsAck());
+        assertNull(packet.getData());
+        assertEquals("2::", SocketIoPacket.format(SocketIoPacket.HEARTBEAT, null, null));
+    }
+
+    private static String text(int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+}
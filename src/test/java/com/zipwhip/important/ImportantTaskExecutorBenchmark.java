@@ -0,0 +1,107 @@
+package com.zipwhip.important;
+
+import com.zipwhip.concurrent.DefaultObservableFuture;
+import com.zipwhip.concurrent.FakeObservableFuture;
+import com.zipwhip.concurrent.ObservableFuture;
+import com.zipwhip.executors.SimpleExecutor;
+import com.zipwhip.important.schedulers.TimerScheduler;
+import com.zipwhip.util.FutureDateUtil;
+
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how many enqueues/sec ImportantTaskExecutor sustains when every request carries a timeout.
+ *
+ * Most requests complete right away (so their timeout has to be cancelled) and 1 in 100 never comes back
+ * (so its timeout has to fire). We compare the default wheel based timeouts with the old TimerScheduler path
+ * (UUID keys, synchronized maps, a broadcast on every timeout).
+ *
+ * This is not a unit test. Run it by hand:
+ *
+ *      mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.zipwhip.important.ImportantTaskExecutorBenchmark
+ */
+public class ImportantTaskExecutorBenchmark {
+
+    private static final int THREADS = 4;
+    private static final int ENQUEUES_PER_THREAD = 250000;
+    private static final int NEVER_COMPLETES_ONE_IN = 100;
+    private static final long TIMEOUT_SECONDS = 2;
+
+    public static void main(String[] args) throws Exception {
+        for (int round = 0; round < 3; round++) {
+            ImportantTaskExecutor wheel = new ImportantTaskExecutor();
+            run("LockFreeWheelTimer", wheel);
+            wheel.destroy();
+
+            TimerScheduler scheduler = new TimerScheduler("Benchmark");
+            ImportantTaskExecutor legacy = new ImportantTaskExecutor(scheduler);
+            run("TimerScheduler    ", legacy);
+            legacy.destroy();
+            scheduler.destroy();
+        }
+    }
+
+    private static void run(String name, final ImportantTaskExecutor executor) throws Exception {
+        final CountDownLatch done = new CountDownLatch(THREADS);
+        final AtomicLong timedOut = new AtomicLong();
+        final long expectedTimeouts = (long) THREADS * ENQUEUES_PER_THREAD / NEVER_COMPLETES_ONE_IN;
+        final CountDownLatch allTimedOut = new CountDownLatch(1);
+
+        final Callable<ObservableFuture<Boolean>> completes = new Callable<ObservableFuture<Boolean>>() {
+            @Override
+            public ObservableFuture<Boolean> call() throws Exception {
+                return new FakeObservableFuture<Boolean>(this, Boolean.TRUE);
+            }
+        };
+
+        final Callable<ObservableFuture<Boolean>> neverCompletes = new Callable<ObservableFuture<Boolean>>() {
+            @Override
+            public ObservableFuture<Boolean> call() throws Exception {
+                return new DefaultObservableFuture<Boolean>(this);
+            }
+        };
+
+        long start = System.nanoTime();
+
+        for (int t = 0; t < THREADS; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < ENQUEUES_PER_THREAD; i++) {
+                        Date expiration = FutureDateUtil.inFuture(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+                        if (i % NEVER_COMPLETES_ONE_IN == 0) {
+                            ObservableFuture<Boolean> future = executor.enqueue(SimpleExecutor.getInstance(), neverCompletes, expiration);
+                            future.addObserver(new com.zipwhip.events.Observer<ObservableFuture<Boolean>>() {
+                                @Override
+                                public void notify(Object sender, ObservableFuture<Boolean> item) {
+                                    if (timedOut.incrementAndGet() == expectedTimeouts) {
+                                        allTimedOut.countDown();
+                                    }
+                                }
+                            });
+                        } else {
+                            executor.enqueue(SimpleExecutor.getInstance(), completes, expiration);
+                        }
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        done.await();
+        long elapsed = System.nanoTime() - start;
+
+        boolean finished = allTimedOut.await(TIMEOUT_SECONDS * 10, TimeUnit.SECONDS);
+
+        System.out.println(String.format("%s %10.0f enqueues/sec, timeouts fired %d/%d %s",
+                name,
+                (double) THREADS * ENQUEUES_PER_THREAD / (elapsed / 1e9),
+                timedOut.get(), expectedTimeouts,
+                finished ? "" : "(NOT ALL TIMEOUTS FIRED)"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.zipwhip.important.schedulers;
+
+import com.zipwhip.executors.NamedThreadFactory;
+import com.zipwhip.timers.Timeout;
+import com.zipwhip.timers.TimerTask;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.*;
+
+/**
+ * Tests for the LockFreeWheelTimer
+ */
+public class LockFreeWheelTimerTest {
+
+    private LockFreeWheelTimer timer;
+
+    @Before
+    public void setUp() throws Exception {
+        // a tiny wheel so that we exercise the remainingRounds logic too
+        timer = new LockFreeWheelTimer(new NamedThreadFactory("LockFreeWheelTimerTest-"), 5, TimeUnit.MILLISECONDS, 8);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        timer.stop();
+    }
+
+    @Test
+    public void testExpires() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long start = System.nanoTime();
+
+        Timeout timeout = timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                latch.countDown();
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue("Didn't expire in time", latch.await(5, TimeUnit.SECONDS));
+        assertTrue("Expired too early", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.isCancelled());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final AtomicInteger fired = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        Timeout cancelled = timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                fired.incrementAndGet();
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+
+        // after the cancelled one, so by the time this fires the other would have too.
+        timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                latch.countDown();
+            }
+        }, 150, TimeUnit.MILLISECONDS);
+
+        cancelled.cancel();
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, fired.get());
+        assertTrue(cancelled.isCancelled());
+        assertFalse(cancelled.isExpired());
+    }
+
+    @Test
+    public void testStopReturnsUnprocessed() throws Exception {
+        Timeout timeout = timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout timeout) throws Exception {
+                fail("Should not have run");
+            }
+        }, 1, TimeUnit.MINUTES);
+
+        Set<Timeout> unprocessed = timer.stop();
+
+        assertEquals(1, unprocessed.size());
+        assertTrue(unprocessed.contains(timeout));
+    }
+}
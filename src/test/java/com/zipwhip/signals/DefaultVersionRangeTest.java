@@ -230,6 +230,25 @@ public class DefaultVersionRangeTest {
         assertListEquals(Arrays.asList(1L, 3L, 5L, 6L));
     }
 
+    @Test
+    public void testHighestContiguousVersion() throws Exception {
+        assertEquals(null, versionRange.getHighestContiguousVersion());
+
+        versionRange.add(1);
+        versionRange.add(2);
+        versionRange.add(3);
+        versionRange.add(4);
+        assertEquals(Long.valueOf(4), versionRange.getHighestContiguousVersion());
+
+        versionRange.add(6);
+        versionRange.add(7);
+        assertEquals(Long.valueOf(4), versionRange.getHighestContiguousVersion());
+        assertEquals(Long.valueOf(7), versionRange.getHighestVersion());
+
+        versionRange.add(5);
+        assertEquals(Long.valueOf(7), versionRange.getHighestContiguousVersion());
+    }
+
     private void assertHoleListEquals(List<Long> holeList) {
         assertTrue(holeList.size() == versionRange.holes.size());
 
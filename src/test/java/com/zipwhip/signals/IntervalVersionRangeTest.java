@@ -0,0 +1,189 @@
+package com.zipwhip.signals;
+
+import com.zipwhip.concurrent.HoleRange;
+import com.zipwhip.events.Observer;
+import com.zipwhip.timers.HashedWheelTimer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class IntervalVersionRangeTest {
+
+    IntervalVersionRange versionRange;
+
+    @Before
+    public void setUp() throws Exception {
+        versionRange = new IntervalVersionRange(new HashedWheelTimer(), 100, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testInOrderIsOneRun() throws Exception {
+        for (long version = 1; version <= 1000; version++) {
+            assertTrue(versionRange.add(version));
+        }
+
+        assertFalse(versionRange.add(500));
+        assertEquals(1, versionRange.getRunCount());
+        assertEquals(Long.valueOf(1000), versionRange.getHighestVersion());
+        assertEquals(Long.valueOf(1000), versionRange.getHighestContiguousVersion());
+        assertTrue(versionRange.getHoles().isEmpty());
+    }
+
+    @Test
+    public void testHolesAreIntervals() throws Exception {
+        versionRange.add(1);
+        versionRange.add(3);
+        versionRange.add(5);
+        versionRange.add(10);
+        versionRange.add(11);
+
+        assertEquals(Arrays.asList(hole(2, 2), hole(4, 4), hole(6, 9)), versionRange.getHoles());
+        assertEquals(Long.valueOf(1), versionRange.getHighestContiguousVersion());
+
+        versionRange.add(9);
+        versionRange.add(7);
+        assertEquals(Arrays.asList(hole(2, 2), hole(4, 4), hole(6, 6), hole(8, 8)), versionRange.getHoles());
+
+        versionRange.add(2);
+        versionRange.add(4);
+        versionRange.add(6);
+        versionRange.add(8);
+
+        assertTrue(versionRange.getHoles().isEmpty());
+        assertEquals(1, versionRange.getRunCount());
+        assertEquals(Long.valueOf(11), versionRange.getHighestContiguousVersion());
+    }
+
+    @Test
+    public void testLargeJumpIsOneHole() throws Exception {
+        versionRange.add(1);
+        versionRange.add(1000000);
+
+        assertEquals(2, versionRange.getRunCount());
+        assertEquals(Collections.singletonList(hole(2, 999999)), versionRange.getHoles());
+    }
+
+    @Test
+    public void testLargeInitialItem() throws Exception {
+        versionRange.add(4);
+        versionRange.add(5);
+        versionRange.add(1);
+
+        assertEquals(Collections.singletonList(hole(2, 3)), versionRange.getHoles());
+
+        versionRange.add(2);
+        versionRange.add(3);
+
+        assertTrue(versionRange.getHoles().isEmpty());
+        assertEquals(Long.valueOf(5), versionRange.getHighestContiguousVersion());
+    }
+
+    @Test
+    public void testTakeHolesReportsEachHoleOnce() throws Exception {
+        versionRange.add(1);
+        versionRange.add(10);
+
+        assertEquals(Collections.singletonList(hole(2, 9)), versionRange.takeHoles());
+        assertTrue(versionRange.takeHoles().isEmpty());
+
+        // Filling part of it uncovers nothing new. A new gap above is new.
+        versionRange.add(5);
+        versionRange.add(20);
+
+        assertEquals(Collections.singletonList(hole(11, 19)), versionRange.takeHoles());
+        assertEquals(Arrays.asList(hole(2, 4), hole(6, 9), hole(11, 19)), versionRange.getHoles());
+    }
+
+    @Test
+    public void testTriggerHoleObserver() throws Exception {
+        final List<HoleRange> holes = Collections.synchronizedList(new ArrayList<HoleRange>());
+        final CountDownLatch latch = new CountDownLatch(2);
+
+        versionRange.getHoleDetectedEvent().addObserver(new Observer<HoleRange>() {
+            @Override
+            public void notify(Object o, HoleRange holeRange) {
+                holes.add(holeRange);
+                latch.countDown();
+            }
+        });
+
+        versionRange.add(1);
+        versionRange.add(3);
+        versionRange.add(7);
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(hole(2, 2), hole(4, 6)), holes);
+    }
+
+    @Test
+    public void testVersionReset() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        versionRange.getResetDetectedEvent().addObserver(new Observer<Long>() {
+            @Override
+            public void notify(Object o, Long version) {
+                latch.countDown();
+            }
+        });
+
+        for (long version = 48; version <= 152; version++) {
+            versionRange.add(version);
+        }
+
+        versionRange.add(1);
+
+        assertEquals(0, latch.getCount());
+        assertEquals(1, versionRange.getRunCount());
+        assertEquals(Long.valueOf(1), versionRange.getHighestVersion());
+    }
+
+    @Test
+    public void testFillingAnOldHoleIsNotAReset() throws Exception {
+        versionRange.add(1);
+        versionRange.add(200);
+
+        versionRange.add(2);
+
+        assertEquals(Long.valueOf(200), versionRange.getHighestVersion());
+        assertEquals(Long.valueOf(2), versionRange.getHighestContiguousVersion());
+    }
+
+    @Test
+    public void testShuffledMatchesExpected() throws Exception {
+        List<Long> versions = new ArrayList<Long>();
+        for (long version = 1; version <= 5000; version++) {
+            if (version % 7 != 0) {
+                versions.add(version);
+            }
+        }
+
+        versions.add(0, 1L);
+        Collections.shuffle(versions.subList(1, versions.size()), new Random(42));
+
+        for (Long version : versions) {
+            versionRange.add(version);
+        }
+
+        List<HoleRange> holes = versionRange.getHoles();
+
+        assertEquals(5000 / 7, holes.size());
+        for (HoleRange hole : holes) {
+            assertEquals(hole.getStart(), hole.getEnd());
+            assertEquals(0, hole.getStart() % 7);
+            assertFalse(versionRange.contains(hole.getStart()));
+        }
+    }
+
+    private static HoleRange hole(long start, long end) {
+        return new HoleRange(null, start, end);
+    }
+}
@@ -0,0 +1,80 @@
+package com.zipwhip.signals;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    LatencyHistogram histogram = new LatencyHistogram(3600000000L);
+
+    @Test
+    public void testSmallValuesAreExact() throws Exception {
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+        assertEquals(50.5, histogram.getMean(), 0.001);
+    }
+
+    @Test
+    public void testPercentilesWithinPrecision() throws Exception {
+        Random random = new Random(7);
+        long[] values = new long[100000];
+
+        for (int i = 0; i < values.length; i++) {
+            // Spread over six orders of magnitude.
+            values[i] = (long) Math.pow(10, 6 * random.nextDouble());
+            histogram.record(values[i]);
+        }
+
+        Arrays.sort(values);
+
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            long expected = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long actual = histogram.getValueAtPercentile(percentile);
+
+            // Reported at the top of the bucket: never below, and within 1/64 above.
+            assertTrue(percentile + ": " + actual + " < " + expected, actual >= expected);
+            assertTrue(percentile + ": " + actual + " vs " + expected, actual <= expected + expected / 64 + 1);
+        }
+
+        assertEquals(values[values.length - 1], histogram.getMax());
+    }
+
+    @Test
+    public void testFixedSize() throws Exception {
+        long size = histogram.getSizeInBytes();
+
+        for (long i = 0; i < 100000; i++) {
+            histogram.record(i * 31);
+        }
+
+        assertEquals(size, histogram.getSizeInBytes());
+        assertTrue("size: " + size, size < 20000);
+    }
+
+    @Test
+    public void testOutOfRange() throws Exception {
+        histogram.record(-5);
+        histogram.record(10000000000L);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(10000000000L, histogram.getMax());
+        assertEquals(10000000000L, histogram.getValueAtPercentile(100));
+
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
@@ -0,0 +1,93 @@
+package com.zipwhip.signals;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class TimeBucketedBloomFilterTest {
+
+    long now = 1000000;
+
+    TimeBucketedBloomFilter filter = new TimeBucketedBloomFilter(4, TimeUnit.SECONDS, 1000, 0.001) {
+        @Override
+        protected long now() {
+            return now;
+        }
+    };
+
+    @Test
+    public void testSeesRepeats() throws Exception {
+        assertFalse(filter.checkAndAdd("a"));
+        assertFalse(filter.checkAndAdd("b"));
+        assertTrue(filter.checkAndAdd("a"));
+        assertTrue(filter.checkAndAdd("b"));
+    }
+
+    @Test
+    public void testForgetsOutsideTheWindow() throws Exception {
+        assertFalse(filter.checkAndAdd("a"));
+
+        // Still inside the window (4 buckets of a second each).
+        now += 3000;
+        assertTrue(filter.checkAndAdd("a"));
+
+        // A repeat is not added again, so it is gone once its first bucket is.
+        now += 1000;
+        assertFalse(filter.checkAndAdd("a"));
+        assertTrue(filter.checkAndAdd("a"));
+    }
+
+    @Test
+    public void testFalsePositiveRateHolds() throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            filter.checkAndAdd("seen-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.checkAndAdd("new-" + i)) {
+                falsePositives++;
+            }
+
+            // Keep the filter at its expected load.
+            now += 40;
+        }
+
+        // 0.001 of 100,000 is 100. Allow some slack for the hash.
+        assertTrue("false positives: " + falsePositives, falsePositives < 300);
+    }
+
+    @Test
+    public void testBurstDoesNotSaturate() throws Exception {
+        // Ten times the expected ids, all in the same instant.
+        for (int i = 0; i < 10000; i++) {
+            filter.checkAndAdd("burst-" + i);
+        }
+
+        assertTrue(filter.getEarlyRotationCount() > 0);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.checkAndAdd("new-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Still about 0.001, not the tens of percent of an overfull filter.
+        assertTrue("false positives: " + falsePositives, falsePositives < 300);
+    }
+
+    @Test
+    public void testFixedSize() throws Exception {
+        long size = filter.getSizeInBytes();
+
+        for (int i = 0; i < 100000; i++) {
+            filter.checkAndAdd("id-" + i);
+        }
+
+        assertEquals(size, filter.getSizeInBytes());
+        assertTrue(filter.getHashCount() > 1);
+    }
+}
@@ -0,0 +1,115 @@
+package com.zipwhip.signals;
+
+import com.zipwhip.executors.NamedThreadFactory;
+import com.zipwhip.timers.HashedWheelTimer;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares DefaultVersionRange with IntervalVersionRange on three streams of versions:
+ * <ul>
+ * <li>in order: 1, 2, 3, ...</li>
+ * <li>reordered: in order, except every 10th version arrives 5 behind (small holes that open and close)</li>
+ * <li>jump: version 1, then a million ahead and in order from there (one wide hole that stays open)</li>
+ * </ul>
+ * For each we report the cost of add() and the heap held once the stream is done, before the holes are reported.
+ * A few copies of each range are kept alive so the heap numbers rise above the noise.
+ *
+ * This is not a unit test. Run it by hand, with room for a million boxed Longs per DefaultVersionRange copy:
+ *
+ *      MAVEN_OPTS=-Xmx1g mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.zipwhip.signals.VersionRangeBenchmark
+ */
+public class VersionRangeBenchmark {
+
+    private static final int COUNT = 20000;
+    private static final long JUMP = 1000000;
+    private static final int COPIES = 3;
+
+    public static void main(String[] args) throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer(new NamedThreadFactory("BenchmarkTimer-"), 1, TimeUnit.SECONDS);
+
+        for (String stream : new String[]{"in order", "reordered", "jump"}) {
+            for (int round = 0; round < 3; round++) {
+                boolean print = round == 2;
+
+                VersionRange[] ranges = new VersionRange[COPIES];
+
+                for (int i = 0; i < COPIES; i++) {
+                    ranges[i] = new DefaultVersionRange(timer, 1, TimeUnit.HOURS);
+                }
+                run("Default ", stream, ranges, print);
+
+                for (int i = 0; i < COPIES; i++) {
+                    ranges[i] = new IntervalVersionRange(timer, 1, TimeUnit.HOURS);
+                }
+                run("Interval", stream, ranges, print);
+            }
+        }
+
+        timer.stop();
+    }
+
+    private static void run(String name, String stream, VersionRange[] ranges, boolean print) {
+        long[] versions = versions(stream);
+
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+
+        for (VersionRange range : ranges) {
+            for (long version : versions) {
+                range.add(version);
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long heap = (usedHeap() - heapBefore) / ranges.length;
+
+        if (print) {
+            System.out.println(String.format("%s %-9s %6d adds: %10.1f ns/add, %12d bytes held, contiguous to %d",
+                    name, stream, versions.length, (double) elapsed / versions.length / ranges.length, heap,
+                    ranges[0].getHighestContiguousVersion()));
+        }
+    }
+
+    private static long[] versions(String stream) {
+        long[] versions = new long[COUNT];
+
+        if ("in order".equals(stream)) {
+            for (int i = 0; i < COUNT; i++) {
+                versions[i] = i + 1;
+            }
+        } else if ("reordered".equals(stream)) {
+            for (int i = 0; i < COUNT; i++) {
+                versions[i] = i + 1;
+            }
+
+            Random random = new Random(42);
+            for (int i = 10; i < COUNT; i += 10) {
+                int from = i - random.nextInt(5) - 1;
+                long late = versions[from];
+
+                System.arraycopy(versions, from + 1, versions, from, i - from);
+                versions[i] = late;
+            }
+        } else {
+            versions[0] = 1;
+
+            for (int i = 1; i < COUNT; i++) {
+                versions[i] = JUMP + i;
+            }
+        }
+
+        return versions;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,17 @@
+package com.zipwhip.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HttpUtilTest {
+
+    @Test
+    public void testCharsetParsing() throws Exception {
+        assertEquals("ISO-8859-1", HttpUtil.getCharset("text/html; charset=\"iso-8859-1\"").name());
+        assertEquals("UTF-8", HttpUtil.getCharset("application/json").name());
+        assertEquals("UTF-8", HttpUtil.getCharset("application/json; charset=nonsense").name());
+        assertEquals("UTF-8", HttpUtil.getCharset(null).name());
+        assertEquals("UTF-8", HttpUtil.getCharset("text/plain;CHARSET=utf-8").name());
+    }
+}